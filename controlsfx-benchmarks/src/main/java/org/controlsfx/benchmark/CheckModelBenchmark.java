@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met: *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer. * Redistributions in binary
+ * form must reproduce the above copyright notice, this list of conditions and
+ * the following disclaimer in the documentation and/or other materials provided
+ * with the distribution. * Neither the name of ControlsFX, any associated
+ * website, nor the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javafx.collections.FXCollections;
+import org.controlsfx.control.CheckListView;
+import org.controlsfx.control.IndexedCheckModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the bit set based check model of {@link CheckListView}
+ * (CheckBitSetModelBase), which is also the one of CheckComboBox.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheckModelBenchmark {
+
+    @Param({"1000", "10000"})
+    public int itemCount;
+
+    private IndexedCheckModel<String> checkModel;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        List<String> items = Item.createItems(itemCount).stream()
+                .map(Item::getName)
+                .collect(Collectors.toList());
+        checkModel = FXThread.call(() -> new CheckListView<>(FXCollections.observableArrayList(items)).getCheckModel());
+        // One item out of three is checked.
+        for (int i = 0; i < itemCount; i += 3) {
+            checkModel.check(i);
+        }
+    }
+
+    @Benchmark
+    public void iterateCheckedIndices(Blackhole blackhole) {
+        for (Integer index : checkModel.getCheckedIndices()) {
+            blackhole.consume(index);
+        }
+    }
+
+    @Benchmark
+    public void iterateCheckedItems(Blackhole blackhole) {
+        for (String item : checkModel.getCheckedItems()) {
+            blackhole.consume(item);
+        }
+    }
+
+    @Benchmark
+    public boolean toggleCheckState() {
+        checkModel.toggleCheckState(1);
+        checkModel.toggleCheckState(1);
+        return checkModel.isChecked(1);
+    }
+
+    @Benchmark
+    public int checkAllAndClear() {
+        checkModel.checkAll();
+        int checked = checkModel.getCheckedIndices().size();
+        checkModel.clearChecks();
+        for (int i = 0; i < itemCount; i += 3) {
+            checkModel.check(i);
+        }
+        return checked;
+    }
+}
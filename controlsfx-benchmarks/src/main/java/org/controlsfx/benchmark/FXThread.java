@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met: *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer. * Redistributions in binary
+ * form must reproduce the above copyright notice, this list of conditions and
+ * the following disclaimer in the documentation and/or other materials provided
+ * with the distribution. * Neither the name of ControlsFX, any associated
+ * website, nor the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.benchmark;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import javafx.application.Platform;
+import javafx.embed.swing.JFXPanel;
+import javax.swing.SwingUtilities;
+
+/**
+ * Starts the JavaFX toolkit once for all the benchmarks of the fork, and
+ * creates the controls on the JavaFX Application Thread.
+ *
+ * The controls are never shown, so the benchmark methods themselves are
+ * called on the JMH thread: hopping to the JavaFX thread on every invocation
+ * would measure the hop rather than the code.
+ */
+final class FXThread {
+
+    private static boolean started;
+
+    private FXThread() {
+    }
+
+    /**
+     * Calls the given code on the JavaFX Application Thread and waits for its
+     * result, starting the toolkit first if needed.
+     *
+     * @param callable
+     * @return the result of the callable
+     * @throws Exception if the callable has thrown one
+     */
+    static <T> T call(Callable<T> callable) throws Exception {
+        start();
+        if (Platform.isFxApplicationThread()) {
+            return callable.call();
+        }
+        FutureTask<T> task = new FutureTask<>(callable);
+        Platform.runLater(task);
+        try {
+            return task.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof Exception) {
+                throw (Exception) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    private static synchronized void start() throws InterruptedException {
+        if (!started) {
+            final CountDownLatch latch = new CountDownLatch(1);
+            SwingUtilities.invokeLater(() -> {
+                // initializes JavaFX environment
+                new JFXPanel();
+                latch.countDown();
+            });
+            latch.await();
+            Platform.setImplicitExit(false);
+            started = true;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met: *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer. * Redistributions in binary
+ * form must reproduce the above copyright notice, this list of conditions and
+ * the following disclaimer in the documentation and/or other materials provided
+ * with the distribution. * Neither the name of ControlsFX, any associated
+ * website, nor the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.benchmark;
+
+import impl.org.controlsfx.tableview2.FilteredColumnPredicate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import org.controlsfx.control.tableview2.FilteredTableColumn;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the evaluation of a {@link FilteredColumnPredicate} over all the
+ * items, as done by FilteredTableView on every filter change.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilteredColumnPredicateBenchmark {
+
+    @Param({"10000", "100000"})
+    public int rowCount;
+
+    private List<Item> items;
+    private FilteredColumnPredicate<Item, ?> predicate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        items = Item.createItems(rowCount);
+
+        FilteredTableColumn<Item, String> name = new FilteredTableColumn<>("Name");
+        name.setCellValueFactory(p -> new ReadOnlyObjectWrapper<>(p.getValue().getName()));
+        name.setPredicate(s -> s.contains("a"));
+        FilteredTableColumn<Item, Integer> amount = new FilteredTableColumn<>("Amount");
+        amount.setCellValueFactory(p -> new ReadOnlyObjectWrapper<>(p.getValue().getAmount()));
+        amount.setPredicate(i -> i >= 100 && i < 900);
+
+        predicate = new FilteredColumnPredicate<>(Arrays.asList(name, amount));
+    }
+
+    @Benchmark
+    public int test() {
+        int count = 0;
+        for (Item item : items) {
+            if (predicate.test(item)) {
+                ++count;
+            }
+        }
+        return count;
+    }
+}
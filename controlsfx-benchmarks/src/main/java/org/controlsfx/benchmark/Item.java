@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met: *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer. * Redistributions in binary
+ * form must reproduce the above copyright notice, this list of conditions and
+ * the following disclaimer in the documentation and/or other materials provided
+ * with the distribution. * Neither the name of ControlsFX, any associated
+ * website, nor the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The row type shared by the table benchmarks, with a low cardinality text
+ * column, a high cardinality text column and a number column.
+ */
+public final class Item {
+
+    private static final String[] CITIES = {"Paris", "London", "Berlin", "Madrid", "Rome",
+        "Lisbon", "Vienna", "Prague", "Warsaw", "Dublin"};
+
+    private final String city;
+    private final String name;
+    private final Integer amount;
+
+    public Item(String city, String name, Integer amount) {
+        this.city = city;
+        this.name = name;
+        this.amount = amount;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Integer getAmount() {
+        return amount;
+    }
+
+    /**
+     * Creates reproducible random items.
+     *
+     * @param count
+     * @return the list of items
+     */
+    static List<Item> createItems(int count) {
+        Random random = new Random(42);
+        List<Item> items = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            items.add(new Item(CITIES[random.nextInt(CITIES.length)],
+                    Long.toString(random.nextLong() & Long.MAX_VALUE, 36),
+                    random.nextInt(1000)));
+        }
+        return items;
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met: *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer. * Redistributions in binary
+ * form must reproduce the above copyright notice, this list of conditions and
+ * the following disclaimer in the documentation and/or other materials provided
+ * with the distribution. * Neither the name of ControlsFX, any associated
+ * website, nor the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.benchmark;
+
+import impl.org.controlsfx.tableview2.filter.parser.aggregate.AggregatorsParser;
+import impl.org.controlsfx.tableview2.filter.parser.number.NumberParser;
+import impl.org.controlsfx.tableview2.filter.parser.string.StringParser;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the parsing of the filter expressions typed in the south header of
+ * a FilteredTableView, and the evaluation of the resulting predicates.
+ *
+ * The operators are localized, so the expressions are built from the
+ * operators returned by the parsers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+    private StringParser<String> stringParser;
+    private NumberParser<Integer> numberParser;
+    private String stringExpression;
+    private String numberExpression;
+    private List<Item> items;
+    private Predicate<String> stringPredicate;
+    private Predicate<Integer> numberPredicate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        stringParser = new StringParser<>();
+        numberParser = new NumberParser<>();
+        String and = AggregatorsParser.AND.get();
+
+        // begins with "a" and contains "z"
+        List<String> stringOperators = stringParser.operators();
+        stringExpression = stringOperators.get(0) + " \"a\"" + and + stringOperators.get(2) + " \"z\"";
+        // greater than or equal to 100 and less than 900
+        List<String> numberOperators = numberParser.operators();
+        numberExpression = numberOperators.get(2) + " 100" + and + numberOperators.get(5) + " 900";
+
+        stringPredicate = stringParser.parse(stringExpression);
+        numberPredicate = numberParser.parse(numberExpression);
+        if (stringPredicate == null || numberPredicate == null) {
+            throw new IllegalStateException(stringParser.getErrorMessage() + numberParser.getErrorMessage());
+        }
+        items = Item.createItems(10000);
+    }
+
+    @Benchmark
+    public Predicate<String> parseString() {
+        return stringParser.parse(stringExpression);
+    }
+
+    @Benchmark
+    public Predicate<Integer> parseNumber() {
+        return numberParser.parse(numberExpression);
+    }
+
+    @Benchmark
+    public int testString() {
+        int count = 0;
+        for (Item item : items) {
+            if (stringPredicate.test(item.getName())) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int testNumber() {
+        int count = 0;
+        for (Item item : items) {
+            if (numberPredicate.test(item.getAmount())) {
+                ++count;
+            }
+        }
+        return count;
+    }
+}
@@ -32,6 +32,7 @@ import javafx.scene.Node;
 
 import org.controlsfx.control.GridCell;
 import org.controlsfx.control.GridView;
+import org.controlsfx.tools.RenderingMetrics;
 
 import com.sun.javafx.scene.control.behavior.BehaviorBase;
 import com.sun.javafx.scene.control.behavior.KeyBinding;
@@ -84,6 +85,7 @@ public class GridRowSkin<T> extends CellSkinBase<GridRow<T>, BehaviorBase<GridRo
         int rowIndex = getSkinnable().getIndex();
         if (rowIndex >= 0) {
             GridView<T> gridView = getSkinnable().getGridView();
+            final RenderingMetrics metrics = gridView.getRenderingMetrics();
             int maxCellsInRow = ((GridViewSkin<?>)gridView.getSkin()).computeMaxCellsInRow();
             int totalCellsInGrid = gridView.getItems().size();
             int startCellIndex = rowIndex * maxCellsInRow;
@@ -97,9 +99,13 @@ public class GridRowSkin<T> extends CellSkinBase<GridRow<T>, BehaviorBase<GridRo
                     if( cell == null ) {
                         cell = createCell();
                         getChildren().add(cell);
+                        if (metrics != null) {
+                            metrics.cellCreated();
+                        }
+                    } else if (metrics != null) {
+                        metrics.cellReused();
                     }
-                    cell.updateIndex(-1);
-                    cell.updateIndex(cellIndex);
+                    updateCell(cell, cellIndex, metrics);
                 }
                 // we are going out of bounds -> exist the loop
                 else { break; }
@@ -111,6 +117,22 @@ public class GridRowSkin<T> extends CellSkinBase<GridRow<T>, BehaviorBase<GridRo
         }
     }
 
+    /**
+     * Binds the cell to the item at the given index, measuring it if the
+     * GridView has {@link RenderingMetrics}.
+     */
+    private void updateCell(GridCell<T> cell, int cellIndex, RenderingMetrics metrics) {
+        final long start = metrics == null ? 0 : metrics.begin();
+        try {
+            cell.updateIndex(-1);
+            cell.updateIndex(cellIndex);
+        } finally {
+            if (metrics != null) {
+                metrics.endUpdateItem(start);
+            }
+        }
+    }
+
     private GridCell<T> createCell() {
         GridView<T> gridView = getSkinnable().gridViewProperty().get();
         GridCell<T> cell;
@@ -150,6 +172,20 @@ public class GridRowSkin<T> extends CellSkinBase<GridRow<T>, BehaviorBase<GridRo
     }
 
     @Override protected void layoutChildren(double x, double y, double w, double h) {
+        final RenderingMetrics metrics = getSkinnable().getGridView().getRenderingMetrics();
+        if (metrics == null) {
+            layoutCells();
+            return;
+        }
+        final long start = metrics.begin();
+        try {
+            layoutCells();
+        } finally {
+            metrics.endRowLayout(start);
+        }
+    }
+
+    private void layoutCells() {
 //        double currentWidth = getSkinnable().getWidth();
         double cellWidth = getSkinnable().gridViewProperty().get().getCellWidth();
         double cellHeight = getSkinnable().gridViewProperty().get().getCellHeight();
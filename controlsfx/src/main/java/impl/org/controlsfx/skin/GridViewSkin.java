@@ -28,12 +28,14 @@ package impl.org.controlsfx.skin;
 
 import java.util.Collections;
 
+import javafx.beans.value.WritableValue;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.collections.WeakListChangeListener;
 import javafx.util.Callback;
 
 import org.controlsfx.control.GridView;
+import org.controlsfx.tools.RenderingMetrics;
 
 import com.sun.javafx.scene.control.behavior.BehaviorBase;
 import com.sun.javafx.scene.control.behavior.KeyBinding;
@@ -146,6 +148,42 @@ public class GridViewSkin<T> extends VirtualContainerBase<GridView<T>, BehaviorB
         flow.resizeRelocate(x1, y1, w1, h1);
     }
 
+    /**
+     * Creates a VirtualFlow measuring its layout and CSS passes when the
+     * GridView has {@link RenderingMetrics}.
+     */
+    @Override protected VirtualFlow<GridRow<T>> createVirtualFlow() {
+        return new VirtualFlow<GridRow<T>>() {
+            @Override protected void layoutChildren() {
+                final RenderingMetrics metrics = getSkinnable().getRenderingMetrics();
+                if (metrics == null) {
+                    super.layoutChildren();
+                    return;
+                }
+                final long start = metrics.begin();
+                try {
+                    super.layoutChildren();
+                } finally {
+                    metrics.endFlowLayout(start);
+                }
+            }
+
+            @Override protected void impl_processCSS(WritableValue<Boolean> unused) {
+                final RenderingMetrics metrics = getSkinnable().getRenderingMetrics();
+                if (metrics == null) {
+                    super.impl_processCSS(unused);
+                    return;
+                }
+                final long start = metrics.begin();
+                try {
+                    super.impl_processCSS(unused);
+                } finally {
+                    metrics.endCss(start);
+                }
+            }
+        };
+    }
+
     @Override public GridRow<T> createCell() {
         GridRow<T> row = new GridRow<>();
         row.updateGridView(getSkinnable());
@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met: *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer. * Redistributions in binary
+ * form must reproduce the above copyright notice, this list of conditions and
+ * the following disclaimer in the documentation and/or other materials provided
+ * with the distribution. * Neither the name of ControlsFX, any associated
+ * website, nor the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package impl.org.controlsfx.spreadsheet;
+
+import static impl.org.controlsfx.spreadsheet.RectangleSelection.SelectionRange.key;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import org.controlsfx.control.spreadsheet.SpreadsheetCell;
+
+/**
+ * The heights measured when fitting the rows to their content, so that an
+ * unchanged cell is never measured twice.
+ *
+ * <p>
+ * The heights are stored by cell position along with a fingerprint of what
+ * can influence the height: the width given to the cell, its text, its style
+ * and its hash code, which covers the style class of a
+ * {@link org.controlsfx.control.spreadsheet.SpreadsheetCellBase}. Computing
+ * the fingerprint only reads fields of the cell, so looking up a cell does
+ * not create its lazy state, and does not require to give the cell to a
+ * {@link CellView}.
+ */
+final class CellHeightCache {
+
+    static final int MAX_SIZE = 10_000;
+
+    private final Map<Long, Entry> heights = new HashMap<>();
+
+    /**
+     * Returns the height measured for this cell with this width, or
+     * {@code NaN} if the cell has changed or has not been measured.
+     *
+     * @param cell
+     * @param width
+     * @return the measured height, or {@code NaN}
+     */
+    double get(SpreadsheetCell cell, double width) {
+        final Entry entry = heights.get(key(cell.getRow(), cell.getColumn()));
+        return entry != null && entry.fingerprint == fingerprint(cell, width) ? entry.height : Double.NaN;
+    }
+
+    /**
+     * Stores the height measured for this cell with this width.
+     *
+     * @param cell
+     * @param width
+     * @param height
+     */
+    void put(SpreadsheetCell cell, double width, double height) {
+        if (heights.size() >= MAX_SIZE) {
+            heights.clear();
+        }
+        heights.put(key(cell.getRow(), cell.getColumn()), new Entry(fingerprint(cell, width), height));
+    }
+
+    int size() {
+        return heights.size();
+    }
+
+    private static int fingerprint(SpreadsheetCell cell, double width) {
+        int result = cell.hashCode();
+        result = 31 * result + Objects.hashCode(cell.getText());
+        result = 31 * result + Objects.hashCode(cell.getStyle());
+        result = 31 * result + Double.hashCode(width);
+        return result;
+    }
+
+    private static final class Entry {
+
+        private final int fingerprint;
+        private final double height;
+
+        Entry(int fingerprint, double height) {
+            this.fingerprint = fingerprint;
+            this.height = height;
+        }
+    }
+}
@@ -278,6 +278,8 @@ public class CellView extends TableCell<ObservableList<SpreadsheetCell>, Spreads
      * @param cell
      */
     public void show(final SpreadsheetCell cell) {
+        //The text is only formatted again if the locale has changed.
+        handle.updateTextLocale(cell);
         // We reset the settings
         textProperty().bind(cell.textProperty());
         setCellGraphic(cell);
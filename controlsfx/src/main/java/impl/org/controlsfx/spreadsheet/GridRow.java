@@ -31,7 +31,6 @@ import javafx.beans.Observable;
 import javafx.beans.WeakInvalidationListener;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.SimpleDoubleProperty;
-import javafx.collections.MapChangeListener;
 import javafx.collections.ObservableList;
 import javafx.event.Event;
 import javafx.event.EventHandler;
@@ -82,15 +81,11 @@ public class GridRow extends TableRow<ObservableList<SpreadsheetCell>> {
         /**
          * When the height is changing elsewhere, we need to update ourself if necessary.
          */
-        handle.getCellsViewSkin().rowHeightMap.addListener(new MapChangeListener<Integer, Double>() {
-
-            @Override
-            public void onChanged(MapChangeListener.Change<? extends Integer, ? extends Double> change) {
-                if (change.wasAdded() && change.getKey() == handle.getView().getModelRow(getIndex())) {
-                    setRowHeight(change.getValueAdded());
-                } else if (change.wasRemoved() && change.getKey() == handle.getView().getModelRow(getIndex())) {
-                    setRowHeight(computePrefHeight(-1));
-                }
+        handle.getCellsViewSkin().rowHeightMap.addListener((int modelRow) -> {
+            final int currentRow = handle.getView().getModelRow(getIndex());
+            if (modelRow == currentRow || modelRow == -1) {
+                final double height = handle.getCellsViewSkin().rowHeightMap.get(currentRow);
+                setRowHeight(Double.isNaN(height) ? computePrefHeight(-1) : height);
             }
         });
         /**
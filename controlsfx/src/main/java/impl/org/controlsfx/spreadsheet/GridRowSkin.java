@@ -31,6 +31,7 @@ import com.sun.javafx.scene.control.behavior.TableRowBehavior;
 import com.sun.javafx.scene.control.skin.CellSkinBase;
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
+import impl.org.controlsfx.tools.ColumnOffsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -46,6 +47,7 @@ import org.controlsfx.control.spreadsheet.Grid;
 import org.controlsfx.control.spreadsheet.SpreadsheetCell;
 import org.controlsfx.control.spreadsheet.SpreadsheetColumn;
 import org.controlsfx.control.spreadsheet.SpreadsheetView;
+import org.controlsfx.tools.RenderingMetrics;
 
 public class GridRowSkin extends CellSkinBase<TableRow<ObservableList<SpreadsheetCell>>, CellBehaviorBase<TableRow<ObservableList<SpreadsheetCell>>>> {
 
@@ -109,6 +111,20 @@ public class GridRowSkin extends CellSkinBase<TableRow<ObservableList<Spreadshee
 
     @Override
     protected void layoutChildren(double x, final double y, final double w, final double h) {
+        final RenderingMetrics metrics = spreadsheetView.getRenderingMetrics();
+        if (metrics == null) {
+            layoutCells(x, y, w, h);
+            return;
+        }
+        final long start = metrics.begin();
+        try {
+            layoutCells(x, y, w, h);
+        } finally {
+            metrics.endRowLayout(start);
+        }
+    }
+
+    private void layoutCells(double x, final double y, final double w, final double h) {
 
         final ObservableList<? extends TableColumnBase<?, ?>> visibleLeafColumns = handle.getGridView().getVisibleLeafColumns();
         if (visibleLeafColumns.isEmpty()) {
@@ -178,12 +194,35 @@ public class GridRowSkin extends CellSkinBase<TableRow<ObservableList<Spreadshee
         //We compute the cells here
         putCellsInCache();
 
+        /**
+         * Virtualization of column: we only go through the columns inside the
+         * viewport, found with the offsets of the columns, and the fixed
+         * columns. If the first column is covered by a column span, we start
+         * from the spanning cell so that it is still laid out.
+         */
+        final ColumnOffsets offsets = skin.getColumnOffsets(horizontalPadding);
+        final int columnCount = Math.min(offsets.getColumnCount(), columns.size());
+        final int[] fixedColumns = offsets.getFixedColumns();
+        int firstColumn = offsets.getFirstColumn(hbarValue - x);
+        final int lastColumn = offsets.getLastColumn(hbarValue + headerWidth - x);
+        if (firstColumn < row.size() && row.get(firstColumn).getColumn() < firstColumn) {
+            firstColumn = row.get(firstColumn).getColumn();
+        }
+        final double startX = x;
+        int previousColumn = -1;
+
         boolean firstVisibleCell = false;
         CellView lastCell = null;
         boolean needToBeShifted;
         boolean rowHeightChange = false;
         boolean isFixed;
-        for (int indexColumn = 0; indexColumn < columns.size(); indexColumn++) {
+        for (int indexColumn = ColumnOffsets.getNextColumn(-1, firstColumn, lastColumn, fixedColumns, columnCount); indexColumn < columnCount;
+                indexColumn = ColumnOffsets.getNextColumn(indexColumn, firstColumn, lastColumn, fixedColumns, columnCount)) {
+            //When we jumped over some columns, we start again from the offset.
+            if (indexColumn != previousColumn + 1) {
+                x = startX + offsets.getOffset(indexColumn);
+            }
+            previousColumn = indexColumn;
             //FIXME Problem qwith column span
             if(!skin.getSkinnable().getColumns().get(indexColumn).isVisible()){
                 continue;
@@ -268,11 +307,7 @@ public class GridRowSkin extends CellSkinBase<TableRow<ObservableList<Spreadshee
                         continue; // we don't want to fall through
                     case ROW_VISIBLE:
                     case NORMAL_CELL: // fall through and carry on
-                        if (tableCell.getIndex() != index) {
-                            tableCell.updateIndex(index);
-                        } else {
-                            tableCell.updateItem(spreadsheetCell, false);
-                        }
+                        updateCell(tableCell, index, spreadsheetCell);
                         /**
                          * Here we need to add the cells on the first position
                          * because this row may contain some deported cells from
@@ -350,9 +385,7 @@ public class GridRowSkin extends CellSkinBase<TableRow<ObservableList<Spreadshee
                     int reverseRowSpan = spreadsheetView.getReverseRowSpan(spreadsheetCell, index);
                     int newIndex = index - reverseRowSpan;
                     final int maxRow = newIndex + reverseRowSpan + rowSpan;
-                    for (int i = newIndex + 1; i < maxRow; ++i) {
-                        height += snapSize(skin.getRowHeight(i));
-                    }
+                    height = skin.getRowsHeight(newIndex + 1, maxRow, getSkinnable().isSnapToPixel());
                 }
 
                 //Fix for JDK-8146406
@@ -384,9 +417,7 @@ public class GridRowSkin extends CellSkinBase<TableRow<ObservableList<Spreadshee
                 if (spreadsheetCell.getRowSpan() > 1) {
                     int reverseRowSpan = spreadsheetView.getReverseRowSpan(spreadsheetCell, index);
                     int newIndex = index - reverseRowSpan;
-                    for (int p = newIndex + 1; p < index; ++p) {
-                        spaceBetweenTopAndMe += skin.getRowHeight(p);
-                    }
+                    spaceBetweenTopAndMe = skin.getRowsHeight(newIndex + 1, index, false);
                 }
 
                 tableCell.relocate(x + tableCellX + (needToBeShifted ? -1 : 0), snappedTopInset()
@@ -552,18 +583,49 @@ public class GridRowSkin extends CellSkinBase<TableRow<ObservableList<Spreadshee
      */
     private CellView getCell(TableColumnBase tcb) {
         TableColumn tableColumn = (TableColumn<CellView, ?>) tcb;
+        final RenderingMetrics metrics = spreadsheetView.getRenderingMetrics();
         CellView cell;
         if (getCellsMap().containsKey(tableColumn)) {
+            if (metrics != null) {
+                metrics.cellReused();
+            }
             return getCellsMap().remove(tableColumn);
         } else {
             cell = (CellView) tableColumn.getCellFactory().call(tableColumn);
             cell.updateTableColumn(tableColumn);
             cell.updateTableView(tableColumn.getTableView());
             cell.updateTableRow(getSkinnable());
+            if (metrics != null) {
+                metrics.cellCreated();
+            }
         }
         return cell;
     }
 
+    /**
+     * Binds the cell to the given row, or refreshes its item if it is already
+     * showing that row.
+     *
+     * @param cell
+     * @param index
+     * @param spreadsheetCell
+     */
+    private void updateCell(CellView cell, int index, SpreadsheetCell spreadsheetCell) {
+        final RenderingMetrics metrics = spreadsheetView.getRenderingMetrics();
+        final long start = metrics == null ? 0 : metrics.begin();
+        try {
+            if (cell.getIndex() != index) {
+                cell.updateIndex(index);
+            } else {
+                cell.updateItem(spreadsheetCell, false);
+            }
+        } finally {
+            if (metrics != null) {
+                metrics.endUpdateItem(start);
+            }
+        }
+    }
+
     /**
      * Return the space we need to shift that row if it's fixed. Also update the {@link GridViewSkin#getCurrentlyFixedRow()
      * } .
@@ -603,8 +665,8 @@ public class GridRowSkin extends CellSkinBase<TableRow<ObservableList<Spreadshee
      * @return
      */
     private double getTableRowHeight(int row) {
-        Double rowHeightCache = handle.getCellsViewSkin().rowHeightMap.get(spreadsheetView.getModelRow(row));
-        return rowHeightCache == null ? handle.getView().getGrid().getRowHeight(spreadsheetView.getModelRow(row)) : rowHeightCache;
+        final double rowHeightCache = handle.getCellsViewSkin().rowHeightMap.get(spreadsheetView.getModelRow(row));
+        return Double.isNaN(rowHeightCache) ? handle.getView().getGrid().getRowHeight(spreadsheetView.getModelRow(row)) : rowHeightCache;
     }
 
     /**
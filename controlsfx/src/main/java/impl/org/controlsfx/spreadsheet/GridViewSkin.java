@@ -26,6 +26,7 @@
  */
 package impl.org.controlsfx.spreadsheet;
 
+import impl.org.controlsfx.tools.ColumnOffsets;
 import java.lang.reflect.Field;
 import java.time.LocalDate;
 import java.util.BitSet;
@@ -43,7 +44,6 @@ import javafx.beans.property.SimpleBooleanProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
-import javafx.collections.ObservableMap;
 import javafx.collections.ObservableSet;
 import javafx.collections.SetChangeListener;
 import javafx.event.EventHandler;
@@ -66,9 +66,13 @@ import javafx.stage.Screen;
 import javafx.util.Callback;
 
 import org.controlsfx.control.spreadsheet.Grid;
+import org.controlsfx.control.spreadsheet.GridBase;
+import org.controlsfx.control.spreadsheet.GridChangeBatch;
 import org.controlsfx.control.spreadsheet.SpreadsheetCell;
 import org.controlsfx.control.spreadsheet.SpreadsheetColumn;
 import org.controlsfx.control.spreadsheet.SpreadsheetView;
+import org.controlsfx.control.spreadsheet.VirtualGridBase;
+import org.controlsfx.tools.RenderingMetrics;
 
 import com.sun.javafx.scene.control.behavior.TableViewBehavior;
 import com.sun.javafx.scene.control.skin.TableHeaderRow;
@@ -141,7 +145,23 @@ public class GridViewSkin extends TableViewSkinBase<ObservableList<SpreadsheetCe
      * When resizing, we save the height here in order to override default row
      * height. package protected.
      */
-    ObservableMap<Integer, Double> rowHeightMap = FXCollections.observableHashMap();
+    final RowHeightStore rowHeightMap = new RowHeightStore();
+    /**
+     * The row height callback of the grid when the prefix sums of the row
+     * heights were built.
+     */
+    private Object prefixSumsHeightSource;
+
+    /**
+     * The heights measured when fitting the rows to their content.
+     */
+    private final CellHeightCache cellHeightCache = new CellHeightCache();
+
+    /**
+     * Fits the rows progressively, created on the first call of
+     * {@link #resizeRowsToFitContentProgressively() }.
+     */
+    private RowHeightFitter rowHeightFitter;
 
     /** The editor. */
     private GridCellEditor gridCellEditor;
@@ -160,9 +180,10 @@ public class GridViewSkin extends TableViewSkinBase<ObservableList<SpreadsheetCe
     /**
      * A list of Integer with the current selected Rows. This is useful for
      * HorizontalHeader and VerticalHeader because they need to highlight when a
-     * selection is made.
+     * selection is made. The rows are stored as runs, so that selecting a
+     * rectangle does not create one Integer per row.
      */
-    private final ObservableList<Integer> selectedRows = FXCollections.observableArrayList();
+    private final IndexRangeList selectedRows = new IndexRangeList();
 
     /**
      * A list of Integer with the current selected Columns. This is useful for
@@ -200,6 +221,12 @@ public class GridViewSkin extends TableViewSkinBase<ObservableList<SpreadsheetCe
      */
     double fixedColumnWidth;
     
+    /**
+     * The horizontal position of every column, so that the rows only lay out
+     * the columns inside the viewport.
+     */
+    private final ColumnOffsets columnOffsets = new ColumnOffsets();
+    
     /**
      * When we try to select cells after a setGrid, we end up with the cell
      * selected but no visual confirmation. In order to prevent that, we need to
@@ -234,6 +261,11 @@ public class GridViewSkin extends TableViewSkinBase<ObservableList<SpreadsheetCe
         getCurrentlyFixedRow().addListener(currentlyFixedRowListener);
         spreadsheetView.getFixedRows().addListener(fixedRowsListener);
         spreadsheetView.getFixedColumns().addListener(fixedColumnsListener);
+        tableView.getColumns().addListener(columnsListener);
+        for (TableColumn<ObservableList<SpreadsheetCell>, ?> column : tableView.getColumns()) {
+            column.widthProperty().addListener(columnOffsetsListener);
+            column.visibleProperty().addListener(columnOffsetsListener);
+        }
 
         init();
         /**
@@ -267,6 +299,7 @@ public class GridViewSkin extends TableViewSkinBase<ObservableList<SpreadsheetCe
         };
         
         getFlow().getVerticalBar().addEventFilter(MouseEvent.MOUSE_PRESSED, ml);
+        getFlow().getOffsetBar().addEventFilter(MouseEvent.MOUSE_PRESSED, ml);
         getFlow().getHorizontalBar().addEventFilter(MouseEvent.MOUSE_PRESSED, ml);
 
         // init the behavior 'closures'
@@ -309,6 +342,8 @@ public class GridViewSkin extends TableViewSkinBase<ObservableList<SpreadsheetCe
         @Override
         public void invalidated(Observable observable) {
             rowToLayout = initRowToLayoutBitSet();
+            //The heights of the rows are summed regarding the grid and the hidden rows.
+            rowHeightMap.invalidatePrefixSums();
         }
     };
     /**
@@ -322,13 +357,85 @@ public class GridViewSkin extends TableViewSkinBase<ObservableList<SpreadsheetCe
         if (row == -1) {
             return DEFAULT_CELL_HEIGHT;
         }
-        Double rowHeightCache = rowHeightMap.get(spreadsheetView.getModelRow(row));
-        if (rowHeightCache == null) {
-            double rowHeight = handle.getView().getGrid().getRowHeight(spreadsheetView.getModelRow(row));
-            return rowHeight == Grid.AUTOFIT ? DEFAULT_CELL_HEIGHT : rowHeight;
-        } else {
-            return rowHeightCache;
+        final int modelRow = spreadsheetView.getModelRow(row);
+        final double rowHeightCache = rowHeightMap.get(modelRow);
+        return Double.isNaN(rowHeightCache) ? getDefaultRowHeight(modelRow) : rowHeightCache;
+    }
+
+    /**
+     * Returns the sum of the heights of the rows between from (inclusive) and
+     * to (exclusive). This is also the y position of the row "to" relatively
+     * to the row "from". When no sort is applied, this is done in O(log n).
+     *
+     * @param from the first row, in the TableView
+     * @param to the row after the last one, in the TableView
+     * @param snapped whether each height must be snapped to the pixel
+     * @return the sum of the heights of the rows
+     */
+    public double getRowsHeight(int from, int to, boolean snapped) {
+        if (from >= to) {
+            return 0;
+        }
+        if (from >= 0 && to <= getItemCount() && preparePrefixSums()) {
+            return rowHeightMap.getHeight(spreadsheetView.getModelRow(from),
+                    spreadsheetView.getModelRow(to - 1) + 1, snapped);
+        }
+        double height = 0;
+        for (int row = from; row < to; ++row) {
+            height += snapped ? Math.ceil(getRowHeight(row)) : getRowHeight(row);
         }
+        return height;
+    }
+
+    /**
+     * Returns the row displayed at the given offset, the offset 0 being the top
+     * of the first row. This is done in O(log n) but is only possible when no
+     * sort is applied.
+     *
+     * @param offset
+     * @return the row displayed at the given offset, the number of rows if the
+     * offset is after the last row, or -1 if the row cannot be computed
+     */
+    int getRowAt(double offset) {
+        if (!preparePrefixSums()) {
+            return -1;
+        }
+        if (offset < 0) {
+            return 0;
+        }
+        final int modelRow = rowHeightMap.getRowAt(offset);
+        return modelRow >= spreadsheetView.getGrid().getRowCount()
+                ? getItemCount() : spreadsheetView.getFilteredRow(modelRow);
+    }
+
+    /**
+     * Builds the prefix sums of the row heights if needed.
+     *
+     * @return whether the prefix sums can be used. They follow the model
+     * order, so they are useless when a sort is applied.
+     */
+    boolean preparePrefixSums() {
+        final Grid grid = spreadsheetView.getGrid();
+        if (grid == null || spreadsheetView.getComparator() != null) {
+            return false;
+        }
+        //The filtered row is displayed even if it is hidden.
+        final int filteredRow = spreadsheetView.getFilteredRow();
+        if (filteredRow >= 0 && spreadsheetView.getHiddenRows().get(filteredRow)) {
+            return false;
+        }
+        //The sums are stale when rows are added or removed, or when the heights given by the grid are replaced.
+        final Object heightSource = grid instanceof GridBase ? ((GridBase) grid).getRowHeightCallback() : null;
+        if (!rowHeightMap.hasPrefixSums(grid.getRowCount()) || heightSource != prefixSumsHeightSource) {
+            rowHeightMap.buildPrefixSums(grid.getRowCount(), spreadsheetView.getHiddenRows(), this::getDefaultRowHeight);
+            prefixSumsHeightSource = heightSource;
+        }
+        return true;
+    }
+
+    private double getDefaultRowHeight(int modelRow) {
+        final double rowHeight = handle.getView().getGrid().getRowHeight(modelRow);
+        return rowHeight == Grid.AUTOFIT ? DEFAULT_CELL_HEIGHT : rowHeight;
     }
 
     public double getFixedRowHeight() {
@@ -343,6 +450,17 @@ public class GridViewSkin extends TableViewSkinBase<ObservableList<SpreadsheetCe
         return selectedRows;
     }
 
+    /**
+     * Adds the rows from {@code from} to {@code to} included to the selected
+     * rows.
+     *
+     * @param from
+     * @param to
+     */
+    void addSelectedRows(int from, int to) {
+        selectedRows.addRange(from, to);
+    }
+
     public ObservableList<Integer> getSelectedColumns() {
         return selectedColumns;
     }
@@ -445,19 +563,73 @@ public class GridViewSkin extends TableViewSkinBase<ObservableList<SpreadsheetCe
         return getFlow().getVerticalBar();
     }
 
+    /**
+     * Lays out again, in one pass, the displayed rows containing some cells
+     * modified by the given batch.
+     *
+     * @param batch the committed batch
+     */
+    public void refreshRows(GridChangeBatch batch) {
+        for (IndexedCell<?> cell : getFlow().getCells()) {
+            if (cell.getIndex() < 0 || cell.getIndex() >= getItemCount()) {
+                continue;
+            }
+            final int modelRow = spreadsheetView.getModelRow(cell.getIndex());
+            for (GridChangeBatch.Range range : batch.getRanges()) {
+                if (modelRow >= range.getTop() && modelRow <= range.getBottom()) {
+                    cell.requestLayout();
+                    break;
+                }
+            }
+        }
+        getFlow().requestLayout();
+    }
+
     /**
      * Will compute for every row the necessary height and fit the line.
      * This can degrade performance a lot so need to use it wisely. 
      * But I don't see other solutions right now.
      */
     public void resizeRowsToFitContent() {
+        stopRowsFitting();
         Grid grid = spreadsheetView.getGrid();
         int maxRows = handle.getView().getGrid().getRowCount();
+        final CellView cell = createMeasuringCell();
+        if (cell == null) {
+            return;
+        }
+        final double padding = getMeasuringPadding(cell);
+        getChildren().add(cell);
         for (int row = 0; row < maxRows; row++) {
             if (grid.isRowResizable(row)) {
-                resizeRowToFitContent(row);
+                setFittedRowHeight(row, computeRowHeight(cell, row) + padding);
             }
         }
+        getChildren().remove(cell);
+        rectangleSelection.updateRectangle();
+    }
+
+    /**
+     * Same as {@link #resizeRowsToFitContent() } but the rows are measured
+     * during the next pulses, the currently visible rows first. Each pulse is
+     * only given a few milliseconds so that the application stays responsive.
+     * A new call restarts the fitting from the visible rows.
+     */
+    public void resizeRowsToFitContentProgressively() {
+        if (rowHeightFitter == null) {
+            rowHeightFitter = new RowHeightFitter(this);
+        }
+        rowHeightFitter.start();
+    }
+
+    /**
+     * Stops the fitting started by {@link #resizeRowsToFitContentProgressively()
+     * }. The rows already fitted keep their height.
+     */
+    public void stopRowsFitting() {
+        if (rowHeightFitter != null) {
+            rowHeightFitter.stop();
+        }
     }
     
     /**
@@ -467,32 +639,55 @@ public class GridViewSkin extends TableViewSkinBase<ObservableList<SpreadsheetCe
      * @param modelRow
      */
     public void resizeRowToFitContent(int modelRow) {
-        if(getSkinnable().getColumns().isEmpty()){
+        if (!spreadsheetView.getGrid().isRowResizable(modelRow)) {
             return;
         }
+        CellView cell = createMeasuringCell();
+        if (cell == null) {
+            return;
+        }
+        final double padding = getMeasuringPadding(cell);
+        getChildren().add(cell);
+        final double maxHeight = computeRowHeight(cell, modelRow);
+        getChildren().remove(cell);
+        setFittedRowHeight(modelRow, maxHeight + padding);
+
+        rectangleSelection.updateRectangle();
+    }
+
+    /**
+     * Creates the cell used to measure the content of the rows, or null if
+     * the rows cannot be measured.
+     */
+    CellView createMeasuringCell() {
+        if (getSkinnable().getColumns().isEmpty()) {
+            return null;
+        }
         final TableColumn<ObservableList<SpreadsheetCell>, ?> col = getSkinnable().getColumns().get(0);
         List<?> items = itemsProperty().get();
         if (items == null || items.isEmpty()) {
-            return;
-        }
-        
-        if (!spreadsheetView.getGrid().isRowResizable(modelRow)) {
-            return;
+            return null;
         }
         Callback/* <TableColumn<T, ?>, TableCell<T,?>> */ cellFactory = col.getCellFactory();
         if (cellFactory == null) {
-            return;
+            return null;
         }
 
         CellView cell = (CellView) cellFactory.call(col);
         if (cell == null) {
-            return;
+            return null;
         }
 
         // set this property to tell the TableCell we want to know its actual
         // preferred width, not the width of the associated TableColumnBase
         cell.getProperties().put("deferToParentPrefWidth", Boolean.TRUE); //$NON-NLS-1$
-        
+        return cell;
+    }
+
+    /**
+     * Returns the vertical padding to add to the measured height.
+     */
+    double getMeasuringPadding(CellView cell) {
         // determine cell padding
         double padding = 5;
 
@@ -501,19 +696,46 @@ public class GridViewSkin extends TableViewSkinBase<ObservableList<SpreadsheetCe
             Region r = (Region) n;
             padding = r.snappedTopInset() + r.snappedBottomInset();
         }
+        return padding;
+    }
 
-        double maxHeight;
-        maxHeight = 0;
+    void addMeasuringCell(CellView cell) {
         getChildren().add(cell);
+    }
+
+    void removeMeasuringCell(CellView cell) {
+        getChildren().remove(cell);
+    }
+
+    /**
+     * Stores the new height of the row and warns the listeners.
+     */
+    void setFittedRowHeight(int modelRow, double height) {
+        rowHeightMap.put(modelRow, height);
+        Event.fireEvent(spreadsheetView, new SpreadsheetView.RowHeightEvent(modelRow, height));
+    }
+
+    /**
+     * Computes the height needed by the content of the given row, without the
+     * padding. The measuring cell must have been added to the children. The
+     * height of a cell is only measured if it is not already cached, in which
+     * case the measuring cell is not even updated.
+     *
+     * @param cell the measuring cell
+     * @param index the index of the row in the TableView
+     * @return the height needed by the content of the row
+     */
+    double computeRowHeight(CellView cell, int index) {
+        double maxHeight = 0;
         int columnSize = getSkinnable().getColumns().size();
         for (int viewColumn = 0; viewColumn < columnSize; ++viewColumn) {
             TableColumn column = getSkinnable().getColumns().get(viewColumn);
-            cell.updateTableColumn(column);
-            cell.updateTableView(handle.getGridView());
-            cell.updateIndex(modelRow);
-            SpreadsheetCell spc = cell.getItem();
+            SpreadsheetCell spc = (SpreadsheetCell) column.getCellData(index);
+            if (spc == null || spc.getColumn() != viewColumn) {
+                continue;
+            }
             double width = column.getWidth();
-            if (spc != null && spc.getColumn() == viewColumn && spc.getColumnSpan() > 1) {
+            if (spc.getColumnSpan() > 1) {
                 /**
                  * we need to span multiple columns, so we sum up the width of
                  * the additional columns, adding it to the width variable
@@ -525,32 +747,45 @@ public class GridViewSkin extends TableViewSkinBase<ObservableList<SpreadsheetCe
                 }
             }
 
-            if (spc != null && spc.getColumn() == viewColumn && 
-                    ((cell.getText() != null && !cell.getText().isEmpty()) || cell.getGraphic() != null)) {
+            //A graphic cannot be described by a fingerprint, so it is always measured.
+            final boolean cacheable = spc.getGraphic() == null;
+            if (cacheable) {
+                final String text = spc.getText();
+                if (text == null || text.isEmpty()) {
+                    continue;
+                }
+                final double height = cellHeightCache.get(spc, width);
+                if (!Double.isNaN(height)) {
+                    maxHeight = Math.max(maxHeight, height);
+                    continue;
+                }
+            }
+            cell.updateTableColumn(column);
+            cell.updateTableView(handle.getGridView());
+            cell.updateIndex(index);
+            if ((cell.getText() != null && !cell.getText().isEmpty()) || cell.getGraphic() != null) {
                 cell.setWrapText(true);
 
-                cell.impl_processCSS(false);
-                maxHeight = Math.max(maxHeight, cell.prefHeight(width));
+                processCss(cell);
+                final double height = cell.prefHeight(width);
+                if (cacheable) {
+                    cellHeightCache.put(spc, width, height);
+                }
+                maxHeight = Math.max(maxHeight, height);
             }
         }
-        getChildren().remove(cell);
-        rowHeightMap.put(modelRow, maxHeight + padding);
-        Event.fireEvent(spreadsheetView, new SpreadsheetView.RowHeightEvent(modelRow, maxHeight + padding));
-
-        rectangleSelection.updateRectangle();
+        return maxHeight;
     }
     
     public void resizeRowsToMaximum() {
+        stopRowsFitting();
         //First we resize to fit.
         resizeRowsToFitContent();
         
         Grid grid = spreadsheetView.getGrid();
         
         //Then we take the maximum and apply it everywhere.
-        double maxHeight = 0;
-        for(int key:rowHeightMap.keySet()){
-            maxHeight = Math.max(maxHeight, rowHeightMap.get(key));
-        }
+        double maxHeight = rowHeightMap.getMaximum();
         
         rowHeightMap.clear();
         int maxRows = handle.getView().getGrid().getRows().size();
@@ -564,7 +799,10 @@ public class GridViewSkin extends TableViewSkinBase<ObservableList<SpreadsheetCe
     }
     
     public void resizeRowsToDefault() {
+        stopRowsFitting();
         rowHeightMap.clear();
+        //The default heights of the Grid may have changed.
+        rowHeightMap.invalidatePrefixSums();
         Grid grid = spreadsheetView.getGrid();
         /**
          * When resizing to default, we need to go through the visible rows in
@@ -678,7 +916,7 @@ public class GridViewSkin extends TableViewSkinBase<ObservableList<SpreadsheetCe
                 if (((SpreadsheetCell) cell.getItem()).getItem() instanceof LocalDate) {
                     datePresent = true;
                 }
-                cell.impl_processCSS(false);
+                processCss(cell);
                 /**
                  * The cell will automatically add the filter width if
                  * necessary. The padding is also directly computed.
@@ -990,6 +1228,10 @@ public class GridViewSkin extends TableViewSkinBase<ObservableList<SpreadsheetCe
     private BitSet initRowToLayoutBitSet() {
         int rowCount = getItemCount();
         BitSet bitSet = new BitSet(rowCount);
+        Grid grid = spreadsheetView.getGrid();
+        if (grid instanceof VirtualGridBase) {
+            return initRowToLayoutBitSet((VirtualGridBase) grid, bitSet);
+        }
         for (int row = 0; row < rowCount; ++row) {
             if (spreadsheetView.getFixedRows().contains(spreadsheetView.getModelRow(row))) {
                 bitSet.set(row);
@@ -1011,6 +1253,38 @@ public class GridViewSkin extends TableViewSkinBase<ObservableList<SpreadsheetCe
         return bitSet;
     }
 
+    /**
+     * Same as {@link #initRowToLayoutBitSet() } but we only consider the
+     * spanned cells of the grid in order not to create all its rows.
+     *
+     * @param grid
+     * @param bitSet
+     * @return
+     */
+    private BitSet initRowToLayoutBitSet(VirtualGridBase grid, BitSet bitSet) {
+        for (Integer fixedRow : spreadsheetView.getFixedRows()) {
+            setRowToLayout(bitSet, fixedRow);
+        }
+        for (SpreadsheetCell cell : grid.getSpannedCells()) {
+            if (spreadsheetView.getRowSpanFilter(cell) > 1) {
+                for (int modelRow = cell.getRow(); modelRow < cell.getRow() + cell.getRowSpan(); ++modelRow) {
+                    setRowToLayout(bitSet, modelRow);
+                }
+            }
+        }
+        return bitSet;
+    }
+
+    private void setRowToLayout(BitSet bitSet, int modelRow) {
+        if (modelRow < spreadsheetView.getGrid().getRowCount()
+                && (!spreadsheetView.isRowHidden(modelRow) || modelRow == spreadsheetView.getFilteredRow())) {
+            int viewRow = spreadsheetView.getViewRow(modelRow);
+            if (viewRow >= 0) {
+                bitSet.set(viewRow);
+            }
+        }
+    }
+
     /**
      * When the vertical moves, we update the verticalHeader
      */
@@ -1091,12 +1365,85 @@ public class GridViewSkin extends TableViewSkinBase<ObservableList<SpreadsheetCe
         @Override
         public void onChanged(Change<? extends SpreadsheetColumn> c) {
             hBarValue.clear();
+            columnOffsets.invalidate();
             getFlow().requestLayout();
             // requestLayout() not responding immediately..
 //            getFlow().layoutTotal();
         }
     };
 
+    /**
+     * The offsets of the columns must be computed again when a column is
+     * resized, hidden or shown.
+     */
+    private final InvalidationListener columnOffsetsListener = new InvalidationListener() {
+        @Override
+        public void invalidated(Observable observable) {
+            columnOffsets.invalidate();
+        }
+    };
+
+    /**
+     * We listen on the columns in order to follow the width and the
+     * visibility of each of them.
+     */
+    private final ListChangeListener<TableColumn<ObservableList<SpreadsheetCell>, ?>> columnsListener = new ListChangeListener<TableColumn<ObservableList<SpreadsheetCell>, ?>>() {
+        @Override
+        public void onChanged(Change<? extends TableColumn<ObservableList<SpreadsheetCell>, ?>> c) {
+            while (c.next()) {
+                for (TableColumn<ObservableList<SpreadsheetCell>, ?> column : c.getRemoved()) {
+                    column.widthProperty().removeListener(columnOffsetsListener);
+                    column.visibleProperty().removeListener(columnOffsetsListener);
+                }
+                for (TableColumn<ObservableList<SpreadsheetCell>, ?> column : c.getAddedSubList()) {
+                    column.widthProperty().addListener(columnOffsetsListener);
+                    column.visibleProperty().addListener(columnOffsetsListener);
+                }
+            }
+            columnOffsets.invalidate();
+        }
+    };
+
+    /**
+     * Applies the CSS to a cell used for measuring, accounting the time spent
+     * in the {@link RenderingMetrics} of the view if any.
+     *
+     * @param cell
+     */
+    private void processCss(Node cell) {
+        final RenderingMetrics metrics = spreadsheetView.getRenderingMetrics();
+        if (metrics == null) {
+            cell.impl_processCSS(false);
+            return;
+        }
+        final long start = metrics.begin();
+        try {
+            cell.impl_processCSS(false);
+        } finally {
+            metrics.endCss(start);
+        }
+    }
+
+    /**
+     * Returns the horizontal position of every column, computing them again
+     * if a column has been modified since the last call.
+     *
+     * @param horizontalPadding the padding of the row, removed from the width
+     * of every column
+     * @return the offsets of the columns
+     */
+    ColumnOffsets getColumnOffsets(double horizontalPadding) {
+        if (!columnOffsets.isValid(horizontalPadding)) {
+            final List<SpreadsheetColumn> columns = spreadsheetView.getColumns();
+            final ObservableList<TableColumn<ObservableList<SpreadsheetCell>, ?>> tableColumns = getColumns();
+            columnOffsets.build(Math.min(columns.size(), tableColumns.size()),
+                    column -> tableColumns.get(column).isVisible()
+                            ? snapSize(columns.get(column).getWidth()) - snapSize(horizontalPadding) : 0,
+                    column -> columns.get(column).isFixed(), horizontalPadding);
+        }
+        return columnOffsets;
+    }
+
     @Override
     protected TableSelectionModel<ObservableList<SpreadsheetCell>> getSelectionModel() {
         return getSkinnable().getSelectionModel();
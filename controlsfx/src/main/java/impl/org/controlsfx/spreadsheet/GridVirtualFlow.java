@@ -37,7 +37,9 @@ import javafx.beans.Observable;
 import javafx.beans.binding.When;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
+import javafx.beans.value.WritableValue;
 import javafx.collections.ObservableList;
+import javafx.geometry.Orientation;
 import javafx.geometry.Pos;
 import javafx.scene.Group;
 import javafx.scene.Node;
@@ -51,6 +53,7 @@ import javafx.scene.shape.Rectangle;
 import javafx.scene.transform.Scale;
 import org.controlsfx.control.spreadsheet.SpreadsheetCell;
 import org.controlsfx.control.spreadsheet.SpreadsheetView;
+import org.controlsfx.tools.RenderingMetrics;
 
 final class GridVirtualFlow<T extends IndexedCell<?>> extends VirtualFlow<T> {
     
@@ -90,6 +93,44 @@ final class GridVirtualFlow<T extends IndexedCell<?>> extends VirtualFlow<T> {
     private StackPane corner;
     private Scale scale;
 
+    /**
+     * The VirtualFlow keeps the value of its vertical ScrollBar equal to its
+     * position, which is an index of row. With rows of various heights, the
+     * thumb would not follow the pixels. So this ScrollBar is displayed over
+     * it: its value is the offset of the viewport in pixels, and the row at a
+     * given offset is found with the prefix sums of the row heights. When
+     * those cannot be used (when a sort is applied), it simply mirrors the
+     * ScrollBar of the VirtualFlow.
+     *
+     * This ScrollBar is only driven by the user: {@link #getVerticalBar() }
+     * still gives the ScrollBar of the VirtualFlow so that its value keeps
+     * its meaning for the rest of the skin and for the SpreadsheetView.
+     */
+    private final ScrollBar offsetBar = new ScrollBar() {
+        @Override
+        public void increment() {
+            adjustPixels(10);
+        }
+
+        @Override
+        public void decrement() {
+            adjustPixels(-10);
+        }
+
+        @Override
+        public void adjustValue(double position) {
+            if (offsetBarActive) {
+                super.adjustValue(position);
+            } else {
+                getVbar().adjustValue(position);
+            }
+        }
+    };
+    private boolean offsetBarActive;
+    private boolean updatingOffsetBar;
+    //The value of the offset ScrollBar to scroll to during the next layout.
+    private double pendingScrollValue = Double.NaN;
+
     /***************************************************************************
      * * Constructor * *
      **************************************************************************/
@@ -105,6 +146,22 @@ final class GridVirtualFlow<T extends IndexedCell<?>> extends VirtualFlow<T> {
         getVbar().valueProperty().addListener(listenerY);
         getHbar().valueProperty().addListener(hBarValueChangeListener);
         widthProperty().addListener(hBarValueChangeListener);
+
+        offsetBar.setOrientation(Orientation.VERTICAL);
+        offsetBar.setManaged(false);
+        offsetBar.visibleProperty().bind(getVbar().visibleProperty());
+        offsetBar.valueProperty().addListener((ObservableValue<? extends Number> observable, Number oldValue, Number newValue) -> {
+            if (!updatingOffsetBar) {
+                if (offsetBarActive) {
+                    //The cells must be laid out to scroll, so it is done in the layout.
+                    pendingScrollValue = newValue.doubleValue();
+                    requestLayout();
+                } else {
+                    getVbar().setValue(newValue.doubleValue());
+                }
+            }
+        });
+        getChildren().add(offsetBar);
         
         sheetChildren = findSheetChildren();
         findCorner();
@@ -139,6 +196,7 @@ final class GridVirtualFlow<T extends IndexedCell<?>> extends VirtualFlow<T> {
         scale.setPivotX(getHbar().getWidth() / 2);
         getHbar().getTransforms().add(scale);
         getVbar().getTransforms().add(scale);
+        offsetBar.getTransforms().add(scale);
         corner.getTransforms().add(scale);
 
         this.spreadSheetView = spv;
@@ -182,10 +240,18 @@ final class GridVirtualFlow<T extends IndexedCell<?>> extends VirtualFlow<T> {
         //If we have some fixedRows, we check if the selected row is not below them
         if (!getCells().isEmpty() && !VerticalHeader.isFixedRowEmpty(spreadSheetView)) {
             double offset = gridViewSkin.getFixedRowHeight();
-
-            while (offset >= 0 && index > 0) {
-                index--;
-                offset -= gridViewSkin.getRowHeight(index);
+            /**
+             * We look for the row hidden by the fixed rows, that is to say the
+             * last row starting strictly above the fixed rows height.
+             */
+            if (gridViewSkin.preparePrefixSums()) {
+                final double top = gridViewSkin.getRowsHeight(0, index, false) - offset;
+                index = top <= 0 ? 0 : Math.min(index, gridViewSkin.getRowAt(Math.nextDown(top)));
+            } else {
+                while (offset >= 0 && index > 0) {
+                    index--;
+                    offset -= gridViewSkin.getRowHeight(index);
+                }
             }
         }
         super.scrollTo(index);
@@ -200,6 +266,7 @@ final class GridVirtualFlow<T extends IndexedCell<?>> extends VirtualFlow<T> {
 
         layoutTotal();
         layoutFixedRows();
+        updateOffsetBar();
 
         return returnValue;
     }
@@ -241,6 +308,40 @@ final class GridVirtualFlow<T extends IndexedCell<?>> extends VirtualFlow<T> {
     
     @Override
     protected void layoutChildren() {
+        final RenderingMetrics metrics = getRenderingMetrics();
+        if (metrics == null) {
+            layoutFlow();
+            return;
+        }
+        final long start = metrics.begin();
+        try {
+            layoutFlow();
+        } finally {
+            metrics.endFlowLayout(start);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void impl_processCSS(WritableValue<Boolean> unused) {
+        final RenderingMetrics metrics = getRenderingMetrics();
+        if (metrics == null) {
+            super.impl_processCSS(unused);
+            return;
+        }
+        final long start = metrics.begin();
+        try {
+            super.impl_processCSS(unused);
+        } finally {
+            metrics.endCss(start);
+        }
+    }
+
+    private RenderingMetrics getRenderingMetrics() {
+        return spreadSheetView == null ? null : spreadSheetView.getRenderingMetrics();
+    }
+
+    private void layoutFlow() {
         /**
          * In fact, we must do a layout even when editing, because if the user
          * resize the window during edition, if we block layout, the view will
@@ -249,6 +350,11 @@ final class GridVirtualFlow<T extends IndexedCell<?>> extends VirtualFlow<T> {
         if (spreadSheetView != null
                 /*&& (spreadSheetView.getEditingCell() == null || spreadSheetView
                         .getEditingCell().getRow() == -1)*/) {
+            if (!Double.isNaN(pendingScrollValue)) {
+                final double value = pendingScrollValue;
+                pendingScrollValue = Double.NaN;
+                scrollToValue(value);
+            }
             sortRows();
             super.layoutChildren();
             layoutTotal();
@@ -302,6 +408,13 @@ final class GridVirtualFlow<T extends IndexedCell<?>> extends VirtualFlow<T> {
                 0, null,
                 pos.getHpos(),
                 pos.getVpos());
+        offsetBar.resize(getVbar().getWidth(), getVbar().getHeight());
+        offsetBar.setLayoutX(getVbar().getLayoutX());
+        offsetBar.setLayoutY(getVbar().getLayoutY());
+        if (getChildren().get(getChildren().size() - 1) != offsetBar) {
+            offsetBar.toFront();
+        }
+        updateOffsetBar();
 
         //CORNER
         if (corner != null) {
@@ -366,6 +479,14 @@ final class GridVirtualFlow<T extends IndexedCell<?>> extends VirtualFlow<T> {
     protected ScrollBar getVerticalBar() {
         return getVbar();
     }
+
+    /**
+     * @return the ScrollBar displayed over the vertical ScrollBar, see
+     * {@link #offsetBar}
+     */
+    ScrollBar getOffsetBar() {
+        return offsetBar;
+    }
     protected ScrollBar getHorizontalBar() {
         return getHbar();
     }
@@ -379,6 +500,92 @@ final class GridVirtualFlow<T extends IndexedCell<?>> extends VirtualFlow<T> {
      * * Private Methods * *
      **************************************************************************/
 
+    /**
+     * Updates the offset ScrollBar after the rows have been laid out or
+     * scrolled.
+     */
+    private void updateOffsetBar() {
+        updatingOffsetBar = true;
+        try {
+            offsetBarActive = spreadSheetView != null && gridViewSkin.preparePrefixSums();
+            if (offsetBarActive) {
+                final double totalHeight = gridViewSkin.getRowsHeight(0, getCellCount(), false);
+                final double viewportHeight = getViewportHeight();
+                final double range = totalHeight - viewportHeight;
+                offsetBar.setMin(0);
+                offsetBar.setMax(1);
+                if (range <= 0) {
+                    offsetBar.setVisibleAmount(1);
+                    offsetBar.setBlockIncrement(1);
+                    offsetBar.setValue(0);
+                } else {
+                    offsetBar.setVisibleAmount(viewportHeight / totalHeight);
+                    offsetBar.setBlockIncrement(viewportHeight / range);
+                    offsetBar.setValue(Math.max(0, Math.min(1, getViewportOffset() / range)));
+                }
+            } else {
+                offsetBar.setMin(getVbar().getMin());
+                offsetBar.setMax(getVbar().getMax());
+                offsetBar.setVisibleAmount(getVbar().getVisibleAmount());
+                offsetBar.setBlockIncrement(getVbar().getBlockIncrement());
+                offsetBar.setValue(getVbar().getValue());
+            }
+        } finally {
+            updatingOffsetBar = false;
+        }
+    }
+
+    /**
+     * Scrolls to the given value of the offset ScrollBar. This is called
+     * during the layout, which goes on with the new position.
+     *
+     * @param value
+     */
+    private void scrollToValue(double value) {
+        if (!offsetBarActive || !gridViewSkin.preparePrefixSums()) {
+            return;
+        }
+        final double range = gridViewSkin.getRowsHeight(0, getCellCount(), false) - getViewportHeight();
+        if (range <= 0) {
+            return;
+        }
+        final double offset = value * range;
+        final int row = gridViewSkin.getRowAt(offset);
+        if (row < 0) {
+            return;
+        } else if (row >= getCellCount() - 1) {
+            setPosition(1);
+        } else {
+            /**
+             * We put the row at the top and then scroll inside it. The cells
+             * must be laid out in between because scrolling by pixels moves
+             * the current cells. We are already in the layout, so only the
+             * cells of the VirtualFlow are laid out.
+             */
+            scrollToTop(row);
+            super.layoutChildren();
+            super.adjustPixels(offset - gridViewSkin.getRowsHeight(0, row, false));
+        }
+    }
+
+    /**
+     * @return the offset in pixels of the top of the viewport, the offset 0
+     * being the top of the first row
+     */
+    private double getViewportOffset() {
+        T first = null;
+        for (T cell : getCells()) {
+            if (cell.getIndex() >= 0 && (first == null || cell.getIndex() < first.getIndex())) {
+                first = cell;
+            }
+        }
+        return first == null ? 0 : gridViewSkin.getRowsHeight(0, first.getIndex(), false) - first.getLayoutY();
+    }
+
+    private double getViewportHeight() {
+        return getHeight() - (getHbar().isVisible() ? getHbar().getHeight() : 0);
+    }
+
     /**
      * WARNING : This is bad but no other options right now. This will find the
      * sheetChildren of the VirtualFlow, aka where the cells are kept and
@@ -0,0 +1,208 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met: *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer. * Redistributions in binary
+ * form must reproduce the above copyright notice, this list of conditions and
+ * the following disclaimer in the documentation and/or other materials provided
+ * with the distribution. * Neither the name of ControlsFX, any associated
+ * website, nor the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package impl.org.controlsfx.spreadsheet;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import javafx.collections.ObservableListBase;
+
+/**
+ * An observable list of indexes stored as runs of consecutive indexes. This
+ * is used to hold the selected rows of the {@link GridViewSkin}: selecting a
+ * rectangle of a million rows only adds one run instead of a million
+ * {@link Integer}.
+ *
+ * <p>
+ * The list may contain the same index several times, one for each selection
+ * containing it. Only {@link #add(java.lang.Integer) }, {@link #addRange(int, int)
+ * }, {@link #remove(java.lang.Object) } and {@link #clear() } are supported.
+ * Accessing the i-th element, or testing if an index is contained, depends
+ * on the number of runs and not on the number of indexes.
+ */
+class IndexRangeList extends ObservableListBase<Integer> {
+
+    private int[] froms = new int[4];
+    private int[] tos = new int[4];
+    private int runCount;
+    private int size;
+
+    /**
+     * Adds the indexes from {@code from} to {@code to} included at the end of
+     * the list.
+     *
+     * @param from the first index
+     * @param to the last index, included
+     */
+    public void addRange(int from, int to) {
+        if (from > to) {
+            return;
+        }
+        if (runCount > 0 && tos[runCount - 1] + 1 == from) {
+            tos[runCount - 1] = to;
+        } else {
+            if (runCount == froms.length) {
+                froms = Arrays.copyOf(froms, runCount * 2);
+                tos = Arrays.copyOf(tos, runCount * 2);
+            }
+            froms[runCount] = from;
+            tos[runCount] = to;
+            ++runCount;
+        }
+        final int oldSize = size;
+        size += to - from + 1;
+        beginChange();
+        nextAdd(oldSize, size);
+        endChange();
+    }
+
+    @Override
+    public boolean add(Integer index) {
+        addRange(index, index);
+        return true;
+    }
+
+    @Override
+    public void add(int position, Integer index) {
+        if (position != size) {
+            throw new UnsupportedOperationException("Indexes can only be added at the end"); //$NON-NLS-1$
+        }
+        add(index);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof Integer)) {
+            return false;
+        }
+        final int index = (Integer) o;
+        int position = 0;
+        for (int run = 0; run < runCount; ++run) {
+            if (froms[run] <= index && index <= tos[run]) {
+                removeFromRun(run, index);
+                --size;
+                beginChange();
+                nextRemove(position + index - froms[run], index);
+                endChange();
+                return true;
+            }
+            position += tos[run] - froms[run] + 1;
+        }
+        return false;
+    }
+
+    @Override
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        //The removed indexes are a view on the previous runs.
+        final int[] oldFroms = froms;
+        final int[] oldTos = tos;
+        final int oldRunCount = runCount;
+        final int oldSize = size;
+        final List<Integer> removed = new AbstractList<Integer>() {
+            @Override
+            public Integer get(int position) {
+                return IndexRangeList.get(oldFroms, oldTos, oldRunCount, position);
+            }
+
+            @Override
+            public int size() {
+                return oldSize;
+            }
+        };
+        froms = new int[4];
+        tos = new int[4];
+        runCount = 0;
+        size = 0;
+        beginChange();
+        nextRemove(0, removed);
+        endChange();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (o instanceof Integer) {
+            final int index = (Integer) o;
+            for (int run = 0; run < runCount; ++run) {
+                if (froms[run] <= index && index <= tos[run]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Integer get(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Index: " + position + ", Size: " + size); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        return get(froms, tos, runCount, position);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private static int get(int[] froms, int[] tos, int runCount, int position) {
+        for (int run = 0; run < runCount; ++run) {
+            final int length = tos[run] - froms[run] + 1;
+            if (position < length) {
+                return froms[run] + position;
+            }
+            position -= length;
+        }
+        throw new IndexOutOfBoundsException();
+    }
+
+    private void removeFromRun(int run, int index) {
+        if (froms[run] == tos[run]) {
+            System.arraycopy(froms, run + 1, froms, run, runCount - run - 1);
+            System.arraycopy(tos, run + 1, tos, run, runCount - run - 1);
+            --runCount;
+        } else if (index == froms[run]) {
+            ++froms[run];
+        } else if (index == tos[run]) {
+            --tos[run];
+        } else {
+            //The run is split in two.
+            if (runCount == froms.length) {
+                froms = Arrays.copyOf(froms, runCount * 2);
+                tos = Arrays.copyOf(tos, runCount * 2);
+            }
+            System.arraycopy(froms, run + 1, froms, run + 2, runCount - run - 1);
+            System.arraycopy(tos, run + 1, tos, run + 2, runCount - run - 1);
+            froms[run + 1] = index + 1;
+            tos[run + 1] = tos[run];
+            tos[run] = index - 1;
+            ++runCount;
+        }
+    }
+}
@@ -38,6 +38,8 @@ import javafx.scene.control.TablePosition;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.shape.Rectangle;
 import org.controlsfx.control.spreadsheet.ClipboardCell;
+import org.controlsfx.control.spreadsheet.Grid;
+import org.controlsfx.control.spreadsheet.GridBase;
 import org.controlsfx.control.spreadsheet.SpreadsheetCell;
 import org.controlsfx.control.spreadsheet.SpreadsheetColumn;
 import org.controlsfx.control.spreadsheet.SpreadsheetView;
@@ -63,7 +65,7 @@ public class RectangleSelection extends Rectangle {
         this.selectedCellListener = (Observable observable) -> {
             skin.getHorizontalHeader().clearSelectedColumns();
             skin.verticalHeader.clearSelectedRows();
-            selectionRange.fill(sm.getSelectedCells(), skin.spreadsheetView);
+            selectionRange.fillRanges(sm.getSelectedRanges(), skin.spreadsheetView);
             updateRectangle();
         };
         skin.getVBar().valueProperty().addListener(layoutListener);
@@ -359,6 +361,39 @@ public class RectangleSelection extends Rectangle {
             computeRange();
         }
 
+        /**
+         * Construct a SelectionRange with the rectangles of a selection, as
+         * given by {@link TableViewSpanSelectionModel#getSelectedRanges() }.
+         * The selected cells are not visited unless some cells of the
+         * {@link Grid} have their own display selection.
+         *
+         * @param ranges
+         * @param spv
+         */
+        public void fillRanges(List<GridRange> ranges, SpreadsheetView spv) {
+            set.clear();
+            range = null;
+            //The selection must be a rectangle.
+            if (ranges.size() != 1) {
+                return;
+            }
+            final GridRange candidate = ranges.get(0);
+            final Grid grid = spv.getGrid();
+            if (!(grid instanceof GridBase) || ((GridBase) grid).hasCellDisplaySelection()) {
+                //I just check that a selected cell is not against it.
+                for (int row = candidate.getTop(); row <= candidate.getBottom(); ++row) {
+                    for (int column = candidate.getLeft(); column <= candidate.getRight(); ++column) {
+                        if (!grid.isCellDisplaySelection(spv.getModelRow(row), spv.getModelColumn(column))) {
+                            return;
+                        }
+                    }
+                }
+            } else if (!grid.isDisplaySelection()) {
+                return;
+            }
+            range = candidate;
+        }
+
         /**
          * Fills this ClipBoardRange with a list a {@code ClipboardCell}. The
          * result can be accessed with the {@link #getRange() } method.
@@ -0,0 +1,169 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package impl.org.controlsfx.spreadsheet;
+
+import java.util.BitSet;
+import java.util.List;
+import javafx.animation.AnimationTimer;
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.collections.ObservableList;
+import org.controlsfx.control.spreadsheet.Grid;
+import org.controlsfx.control.spreadsheet.SpreadsheetView;
+
+/**
+ * Fits the rows of a {@link GridViewSkin} to their content during the pulses,
+ * instead of measuring every row at once on the FX thread.
+ *
+ * <p>
+ * At each pulse, the rows currently displayed are measured first, so that
+ * what the user sees is fitted right away, even after a scroll. Then the
+ * remaining rows are measured in order until the time given to the pulse is
+ * elapsed. Each measured row is published right away in the rowHeightMap with
+ * a {@link SpreadsheetView.RowHeightEvent}.
+ *
+ * <p>
+ * The measure of a row needs the CSS of the cells to be processed, so it must
+ * be done on the FX thread.
+ */
+final class RowHeightFitter extends AnimationTimer {
+
+    /**
+     * The time given to the measure of the rows during one pulse, in
+     * nanoseconds.
+     */
+    private static final long PULSE_BUDGET = 8_000_000L;
+
+    private final GridViewSkin skin;
+    //The model rows already fitted.
+    private final BitSet fittedRows = new BitSet();
+    //The next index in the TableView to fit.
+    private int nextIndex;
+    //Whether the rows were sorted or filtered since the fitting has started.
+    private boolean itemsChanged;
+    private ObservableList<?> items;
+
+    private final InvalidationListener itemsListener = (Observable observable) -> {
+        itemsChanged = true;
+    };
+
+    RowHeightFitter(GridViewSkin skin) {
+        this.skin = skin;
+    }
+
+    /**
+     * Starts, or restarts, the fitting of all the rows.
+     */
+    @Override
+    public void start() {
+        fittedRows.clear();
+        nextIndex = 0;
+        itemsChanged = false;
+        watchItems();
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        if (items != null) {
+            items.removeListener(itemsListener);
+            items = null;
+        }
+        super.stop();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void handle(long now) {
+        final long deadline = System.nanoTime() + PULSE_BUDGET;
+        final CellView cell = skin.createMeasuringCell();
+        if (cell == null) {
+            stop();
+            return;
+        }
+        if (skin.getSkinnable().getItems() != items) {
+            watchItems();
+            itemsChanged = true;
+        }
+        final double padding = skin.getMeasuringPadding(cell);
+        skin.addMeasuringCell(cell);
+        try {
+            //The displayed rows first.
+            for (GridRow row : (List<GridRow>) skin.getFlow().getCells()) {
+                fit(cell, padding, row.getIndex());
+            }
+
+            final int itemCount = skin.getItemCount();
+            while (System.nanoTime() < deadline) {
+                if (nextIndex >= itemCount) {
+                    /**
+                     * If the rows were sorted or filtered in the meantime, some
+                     * may have been skipped, so we go through them again. The
+                     * rows already fitted are not measured again.
+                     */
+                    if (itemsChanged) {
+                        itemsChanged = false;
+                        nextIndex = 0;
+                        continue;
+                    }
+                    stop();
+                    break;
+                }
+                fit(cell, padding, nextIndex++);
+            }
+        } finally {
+            skin.removeMeasuringCell(cell);
+        }
+        skin.rectangleSelection.updateRectangle();
+    }
+
+    private void watchItems() {
+        if (items != null) {
+            items.removeListener(itemsListener);
+        }
+        items = skin.getSkinnable().getItems();
+        if (items != null) {
+            items.addListener(itemsListener);
+        }
+    }
+
+    private void fit(CellView cell, double padding, int index) {
+        final SpreadsheetView spreadsheetView = skin.spreadsheetView;
+        if (index < 0 || index >= skin.getItemCount()) {
+            return;
+        }
+        final int modelRow = spreadsheetView.getModelRow(index);
+        if (fittedRows.get(modelRow)) {
+            return;
+        }
+        fittedRows.set(modelRow);
+        final Grid grid = spreadsheetView.getGrid();
+        if (grid.isRowResizable(modelRow)) {
+            skin.setFittedRowHeight(modelRow, skin.computeRowHeight(cell, index) + padding);
+        }
+    }
+}
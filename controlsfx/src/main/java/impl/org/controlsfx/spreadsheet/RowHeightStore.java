@@ -0,0 +1,297 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package impl.org.controlsfx.spreadsheet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * The heights given to the rows of the {@link GridViewSkin}, by resizing or
+ * fitting them, indexed by model row.
+ *
+ * <p>
+ * The heights are kept in a {@code double} array where {@code NaN} means that
+ * the row has the height given by the Grid. In addition, two Fenwick trees
+ * can be built over the displayed height of every model row (0 for the hidden
+ * ones), one with the exact heights and one with the heights snapped to the
+ * pixel. They give the height of any range of rows in O(log n), and the row
+ * located at a given offset in O(log n). They are updated in O(log n) when a
+ * height is modified, and must be invalidated with {@link #invalidatePrefixSums()
+ * } when the Grid, its row heights or the hidden rows are modified. They are
+ * considered stale as soon as the number of rows of the Grid changes.
+ */
+final class RowHeightStore {
+
+    /**
+     * Notified when the height of a row is modified.
+     */
+    interface Listener {
+
+        /**
+         * @param modelRow the modified row, or -1 if all the rows may have
+         * been modified
+         */
+        void heightChanged(int modelRow);
+    }
+
+    private static final double[] EMPTY = new double[0];
+
+    private double[] heights = EMPTY;
+    private int customCount;
+    private final List<Listener> listeners = new ArrayList<>();
+
+    //The prefix sums, 1-based, null until they are needed.
+    private double[] tree;
+    private double[] snappedTree;
+    private BitSet hiddenRows;
+    private IntToDoubleFunction defaultHeight;
+
+    /**
+     * Returns the height given to the row, or {@code NaN} if the row has its
+     * default height.
+     *
+     * @param modelRow
+     * @return the height given to the row
+     */
+    double get(int modelRow) {
+        return modelRow >= 0 && modelRow < heights.length ? heights[modelRow] : Double.NaN;
+    }
+
+    /**
+     * @param modelRow
+     * @return whether a height has been given to the row
+     */
+    boolean contains(int modelRow) {
+        return !Double.isNaN(get(modelRow));
+    }
+
+    /**
+     * @return whether no height has been given to any row
+     */
+    boolean isEmpty() {
+        return customCount == 0;
+    }
+
+    /**
+     * @return the greatest height given to a row, or 0 if none
+     */
+    double getMaximum() {
+        double max = 0;
+        for (double height : heights) {
+            if (height > max) {
+                max = height;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Gives a height to a row.
+     *
+     * @param modelRow
+     * @param height
+     */
+    void put(int modelRow, double height) {
+        if (modelRow < 0) {
+            return;
+        }
+        if (modelRow >= heights.length) {
+            final int oldLength = heights.length;
+            heights = Arrays.copyOf(heights, Math.max(modelRow + 1, oldLength * 2));
+            Arrays.fill(heights, oldLength, heights.length, Double.NaN);
+        }
+        if (Double.isNaN(heights[modelRow])) {
+            ++customCount;
+        }
+        final double previous = getDisplayedHeight(modelRow);
+        heights[modelRow] = height;
+        updatePrefixSums(modelRow, previous);
+        fireChange(modelRow);
+    }
+
+    /**
+     * Gives back its default height to a row.
+     *
+     * @param modelRow
+     */
+    void remove(int modelRow) {
+        if (!contains(modelRow)) {
+            return;
+        }
+        final double previous = getDisplayedHeight(modelRow);
+        heights[modelRow] = Double.NaN;
+        --customCount;
+        updatePrefixSums(modelRow, previous);
+        fireChange(modelRow);
+    }
+
+    /**
+     * Gives back their default height to all the rows.
+     */
+    void clear() {
+        if (customCount == 0) {
+            return;
+        }
+        heights = EMPTY;
+        customCount = 0;
+        invalidatePrefixSums();
+        fireChange(-1);
+    }
+
+    void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @param rowCount the number of rows in the Grid
+     * @return whether the prefix sums are currently built for that number of
+     * rows
+     */
+    boolean hasPrefixSums(int rowCount) {
+        return tree != null && tree.length - 1 == rowCount;
+    }
+
+    /**
+     * Builds the prefix sums of the displayed heights.
+     *
+     * @param rowCount the number of rows in the Grid
+     * @param hiddenRows the hidden rows, which are not displayed
+     * @param defaultHeight gives the height of a row without a height in this
+     * store
+     */
+    void buildPrefixSums(int rowCount, BitSet hiddenRows, IntToDoubleFunction defaultHeight) {
+        this.hiddenRows = (BitSet) hiddenRows.clone();
+        this.defaultHeight = defaultHeight;
+        tree = new double[rowCount + 1];
+        snappedTree = new double[rowCount + 1];
+        for (int i = 1; i <= rowCount; ++i) {
+            final double height = getDisplayedHeight(i - 1);
+            tree[i] += height;
+            snappedTree[i] += Math.ceil(height);
+            final int parent = i + (i & -i);
+            if (parent <= rowCount) {
+                tree[parent] += tree[i];
+                snappedTree[parent] += snappedTree[i];
+            }
+        }
+    }
+
+    /**
+     * Discards the prefix sums, they will have to be built again.
+     */
+    void invalidatePrefixSums() {
+        tree = null;
+        snappedTree = null;
+        hiddenRows = null;
+        defaultHeight = null;
+    }
+
+    /**
+     * Returns the sum of the displayed heights of the model rows between from
+     * (inclusive) and to (exclusive). The prefix sums must be built.
+     *
+     * @param from
+     * @param to
+     * @param snapped whether each height must be snapped to the pixel
+     * @return the sum of the displayed heights
+     */
+    double getHeight(int from, int to, boolean snapped) {
+        final double[] sums = snapped ? snappedTree : tree;
+        return getPrefixSum(sums, to) - getPrefixSum(sums, from);
+    }
+
+    /**
+     * Returns the first model row whose bottom is strictly after the given
+     * offset, the offset 0 being the top of the first row. The prefix sums
+     * must be built.
+     *
+     * @param offset
+     * @return the row displayed at the given offset, or the number of rows if
+     * the offset is after the last row
+     */
+    int getRowAt(double offset) {
+        final int size = tree.length - 1;
+        int position = 0;
+        double remaining = offset;
+        for (int step = Integer.highestOneBit(Math.max(size, 1)); step > 0; step >>= 1) {
+            final int next = position + step;
+            if (next <= size && tree[next] <= remaining) {
+                position = next;
+                remaining -= tree[next];
+            }
+        }
+        return position;
+    }
+
+    /***************************************************************************
+     *
+     * Private Implementation
+     *
+     **************************************************************************/
+
+    private double getDisplayedHeight(int modelRow) {
+        if (defaultHeight == null || hiddenRows.get(modelRow)) {
+            return 0;
+        }
+        final double height = get(modelRow);
+        return Double.isNaN(height) ? defaultHeight.applyAsDouble(modelRow) : height;
+    }
+
+    private void updatePrefixSums(int modelRow, double previous) {
+        if (tree == null || modelRow >= tree.length - 1) {
+            return;
+        }
+        final double height = getDisplayedHeight(modelRow);
+        final double delta = height - previous;
+        final double snappedDelta = Math.ceil(height) - Math.ceil(previous);
+        for (int i = modelRow + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+            snappedTree[i] += snappedDelta;
+        }
+    }
+
+    private static double getPrefixSum(double[] sums, int index) {
+        double sum = 0;
+        for (int i = Math.min(index, sums.length - 1); i > 0; i -= i & -i) {
+            sum += sums[i];
+        }
+        return sum;
+    }
+
+    private void fireChange(int modelRow) {
+        for (Listener listener : new ArrayList<>(listeners)) {
+            listener.heightChanged(modelRow);
+        }
+    }
+}
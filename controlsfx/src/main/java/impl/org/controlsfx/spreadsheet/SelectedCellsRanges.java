@@ -0,0 +1,419 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package impl.org.controlsfx.spreadsheet;
+
+import impl.org.controlsfx.spreadsheet.RectangleSelection.GridRange;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+import javafx.scene.control.TablePositionBase;
+
+/**
+ * The selected cells of the {@link TableViewSpanSelectionModel}, stored as
+ * rectangles instead of one position per cell.
+ *
+ * <p>
+ * The selection is split into horizontal bands of consecutive rows sharing
+ * the same selected columns. Each band holds its selected columns as sorted
+ * and disjoint intervals, so each interval of a band is a rectangle of the
+ * selection. The number of bands only depends on the number of rectangles
+ * that were selected, so selecting the whole grid, testing a position or
+ * accessing the i-th selected cell does not depend on the number of selected
+ * cells.
+ *
+ * <p>
+ * The cells are enumerated by row, then by column. The positions are only
+ * created when they are requested.
+ *
+ * @param <T>
+ */
+public class SelectedCellsRanges<T extends TablePositionBase> {
+
+    /**
+     * The bands are never modified, every modification creates a new list.
+     * That way, a previous state of the selection can be kept at no cost in
+     * order to be given as the removed elements of a change.
+     */
+    private List<Band> bands = Collections.emptyList();
+    private long[] offsets;
+    private long size;
+    private final BiFunction<Integer, Integer, T> positionFactory;
+
+    /**
+     * Constructor.
+     *
+     * @param positionFactory creates the position of a cell from its view row
+     * and its view column
+     */
+    public SelectedCellsRanges(BiFunction<Integer, Integer, T> positionFactory) {
+        this.positionFactory = positionFactory;
+    }
+
+    public int size() {
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public T get(int i) {
+        if (i < 0) {
+            return null;
+        }
+        return get(bands, getOffsets(), i);
+    }
+
+    /**
+     * Selects the given rectangle. The bounds are inclusive.
+     *
+     * @param top
+     * @param bottom
+     * @param left
+     * @param right
+     * @return whether the selection has changed
+     */
+    public boolean add(int top, int bottom, int left, int right) {
+        return update(top, bottom, left, right, true);
+    }
+
+    /**
+     * Unselects the given rectangle. The bounds are inclusive.
+     *
+     * @param top
+     * @param bottom
+     * @param left
+     * @param right
+     * @return whether the selection has changed
+     */
+    public boolean remove(int top, int bottom, int left, int right) {
+        return update(top, bottom, left, right, false);
+    }
+
+    /**
+     * Unselects everything.
+     *
+     * @return whether the selection has changed
+     */
+    public boolean clear() {
+        if (size == 0) {
+            return false;
+        }
+        bands = Collections.emptyList();
+        offsets = null;
+        size = 0;
+        return true;
+    }
+
+    /**
+     * Returns whether the given cell is selected. If the column is negative,
+     * returns whether a cell of the row is selected.
+     *
+     * @param row
+     * @param column
+     * @return whether the given cell is selected
+     */
+    public boolean isSelected(int row, int column) {
+        final Band band = getBand(row);
+        if (band == null) {
+            return false;
+        }
+        if (column < 0) {
+            return true;
+        }
+        for (int i = 0; i < band.columns.length; i += 2) {
+            if (column < band.columns[i]) {
+                return false;
+            } else if (column <= band.columns[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the rectangles composing the selection, ordered by row and then
+     * by column.
+     *
+     * @return the rectangles composing the selection
+     */
+    public List<GridRange> getRanges() {
+        final List<GridRange> ranges = new ArrayList<>();
+        for (Band band : bands) {
+            for (int i = 0; i < band.columns.length; i += 2) {
+                ranges.add(new GridRange(band.top, band.bottom, band.columns[i], band.columns[i + 1]));
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * Returns an unmodifiable list of the positions currently selected. This
+     * list will not reflect later modifications of the selection.
+     *
+     * @return an unmodifiable list of the positions currently selected
+     */
+    public List<T> snapshot() {
+        final List<Band> snapshotBands = bands;
+        final long[] snapshotOffsets = getOffsets();
+        final int snapshotSize = size();
+        return new AbstractList<T>() {
+            @Override
+            public T get(int index) {
+                if (index < 0 || index >= snapshotSize) {
+                    throw new IndexOutOfBoundsException();
+                }
+                return SelectedCellsRanges.this.get(snapshotBands, snapshotOffsets, index);
+            }
+
+            @Override
+            public int size() {
+                return snapshotSize;
+            }
+        };
+    }
+
+    /***************************************************************************
+     *
+     * Private Implementation
+     *
+     **************************************************************************/
+
+    private T get(List<Band> bands, long[] offsets, int index) {
+        //We look for the last band starting before the index.
+        int low = 0;
+        int high = bands.size() - 1;
+        while (low < high) {
+            final int middle = (low + high + 1) >>> 1;
+            if (offsets[middle] <= index) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        final Band band = bands.get(low);
+        final long local = index - offsets[low];
+        final int width = band.getWidth();
+        final int row = band.top + (int) (local / width);
+        int column = (int) (local % width);
+        for (int i = 0; i < band.columns.length; i += 2) {
+            final int intervalWidth = band.columns[i + 1] - band.columns[i] + 1;
+            if (column < intervalWidth) {
+                return positionFactory.apply(row, band.columns[i] + column);
+            }
+            column -= intervalWidth;
+        }
+        throw new IndexOutOfBoundsException();
+    }
+
+    private long[] getOffsets() {
+        if (offsets == null) {
+            offsets = new long[bands.size()];
+            long count = 0;
+            for (int i = 0; i < bands.size(); ++i) {
+                offsets[i] = count;
+                count += bands.get(i).getCount();
+            }
+        }
+        return offsets;
+    }
+
+    private Band getBand(int row) {
+        int low = 0;
+        int high = bands.size() - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final Band band = bands.get(middle);
+            if (row < band.top) {
+                high = middle - 1;
+            } else if (row > band.bottom) {
+                low = middle + 1;
+            } else {
+                return band;
+            }
+        }
+        return null;
+    }
+
+    private boolean update(int top, int bottom, int left, int right, boolean add) {
+        if (top > bottom || left > right) {
+            return false;
+        }
+        final int[] interval = new int[]{left, right};
+        final List<Band> result = new ArrayList<>(bands.size() + 3);
+        //The first row of [top, bottom] not yet handled.
+        int row = top;
+        for (Band band : bands) {
+            if (band.bottom < top) {
+                result.add(band);
+            } else if (band.top > bottom) {
+                if (add && row <= bottom) {
+                    result.add(new Band(row, bottom, interval));
+                    row = bottom + 1;
+                }
+                result.add(band);
+            } else {
+                if (band.top < top) {
+                    result.add(new Band(band.top, top - 1, band.columns));
+                }
+                final int from = Math.max(band.top, top);
+                final int to = Math.min(band.bottom, bottom);
+                if (add && row < from) {
+                    result.add(new Band(row, from - 1, interval));
+                }
+                result.add(new Band(from, to, add ? union(band.columns, left, right) : subtract(band.columns, left, right)));
+                row = to + 1;
+                if (band.bottom > bottom) {
+                    result.add(new Band(bottom + 1, band.bottom, band.columns));
+                }
+            }
+        }
+        if (add && row <= bottom) {
+            result.add(new Band(row, bottom, interval));
+        }
+
+        //We drop the empty bands and merge the identical adjacent ones.
+        final List<Band> merged = new ArrayList<>(result.size());
+        long newSize = 0;
+        for (Band band : result) {
+            if (band.columns.length == 0) {
+                continue;
+            }
+            if (!merged.isEmpty()) {
+                final Band previous = merged.get(merged.size() - 1);
+                if (previous.bottom + 1 == band.top && Arrays.equals(previous.columns, band.columns)) {
+                    newSize -= previous.getCount();
+                    band = new Band(previous.top, band.bottom, band.columns);
+                    merged.set(merged.size() - 1, band);
+                    newSize += band.getCount();
+                    continue;
+                }
+            }
+            merged.add(band);
+            newSize += band.getCount();
+        }
+
+        if (newSize == size) {
+            return false;
+        }
+        bands = merged;
+        offsets = null;
+        size = newSize;
+        return true;
+    }
+
+    /**
+     * Adds the interval [left, right] to the given sorted intervals.
+     */
+    private static int[] union(int[] columns, int left, int right) {
+        final int[] result = new int[columns.length + 2];
+        int length = 0;
+        boolean inserted = false;
+        for (int i = 0; i < columns.length; i += 2) {
+            final int start = columns[i];
+            final int end = columns[i + 1];
+            if (end < left - 1) {
+                result[length++] = start;
+                result[length++] = end;
+            } else if (start > right + 1) {
+                if (!inserted) {
+                    result[length++] = left;
+                    result[length++] = right;
+                    inserted = true;
+                }
+                result[length++] = start;
+                result[length++] = end;
+            } else {
+                left = Math.min(left, start);
+                right = Math.max(right, end);
+            }
+        }
+        if (!inserted) {
+            result[length++] = left;
+            result[length++] = right;
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+    /**
+     * Removes the interval [left, right] from the given sorted intervals.
+     */
+    private static int[] subtract(int[] columns, int left, int right) {
+        final int[] result = new int[columns.length + 2];
+        int length = 0;
+        for (int i = 0; i < columns.length; i += 2) {
+            final int start = columns[i];
+            final int end = columns[i + 1];
+            if (end < left || start > right) {
+                result[length++] = start;
+                result[length++] = end;
+            } else {
+                if (start < left) {
+                    result[length++] = start;
+                    result[length++] = left - 1;
+                }
+                if (end > right) {
+                    result[length++] = right + 1;
+                    result[length++] = end;
+                }
+            }
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+    /**
+     * Consecutive rows, from top to bottom included, sharing the same selected
+     * columns. The columns are stored as pairs of inclusive bounds.
+     */
+    private static final class Band {
+
+        private final int top;
+        private final int bottom;
+        private final int[] columns;
+
+        Band(int top, int bottom, int[] columns) {
+            this.top = top;
+            this.bottom = bottom;
+            this.columns = columns;
+        }
+
+        int getWidth() {
+            int width = 0;
+            for (int i = 0; i < columns.length; i += 2) {
+                width += columns[i + 1] - columns[i] + 1;
+            }
+            return width;
+        }
+
+        long getCount() {
+            return (long) (bottom - top + 1) * getWidth();
+        }
+    }
+}
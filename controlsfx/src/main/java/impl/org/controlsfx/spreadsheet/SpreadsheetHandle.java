@@ -27,6 +27,7 @@
 
 package impl.org.controlsfx.spreadsheet;
 
+import org.controlsfx.control.spreadsheet.SpreadsheetCell;
 import org.controlsfx.control.spreadsheet.SpreadsheetView;
 
 /**
@@ -41,4 +42,6 @@ public abstract class SpreadsheetHandle {
 	protected abstract GridViewSkin getCellsViewSkin();
         /** Whether that column width has been set by the user. */
         protected abstract boolean isColumnWidthSet(int indexColumn);
+        /** Formats again the texts of the cell's row if the locale has changed. */
+        protected abstract void updateTextLocale(SpreadsheetCell cell);
 }
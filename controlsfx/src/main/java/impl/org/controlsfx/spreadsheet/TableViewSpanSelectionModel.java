@@ -26,13 +26,13 @@
  */
 package impl.org.controlsfx.spreadsheet;
 
-import com.sun.javafx.collections.MappingChange;
 import com.sun.javafx.collections.NonIterableChange;
 import com.sun.javafx.scene.control.ReadOnlyUnbackedObservableList;
+import impl.org.controlsfx.spreadsheet.RectangleSelection.GridRange;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Set;
+import java.util.stream.Collectors;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
 import javafx.beans.InvalidationListener;
@@ -40,7 +40,6 @@ import javafx.beans.NamedArg;
 import javafx.beans.Observable;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
-import javafx.collections.WeakListChangeListener;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.event.WeakEventHandler;
@@ -55,6 +54,7 @@ import javafx.util.Duration;
 import javafx.util.Pair;
 import org.controlsfx.control.spreadsheet.SpreadsheetCell;
 import org.controlsfx.control.spreadsheet.SpreadsheetView;
+import org.controlsfx.control.spreadsheet.VirtualGridBase;
 
 /**
  *
@@ -75,8 +75,9 @@ public class TableViewSpanSelectionModel extends
     private SpreadsheetView spreadsheetView;
     // the only 'proper' internal data structure, selectedItems and
     // selectedIndices
-    // are both 'read-only and unbacked'.
-    private final SelectedCellsMapTemp<TablePosition<ObservableList<SpreadsheetCell>, ?>> selectedCellsMap;
+    // are both 'read-only and unbacked'. The selection is stored as
+    // rectangles, the positions are only created when requested.
+    private final SelectedCellsRanges<TablePosition<ObservableList<SpreadsheetCell>, ?>> selectedRanges;
 
     // we create a ReadOnlyUnbackedObservableList of selectedCells here so
     // that we can fire custom list change events.
@@ -165,8 +166,6 @@ public class TableViewSpanSelectionModel extends
         mouseEvent = e;
     };
 
-    private final ListChangeListener<TablePosition<ObservableList<SpreadsheetCell>, ?>> listChangeListener = this::handleSelectedCellsListChangeEvent;
-
     /**
      * *********************************************************************
      *
@@ -193,29 +192,44 @@ public class TableViewSpanSelectionModel extends
 
         cellsView.setOnMouseDragged(new WeakEventHandler<>(onMouseDragEventHandler));
 
-        selectedCellsMap = new SelectedCellsMapTemp<>(new WeakListChangeListener<>(listChangeListener));
+        selectedRanges = new SelectedCellsRanges<>((row, column) -> new TablePosition<>(getTableView(), row,
+                getTableView().getVisibleLeafColumn(column)));
 
         selectedCellsSeq = new ReadOnlyUnbackedObservableList<TablePosition<ObservableList<SpreadsheetCell>, ?>>() {
             @Override
             public TablePosition<ObservableList<SpreadsheetCell>, ?> get(int i) {
-                return selectedCellsMap.get(i);
+                return selectedRanges.get(i);
             }
 
             @Override
             public int size() {
-                return selectedCellsMap.size();
+                return selectedRanges.size();
             }
         };
     }
 
     private void handleSelectedCellsListChangeEvent(
-            ListChangeListener.Change<? extends TablePosition<ObservableList<SpreadsheetCell>, ?>> c) {
+            ListChangeListener.Change<TablePosition<ObservableList<SpreadsheetCell>, ?>> c) {
         if (makeAtomic) {
             return;
         }
 
-        selectedCellsSeq.callObservers(new MappingChange<>(c, MappingChange.NOOP_MAP, selectedCellsSeq));
-        c.reset();
+        selectedCellsSeq.callObservers(c);
+    }
+
+    /**
+     * Notify that the selection has been replaced. The previous selection is
+     * a snapshot of the ranges, so no position is created unless a listener
+     * is reading the removed cells.
+     *
+     * @param previousSelection
+     */
+    private void fireSelectionChange(List<TablePosition<ObservableList<SpreadsheetCell>, ?>> previousSelection) {
+        if (previousSelection.isEmpty() && selectedRanges.isEmpty()) {
+            return;
+        }
+        handleSelectedCellsListChangeEvent(new NonIterableChange.GenericAddRemoveChange<>(0,
+                selectedRanges.size(), previousSelection, selectedCellsSeq));
     }
 
     /**
@@ -330,11 +344,10 @@ public class TableViewSpanSelectionModel extends
         SpreadsheetCell cell = (SpreadsheetCell) old.getTableColumn().getCellData(old.getRow());
         oldRowSpan = spreadsheetView.getRowSpan(cell, old.getRow());
         oldColSpan = spreadsheetView.getColumnSpan(cell);
-        for (int i = old.getRow(); i < oldRowSpan + old.getRow(); ++i) {
-            for (int j = spreadsheetView.getViewColumn(cell.getColumn()); j < oldColSpan + spreadsheetView.getViewColumn(cell.getColumn()); ++j) {
-                posFinal = new TablePosition<>(getTableView(), i, getTableView().getVisibleLeafColumn(j));
-                selectedCellsMap.add(posFinal);
-            }
+        final int viewColumn = spreadsheetView.getViewColumn(cell.getColumn());
+        final List<TablePosition<ObservableList<SpreadsheetCell>, ?>> previousSelection = selectedRanges.snapshot();
+        if (selectedRanges.add(old.getRow(), old.getRow() + oldRowSpan - 1, viewColumn, viewColumn + oldColSpan - 1)) {
+            fireSelectionChange(previousSelection);
         }
 
         updateScroll(old);
@@ -363,10 +376,7 @@ public class TableViewSpanSelectionModel extends
         if (!drag && key && getCellsViewSkin().getCellsSize() != 0 && !VerticalHeader.isFixedRowEmpty(spreadsheetView)) {
 
             int start = getCellsViewSkin().getRow(0).getIndex();
-            double posFinalOffset = 0;
-            for (int j = start; j < posFinal.getRow(); ++j) {
-                posFinalOffset += getSpreadsheetViewSkin().getRowHeight(j);
-            }
+            double posFinalOffset = getSpreadsheetViewSkin().getRowsHeight(start, posFinal.getRow(), false);
 
             if (getCellsViewSkin().getFixedRowHeight() > posFinalOffset) {
                 cellsView.scrollTo(posFinal.getRow());
@@ -383,23 +393,16 @@ public class TableViewSpanSelectionModel extends
         if (tp.getRow() < 0 || tp.getColumn() < 0) {
             return;
         }
-        List<TablePosition<ObservableList<SpreadsheetCell>, ?>> selectedCells;
-        if ((selectedCells = isSelectedRange(row, column, tp.getColumn())) != null) {
-            for (TablePosition<ObservableList<SpreadsheetCell>, ?> cell : selectedCells) {
-                selectedCellsMap.remove(cell);
-                removeSelectedRowsAndColumns(cell);
-                focus(cell.getRow());
-            }
-        } else {
-            for (TablePosition<ObservableList<SpreadsheetCell>, ?> pos : getSelectedCells()) {
-                if (pos.equals(tp)) {
-                    selectedCellsMap.remove(pos);
-                    removeSelectedRowsAndColumns(pos);
-                    // give focus to this cell index
-                    focus(row);
-                    return;
-                }
-            }
+        //We unselect the whole span of the cell, starting from the given row.
+        final SpreadsheetCell cell = (SpreadsheetCell) column.getCellData(row);
+        final int viewColumn = spreadsheetView.getViewColumn(cell.getColumn());
+        final List<TablePosition<ObservableList<SpreadsheetCell>, ?>> previousSelection = selectedRanges.snapshot();
+        if (selectedRanges.remove(row, row + spreadsheetView.getRowSpan(cell, row) - 1,
+                viewColumn, viewColumn + spreadsheetView.getColumnSpan(cell) - 1)) {
+            removeSelectedRowsAndColumns(tp);
+            // give focus to this cell index
+            focus(row);
+            fireSelectionChange(previousSelection);
         }
     }
 
@@ -412,42 +415,43 @@ public class TableViewSpanSelectionModel extends
      * @param selectedCells
      */
     public void verifySelectedCells(List<Pair<Integer, Integer>> selectedCells) {
-        Set<TablePosition<ObservableList<SpreadsheetCell>, ?>> newList = new HashSet<>();
+        final List<GridRange> ranges = new ArrayList<>(selectedCells.size());
+        for (Pair<Integer, Integer> position : selectedCells) {
+            ranges.add(new GridRange(position.getKey(), position.getKey(), position.getValue(), position.getValue()));
+        }
+        verifySelectedRanges(ranges);
+    }
+
+    /**
+     * Same as {@link #verifySelectedCells(java.util.List) } but with ranges of
+     * cells, as given by {@link #getSelectedRanges() }.
+     *
+     * @param ranges
+     */
+    public void verifySelectedRanges(List<GridRange> ranges) {
         clearSelection();
 
         final int itemCount = getItemCount();
         final int columnSize = getTableView().getVisibleLeafColumns().size();
-        final HashSet<Integer> selectedRows = new HashSet<>();
-        final HashSet<Integer> selectedColumns = new HashSet<>();
+        final BitSet selectedRows = new BitSet();
+        final BitSet selectedColumns = new BitSet();
         TablePosition<ObservableList<SpreadsheetCell>, ?> pos = null;
-        for (Pair<Integer, Integer> position : selectedCells) {
-            if (position.getKey() < 0
-                    || position.getKey() >= itemCount
-                    || position.getValue() < 0
-                    || position.getValue() >= columnSize) {
+        for (GridRange range : ranges) {
+            final int top = Math.max(range.getTop(), 0);
+            final int bottom = Math.min(range.getBottom(), itemCount - 1);
+            final int left = Math.max(range.getLeft(), 0);
+            final int right = Math.min(range.getRight(), columnSize - 1);
+            if (top > bottom || left > right) {
                 continue;
             }
-
-            final TableColumn<ObservableList<SpreadsheetCell>, ?> column = getTableView().getVisibleLeafColumn(position.getValue());
-
-            pos = getVisibleCell(position.getKey(), column);
             // We store all the selectedColumn and Rows, we will update
             // just once at the end
-            final SpreadsheetCell cell = (SpreadsheetCell) column.getCellData(pos.getRow());
-            if (cell != null) {
-                final int rowSpan = spreadsheetView.getRowSpan(cell, pos.getRow());
-                final int currentRow = pos.getRow();
-                for (int i = pos.getRow(); i < rowSpan + currentRow; ++i) {
-                    selectedColumns.add(i);
-                    for (int j = spreadsheetView.getViewColumn(cell.getColumn()); j < spreadsheetView.getColumnSpan(cell) + spreadsheetView.getViewColumn(cell.getColumn()); ++j) {
-                        selectedRows.add(j);
-                        pos = new TablePosition<>(getTableView(), i, getTableView().getVisibleLeafColumn(j));
-                        newList.add(pos);
-                    }
-                }
-            }
+            final int[] bounds = normalizeRange(top, bottom, left, right);
+            selectedRanges.add(bounds[0], bounds[1], bounds[2], bounds[3]);
+            selectedRows.set(bounds[0], bounds[1] + 1);
+            selectedColumns.set(bounds[2], bounds[3] + 1);
+            pos = new TablePosition<>(getTableView(), bounds[1], getTableView().getVisibleLeafColumn(bounds[3]));
         }
-        selectedCellsMap.setAll(newList);
 
         final TablePosition finalPos = pos;
         // Then we update visuals just once
@@ -479,10 +483,15 @@ public class TableViewSpanSelectionModel extends
      * @param selectedRows
      * @param selectedColumns
      */
-    private void updateSelectedVisuals(GridViewSkin skin, TablePosition pos, HashSet<Integer> selectedRows, HashSet<Integer> selectedColumns) {
+    private void updateSelectedVisuals(GridViewSkin skin, TablePosition pos, BitSet selectedRows, BitSet selectedColumns) {
         if (skin != null) {
-            skin.getSelectedRows().addAll(selectedColumns);
-            skin.getSelectedColumns().addAll(selectedRows);
+            int row = selectedRows.nextSetBit(0);
+            while (row >= 0) {
+                final int end = selectedRows.nextClearBit(row);
+                skin.addSelectedRows(row, end - 1);
+                row = selectedRows.nextSetBit(end);
+            }
+            skin.getSelectedColumns().addAll(selectedColumns.stream().boxed().collect(Collectors.toList()));
         }
 
         /**
@@ -497,7 +506,7 @@ public class TableViewSpanSelectionModel extends
                 @Override
                 public void invalidated(Observable observable) {
                     handleSelectedCellsListChangeEvent(new NonIterableChange.SimpleAddChange<>(0,
-                            selectedCellsMap.size(), selectedCellsSeq));
+                            selectedRanges.size(), selectedCellsSeq));
                     getCellsViewSkin().lastRowLayout.removeListener(this);
                 }
             });
@@ -513,95 +522,48 @@ public class TableViewSpanSelectionModel extends
             select(maxRow, maxColumn);
             return;
         }
-        SpreadsheetCell cell;
-
-        makeAtomic = true;
-
         final int itemCount = getItemCount();
+        final int columnCount = getTableView().getVisibleLeafColumns().size();
 
         final int minColumnIndex = getTableView().getVisibleLeafIndex(
                 (TableColumn<ObservableList<SpreadsheetCell>, ?>) minColumn);
         final int maxColumnIndex = getTableView().getVisibleLeafIndex(
                 (TableColumn<ObservableList<SpreadsheetCell>, ?>) maxColumn);
-        final int _minColumnIndex = Math.min(minColumnIndex, maxColumnIndex);
-        final int _maxColumnIndex = Math.max(minColumnIndex, maxColumnIndex);
-
-        final int _minRow = Math.min(minRow, maxRow);
-        final int _maxRow = Math.max(minRow, maxRow);
-
-        HashSet<Integer> selectedRows = new HashSet<>();
-        HashSet<Integer> selectedColumns = new HashSet<>();
-
-        for (int _row = _minRow; _row <= _maxRow; _row++) {
-            for (int _col = _minColumnIndex; _col <= _maxColumnIndex; _col++) {
-                // begin copy/paste of select(int, column) method (with some
-                // slight modifications)
-                if (_row < 0 || _row >= itemCount) {
-                    continue;
-                }
-
-                final TableColumn<ObservableList<SpreadsheetCell>, ?> column = getTableView().getVisibleLeafColumn(
-                        _col);
-
-                // if I'm in cell selection mode but the column is null, I
-                // don't want
-                // to select the whole row instead...
-                if (column == null) {
-                    continue;
-                }
-
-                TablePosition<ObservableList<SpreadsheetCell>, ?> pos = getVisibleCell(_row, column);
-
-                // We store all the selectedColumn and Rows, we will update
-                // just once at the end
-                cell = (SpreadsheetCell) column.getCellData(pos.getRow());
-                final int rowSpan = spreadsheetView.getRowSpan(cell, pos.getRow());
-                final int currentRow = pos.getRow();
-                for (int i = currentRow; i < rowSpan + currentRow; ++i) {
-                    selectedRows.add(i);
-                    for (int j = spreadsheetView.getViewColumn(cell.getColumn()); j < spreadsheetView.getColumnSpan(cell) + spreadsheetView.getViewColumn(cell.getColumn()); ++j) {
-                        selectedColumns.add(j);
-                        pos = new TablePosition<>(getTableView(), i, getTableView().getVisibleLeafColumn(j));
-                        selectedCellsMap.add(pos);
-                    }
-                }
-
-//                makeAtomic = true;
-                // end copy/paste
+        final int _minColumnIndex = Math.max(Math.min(minColumnIndex, maxColumnIndex), 0);
+        final int _maxColumnIndex = Math.min(Math.max(minColumnIndex, maxColumnIndex), columnCount - 1);
+
+        final int _minRow = Math.max(Math.min(minRow, maxRow), 0);
+        final int _maxRow = Math.min(Math.max(minRow, maxRow), itemCount - 1);
+
+        final List<TablePosition<ObservableList<SpreadsheetCell>, ?>> previousSelection = selectedRanges.snapshot();
+        boolean changed = false;
+        if (_minRow <= _maxRow && _minColumnIndex <= _maxColumnIndex) {
+            /**
+             * The range is extended in order to contain entirely every spanned
+             * cell it touches, so only one rectangle is selected.
+             */
+            final int[] bounds = normalizeRange(_minRow, _maxRow, _minColumnIndex, _maxColumnIndex);
+            changed = selectedRanges.add(bounds[0], bounds[1], bounds[2], bounds[3]);
+
+            // Then we update visuals just once
+            getSpreadsheetViewSkin().addSelectedRows(bounds[0], bounds[1]);
+            final List<Integer> selectedColumns = new ArrayList<>(bounds[3] - bounds[2] + 1);
+            for (int column = bounds[2]; column <= bounds[3]; ++column) {
+                selectedColumns.add(column);
             }
+            getSpreadsheetViewSkin().getSelectedColumns().addAll(selectedColumns);
         }
-        makeAtomic = false;
-
-        // Then we update visuals just once
-        getSpreadsheetViewSkin().getSelectedRows().addAll(selectedRows);
-        getSpreadsheetViewSkin().getSelectedColumns().addAll(selectedColumns);
 
         // fire off events
         setSelectedIndex(maxRow);
         setSelectedItem(getModelItem(maxRow));
-        if (getTableView().getFocusModel() == null) {
-            return;
+        if (getTableView().getFocusModel() != null) {
+            //FIXME Focus is wrong, and endIndex also..
+            getTableView().getFocusModel().focus(maxRow, (TableColumn<ObservableList<SpreadsheetCell>, ?>) maxColumn);
         }
 
-        //FIXME Focus is wrong, and endIndex also..
-        getTableView().getFocusModel().focus(maxRow, (TableColumn<ObservableList<SpreadsheetCell>, ?>) maxColumn);
-
-        /**
-         * If we end up on a spanned cell, there is not reliable way to
-         * determine which is the last index, certainly not the maxRow and
-         * maxColumn. So right now we need to take this extreme measure in order
-         * to be sure that the cells will be highlighted correctly.
-         */
-        final int startChangeIndex = selectedCellsMap.indexOf(new TablePosition<>(getTableView(), minRow,
-                (TableColumn<ObservableList<SpreadsheetCell>, ?>) minColumn));
-        final int endChangeIndex = selectedCellsMap.getSelectedCells().size() - 1;//indexOf(new TablePosition<>(getTableView(), maxRow,
-//                (TableColumn<ObservableList<SpreadsheetCell>, ?>) maxColumn));
-
-        if (startChangeIndex > -1 && endChangeIndex > -1) {
-            final int startIndex = Math.min(startChangeIndex, endChangeIndex);
-            final int endIndex = Math.max(startChangeIndex, endChangeIndex);
-            handleSelectedCellsListChangeEvent(new NonIterableChange.SimpleAddChange<>(startIndex,
-                    endIndex + 1, selectedCellsSeq));
+        if (changed) {
+            fireSelectionChange(previousSelection);
         }
     }
 
@@ -613,18 +575,11 @@ public class TableViewSpanSelectionModel extends
 
         quietClearSelection();
 
-        List<TablePosition<ObservableList<SpreadsheetCell>, ?>> indices = new ArrayList<>();
-        TableColumn<ObservableList<SpreadsheetCell>, ?> column;
-        TablePosition<ObservableList<SpreadsheetCell>, ?> tp = null;
-
-        for (int col = 0; col < getTableView().getVisibleLeafColumns().size(); col++) {
-            column = getTableView().getVisibleLeafColumns().get(col);
-            for (int row = 0; row < getItemCount(); row++) {
-                tp = new TablePosition<>(getTableView(), row, column);
-                indices.add(tp);
-            }
-        }
-        selectedCellsMap.setAll(indices);
+        final int itemCount = getItemCount();
+        final int columnCount = getTableView().getVisibleLeafColumns().size();
+        //The whole grid is only one rectangle.
+        final List<TablePosition<ObservableList<SpreadsheetCell>, ?>> previousSelection = selectedRanges.snapshot();
+        final boolean changed = selectedRanges.add(0, itemCount - 1, 0, columnCount - 1);
 
         // Then we update visuals just once
         ArrayList<Integer> selectedColumns = new ArrayList<>();
@@ -632,15 +587,12 @@ public class TableViewSpanSelectionModel extends
             selectedColumns.add(col);
         }
 
-        ArrayList<Integer> selectedRows = new ArrayList<>();
-        for (int row = 0; row < getItemCount(); row++) {
-            selectedRows.add(row);
-        }
-        getSpreadsheetViewSkin().getSelectedRows().addAll(selectedRows);
+        getSpreadsheetViewSkin().addSelectedRows(0, itemCount - 1);
         getSpreadsheetViewSkin().getSelectedColumns().addAll(selectedColumns);
 
-        if (tp != null) {
-            select(tp.getRow(), tp.getTableColumn());
+        if (changed) {
+            fireSelectionChange(previousSelection);
+            select(itemCount - 1, getTableView().getVisibleLeafColumn(columnCount - 1));
             //Just like verticalHeader, the focus should be put on the 
             //first cell to ease copy/paste operation.
             getTableView().getFocusModel().focus(0, getTableView().getColumns().get(0));
@@ -661,42 +613,20 @@ public class TableViewSpanSelectionModel extends
 
         if (getCellsViewSkin().getCellsSize() != 0) {
             TablePosition<ObservableList<SpreadsheetCell>, ?> posFinal = getVisibleCell(row, column);
-            return selectedCellsMap.isSelected(posFinal.getRow(), posFinal.getColumn());
+            return selectedRanges.isSelected(posFinal.getRow(), posFinal.getColumn());
         } else {
-            return selectedCellsMap.isSelected(row, columnIndex);
+            return selectedRanges.isSelected(row, columnIndex);
         }
     }
 
     /**
-     * Return the tablePosition of a selected cell inside a spanned cell if any.
+     * Return the rectangles composing the current selection, in view
+     * coordinates.
      *
-     * @param row
-     * @param column
-     * @param col
-     * @return
+     * @return the rectangles composing the current selection
      */
-    public List<TablePosition<ObservableList<SpreadsheetCell>, ?>> isSelectedRange(int row,
-            TableColumn<ObservableList<SpreadsheetCell>, ?> column, int col) {
-
-        if (col < 0 || row < 0) {
-            return null;
-        }
-
-        final SpreadsheetCell cell = (SpreadsheetCell) column.getCellData(row);
-
-        final int infRow = row;
-        final int supRow = infRow + spreadsheetView.getRowSpan(cell, row);
-
-        final int infCol = spreadsheetView.getViewColumn(cell.getColumn());
-        final int supCol = infCol + spreadsheetView.getColumnSpan(cell);
-        List<TablePosition<ObservableList<SpreadsheetCell>, ?>> selectedCells = new ArrayList<>();
-        for (final TablePosition<ObservableList<SpreadsheetCell>, ?> tp : getSelectedCells()) {
-            if (tp.getRow() >= infRow && tp.getRow() < supRow && tp.getColumn() >= infCol
-                    && tp.getColumn() < supCol) {
-                selectedCells.add(tp);
-            }
-        }
-        return selectedCells.isEmpty() ? null : selectedCells;
+    public List<GridRange> getSelectedRanges() {
+        return selectedRanges.getRanges();
     }
 
     /**
@@ -747,8 +677,7 @@ public class TableViewSpanSelectionModel extends
         makeAtomic = true;
         // firstly we make a copy of the selection, so that we can send out
         // the correct details in the selection change event
-        List<TablePosition<ObservableList<SpreadsheetCell>, ?>> previousSelection = new ArrayList<>(
-                selectedCellsMap.getSelectedCells());
+        final List<TablePosition<ObservableList<SpreadsheetCell>, ?>> previousSelection = selectedRanges.snapshot();
 
         // then clear the current selection
         clearSelection();
@@ -760,15 +689,7 @@ public class TableViewSpanSelectionModel extends
 
         // fire off a single add/remove/replace notification (rather than
         // individual remove and add notifications) - see RT-33324
-        if (old != null && old.getColumn() >= 0) {
-            TableColumn<ObservableList<SpreadsheetCell>, ?> columnFinal = getTableView().getVisibleLeafColumn(
-                    old.getColumn());
-            int changeIndex = selectedCellsSeq.indexOf(new TablePosition<>(getTableView(), old.getRow(),
-                    columnFinal));
-            NonIterableChange.GenericAddRemoveChange<TablePosition<ObservableList<SpreadsheetCell>, ?>> change = new NonIterableChange.GenericAddRemoveChange<>(
-                    changeIndex, changeIndex + 1, previousSelection, selectedCellsSeq);
-            handleSelectedCellsListChangeEvent(change);
-        }
+        fireSelectionChange(previousSelection);
     }
 
     /**
@@ -842,7 +763,10 @@ public class TableViewSpanSelectionModel extends
     }
 
     private void quietClearSelection() {
-        selectedCellsMap.clear();
+        final List<TablePosition<ObservableList<SpreadsheetCell>, ?>> previousSelection = selectedRanges.snapshot();
+        if (selectedRanges.clear()) {
+            fireSelectionChange(previousSelection);
+        }
         GridViewSkin skin = getSpreadsheetViewSkin();
         if (skin != null) {
             skin.getSelectedRows().clear();
@@ -869,6 +793,94 @@ public class TableViewSpanSelectionModel extends
         return (GridViewSkin) getCellsViewSkin();
     }
 
+    /**
+     * Extends the given range, in view coordinates, until every spanned cell
+     * it touches is entirely contained. A spanned cell going out of the range
+     * necessarily covers one of its borders, so only the borders are visited.
+     *
+     * @param top
+     * @param bottom
+     * @param left
+     * @param right
+     * @return the bounds of the range as {top, bottom, left, right}
+     */
+    private int[] normalizeRange(int top, int bottom, int left, int right) {
+        final int[] bounds = new int[]{top, bottom, left, right};
+        /**
+         * The VirtualGridBase knows its spanned cells, visiting the borders
+         * would create the cells of every row of the range.
+         */
+        if (spreadsheetView.getGrid() instanceof VirtualGridBase) {
+            boolean expanded = true;
+            while (expanded) {
+                expanded = false;
+                for (SpreadsheetCell cell : ((VirtualGridBase) spreadsheetView.getGrid()).getSpannedCells()) {
+                    final int viewRow = spreadsheetView.getViewRow(cell.getRow());
+                    if (viewRow >= 0 && viewRow < getItemCount()) {
+                        expanded |= includeCell(bounds, cell, viewRow);
+                    }
+                }
+            }
+            return bounds;
+        }
+
+        boolean expanded = true;
+        while (expanded) {
+            expanded = false;
+            for (int row = bounds[0]; row <= bounds[1]; ++row) {
+                expanded |= includeCell(bounds, row, bounds[2]);
+                expanded |= includeCell(bounds, row, bounds[3]);
+            }
+            for (int column = bounds[2]; column <= bounds[3]; ++column) {
+                expanded |= includeCell(bounds, bounds[0], column);
+                expanded |= includeCell(bounds, bounds[1], column);
+            }
+        }
+        return bounds;
+    }
+
+    private boolean includeCell(int[] bounds, int viewRow, int viewColumn) {
+        final SpreadsheetCell cell = cellsView.getItems().get(viewRow).get(spreadsheetView.getModelColumn(viewColumn));
+        if (cell.getRowSpan() == 1 && cell.getColumnSpan() == 1) {
+            return false;
+        }
+        return includeCell(bounds, cell, viewRow);
+    }
+
+    /**
+     * Extends the bounds if the given cell, displayed on the given row,
+     * intersects them without being contained.
+     *
+     * @return whether the bounds were extended
+     */
+    private boolean includeCell(int[] bounds, SpreadsheetCell cell, int viewRow) {
+        final int top = viewRow - spreadsheetView.getReverseRowSpan(cell, viewRow) + 1;
+        final int bottom = viewRow + spreadsheetView.getRowSpan(cell, viewRow) - 1;
+        final int left = spreadsheetView.getViewColumn(cell.getColumn());
+        final int right = left + spreadsheetView.getColumnSpan(cell) - 1;
+        if (left < 0 || bottom < bounds[0] || top > bounds[1] || right < bounds[2] || left > bounds[3]) {
+            return false;
+        }
+        boolean expanded = false;
+        if (top < bounds[0]) {
+            bounds[0] = top;
+            expanded = true;
+        }
+        if (bottom > bounds[1]) {
+            bounds[1] = bottom;
+            expanded = true;
+        }
+        if (left < bounds[2]) {
+            bounds[2] = left;
+            expanded = true;
+        }
+        if (right > bounds[3]) {
+            bounds[3] = right;
+            expanded = true;
+        }
+        return expanded;
+    }
+
     /**
      * For a position, return the Visible Cell associated with It can be the top
      * of the span cell if it's visible, or it can be the first row visible if
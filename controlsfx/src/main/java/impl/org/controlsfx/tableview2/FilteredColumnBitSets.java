@@ -0,0 +1,505 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package impl.org.controlsfx.tableview2;
+
+import impl.org.controlsfx.tableview2.filter.parser.FilterCompiler;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.WeakListChangeListener;
+import javafx.scene.control.TableColumnBase;
+import org.controlsfx.control.tableview2.FilteredTableColumn;
+
+/**
+ * Keeps, for every filtered column of a
+ * {@link org.controlsfx.control.tableview2.FilteredTableView}, the set of the
+ * items accepted by the predicate of the column, indexed like the backing list.
+ *
+ * When the predicate of one column changes, only that column is evaluated
+ * again, the others are combined from their previous result with a bitwise
+ * AND. Everything is evaluated again when the backing list changes, or when
+ * {@link #invalidate()} is called.
+ *
+ * When the new predicate of a column is known to accept only items the
+ * previous one accepted, as when typing one more character of a filter, only
+ * the items accepted by the previous predicate are tested. The columns that
+ * are {@link FilteredTableColumn#textIndexedProperty() text indexed} also get
+ * the candidates of their predicate from a {@link TextIndex}.
+ *
+ * For the evaluation in the background, the items and the values of the
+ * cells read on the JavaFX Application Thread are kept until the items
+ * change, so that a new filter only reads the values it has not read yet.
+ *
+ * @param <S> The type of the objects contained within the FilteredTableView items list
+ */
+public class FilteredColumnBitSets<S> {
+
+    /**
+     * Number of items a task scans before splitting, a multiple of 64 so
+     * that every task writes its own words of the set.
+     */
+    private static final int SCAN_THRESHOLD = 64 * 64;
+
+    private final Map<TableColumnBase<S, ?>, ColumnBits> columnBits = new HashMap<>();
+    private final Map<FilteredTableColumn<S, ?>, TextIndex<S, ?>> textIndexes = new HashMap<>();
+    private final Map<FilteredTableColumn<S, ?>, ColumnValues> columnValues = new HashMap<>();
+    private List<S> snapshot;
+    private int version;
+    private final ListChangeListener<S> itemsListener = c -> {
+        ++version;
+        invalidate();
+    };
+    private final WeakListChangeListener<S> weakItemsListener = new WeakListChangeListener<>(itemsListener);
+    private ObservableList<S> items;
+
+    /**
+     * Returns the items the sets are indexed on.
+     *
+     * @return the backing list, or null
+     */
+    public ObservableList<S> getItems() {
+        return items;
+    }
+
+    /**
+     * Sets the items the sets are indexed on.
+     *
+     * @param items the backing list
+     */
+    public void setItems(ObservableList<S> items) {
+        if (this.items != items) {
+            if (this.items != null) {
+                this.items.removeListener(weakItemsListener);
+            }
+            this.items = items;
+            if (items != null) {
+                items.addListener(weakItemsListener);
+            }
+            textIndexes.values().forEach(TextIndex::dispose);
+            textIndexes.clear();
+            ++version;
+            invalidate();
+        }
+    }
+
+    /**
+     * Returns a number that changes every time the items change, so that a
+     * result computed in the background can be checked before being used.
+     *
+     * @return the version of the items
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Forgets the result of every column, and the values read for the
+     * evaluation in the background.
+     */
+    public void invalidate() {
+        columnBits.clear();
+        columnValues.clear();
+        snapshot = null;
+    }
+
+    /**
+     * Forgets the result of every column, and builds the text indexes again,
+     * when the items may have changed without being notified.
+     */
+    public void invalidateAll() {
+        invalidate();
+        textIndexes.values().forEach(TextIndex::invalidate);
+    }
+
+    /**
+     * Returns an estimate of the memory used by the text index of a column.
+     *
+     * @param column the column
+     * @return the number of bytes, 0 if the column has no text index
+     */
+    public long getTextIndexMemoryUsage(FilteredTableColumn<S, ?> column) {
+        final TextIndex<S, ?> textIndex = textIndexes.get(column);
+        return textIndex == null ? 0 : textIndex.getMemoryUsage();
+    }
+
+    /**
+     * Forgets the text index of a column.
+     *
+     * @param column the column
+     */
+    public void removeTextIndex(FilteredTableColumn<S, ?> column) {
+        final TextIndex<S, ?> textIndex = textIndexes.remove(column);
+        if (textIndex != null) {
+            textIndex.dispose();
+        }
+    }
+
+    /**
+     * Forgets the result of a column, and marks the item as updated in its
+     * text index, after a cell of the column has been edited: the new value
+     * may not have been notified by the items.
+     *
+     * @param column the column
+     * @param item the item of the edited cell
+     */
+    public void cellEdited(FilteredTableColumn<S, ?> column, S item) {
+        columnBits.remove(column);
+        columnValues.remove(column);
+        final TextIndex<S, ?> textIndex = textIndexes.get(column);
+        if (textIndex != null) {
+            textIndex.itemUpdated(item);
+        }
+    }
+
+    /**
+     * Returns the columns that filter the items: the filterable
+     * FilteredTableColumns with a predicate.
+     *
+     * @param columns the visible leaf columns of the table
+     * @return the filtered columns
+     */
+    public List<FilteredTableColumn<S, ?>> getFilteredColumns(List<? extends TableColumnBase> columns) {
+        final List<FilteredTableColumn<S, ?>> filteredColumns = new ArrayList<>();
+        for (TableColumnBase<S, ?> column : columns) {
+            if (column instanceof FilteredTableColumn) {
+                final FilteredTableColumn<S, ?> filteredColumn = (FilteredTableColumn<S, ?>) column;
+                if (filteredColumn.getPredicate() != null && filteredColumn.isFilterable()) {
+                    filteredColumns.add(filteredColumn);
+                }
+            }
+        }
+        return filteredColumns;
+    }
+
+    /**
+     * Returns the columns whose current predicate has not been evaluated yet.
+     *
+     * @param filteredColumns the filtered columns
+     * @return the columns to scan
+     */
+    public List<FilteredTableColumn<S, ?>> getStaleColumns(List<FilteredTableColumn<S, ?>> filteredColumns) {
+        final List<FilteredTableColumn<S, ?>> staleColumns = new ArrayList<>();
+        for (FilteredTableColumn<S, ?> column : filteredColumns) {
+            final ColumnBits bits = columnBits.get(column);
+            if (bits == null || bits.predicate != column.getPredicate()) {
+                staleColumns.add(column);
+            }
+        }
+        return staleColumns;
+    }
+
+    /**
+     * Returns the items that the current predicate of the column needs to
+     * test: the items accepted by the previous predicate, if the current one
+     * {@link FilterCompiler#isNarrowing(Predicate, Predicate) narrows} it,
+     * and the items found by the text index of the column, if it has one.
+     * The set returned must not be modified.
+     *
+     * @param column the column
+     * @return the items to test, or null to test all of them
+     */
+    public BitSet getCandidates(FilteredTableColumn<S, ?> column) {
+        final ColumnBits bits = columnBits.get(column);
+        final BitSet candidates = bits != null && FilterCompiler.isNarrowing(column.getPredicate(), bits.predicate) ?
+                bits.bits : null;
+        final TextIndex<S, ?> textIndex = getTextIndex(column);
+        final BitSet found = textIndex == null ? null :
+                textIndex.find(FilterCompiler.getTextQuery(column.getPredicate()));
+        if (found == null) {
+            return candidates;
+        }
+        if (candidates != null) {
+            found.and(candidates);
+        }
+        return found;
+    }
+
+    /**
+     * Stores the result of the evaluation of a column.
+     *
+     * @param column the column
+     * @param predicate the predicate evaluated
+     * @param bits the items accepted by the predicate
+     */
+    public void put(FilteredTableColumn<S, ?> column, Predicate<?> predicate, BitSet bits) {
+        columnBits.put(column, new ColumnBits(predicate, bits));
+    }
+
+    /**
+     * Combines the results of the given columns, which must all have been
+     * evaluated, and forgets the results of the other columns.
+     *
+     * @param filteredColumns the filtered columns
+     * @return the items accepted by all the columns, or null if there is no
+     * column
+     */
+    public BitSet combine(List<FilteredTableColumn<S, ?>> filteredColumns) {
+        columnBits.keySet().retainAll(filteredColumns);
+        columnValues.keySet().retainAll(filteredColumns);
+        BitSet result = null;
+        for (FilteredTableColumn<S, ?> column : filteredColumns) {
+            final BitSet bits = columnBits.get(column).bits;
+            if (result == null) {
+                result = (BitSet) bits.clone();
+            } else {
+                result.and(bits);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a copy of the items, taken once until they change, so that
+     * they can be read on another thread.
+     *
+     * @return the items, not modifiable
+     */
+    public List<S> getSnapshot() {
+        if (snapshot == null) {
+            snapshot = items == null ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(items));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the values of the cells of a column for the items of
+     * {@link #getSnapshot()}, as {@link #getCellData(FilteredTableColumn, List, BitSet)}.
+     * The values already read for the column are reused, only the other
+     * candidates are read.
+     *
+     * @param column the column
+     * @param candidates the only rows whose value is needed, or null for all
+     * of them
+     * @return the values, indexed like the items, null for the rows that have
+     * not been read
+     */
+    public Object[] getColumnValues(FilteredTableColumn<S, ?> column, BitSet candidates) {
+        final List<S> snapshotItems = getSnapshot();
+        final ColumnValues cached = columnValues.computeIfAbsent(column, c -> new ColumnValues(snapshotItems.size()));
+        cached.read(column, snapshotItems, candidates);
+        return cached.values;
+    }
+
+    /**
+     * Evaluates the columns whose predicate has changed since the last call,
+     * and combines the results of all the filtered columns.
+     *
+     * @param columns the visible leaf columns of the table
+     * @return the items accepted by all the columns, or null if no column is
+     * filtered
+     */
+    public BitSet evaluate(List<? extends TableColumnBase> columns) {
+        final List<FilteredTableColumn<S, ?>> filteredColumns = getFilteredColumns(columns);
+        for (FilteredTableColumn<S, ?> column : getStaleColumns(filteredColumns)) {
+            put(column, column.getPredicate(), scan(column, column.getPredicate(), items, getCandidates(column)));
+        }
+        return combine(filteredColumns);
+    }
+
+    /**
+     * Returns the items accepted by the predicate for the given column,
+     * tested on the calling thread.
+     *
+     * @param column the column
+     * @param predicate the predicate of the column
+     * @param items the items to test
+     * @param candidates the only items to test, or null to test all of them
+     * @return the accepted items
+     */
+    public static <S> BitSet scan(FilteredTableColumn<S, ?> column, Predicate<?> predicate,
+            List<S> items, BitSet candidates) {
+        final long[] words = new long[(items.size() + 63) / 64];
+        scan((Predicate<Object>) predicate, i -> column.getCellData(items.get(i)), candidates, 0, items.size(), words);
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * Returns the values of the cells of a column, so that its predicate can
+     * be tested on another thread: the cell value factory, as a
+     * PropertyValueFactory looking up its property by reflection, is only
+     * called on the JavaFX Application Thread.
+     *
+     * @param column the column
+     * @param items the items of the rows
+     * @param candidates the only rows whose value is needed, or null for all
+     * of them
+     * @return the values, indexed like the items, null for the rows that are
+     * not candidates
+     */
+    public static <S> Object[] getCellData(FilteredTableColumn<S, ?> column, List<S> items, BitSet candidates) {
+        final Object[] values = new Object[items.size()];
+        if (candidates == null) {
+            for (int i = 0; i < values.length; ++i) {
+                values[i] = column.getCellData(items.get(i));
+            }
+        } else {
+            for (int i = candidates.nextSetBit(0); i >= 0 && i < values.length; i = candidates.nextSetBit(i + 1)) {
+                values[i] = column.getCellData(items.get(i));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Returns the values accepted by the predicate of a column. The scan is
+     * split among the threads of the common fork/join pool.
+     *
+     * @param predicate the predicate of the column
+     * @param values the values of the cells, see
+     * {@link #getCellData(FilteredTableColumn, List, BitSet)}
+     * @param candidates the only values to test, or null to test all of them
+     * @param cancelled tells if the scan must stop
+     * @return the accepted values, possibly incomplete if the scan has been
+     * cancelled
+     */
+    public static BitSet scan(Predicate<?> predicate, Object[] values, BitSet candidates, BooleanSupplier cancelled) {
+        final long[] words = new long[(values.length + 63) / 64];
+        ForkJoinPool.commonPool().invoke(new ScanAction((Predicate<Object>) predicate, i -> values[i], candidates,
+                0, values.length, words, cancelled));
+        return BitSet.valueOf(words);
+    }
+
+    /***************************************************************************
+     * * Private Implementation * *
+     **************************************************************************/
+
+    private TextIndex<S, ?> getTextIndex(FilteredTableColumn<S, ?> column) {
+        if (! column.isTextIndexed() || items == null) {
+            return null;
+        }
+        return textIndexes.computeIfAbsent(column, c -> new TextIndex<>(c, items));
+    }
+
+    private static void scan(Predicate<Object> predicate, IntFunction<?> values, BitSet candidates,
+            int from, int to, long[] words) {
+        if (candidates == null) {
+            for (int i = from; i < to; ++i) {
+                if (predicate.test(values.apply(i))) {
+                    words[i >> 6] |= 1L << i;
+                }
+            }
+        } else {
+            for (int i = candidates.nextSetBit(from); i >= 0 && i < to; i = candidates.nextSetBit(i + 1)) {
+                if (predicate.test(values.apply(i))) {
+                    words[i >> 6] |= 1L << i;
+                }
+            }
+        }
+    }
+
+    private static final class ScanAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Predicate<Object> predicate;
+        private final IntFunction<?> values;
+        private final BitSet candidates;
+        private final int from;
+        private final int to;
+        private final long[] words;
+        private final BooleanSupplier cancelled;
+
+        ScanAction(Predicate<Object> predicate, IntFunction<?> values,
+                BitSet candidates, int from, int to, long[] words, BooleanSupplier cancelled) {
+            this.predicate = predicate;
+            this.values = values;
+            this.candidates = candidates;
+            this.from = from;
+            this.to = to;
+            this.words = words;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        protected void compute() {
+            if (cancelled.getAsBoolean()) {
+                return;
+            }
+            if (to - from <= SCAN_THRESHOLD) {
+                scan(predicate, values, candidates, from, to, words);
+            } else {
+                // split on a word boundary
+                final int middle = from + ((to - from) / 2 & ~63);
+                invokeAll(new ScanAction(predicate, values, candidates, from, middle, words, cancelled),
+                        new ScanAction(predicate, values, candidates, middle, to, words, cancelled));
+            }
+        }
+    }
+
+    /**
+     * The values of the cells of a column, and the rows already read. A task
+     * in the background only reads the rows read before it started, which
+     * are not written again.
+     */
+    private static final class ColumnValues {
+
+        private final Object[] values;
+        private final BitSet read;
+
+        ColumnValues(int size) {
+            this.values = new Object[size];
+            this.read = new BitSet(size);
+        }
+
+        <S> void read(FilteredTableColumn<S, ?> column, List<S> items, BitSet candidates) {
+            if (candidates == null) {
+                for (int i = read.nextClearBit(0); i < values.length; i = read.nextClearBit(i + 1)) {
+                    values[i] = column.getCellData(items.get(i));
+                }
+                read.set(0, values.length);
+            } else {
+                for (int i = candidates.nextSetBit(0); i >= 0 && i < values.length; i = candidates.nextSetBit(i + 1)) {
+                    if (! read.get(i)) {
+                        values[i] = column.getCellData(items.get(i));
+                        read.set(i);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class ColumnBits {
+
+        private final Predicate<?> predicate;
+        private final BitSet bits;
+
+        ColumnBits(Predicate<?> predicate, BitSet bits) {
+            this.predicate = predicate;
+            this.bits = bits;
+        }
+    }
+}
@@ -30,6 +30,7 @@ import javafx.scene.control.TableColumnBase;
 import org.controlsfx.control.tableview2.FilteredTableColumn;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 import java.util.function.Predicate;
@@ -39,12 +40,33 @@ import java.util.function.Predicate;
  * that is used when the {@link org.controlsfx.control.tableview2.FilteredTableView#filter() } 
  * method is called.
  *
+ * The predicate can be given the items accepted by all the columns, computed
+ * beforehand with {@link FilteredColumnBitSets}. That result is indexed on the
+ * source list it was computed on, so it is only used while the items are
+ * tested in the order of that list, as a FilteredList does when its predicate
+ * changes: every tested item must be, by identity, the next item of the list.
+ * On the first item that is not, because the items are tested in another
+ * order or the source list has changed since, the result is released and the
+ * columns are evaluated item by item. An item that appears several times in
+ * the list gets the same answer at every index, so the result may be used for
+ * any of them.
+ *
  * @param <S> the type of the input to the predicate
  * @param <T> The type of the content in all cells in the related FilteredTableColumn
  */
 public class FilteredColumnPredicate<S, T> implements Predicate<S> {
 
     private final List<? extends TableColumnBase> columns;
+    
+    /**
+     * The items accepted by all the columns, evaluated beforehand column by 
+     * column, and the list they are indexed on. They are used as long as the
+     * items are tested in the order of that list, like a FilteredList does
+     * when its predicate changes.
+     */
+    private List<S> items;
+    private BitSet accepted;
+    private int index;
 
     public FilteredColumnPredicate(TableColumnBase<S,T>... columns) {
         this(Arrays.asList(columns));
@@ -54,8 +76,40 @@ public class FilteredColumnPredicate<S, T> implements Predicate<S> {
         this.columns = Collections.unmodifiableList(columns);
     }
 
+    /**
+     * Creates a predicate that first answers from the given result, computed
+     * with {@link FilteredColumnBitSets} for the given items.
+     * 
+     * @param columns the columns of the table
+     * @param items the items the result is indexed on, which must not change
+     * while the result is used: a snapshot, or the source list when the
+     * predicate is applied right away
+     * @param accepted the items accepted by all the columns
+     */
+    public FilteredColumnPredicate(List<? extends TableColumnBase> columns, List<S> items, BitSet accepted) {
+        this(columns);
+        this.items = items;
+        this.accepted = accepted;
+    }
+
+    /**
+     * Stops using the result given at construction: from now on, every item
+     * is tested against the predicates of the columns.
+     */
+    public void release() {
+        items = null;
+        accepted = null;
+    }
+
     /** {@inheritDoc} */
     @Override public boolean test(S s) {
+        if (accepted != null) {
+            if (index < items.size() && items.get(index) == s) {
+                return accepted.get(index++);
+            }
+            // not tested in order, the result can't be used
+            release();
+        }
         for (TableColumnBase<S,T> tc : columns) {
             if (tc instanceof FilteredTableColumn) {
                 FilteredTableColumn<S, T> ftc = (FilteredTableColumn) tc;
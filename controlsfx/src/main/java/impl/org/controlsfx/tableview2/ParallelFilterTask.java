@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package impl.org.controlsfx.tableview2;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+import javafx.concurrent.Task;
+import org.controlsfx.control.tableview2.FilteredTableColumn;
+
+/**
+ * Evaluates the predicates of some columns of a
+ * {@link org.controlsfx.control.tableview2.FilteredTableView} in the
+ * background, over a snapshot of its backing list. The values of the cells
+ * are read when the task is created, so that the cell value factories are
+ * only called on the JavaFX Application Thread. The snapshot and the values
+ * are kept by the {@link FilteredColumnBitSets} until the items change, so
+ * only the values not read by a previous task are read; they are then split
+ * among the threads of the common fork/join pool, which stop as soon as the
+ * task is cancelled.
+ *
+ * The value of the task holds the items accepted by each column, in the
+ * order of the columns given.
+ *
+ * @param <S> The type of the objects contained within the FilteredTableView items list
+ */
+public class ParallelFilterTask<S> extends Task<BitSet[]> {
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "FilteredTableView filter"); //$NON-NLS-1$
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final List<S> items;
+    private final List<FilteredTableColumn<S, ?>> columns;
+    private final List<Predicate<?>> predicates = new ArrayList<>();
+    private final List<BitSet> candidates = new ArrayList<>();
+    private final List<Object[]> values = new ArrayList<>();
+    private final int version;
+
+    /**
+     * Must be created on the JavaFX Application Thread. A column whose
+     * predicate narrows the one previously evaluated only tests the items
+     * accepted before.
+     *
+     * @param bitSets the results of the columns, with the snapshot of the
+     * items to filter and the values already read
+     * @param columns the columns to evaluate, with their current predicate
+     */
+    public ParallelFilterTask(FilteredColumnBitSets<S> bitSets, List<FilteredTableColumn<S, ?>> columns) {
+        this.items = bitSets.getSnapshot();
+        this.columns = columns;
+        this.version = bitSets.getVersion();
+        for (FilteredTableColumn<S, ?> column : columns) {
+            final BitSet columnCandidates = bitSets.getCandidates(column);
+            predicates.add(column.getPredicate());
+            candidates.add(columnCandidates);
+            values.add(bitSets.getColumnValues(column, columnCandidates));
+        }
+    }
+
+    /**
+     * Runs the task on the filter thread.
+     */
+    public void start() {
+        EXECUTOR.execute(this);
+    }
+
+    /**
+     * @return the snapshot of the items the result is indexed on
+     */
+    public List<S> getItems() {
+        return items;
+    }
+
+    /**
+     * @return the columns evaluated
+     */
+    public List<FilteredTableColumn<S, ?>> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return the predicates evaluated, in the order of the columns
+     */
+    public List<Predicate<?>> getPredicates() {
+        return predicates;
+    }
+
+    /**
+     * @return the version of the items when the task was created
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected BitSet[] call() throws Exception {
+        final BitSet[] result = new BitSet[columns.size()];
+        for (int i = 0; i < result.length && !isCancelled(); ++i) {
+            result[i] = FilteredColumnBitSets.scan(predicates.get(i), values.get(i), candidates.get(i), this::isCancelled);
+            updateProgress(i + 1, result.length);
+        }
+        return isCancelled() ? null : result;
+    }
+}
@@ -31,6 +31,7 @@ import com.sun.javafx.scene.control.behavior.TableRowBehavior;
 import com.sun.javafx.scene.control.skin.CellSkinBase;
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
+import impl.org.controlsfx.tools.ColumnOffsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -50,6 +51,7 @@ import javafx.scene.control.TableRow;
 import javafx.scene.layout.Pane;
 import javafx.util.Callback;
 import org.controlsfx.control.tableview2.TableView2;
+import org.controlsfx.tools.RenderingMetrics;
 
 public class TableRow2Skin<S> extends CellSkinBase<TableRow<S>, CellBehaviorBase<TableRow<S>>> {
 
@@ -125,6 +127,20 @@ public class TableRow2Skin<S> extends CellSkinBase<TableRow<S>, CellBehaviorBase
 
     /** {@inheritDoc} */
     @Override protected void layoutChildren(double x, final double y, final double w, final double h) {
+        final RenderingMetrics metrics = getRenderingMetrics();
+        if (metrics == null) {
+            layoutCells(x, y, w, h);
+            return;
+        }
+        final long start = metrics.begin();
+        try {
+            layoutCells(x, y, w, h);
+        } finally {
+            metrics.endRowLayout(start);
+        }
+    }
+
+    private void layoutCells(double x, final double y, final double w, final double h) {
 
         final ObservableList<? extends TableColumnBase<?, ?>> visibleLeafColumns = tableView.getVisibleLeafColumns();
         if (visibleLeafColumns.isEmpty()) {
@@ -183,21 +199,45 @@ public class TableRow2Skin<S> extends CellSkinBase<TableRow<S>, CellBehaviorBase
         //We compute the cells here
         putCellsInCache();
 
+        /**
+         * Virtualization of column: we only go through the columns inside the
+         * viewport, found with the offsets of the columns, and the fixed
+         * columns. If the first column is covered by a column span, we start
+         * from the spanning cell so that it is still laid out. The row header
+         * has no horizontal scrolling, so all its columns are laid out.
+         */
+        final ColumnOffsets offsets = parentTableView == null ? skin.getColumnOffsets(horizontalPadding) : null;
+        final int columnCount = offsets == null ? columns.size() : Math.min(offsets.getColumnCount(), columns.size());
+        final int[] fixedColumns = offsets == null ? new int[0] : offsets.getFixedColumns();
+        int firstColumn = offsets == null ? 0 : offsets.getFirstColumn(hbarValue - x);
+        final int lastColumn = offsets == null ? columnCount - 1 : offsets.getLastColumn(hbarValue + headerWidth - x);
+        while (firstColumn > 0 && firstColumn < columnCount
+                && (tableView.getSpanType(index, firstColumn) == TableView2.SpanType.COLUMN_SPAN_INVISIBLE
+                || tableView.getSpanType(index, firstColumn) == TableView2.SpanType.BOTH_INVISIBLE)) {
+            --firstColumn;
+        }
+        final double startX = x;
+        int previousColumn = -1;
+
         boolean firstVisibleCell = false;
         TableCell<S, ?> lastCell = null;
         boolean needToBeShifted;
         boolean rowHeightChange = false;
-        boolean isFirstColumn = false;
-        for (int indexColumn = 0; indexColumn < columns.size(); indexColumn++) {
+        for (int indexColumn = ColumnOffsets.getNextColumn(-1, firstColumn, lastColumn, fixedColumns, columnCount); indexColumn < columnCount;
+                indexColumn = ColumnOffsets.getNextColumn(indexColumn, firstColumn, lastColumn, fixedColumns, columnCount)) {
+            //When we jumped over some columns, we start again from the offset.
+            if (indexColumn != previousColumn + 1) {
+                x = startX + offsets.getOffset(indexColumn);
+            }
+            previousColumn = indexColumn;
             TableColumn<S, ?> column = columns.get(indexColumn);
             //FIXME Problem with column span
             if (! column.isVisible()) {
                 continue;
             }
             final TableCell<S, ?> tableCell = getCell(column);
-            if (! isFirstColumn) {
+            if (indexColumn == 0) {
                 tableCell.pseudoClassStateChanged(LEFT_CELL, true);
-                isFirstColumn = true;
             }
             
             TablePosition<S, ?> pos = new TablePosition<>(tableView, tableCell.getIndex(), column);
@@ -280,13 +320,7 @@ public class TableRow2Skin<S> extends CellSkinBase<TableRow<S>, CellBehaviorBase
                         continue; // we don't want to fall through
                     case ROW_VISIBLE:
                     case NORMAL_CELL: // fall through and carry on
-                        if (tableCell.getIndex() != index) {
-                            tableCell.updateIndex(index);
-                        } else {
-//                            tableCell.updateItem(tableCell.getItem(), false); 
-                            tableCell.updateIndex(index);
-                            tableCell.requestLayout();
-                        }
+                        updateCell(tableCell, index);
                         /**
                          * Here we need to add the cells on the first position
                          * because this row may contain some deported cells from
@@ -422,6 +456,9 @@ public class TableRow2Skin<S> extends CellSkinBase<TableRow<S>, CellBehaviorBase
             }
             x += width;
         }
+        if (offsets != null) {
+            x = startX + offsets.getTotalWidth();
+        }
         
         // When the table is wider than the columns, the empty space to the
         // right is visible and can be part of the row selection or scrolled. 
@@ -619,10 +656,17 @@ public class TableRow2Skin<S> extends CellSkinBase<TableRow<S>, CellBehaviorBase
      */
     private TableCell<S, ?> getCell(TableColumnBase tcb) {
         TableColumn tableColumn = (TableColumn<TableCell<S, ?>, ?>) tcb;
+        final RenderingMetrics metrics = getRenderingMetrics();
         TableCell<S, ?> cell;
         if (getCellsMap().containsKey(tableColumn)) {
             cell = getCellsMap().remove(tableColumn);
+            if (metrics != null) {
+                metrics.cellReused();
+            }
         } else {
+            if (metrics != null) {
+                metrics.cellCreated();
+            }
             Callback cellFactory = tableColumn.getCellFactory();
             if (cellFactory == null) {
                 cellFactory = TableColumn.DEFAULT_CELL_FACTORY;
@@ -652,6 +696,38 @@ public class TableRow2Skin<S> extends CellSkinBase<TableRow<S>, CellBehaviorBase
         return cell;
     }
 
+    /**
+     * Binds the cell to the given row, or refreshes it if it is already
+     * showing that row.
+     *
+     * @param cell
+     * @param index
+     */
+    private void updateCell(TableCell<S, ?> cell, int index) {
+        final RenderingMetrics metrics = getRenderingMetrics();
+        final long start = metrics == null ? 0 : metrics.begin();
+        try {
+            if (cell.getIndex() != index) {
+                cell.updateIndex(index);
+            } else {
+//                cell.updateItem(cell.getItem(), false); 
+                cell.updateIndex(index);
+                cell.requestLayout();
+            }
+        } finally {
+            if (metrics != null) {
+                metrics.endUpdateItem(start);
+            }
+        }
+    }
+
+    /**
+     * The row header shares the metrics of the table it belongs to.
+     */
+    private RenderingMetrics getRenderingMetrics() {
+        return parentTableView != null ? parentTableView.getRenderingMetrics() : tableView.getRenderingMetrics();
+    }
+
     /**
      * Return the space we need to shift that row if it's fixed. Also update the 
      * {@link TableView2Skin#getCurrentlyFixedRow()} .
@@ -26,6 +26,7 @@
  */
 package impl.org.controlsfx.tableview2;
 
+import impl.org.controlsfx.tools.ColumnOffsets;
 import java.lang.reflect.Field;
 import java.util.BitSet;
 import java.util.HashMap;
@@ -185,6 +186,12 @@ public class TableView2Skin<S> extends TableViewSkinBase<S,S,TableView<S>,TableV
      */
     double fixedColumnWidth;
     
+    /**
+     * The horizontal position of every visible leaf column, so that the rows
+     * only lay out the columns inside the viewport.
+     */
+    private final ColumnOffsets columnOffsets = new ColumnOffsets();
+    
     /**
      * When we try to select cells after a setGrid, we end up with the cell
      * selected but no visual confirmation. In order to prevent that, we need to
@@ -232,6 +239,10 @@ public class TableView2Skin<S> extends TableViewSkinBase<S,S,TableView<S>,TableV
         getCurrentlyFixedRow().addListener(currentlyFixedRowListener);
         this.tableView.getFixedRows().addListener(fixedRowsListener);
         this.tableView.getFixedColumns().addListener(fixedColumnsListener);
+        tableView.getVisibleLeafColumns().addListener(visibleLeafColumnsListener);
+        for (TableColumn<S, ?> column : tableView.getVisibleLeafColumns()) {
+            column.widthProperty().addListener(columnOffsetsListener);
+        }
 
         init();
         
@@ -286,6 +297,7 @@ public class TableView2Skin<S> extends TableViewSkinBase<S,S,TableView<S>,TableV
         super.handleControlPropertyChanged(p);
 
         if ("FIXING".equals(p)) {
+            columnOffsets.invalidate();
             tableView.refresh();
             verticalScroll();
             computeFixedRowHeight();
@@ -918,10 +930,65 @@ public class TableView2Skin<S> extends TableViewSkinBase<S,S,TableView<S>,TableV
         @Override
         public void onChanged(Change<? extends TableColumn> c) {
             hBarValue.clear();
+            columnOffsets.invalidate();
             getFlow().requestLayout();
         }
     };
 
+    /**
+     * The offsets of the columns must be computed again when a column is
+     * resized.
+     */
+    private final InvalidationListener columnOffsetsListener = (Observable o) -> columnOffsets.invalidate();
+
+    /**
+     * We listen on the visible leaf columns in order to follow the width of
+     * each of them.
+     */
+    private final ListChangeListener<TableColumn<S, ?>> visibleLeafColumnsListener = new ListChangeListener<TableColumn<S, ?>>() {
+        @Override
+        public void onChanged(Change<? extends TableColumn<S, ?>> c) {
+            while (c.next()) {
+                for (TableColumn<S, ?> column : c.getRemoved()) {
+                    column.widthProperty().removeListener(columnOffsetsListener);
+                }
+                for (TableColumn<S, ?> column : c.getAddedSubList()) {
+                    column.widthProperty().addListener(columnOffsetsListener);
+                }
+            }
+            columnOffsets.invalidate();
+        }
+    };
+
+    /**
+     * Returns the horizontal position of every visible leaf column, computing
+     * them again if a column has been modified since the last call.
+     *
+     * @param horizontalPadding the padding of the row, removed from the width
+     * of every column
+     * @return the offsets of the columns
+     */
+    ColumnOffsets getColumnOffsets(double horizontalPadding) {
+        if (!columnOffsets.isValid(horizontalPadding)) {
+            final ObservableList<TableColumn<S, ?>> columns = tableView.getVisibleLeafColumns();
+            columnOffsets.build(columns.size(),
+                    column -> snapSize(columns.get(column).getWidth()) - snapSize(horizontalPadding),
+                    column -> isFixed(columns.get(column)), horizontalPadding);
+        }
+        return columnOffsets;
+    }
+
+    private boolean isFixed(TableColumn<S, ?> column) {
+        if (!tableView.isColumnFixingEnabled()) {
+            return false;
+        }
+        while (column.getParentColumn() != null) {
+            // on nested columns, we check if the root parent is the one fixed
+            column = (TableColumn<S, ?>) column.getParentColumn();
+        }
+        return tableView.getFixedColumns().contains(column);
+    }
+
     /** {@inheritDoc} */
     @Override protected TableSelectionModel<S> getSelectionModel() {
         return getSkinnable().getSelectionModel();
@@ -37,6 +37,7 @@ import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
+import javafx.beans.value.WritableValue;
 import javafx.scene.Group;
 import javafx.scene.Node;
 import javafx.scene.control.IndexedCell;
@@ -44,6 +45,7 @@ import javafx.scene.control.ScrollBar;
 import javafx.scene.control.TableCell;
 import javafx.scene.layout.Region;
 import org.controlsfx.control.tableview2.TableView2;
+import org.controlsfx.tools.RenderingMetrics;
 
 final class TableView2VirtualFlow<T extends IndexedCell<?>> extends VirtualFlow<T> {
     
@@ -176,6 +178,39 @@ final class TableView2VirtualFlow<T extends IndexedCell<?>> extends VirtualFlow<
 
     /** {@inheritDoc} */
     @Override protected void layoutChildren() {
+        final RenderingMetrics metrics = getRenderingMetrics();
+        if (metrics == null) {
+            layoutFlow();
+            return;
+        }
+        final long start = metrics.begin();
+        try {
+            layoutFlow();
+        } finally {
+            metrics.endFlowLayout(start);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override protected void impl_processCSS(WritableValue<Boolean> unused) {
+        final RenderingMetrics metrics = getRenderingMetrics();
+        if (metrics == null) {
+            super.impl_processCSS(unused);
+            return;
+        }
+        final long start = metrics.begin();
+        try {
+            super.impl_processCSS(unused);
+        } finally {
+            metrics.endCss(start);
+        }
+    }
+
+    private RenderingMetrics getRenderingMetrics() {
+        return tableView == null ? null : tableView.getRenderingMetrics();
+    }
+
+    private void layoutFlow() {
         /**
          * In fact, we must do a layout even when editing, because if the user
          * resize the window during edition, if we block layout, the view will
@@ -0,0 +1,365 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package impl.org.controlsfx.tableview2;
+
+import impl.org.controlsfx.tableview2.filter.parser.TextQuery;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.WeakListChangeListener;
+import javafx.concurrent.Task;
+import javafx.util.StringConverter;
+import org.controlsfx.control.tableview2.FilteredTableColumn;
+
+/**
+ * An index of the trigrams of the text of the cells of a
+ * {@link FilteredTableColumn}, which finds the rows that may be accepted by a
+ * {@link TextQuery}.
+ *
+ * For every trigram, the index keeps the sorted list of the rows whose text
+ * contains it. The candidates of a query are the rows found in all the lists
+ * of its trigrams, plus the rows that have been updated since the index was
+ * built, which are not indexed again.
+ *
+ * The index is built in the background, with the converter of the first
+ * query, and is built again if a query uses another converter: the values of
+ * the cells are read on the JavaFX Application Thread, only their text is
+ * indexed in the background. Rows added at the end of the items, and rows
+ * updated or replaced, are handled as they come; any other change of the
+ * items builds the index again. A cell whose value changes without the items
+ * reporting an update, as when it is edited with no extractor on the items,
+ * must be reported with {@link #itemUpdated(Object)}, or the index is stale.
+ *
+ * @param <S> The type of the objects contained within the FilteredTableView items list
+ * @param <T> The type of the content in all cells in the column
+ */
+public class TextIndex<S, T> {
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "FilteredTableColumn text index"); //$NON-NLS-1$
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Estimated number of bytes of an entry of the map, with its slot in the
+     * table and its key, and of a list of rows, with the header of its array.
+     */
+    private static final int ENTRY_SIZE = 32 + 8 + 16;
+    private static final int POSTINGS_SIZE = 24 + 16;
+
+    private final FilteredTableColumn<S, T> column;
+    private final ObservableList<S> items;
+    private final ListChangeListener<S> itemsListener = this::itemsChanged;
+    private final WeakListChangeListener<S> weakItemsListener = new WeakListChangeListener<>(itemsListener);
+
+    private StringConverter<?> converter;
+    private Map<Long, Postings> postings;
+    private final BitSet dirty = new BitSet();
+    private int size;
+    private Task<Map<Long, Postings>> buildTask;
+
+    /**
+     * The index is not built until it is first queried.
+     *
+     * @param column the column to index
+     * @param items the backing list of the table
+     */
+    public TextIndex(FilteredTableColumn<S, T> column, ObservableList<S> items) {
+        this.column = column;
+        this.items = items;
+        items.addListener(weakItemsListener);
+    }
+
+    /**
+     * Returns the rows the predicate of the query may accept. Must be called
+     * on the JavaFX Application Thread.
+     *
+     * @param query the query
+     * @return a new set of the candidates, or null if the query doesn't
+     * restrict them or if the index is not ready
+     */
+    public BitSet find(TextQuery query) {
+        if (query == null) {
+            return null;
+        }
+        if (converter != query.getConverter() || (postings == null && buildTask == null)) {
+            converter = query.getConverter();
+            build();
+            return null;
+        }
+        if (postings == null || size != items.size()) {
+            return null;
+        }
+        final BitSet found = query.find(this::find);
+        if (found != null) {
+            found.or(dirty);
+        }
+        return found;
+    }
+
+    /**
+     * Returns an estimate of the memory used by the index.
+     *
+     * @return the number of bytes, 0 if the index is not built
+     */
+    public long getMemoryUsage() {
+        if (postings == null) {
+            return 0;
+        }
+        long memory = (long) postings.size() * (ENTRY_SIZE + POSTINGS_SIZE);
+        for (Postings rows : postings.values()) {
+            memory += 4L * rows.rows.length;
+        }
+        return memory;
+    }
+
+    /**
+     * Marks the rows of an item as updated, when the value of its cell has
+     * changed without the items being notified, so that they are candidates
+     * of every query.
+     *
+     * @param item the item whose cell has changed
+     */
+    public void itemUpdated(S item) {
+        if (postings == null) {
+            if (buildTask != null) {
+                build();
+            }
+            return;
+        }
+        final int count = Math.min(size, items.size());
+        for (int row = 0; row < count; ++row) {
+            if (items.get(row) == item) {
+                dirty.set(row);
+            }
+        }
+        checkDirty();
+    }
+
+    /**
+     * Builds the index again, when the items may have changed without being
+     * notified.
+     */
+    public void invalidate() {
+        if (postings != null || buildTask != null) {
+            build();
+        }
+    }
+
+    /**
+     * Stops listening to the items, and forgets the index.
+     */
+    public void dispose() {
+        items.removeListener(weakItemsListener);
+        if (buildTask != null) {
+            buildTask.cancel();
+            buildTask = null;
+        }
+        postings = null;
+        dirty.clear();
+    }
+
+    /***************************************************************************
+     * * Private Implementation * *
+     **************************************************************************/
+
+    private void build() {
+        if (buildTask != null) {
+            buildTask.cancel();
+        }
+        postings = null;
+        dirty.clear();
+        final Object[] values = FilteredColumnBitSets.getCellData(column, items, null);
+        final StringConverter<?> buildConverter = converter;
+        final Task<Map<Long, Postings>> task = new Task<Map<Long, Postings>>() {
+            @Override
+            protected Map<Long, Postings> call() throws Exception {
+                final Map<Long, Postings> map = new HashMap<>();
+                for (int row = 0; row < values.length; ++row) {
+                    if ((row & 0xFFF) == 0 && isCancelled()) {
+                        return null;
+                    }
+                    add(map, row, getText(values[row], buildConverter));
+                }
+                for (Postings rows : map.values()) {
+                    rows.trim();
+                }
+                return map;
+            }
+        };
+        task.setOnSucceeded(e -> {
+            if (buildTask == task) {
+                buildTask = null;
+                postings = task.getValue();
+                size = values.length;
+            }
+        });
+        task.setOnFailed(e -> {
+            if (buildTask == task) {
+                buildTask = null;
+            }
+        });
+        buildTask = task;
+        EXECUTOR.execute(task);
+    }
+
+    private void itemsChanged(ListChangeListener.Change<? extends S> c) {
+        if (postings == null) {
+            if (buildTask != null) {
+                build();
+            }
+            return;
+        }
+        while (c.next()) {
+            if (c.wasPermutated()) {
+                build();
+                return;
+            } else if (c.wasUpdated()) {
+                dirty.set(c.getFrom(), c.getTo());
+            } else if (c.wasReplaced() && c.getAddedSize() == c.getRemovedSize()) {
+                dirty.set(c.getFrom(), c.getFrom() + c.getAddedSize());
+            } else if (c.wasAdded() && ! c.wasRemoved() && c.getFrom() == size) {
+                for (S item : c.getAddedSubList()) {
+                    add(postings, size++, getText(column.getCellData(item), converter));
+                }
+            } else {
+                build();
+                return;
+            }
+        }
+        checkDirty();
+    }
+
+    /**
+     * Builds the index again when too many rows are not indexed.
+     */
+    private void checkDirty() {
+        if (dirty.cardinality() > size / 4) {
+            build();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String getText(Object value, StringConverter<?> converter) {
+        if (converter == null) {
+            return String.valueOf(value);
+        }
+        // predicates with a converter don't accept null values
+        return value == null ? null : ((StringConverter<Object>) converter).toString(value);
+    }
+
+    private static void add(Map<Long, Postings> map, int row, String text) {
+        if (text == null) {
+            return;
+        }
+        final String indexedText = TextQuery.toIndexedText(text);
+        for (int i = 0; i + 3 <= indexedText.length(); ++i) {
+            map.computeIfAbsent(key(indexedText, i), k -> new Postings()).add(row);
+        }
+    }
+
+    /**
+     * Intersects the lists of the trigrams, from the shortest one.
+     */
+    private BitSet find(List<String> trigrams) {
+        final Postings[] lists = new Postings[trigrams.size()];
+        for (int i = 0; i < lists.length; ++i) {
+            lists[i] = postings.get(key(trigrams.get(i), 0));
+            if (lists[i] == null) {
+                return new BitSet();
+            }
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+        int[] rows = Arrays.copyOf(lists[0].rows, lists[0].size);
+        int count = rows.length;
+        for (int i = 1; i < lists.length && count > 0; ++i) {
+            count = lists[i].retain(rows, count);
+        }
+        final BitSet found = new BitSet(size);
+        for (int i = 0; i < count; ++i) {
+            found.set(rows[i]);
+        }
+        return found;
+    }
+
+    private static long key(String text, int index) {
+        return ((long) text.charAt(index) << 32) | ((long) text.charAt(index + 1) << 16) | text.charAt(index + 2);
+    }
+
+    /**
+     * The sorted rows containing a trigram.
+     */
+    private static final class Postings {
+
+        private int[] rows = new int[2];
+        private int size;
+
+        void add(int row) {
+            if (size > 0 && rows[size - 1] == row) {
+                return;
+            }
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size + (size >> 1) + 1);
+            }
+            rows[size++] = row;
+        }
+
+        void trim() {
+            if (size < rows.length) {
+                rows = Arrays.copyOf(rows, size);
+            }
+        }
+
+        /**
+         * Keeps in the given sorted rows the ones of this list.
+         */
+        int retain(int[] candidates, int count) {
+            int kept = 0;
+            int index = 0;
+            for (int i = 0; i < count; ++i) {
+                final int row = candidates[i];
+                index = search(row, index);
+                if (index < size && rows[index] == row) {
+                    candidates[kept++] = row;
+                }
+            }
+            return kept;
+        }
+
+        private int search(int row, int from) {
+            final int index = Arrays.binarySearch(rows, from, size, row);
+            return index < 0 ? -index - 1 : index;
+        }
+    }
+}
@@ -0,0 +1,472 @@
+/**
+ * Copyright (c) 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package impl.org.controlsfx.tableview2.filter.parser;
+
+import impl.org.controlsfx.tableview2.filter.parser.aggregate.AggregatorsParser;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static impl.org.controlsfx.i18n.Localization.asKey;
+import static impl.org.controlsfx.i18n.Localization.localize;
+
+/**
+ * Compiles the filter expressions typed by the user into predicates.
+ *
+ * The grammar is shared by all the parsers: an expression is a term, or a
+ * term followed by an {@link AggregatorsParser aggregator} and another
+ * expression. A term is an operator followed by an operand, whose syntax is
+ * up to the parser. Aggregators are applied from right to left, with no
+ * precedence between them.
+ *
+ * The text is tokenized and turned into a tree in a single pass, and the
+ * tree is compiled to a predicate. The result of a whole text, and the
+ * predicate of every sub-expression, are cached so that validating and then
+ * parsing a text, or typing one more character at the end of it, do not
+ * compile again what is already known.
+ *
+ * The predicates keep the tree they were compiled from, so that
+ * {@link #isNarrowing(Predicate, Predicate)} can tell when a new predicate
+ * only accepts items the previous one accepted, like when the operand of a
+ * term gets longer or a term is added with AND, and the
+ * {@link #getTextQuery(Predicate) text query} a text index can use to find the
+ * items they may accept.
+ *
+ * @param <T> Type of input to the predicates
+ * @param <O> Type of the operations of the parser
+ */
+public abstract class FilterCompiler<T, O extends Operation<?, ?>> {
+
+    private static final int MAX_CACHED_RESULTS = 64;
+    private static final int MAX_CACHED_PREDICATES = 256;
+
+    private final List<O> operations;
+    private final Map<String, CompiledFilter<T>> results = createCache(MAX_CACHED_RESULTS);
+    private final Map<String, CompiledPredicate<T, O>> predicates = createCache(MAX_CACHED_PREDICATES);
+    private int generation;
+
+    /**
+     * @param operations the operations of the parser, the first one whose
+     * text starts a term is used
+     */
+    protected FilterCompiler(List<O> operations) {
+        this.operations = operations;
+    }
+
+    /**
+     * Compiles the given text, or returns the result of a previous call with
+     * the same text.
+     *
+     * @param text the filter expression
+     * @return the compiled filter, never null
+     */
+    public CompiledFilter<T> compile(String text) {
+        CompiledFilter<T> result = results.get(text);
+        if (result == null) {
+            try {
+                result = CompiledFilter.valid(compile(parse(text)));
+            } catch (SyntaxException ex) {
+                result = CompiledFilter.error(ex.getMessage());
+            }
+            results.put(text, result);
+        }
+        return result;
+    }
+
+    /**
+     * Forgets all the compiled expressions, must be called when the
+     * predicates the operations return are no longer the same.
+     */
+    public void clearCache() {
+        results.clear();
+        predicates.clear();
+        ++generation;
+    }
+
+    /**
+     * Tells if a predicate accepts only items the previous one accepts, so
+     * that the items the previous predicate rejected don't need to be tested
+     * again. This is only known for predicates returned by the same compiler,
+     * with no call to {@link #clearCache()} in between.
+     *
+     * @param predicate the new predicate
+     * @param previous the previous predicate
+     * @return true if every item accepted by the new predicate is accepted by
+     * the previous one, false if it is not, or can't be told
+     */
+    public static boolean isNarrowing(Predicate<?> predicate, Predicate<?> previous) {
+        if (!(predicate instanceof CompiledPredicate) || !(previous instanceof CompiledPredicate)) {
+            return false;
+        }
+        return ((CompiledPredicate<?, ?>) predicate).narrows((CompiledPredicate<?, ?>) previous);
+    }
+
+    /**
+     * Returns what the text of the items accepted by a predicate contains.
+     *
+     * @param predicate a predicate
+     * @return the text query of the predicate, or null if it is not known, or
+     * if the predicate can accept any text
+     */
+    public static TextQuery getTextQuery(Predicate<?> predicate) {
+        return predicate instanceof CompiledPredicate ? ((CompiledPredicate<?, ?>) predicate).textQuery : null;
+    }
+
+    /**
+     * Returns where the operand of a term starting at the given index ends.
+     * By default, it ends with the text or at the next aggregator.
+     *
+     * @param text the filter expression
+     * @param start the index following the operator
+     * @return the index of the aggregator following the operand, or the
+     * length of the text
+     */
+    protected int findOperandEnd(String text, int start) {
+        final int index = findAggregator(text, start);
+        return index < 0 ? text.length() : index;
+    }
+
+    /**
+     * Compiles a term.
+     *
+     * @param operation the operation of the term
+     * @param operand the untrimmed text following the operator
+     * @return the predicate, or null if the term accepts everything
+     * @throws SyntaxException if the operand is not valid
+     */
+    protected abstract Predicate<T> compileTerm(O operation, String operand) throws SyntaxException;
+
+    /**
+     * Tells if a term accepts only items that a previous term accepts. Both
+     * terms have been compiled to a predicate. Terms are known to imply
+     * identical terms, by default nothing else.
+     *
+     * @param operation the operation of the term
+     * @param operand the untrimmed text following the operator
+     * @param previousOperation the operation of the previous term
+     * @param previousOperand the untrimmed text following the previous operator
+     * @return true if the term implies the previous term
+     */
+    protected boolean implies(O operation, String operand, O previousOperation, String previousOperand) {
+        return false;
+    }
+
+    /**
+     * Returns what the text of the items accepted by a term contains. The
+     * term has been compiled to a predicate.
+     *
+     * @param operation the operation of the term
+     * @param operand the untrimmed text following the operator
+     * @return the text query of the term, or null if the term doesn't test
+     * text, by default
+     */
+    protected TextQuery getTextQuery(O operation, String operand) {
+        return null;
+    }
+
+    /**
+     * Returns the index of the first aggregator found from the given index.
+     *
+     * @param text the filter expression
+     * @param from the index to start the search from
+     * @return the index of the aggregator, -1 if there is none
+     */
+    protected static int findAggregator(String text, int from) {
+        int index = -1;
+        for (AggregatorsParser aggregator : AggregatorsParser.values()) {
+            final int aggregatorIndex = text.indexOf(aggregator.get(), from);
+            if (aggregatorIndex >= 0 && (index < 0 || aggregatorIndex < index)) {
+                index = aggregatorIndex;
+            }
+        }
+        return index;
+    }
+
+    /***************************************************************************
+     * * Private Implementation * *
+     **************************************************************************/
+
+    /**
+     * Tokenizes the text into terms separated by aggregators, and builds the
+     * tree of the expression.
+     */
+    private Node<O> parse(String text) throws SyntaxException {
+        final List<Term<O>> terms = new ArrayList<>();
+        final List<AggregatorsParser> aggregators = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                ++position;
+            }
+            final O operation = findOperation(text, position);
+            if (operation == null) {
+                throw new SyntaxException(localize(asKey("parser.text.error.start.operator")));
+            }
+            final int start = position + operation.length();
+            position = findOperandEnd(text, start);
+            terms.add(new Term<>(operation, text.substring(start, position)));
+            if (position >= text.length()) {
+                break;
+            }
+            final AggregatorsParser aggregator = findAggregatorAt(text, position);
+            aggregators.add(aggregator);
+            position += aggregator.get().length();
+        }
+
+        Node<O> node = terms.get(terms.size() - 1);
+        for (int i = aggregators.size() - 1; i >= 0; --i) {
+            node = new Aggregation<>(terms.get(i), aggregators.get(i), node);
+        }
+        return node;
+    }
+
+    private O findOperation(String text, int position) {
+        for (O operation : operations) {
+            if (text.startsWith(operation.get(), position) && text.length() > position + operation.length()) {
+                return operation;
+            }
+        }
+        return null;
+    }
+
+    private static AggregatorsParser findAggregatorAt(String text, int position) {
+        for (AggregatorsParser aggregator : AggregatorsParser.values()) {
+            if (text.startsWith(aggregator.get(), position)) {
+                return aggregator;
+            }
+        }
+        throw new IllegalStateException("No aggregator at " + position + " in " + text);
+    }
+
+    /**
+     * Compiles the tree, reusing the predicates of the sub-expressions
+     * already compiled. A side accepting everything is ignored by an AND, and
+     * makes an OR accept everything.
+     */
+    private CompiledPredicate<T, O> compile(Node<O> node) throws SyntaxException {
+        final String key = node.getKey();
+        if (predicates.containsKey(key)) {
+            return predicates.get(key);
+        }
+        final CompiledPredicate<T, O> predicate;
+        if (node instanceof Term) {
+            final Term<O> term = (Term<O>) node;
+            final Predicate<T> termPredicate = compileTerm(term.operation, term.operand);
+            predicate = termPredicate == null ? null : new CompiledPredicate<>(this, key, termPredicate, term, null, null, null,
+                    getTextQuery(term.operation, term.operand));
+        } else {
+            final Aggregation<O> aggregation = (Aggregation<O>) node;
+            final CompiledPredicate<T, O> lhs = compile(aggregation.lhs);
+            final CompiledPredicate<T, O> rhs = compile(aggregation.rhs);
+            final boolean and = aggregation.aggregator == AggregatorsParser.AND;
+            if (lhs == null || rhs == null) {
+                predicate = !and ? null : lhs == null ? rhs : lhs;
+            } else {
+                final Predicate<T> aggregated = and ? lhs.predicate.and(rhs.predicate) : lhs.predicate.or(rhs.predicate);
+                final TextQuery textQuery = and ? TextQuery.and(lhs.textQuery, rhs.textQuery) : TextQuery.or(lhs.textQuery, rhs.textQuery);
+                predicate = new CompiledPredicate<>(this, key, aggregated, null, aggregation.aggregator, lhs, rhs, textQuery);
+            }
+        }
+        predicates.put(key, predicate);
+        return predicate;
+    }
+
+    /**
+     * Tells if the new predicate implies the previous one. Aggregations are
+     * split until terms are compared: this is sound, but not complete.
+     */
+    private boolean implies(CompiledPredicate<T, O> predicate, CompiledPredicate<T, O> previous) {
+        if (predicate == previous || predicate.key.equals(previous.key)) {
+            return true;
+        }
+        if (previous.aggregator == AggregatorsParser.AND) {
+            return implies(predicate, previous.lhs) && implies(predicate, previous.rhs);
+        }
+        if (predicate.aggregator == AggregatorsParser.OR) {
+            return implies(predicate.lhs, previous) && implies(predicate.rhs, previous);
+        }
+        if (predicate.aggregator == AggregatorsParser.AND &&
+                (implies(predicate.lhs, previous) || implies(predicate.rhs, previous))) {
+            return true;
+        }
+        if (previous.aggregator == AggregatorsParser.OR &&
+                (implies(predicate, previous.lhs) || implies(predicate, previous.rhs))) {
+            return true;
+        }
+        return predicate.term != null && previous.term != null &&
+                implies(predicate.term.operation, predicate.term.operand,
+                        previous.term.operation, previous.term.operand);
+    }
+
+    private static <K, V> Map<K, V> createCache(int maxSize) {
+        return new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * A node of the tree of an expression. Its key identifies the structure
+     * of the node, whatever the spaces around the operands and aggregators.
+     */
+    private static abstract class Node<O> {
+
+        abstract String getKey();
+    }
+
+    private static final class Term<O extends Operation<?, ?>> extends Node<O> {
+
+        final O operation;
+        final String operand;
+
+        Term(O operation, String operand) {
+            this.operation = operation;
+            this.operand = operand;
+        }
+
+        @Override
+        String getKey() {
+            return operation.get() + '\u0000' + operand.trim();
+        }
+    }
+
+    private static final class Aggregation<O> extends Node<O> {
+
+        final Node<O> lhs;
+        final AggregatorsParser aggregator;
+        final Node<O> rhs;
+        private final String key;
+
+        Aggregation(Node<O> lhs, AggregatorsParser aggregator, Node<O> rhs) {
+            this.lhs = lhs;
+            this.aggregator = aggregator;
+            this.rhs = rhs;
+            this.key = '(' + lhs.getKey() + '\u0001' + aggregator.name() + '\u0001' + rhs.getKey() + ')';
+        }
+
+        @Override
+        String getKey() {
+            return key;
+        }
+    }
+
+    /**
+     * The predicate of a node, with the predicates of its sub-expressions.
+     */
+    private static final class CompiledPredicate<T, O extends Operation<?, ?>> implements Predicate<T> {
+
+        final FilterCompiler<T, O> compiler;
+        final int generation;
+        final String key;
+        final Predicate<T> predicate;
+        final Term<O> term;
+        final AggregatorsParser aggregator;
+        final CompiledPredicate<T, O> lhs;
+        final CompiledPredicate<T, O> rhs;
+        final TextQuery textQuery;
+
+        CompiledPredicate(FilterCompiler<T, O> compiler, String key, Predicate<T> predicate, Term<O> term,
+                AggregatorsParser aggregator, CompiledPredicate<T, O> lhs, CompiledPredicate<T, O> rhs,
+                TextQuery textQuery) {
+            this.compiler = compiler;
+            this.generation = compiler.generation;
+            this.key = key;
+            this.predicate = predicate;
+            this.term = term;
+            this.aggregator = aggregator;
+            this.lhs = lhs;
+            this.rhs = rhs;
+            this.textQuery = textQuery;
+        }
+
+        @Override
+        public boolean test(T t) {
+            return predicate.test(t);
+        }
+
+        @SuppressWarnings("unchecked")
+        boolean narrows(CompiledPredicate<?, ?> previous) {
+            return compiler == previous.compiler && generation == previous.generation &&
+                    compiler.implies(this, (CompiledPredicate<T, O>) previous);
+        }
+    }
+
+    /**
+     * Thrown when the expression cannot be compiled, with the message to show
+     * to the user.
+     */
+    public static class SyntaxException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        public SyntaxException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * The result of the compilation of an expression: either a predicate, which
+     * is null if the expression accepts everything, or an error message.
+     *
+     * @param <T> Type of input to the predicate
+     */
+    public static final class CompiledFilter<T> {
+
+        private final Predicate<T> predicate;
+        private final String errorMessage;
+
+        private CompiledFilter(Predicate<T> predicate, String errorMessage) {
+            this.predicate = predicate;
+            this.errorMessage = errorMessage;
+        }
+
+        static <T> CompiledFilter<T> valid(Predicate<T> predicate) {
+            return new CompiledFilter<>(predicate, "");
+        }
+
+        static <T> CompiledFilter<T> error(String errorMessage) {
+            return new CompiledFilter<>(null, errorMessage);
+        }
+
+        public Predicate<T> getPredicate() {
+            return predicate;
+        }
+
+        public String getErrorMessage() {
+            return errorMessage;
+        }
+
+        public boolean isValid() {
+            return errorMessage.isEmpty();
+        }
+    }
+}
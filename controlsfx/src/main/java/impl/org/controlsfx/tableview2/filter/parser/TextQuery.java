@@ -0,0 +1,167 @@
+/**
+ * Copyright (c) 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package impl.org.controlsfx.tableview2.filter.parser;
+
+import javafx.util.StringConverter;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Describes the text of the items a predicate can accept, so that a text
+ * index finds the candidates before the predicate tests them.
+ *
+ * A query is made of the trigrams the text of a candidate contains, combined
+ * with AND and OR. Texts are upper-cased, and enclosed between {@link #BEGIN}
+ * and {@link #END}, so that the trigrams at the edges of a text also tell
+ * how it begins and ends. The candidates are a superset of the items the
+ * predicate accepts, whether it is case sensitive or not.
+ */
+public final class TextQuery {
+
+    public static final char BEGIN = '\u0002';
+    public static final char END = '\u0003';
+
+    private final StringConverter<?> converter;
+    private final List<String> trigrams;
+    private final TextQuery lhs;
+    private final TextQuery rhs;
+    private final boolean and;
+
+    private TextQuery(StringConverter<?> converter, List<String> trigrams, TextQuery lhs, TextQuery rhs, boolean and) {
+        this.converter = converter;
+        this.trigrams = trigrams;
+        this.lhs = lhs;
+        this.rhs = rhs;
+        this.and = and;
+    }
+
+    public static TextQuery contains(String text, StringConverter<?> converter) {
+        return of(text.toUpperCase(), converter);
+    }
+
+    public static TextQuery beginsWith(String text, StringConverter<?> converter) {
+        return of(BEGIN + text.toUpperCase(), converter);
+    }
+
+    public static TextQuery endsWith(String text, StringConverter<?> converter) {
+        return of(text.toUpperCase() + END, converter);
+    }
+
+    public static TextQuery equalsTo(String text, StringConverter<?> converter) {
+        return of(BEGIN + text.toUpperCase() + END, converter);
+    }
+
+    /**
+     * Combines two queries, for a predicate accepting the items both
+     * predicates accept.
+     *
+     * @param lhs a query, or null if the predicate can accept any text
+     * @param rhs a query, or null if the predicate can accept any text
+     * @return the combined query, or null if it can accept any text
+     */
+    public static TextQuery and(TextQuery lhs, TextQuery rhs) {
+        if (lhs == null || rhs == null) {
+            return lhs == null ? rhs : lhs;
+        } else if (lhs.converter != rhs.converter) {
+            return lhs;
+        }
+        return new TextQuery(lhs.converter, null, lhs, rhs, true);
+    }
+
+    /**
+     * Combines two queries, for a predicate accepting the items either
+     * predicate accepts.
+     *
+     * @param lhs a query, or null if the predicate can accept any text
+     * @param rhs a query, or null if the predicate can accept any text
+     * @return the combined query, or null if it can accept any text
+     */
+    public static TextQuery or(TextQuery lhs, TextQuery rhs) {
+        if (lhs == null || rhs == null || lhs.converter != rhs.converter) {
+            return null;
+        }
+        return new TextQuery(lhs.converter, null, lhs, rhs, false);
+    }
+
+    /**
+     * Returns the text to index for an item.
+     *
+     * @param text the text of the item
+     * @return the upper-cased text, enclosed between {@link #BEGIN} and
+     * {@link #END}
+     */
+    public static String toIndexedText(String text) {
+        return BEGIN + text.toUpperCase() + END;
+    }
+
+    /**
+     * @return the converter the predicate turns the items into text with,
+     * null if it uses {@link String#valueOf(Object)}
+     */
+    public StringConverter<?> getConverter() {
+        return converter;
+    }
+
+    /**
+     * Finds the candidates of the query.
+     *
+     * @param finder returns a new set of the items whose indexed text
+     * contains all the trigrams given
+     * @return the candidates, or null if any item is a candidate
+     */
+    public BitSet find(Function<List<String>, BitSet> finder) {
+        if (lhs == null) {
+            return trigrams.isEmpty() ? null : finder.apply(trigrams);
+        }
+        final BitSet lhsFound = lhs.find(finder);
+        final BitSet rhsFound = rhs.find(finder);
+        if (lhsFound == null || rhsFound == null) {
+            return and ? (lhsFound == null ? rhsFound : lhsFound) : null;
+        }
+        if (and) {
+            lhsFound.and(rhsFound);
+        } else {
+            lhsFound.or(rhsFound);
+        }
+        return lhsFound;
+    }
+
+    /**
+     * A text shorter than a trigram doesn't restrict the candidates, but the
+     * query still tells how the items are turned into text.
+     */
+    private static TextQuery of(String pattern, StringConverter<?> converter) {
+        final List<String> trigrams = new ArrayList<>();
+        for (int i = 0; i + 3 <= pattern.length(); ++i) {
+            trigrams.add(pattern.substring(i, i + 3));
+        }
+        return new TextQuery(converter, trigrams, null, null, false);
+    }
+}
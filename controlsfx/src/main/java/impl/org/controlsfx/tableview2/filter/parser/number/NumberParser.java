@@ -26,14 +26,16 @@
  */
 package impl.org.controlsfx.tableview2.filter.parser.number;
 
+import impl.org.controlsfx.tableview2.filter.parser.FilterCompiler;
+import impl.org.controlsfx.tableview2.filter.parser.FilterCompiler.CompiledFilter;
 import impl.org.controlsfx.tableview2.filter.parser.Operation;
 import impl.org.controlsfx.tableview2.filter.parser.aggregate.AggregatorsParser;
 import org.controlsfx.control.tableview2.filter.parser.Parser;
 
 import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
 import java.util.function.Predicate;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -42,31 +44,54 @@ import static impl.org.controlsfx.i18n.Localization.localize;
 
 public class NumberParser<T extends Number> implements Parser<T> {
 
+    private static final Pattern NUMBER = Pattern.compile("-?\\d+(\\.\\d+)?");
+
     private String errorString = "";
+    private final FilterCompiler<T, NumberOperation> compiler = new FilterCompiler<T, NumberOperation>(Arrays.asList(NumberOperation.values())) {
+        @Override
+        protected Predicate<T> compileTerm(NumberOperation operation, String operand) throws SyntaxException {
+            String numText = operand.trim();
+            if (!isNumeric(numText)) {
+                throw new SyntaxException(localize(asKey("parser.text.error.number.input")));
+            }
+            return (Predicate<T>) operation.operate(convert(numText));
+        }
 
-    @Override
-    public Predicate<T> parse(String text) {
-        errorString = "";
-        Predicate<T> aggregation = aggregate(text);
-        if (aggregation == null) {
-            Optional<NumberOperation> optionalOperation = Stream.of(NumberOperation.values())
-                    .filter(opr -> text.startsWith(opr.get()))
-                    .filter(opr -> text.length() > opr.length())
-                    .findFirst();
-            if (optionalOperation.isPresent()) {
-                NumberOperation operation = optionalOperation.get();
-                String numText = trim(text, operation.length());
-                if (!isNumeric(numText)) {
-                    errorString = localize(asKey("parser.text.error.number.input"));
-                    return null;
-                }
-                return (Predicate<T>) operation.operate(convert(numText));
-            } else {
-                errorString = localize(asKey("parser.text.error.start.operator"));
-                return null;
+        /**
+         * A tighter bound narrows a bound in the same direction, and equals
+         * implies any term its number satisfies.
+         */
+        @Override
+        protected boolean implies(NumberOperation operation, String operand,
+                NumberOperation previousOperation, String previousOperand) {
+            double number = convert(operand.trim());
+            double previousNumber = convert(previousOperand.trim());
+            switch (operation) {
+                case EQUALS:
+                    return previousOperation.operate(previousNumber).test(number);
+                case GREATER_THAN_EQUALS:
+                    return previousOperation == NumberOperation.GREATER_THAN_EQUALS && number >= previousNumber ||
+                            previousOperation == NumberOperation.GREATER_THAN && number > previousNumber;
+                case GREATER_THAN:
+                    return (previousOperation == NumberOperation.GREATER_THAN_EQUALS ||
+                            previousOperation == NumberOperation.GREATER_THAN) && number >= previousNumber;
+                case LESS_THAN_EQUALS:
+                    return previousOperation == NumberOperation.LESS_THAN_EQUALS && number <= previousNumber ||
+                            previousOperation == NumberOperation.LESS_THAN && number < previousNumber;
+                case LESS_THAN:
+                    return (previousOperation == NumberOperation.LESS_THAN_EQUALS ||
+                            previousOperation == NumberOperation.LESS_THAN) && number <= previousNumber;
+                default:
+                    return false;
             }
         }
-        return aggregation;
+    };
+
+    @Override
+    public Predicate<T> parse(String text) {
+        CompiledFilter<T> filter = compiler.compile(text);
+        errorString = filter.getErrorMessage();
+        return filter.getPredicate();
     }
 
     @Override
@@ -88,8 +113,9 @@ public class NumberParser<T extends Number> implements Parser<T> {
     
     @Override
     public boolean isValid(String text) {
-        parse(text);
-        return errorString.isEmpty();
+        CompiledFilter<T> filter = compiler.compile(text);
+        errorString = filter.getErrorMessage();
+        return filter.isValid();
     }
 
     @Override
@@ -97,15 +123,11 @@ public class NumberParser<T extends Number> implements Parser<T> {
         return errorString;
     }
 
-    private boolean isNumeric(String str) {
-        return !str.isEmpty() && str.matches("-?\\d+(\\.\\d+)?");
-    }
-
-    private String trim(String text, int startIndex) {
-        return text.substring(startIndex, text.length()).trim();
+    private static boolean isNumeric(String str) {
+        return !str.isEmpty() && NUMBER.matcher(str).matches();
     }
 
-    private double convert(String numText) {
+    private static double convert(String numText) {
         return Double.parseDouble(numText);
     }
 
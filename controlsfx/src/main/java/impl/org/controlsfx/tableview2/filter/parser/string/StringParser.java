@@ -26,14 +26,16 @@
  */
 package impl.org.controlsfx.tableview2.filter.parser.string;
 
+import impl.org.controlsfx.tableview2.filter.parser.FilterCompiler;
+import impl.org.controlsfx.tableview2.filter.parser.FilterCompiler.CompiledFilter;
 import impl.org.controlsfx.tableview2.filter.parser.Operation;
+import impl.org.controlsfx.tableview2.filter.parser.TextQuery;
 import impl.org.controlsfx.tableview2.filter.parser.aggregate.AggregatorsParser;
 import javafx.util.StringConverter;
 import org.controlsfx.control.tableview2.filter.parser.Parser;
 
 import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -48,6 +50,7 @@ public class StringParser<T> implements Parser<T> {
     private String errorString = "";
     private final List<Operation<T, String>> operations = Arrays.asList(
             new BeginsWith(), new EndsWith(), new Contains(), new EqualsTo(), new NotEqualsTo());
+    private final FilterCompiler<T, Operation<T, String>> compiler = new StringFilterCompiler();
 
     public StringParser() {}
 
@@ -65,7 +68,10 @@ public class StringParser<T> implements Parser<T> {
     }
 
     public void setConverter(StringConverter<T> converter) {
-        this.converter = converter;
+        if (this.converter != converter) {
+            this.converter = converter;
+            compiler.clearCache();
+        }
     }
 
     public boolean isCaseSensitive() {
@@ -73,35 +79,24 @@ public class StringParser<T> implements Parser<T> {
     }
 
     public void setCaseSensitive(boolean caseSensitive) {
-        this.caseSensitive = caseSensitive;
+        if (this.caseSensitive != caseSensitive) {
+            this.caseSensitive = caseSensitive;
+            compiler.clearCache();
+        }
     }
 
     @Override
     public Predicate<T> parse(String text) {
-        errorString = "";
-        Predicate<T> aggregation = aggregate(text);
-        if (aggregation == null) {
-            Optional<Operation<T, String>> optionalOperation = operations.stream()
-                    .filter(opr -> text.startsWith(opr.get()))
-                    .filter(opr -> text.length() > opr.length())
-                    .findFirst();
-            if (optionalOperation.isPresent()) {
-                Operation<T, String> opr = optionalOperation.get();
-                String trimText = trim(text, opr.length());
-                if (trimText.isEmpty()) return null;
-                return opr.operate(trimText);
-            } else {
-                errorString = localize(asKey("parser.text.error.start.operator"));
-                return null;
-            }
-        }
-        return aggregation;
+        CompiledFilter<T> filter = compiler.compile(text);
+        errorString = filter.getErrorMessage();
+        return filter.getPredicate();
     }
 
     @Override
     public boolean isValid(String text) {
-        parse(text);
-        return errorString.isEmpty();
+        CompiledFilter<T> filter = compiler.compile(text);
+        errorString = filter.getErrorMessage();
+        return filter.isValid();
     }
 
     @Override
@@ -109,16 +104,82 @@ public class StringParser<T> implements Parser<T> {
         return errorString;
     }
 
-    private String trim(String text, int typeLength) {
-        String trimmedText = text.substring(typeLength, text.length()).trim();
-        if (!trimmedText.startsWith("\"")) {
-            errorString = trimmedText + " " + localize(asKey("parser.text.error.string.start"));
-        } else if (!trimmedText.endsWith("\"")) {
-            errorString = trimmedText.substring(1) + " " + localize(asKey("parser.text.error.string.end"));
-        } else if (trimmedText.length() > 2) {
+    /**
+     * Operands are quoted, and may contain aggregators or quotes: an operand
+     * ends at the first aggregator following a closing quote.
+     */
+    private class StringFilterCompiler extends FilterCompiler<T, Operation<T, String>> {
+
+        StringFilterCompiler() {
+            super(operations);
+        }
+
+        @Override
+        protected int findOperandEnd(String text, int start) {
+            int index = findAggregator(text, start);
+            while (index >= 0) {
+                String operand = text.substring(start, index).trim();
+                if (!operand.startsWith("\"") || (operand.length() > 1 && operand.endsWith("\""))) {
+                    return index;
+                }
+                index = findAggregator(text, index + 1);
+            }
+            return text.length();
+        }
+
+        @Override
+        protected Predicate<T> compileTerm(Operation<T, String> operation, String operand) throws SyntaxException {
+            String trimmedText = operand.trim();
+            if (!trimmedText.startsWith("\"")) {
+                throw new SyntaxException(trimmedText + " " + localize(asKey("parser.text.error.string.start")));
+            } else if (!trimmedText.endsWith("\"")) {
+                throw new SyntaxException(trimmedText.substring(1) + " " + localize(asKey("parser.text.error.string.end")));
+            } else if (trimmedText.length() > 2) {
+                return operation.operate(trimmedText.substring(1, trimmedText.length() - 1));
+            }
+            return null;
+        }
+
+        /**
+         * A longer text narrows begins with, ends with and contains, and
+         * equals to implies any of them when it matches their text.
+         */
+        @Override
+        protected boolean implies(Operation<T, String> operation, String operand,
+                Operation<T, String> previousOperation, String previousOperand) {
+            String text = casedString(unquote(operand));
+            String previousText = casedString(unquote(previousOperand));
+            if (previousOperation instanceof StringParser.Contains) {
+                return !(operation instanceof StringParser.NotEqualsTo) && text.contains(previousText);
+            } else if (previousOperation instanceof StringParser.BeginsWith) {
+                return (operation instanceof StringParser.BeginsWith || operation instanceof StringParser.EqualsTo) &&
+                        text.startsWith(previousText);
+            } else if (previousOperation instanceof StringParser.EndsWith) {
+                return (operation instanceof StringParser.EndsWith || operation instanceof StringParser.EqualsTo) &&
+                        text.endsWith(previousText);
+            }
+            return false;
+        }
+
+        @Override
+        protected TextQuery getTextQuery(Operation<T, String> operation, String operand) {
+            String text = unquote(operand);
+            if (operation instanceof StringParser.Contains) {
+                return TextQuery.contains(text, converter);
+            } else if (operation instanceof StringParser.BeginsWith) {
+                return TextQuery.beginsWith(text, converter);
+            } else if (operation instanceof StringParser.EndsWith) {
+                return TextQuery.endsWith(text, converter);
+            } else if (operation instanceof StringParser.EqualsTo) {
+                return TextQuery.equalsTo(text, converter);
+            }
+            return null;
+        }
+
+        private String unquote(String operand) {
+            String trimmedText = operand.trim();
             return trimmedText.substring(1, trimmedText.length() - 1);
         }
-        return "";
     }
 
     @Override
@@ -0,0 +1,194 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met: *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer. * Redistributions in binary
+ * form must reproduce the above copyright notice, this list of conditions and
+ * the following disclaimer in the documentation and/or other materials provided
+ * with the distribution. * Neither the name of ControlsFX, any associated
+ * website, nor the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package impl.org.controlsfx.tools;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * The horizontal position of every column of a table skin, used by its rows
+ * in order to lay out only the columns that are in the viewport. It is shared
+ * by the skins of the SpreadsheetView and of the TableView2.
+ *
+ * <p>
+ * The offsets are the prefix sums of the displayed widths of the columns (0
+ * for the hidden ones), so the columns visible between two positions are
+ * found with a binary search instead of walking every column. The fixed
+ * columns are kept apart because they are always laid out. They are built
+ * lazily and must be invalidated with {@link #invalidate() } when the width,
+ * the visibility or the fixing of a column is modified.
+ */
+public final class ColumnOffsets {
+
+    //The left of every column, and the total width at the end. Null until needed.
+    private double[] offsets;
+    private int[] fixedColumns;
+    private double horizontalPadding;
+
+    /**
+     * @param horizontalPadding the padding removed from the width of every
+     * column
+     * @return whether the offsets are built for that padding
+     */
+    public boolean isValid(double horizontalPadding) {
+        return offsets != null && this.horizontalPadding == horizontalPadding;
+    }
+
+    /**
+     * Builds the offsets.
+     *
+     * @param columnCount the number of columns
+     * @param width gives the displayed width of a column, 0 if it is hidden
+     * @param fixed tells whether a column is fixed
+     * @param horizontalPadding the padding removed from the width of every
+     * column
+     */
+    public void build(int columnCount, IntToDoubleFunction width, IntPredicate fixed, double horizontalPadding) {
+        final double[] newOffsets = new double[columnCount + 1];
+        int[] newFixedColumns = new int[0];
+        int fixedCount = 0;
+        for (int column = 0; column < columnCount; ++column) {
+            newOffsets[column + 1] = newOffsets[column] + width.applyAsDouble(column);
+            if (fixed.test(column)) {
+                if (fixedCount == newFixedColumns.length) {
+                    newFixedColumns = Arrays.copyOf(newFixedColumns, Math.max(4, fixedCount * 2));
+                }
+                newFixedColumns[fixedCount++] = column;
+            }
+        }
+        offsets = newOffsets;
+        fixedColumns = Arrays.copyOf(newFixedColumns, fixedCount);
+        this.horizontalPadding = horizontalPadding;
+    }
+
+    /**
+     * Discards the offsets, they will have to be built again.
+     */
+    public void invalidate() {
+        offsets = null;
+        fixedColumns = null;
+    }
+
+    /**
+     * @return the number of columns
+     */
+    public int getColumnCount() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * @param column
+     * @return the left of the column, the left of the first one being 0
+     */
+    public double getOffset(int column) {
+        return offsets[column];
+    }
+
+    /**
+     * @return the sum of the widths of the columns
+     */
+    public double getTotalWidth() {
+        return offsets[offsets.length - 1];
+    }
+
+    /**
+     * @return the fixed columns, in ascending order
+     */
+    public int[] getFixedColumns() {
+        return fixedColumns;
+    }
+
+    /**
+     * Returns the first column whose right is after or at the given position.
+     *
+     * @param position
+     * @return the first column reaching the position, or the number of columns
+     * if none
+     */
+    public int getFirstColumn(double position) {
+        int low = 0;
+        int high = offsets.length - 1;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (offsets[middle + 1] < position) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the last column whose left is before or at the given position.
+     *
+     * @param position
+     * @return the last column starting before the position, or -1 if none
+     */
+    public int getLastColumn(double position) {
+        int low = -1;
+        int high = offsets.length - 2;
+        while (low < high) {
+            final int middle = (low + high + 1) >>> 1;
+            if (offsets[middle] <= position) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the column to lay out after the given one: the next column if it
+     * is inside the viewport, otherwise the next fixed column or the first
+     * column of the viewport.
+     *
+     * @param column the column laid out, or -1 to get the first one
+     * @param firstColumn the first column of the viewport
+     * @param lastColumn the last column of the viewport
+     * @param fixedColumns the fixed columns, in ascending order
+     * @param columnCount
+     * @return the next column, or columnCount if there is none
+     */
+    public static int getNextColumn(int column, int firstColumn, int lastColumn, int[] fixedColumns, int columnCount) {
+        final int next = column + 1;
+        if (next >= firstColumn && next <= lastColumn) {
+            return next;
+        }
+        int fixedIndex = Arrays.binarySearch(fixedColumns, next);
+        if (fixedIndex < 0) {
+            fixedIndex = -fixedIndex - 1;
+        }
+        final int nextFixed = fixedIndex < fixedColumns.length ? fixedColumns[fixedIndex] : columnCount;
+        if (next < firstColumn && firstColumn <= lastColumn) {
+            return Math.min(nextFixed, firstColumn);
+        }
+        return nextFixed;
+    }
+}
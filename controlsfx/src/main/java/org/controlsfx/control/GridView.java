@@ -51,6 +51,7 @@ import javafx.scene.paint.Color;
 import javafx.util.Callback;
 
 import org.controlsfx.control.cell.ColorGridCell;
+import org.controlsfx.tools.RenderingMetrics;
 
 /**
  * A GridView is a virtualised control for displaying {@link #getItems()} in a
@@ -146,6 +147,28 @@ public class GridView<T> extends ControlsFXControl {
     @Override public String getUserAgentStylesheet() {
         return getUserAgentStylesheet(GridView.class, "gridview.css");
     }
+
+    /**
+     * Gives the {@link RenderingMetrics} gathering the rendering work of this
+     * GridView, or null in order to stop gathering them. No metrics are
+     * gathered by default.
+     *
+     * @param renderingMetrics
+     */
+    public final void setRenderingMetrics(RenderingMetrics renderingMetrics) {
+        this.renderingMetrics = renderingMetrics;
+    }
+
+    /**
+     * Returns the {@link RenderingMetrics} gathering the rendering work of
+     * this GridView.
+     *
+     * @return the RenderingMetrics, or null if none
+     */
+    public final RenderingMetrics getRenderingMetrics() {
+        return renderingMetrics;
+    }
+    private RenderingMetrics renderingMetrics;
     
     /**************************************************************************
      * 
@@ -0,0 +1,364 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.control.spreadsheet;
+
+import impl.org.controlsfx.spreadsheet.RectangleSelection.GridRange;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The cells copied from a {@link SpreadsheetView}, held in parallel arrays
+ * instead of one {@link ClipboardCell} per cell.
+ *
+ * <p>
+ * A block is put into the {@link javafx.scene.input.Clipboard} as a compact
+ * binary form: the common values (String, Double, Integer, Boolean and
+ * LocalDate) are written as primitives, and the other values are serialized
+ * only if their class is serializable. Each object is serialized on its own,
+ * so a value that fails is copied as its {@code toString()} without
+ * disturbing the others. Once a value of a class has failed, the next values
+ * of that class are directly copied as text.
+ *
+ * <p>
+ * When copying, the cells are not gathered into a block: they are written
+ * one by one into the binary form by a {@link Writer}.
+ */
+final class ClipboardBlock {
+
+    private static final int VERSION = 2;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte LONG_STRING = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte INTEGER = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte DATE = 6;
+    private static final byte OBJECT = 7;
+
+    //Writing a String with writeUTF is limited to 65535 bytes.
+    private static final int MAX_UTF_LENGTH = 65535 / 3;
+
+    //Whether a value of the class has failed to be serialized.
+    private static final ClassValue<AtomicBoolean> SERIALIZATION_FAILED = new ClassValue<AtomicBoolean>() {
+        @Override
+        protected AtomicBoolean computeValue(Class<?> type) {
+            return new AtomicBoolean();
+        }
+    };
+
+    private int[] rows;
+    private int[] columns;
+    private Object[] values;
+    private int size;
+
+    ClipboardBlock(int capacity) {
+        rows = new int[Math.max(capacity, 1)];
+        columns = new int[rows.length];
+        values = new Object[rows.length];
+    }
+
+    /**
+     * Creates a block from the content copied by a previous version of the
+     * {@link SpreadsheetView}.
+     *
+     * @param list
+     * @return a block holding the given cells
+     */
+    static ClipboardBlock of(List<ClipboardCell> list) {
+        final ClipboardBlock block = new ClipboardBlock(list.size());
+        for (ClipboardCell cell : list) {
+            block.add(cell.getRow(), cell.getColumn(), cell.getValue());
+        }
+        return block;
+    }
+
+    void add(int row, int column, Object value) {
+        if (size == rows.length) {
+            final int capacity = size * 2;
+            rows = Arrays.copyOf(rows, capacity);
+            columns = Arrays.copyOf(columns, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        rows[size] = row;
+        columns[size] = column;
+        values[size] = value;
+        ++size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int getRow(int i) {
+        return rows[i];
+    }
+
+    int getColumn(int i) {
+        return columns[i];
+    }
+
+    Object getValue(int i) {
+        return values[i];
+    }
+
+    /**
+     * Returns the smallest rectangle containing every cell of this block.
+     *
+     * @return the smallest rectangle containing every cell, or null if the
+     * block is empty
+     */
+    GridRange getBounds() {
+        if (size == 0) {
+            return null;
+        }
+        int top = Integer.MAX_VALUE, bottom = Integer.MIN_VALUE;
+        int left = Integer.MAX_VALUE, right = Integer.MIN_VALUE;
+        for (int i = 0; i < size; ++i) {
+            top = Math.min(top, rows[i]);
+            bottom = Math.max(bottom, rows[i]);
+            left = Math.min(left, columns[i]);
+            right = Math.max(right, columns[i]);
+        }
+        return new GridRange(top, bottom, left, right);
+    }
+
+    /**
+     * Returns the rectangle formed by the cells of this block.
+     *
+     * @return the rectangle formed by the cells, or null if the cells do not
+     * form exactly a rectangle
+     */
+    GridRange getRange() {
+        final GridRange bounds = getBounds();
+        if (bounds == null) {
+            return null;
+        }
+        final int width = bounds.getRight() - bounds.getLeft() + 1;
+        final long area = (long) (bounds.getBottom() - bounds.getTop() + 1) * width;
+        if (area != size) {
+            return null;
+        }
+        //Every position must be present exactly once.
+        final BitSet positions = new BitSet(size);
+        for (int i = 0; i < size; ++i) {
+            final int position = (rows[i] - bounds.getTop()) * width + columns[i] - bounds.getLeft();
+            if (positions.get(position)) {
+                return null;
+            }
+            positions.set(position);
+        }
+        return bounds;
+    }
+
+    /**
+     * Reads a block written by a {@link Writer}.
+     *
+     * @param bytes
+     * @return the block, or null if the bytes cannot be read
+     */
+    static ClipboardBlock fromBytes(byte[] bytes) {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            if (input.readInt() != VERSION) {
+                return null;
+            }
+            final int count = input.readInt();
+            final ClipboardBlock block = new ClipboardBlock(count);
+            for (int i = 0; i < count; ++i) {
+                final int row = input.readInt();
+                final int column = input.readInt();
+                block.add(row, column, readValue(input));
+            }
+            return block;
+        } catch (IOException | ClassNotFoundException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the binary form of a block, one cell at a time, without keeping
+     * the cells.
+     */
+    static final class Writer {
+
+        private final ByteArrayOutputStream bytes;
+        private final ObjectOutputStream output;
+        //Holds the serialized form of one object.
+        private final ByteArrayOutputStream objectBytes = new ByteArrayOutputStream();
+        private final int count;
+        private int written;
+
+        /**
+         * @param count the exact number of cells that will be written
+         */
+        Writer(int count) {
+            this.count = count;
+            bytes = new ByteArrayOutputStream((int) Math.min(count * 16L + 64, Integer.MAX_VALUE - 8));
+            try {
+                output = new ObjectOutputStream(bytes);
+                output.writeInt(VERSION);
+                output.writeInt(count);
+            } catch (IOException ex) {
+                //A ByteArrayOutputStream does not throw.
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        void write(int row, int column, Object value) {
+            if (written == count) {
+                throw new IllegalStateException("More than " + count + " cells written"); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+            try {
+                output.writeInt(row);
+                output.writeInt(column);
+                writeValue(value);
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+            ++written;
+        }
+
+        /**
+         * @return the binary form of the written cells
+         */
+        byte[] toBytes() {
+            if (written != count) {
+                throw new IllegalStateException(written + " cells written instead of " + count); //$NON-NLS-1$
+            }
+            try {
+                output.close();
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+            return bytes.toByteArray();
+        }
+
+        private void writeValue(Object value) throws IOException {
+            if (value != null && !isPrimitive(value) && value instanceof Serializable
+                    && !SERIALIZATION_FAILED.get(value.getClass()).get()) {
+                objectBytes.reset();
+                try (ObjectOutputStream objectOutput = new ObjectOutputStream(objectBytes)) {
+                    objectOutput.writeObject(value);
+                } catch (IOException ex) {
+                    SERIALIZATION_FAILED.get(value.getClass()).set(true);
+                    writeString(output, value.toString());
+                    return;
+                }
+                output.writeByte(OBJECT);
+                output.writeInt(objectBytes.size());
+                objectBytes.writeTo(output);
+            } else {
+                ClipboardBlock.writeValue(output, value);
+            }
+        }
+    }
+
+    /***************************************************************************
+     *
+     * Private Implementation
+     *
+     **************************************************************************/
+
+    private static boolean isPrimitive(Object value) {
+        return value instanceof String || value instanceof Double || value instanceof Integer
+                || value instanceof Boolean || value instanceof LocalDate;
+    }
+
+    /**
+     * Writes a value that is null, one of the common values, or that must be
+     * copied as text.
+     */
+    private static void writeValue(ObjectOutputStream output, Object value) throws IOException {
+        if (value == null) {
+            output.writeByte(NULL);
+        } else if (value instanceof String) {
+            writeString(output, (String) value);
+        } else if (value instanceof Double) {
+            output.writeByte(DOUBLE);
+            output.writeDouble((Double) value);
+        } else if (value instanceof Integer) {
+            output.writeByte(INTEGER);
+            output.writeInt((Integer) value);
+        } else if (value instanceof Boolean) {
+            output.writeByte(BOOLEAN);
+            output.writeBoolean((Boolean) value);
+        } else if (value instanceof LocalDate) {
+            output.writeByte(DATE);
+            output.writeLong(((LocalDate) value).toEpochDay());
+        } else {
+            writeString(output, value.toString());
+        }
+    }
+
+    private static void writeString(ObjectOutputStream output, String value) throws IOException {
+        if (value.length() <= MAX_UTF_LENGTH) {
+            output.writeByte(STRING);
+            output.writeUTF(value);
+        } else {
+            output.writeByte(LONG_STRING);
+            output.writeObject(value);
+        }
+    }
+
+    private static Object readValue(ObjectInputStream input) throws IOException, ClassNotFoundException {
+        final byte type = input.readByte();
+        switch (type) {
+            case NULL:
+                return null;
+            case STRING:
+                return input.readUTF();
+            case DOUBLE:
+                return input.readDouble();
+            case INTEGER:
+                return input.readInt();
+            case BOOLEAN:
+                return input.readBoolean();
+            case DATE:
+                return LocalDate.ofEpochDay(input.readLong());
+            case LONG_STRING:
+                return input.readObject();
+            case OBJECT:
+                final byte[] object = new byte[input.readInt()];
+                input.readFully(object);
+                try (ObjectInputStream objectInput = new ObjectInputStream(new ByteArrayInputStream(object))) {
+                    return objectInput.readObject();
+                }
+            default:
+                throw new IOException("Unknown value type " + type); //$NON-NLS-1$
+        }
+    }
+
+}
@@ -0,0 +1,555 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met: *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer. * Redistributions in binary
+ * form must reproduce the above copyright notice, this list of conditions and
+ * the following disclaimer in the documentation and/or other materials provided
+ * with the distribution. * Neither the name of ControlsFX, any associated
+ * website, nor the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.control.spreadsheet;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.beans.WeakInvalidationListener;
+import javafx.beans.property.ReadOnlyProperty;
+import javafx.collections.ObservableList;
+
+/**
+ * A {@link Comparator} sorting the rows of a {@link SpreadsheetView} by the
+ * values of one or several columns, to be given to
+ * {@link SpreadsheetView#setComparator(java.util.Comparator) }.
+ *
+ * <p>
+ * A regular comparator has to read the cells, and their values, of the two
+ * rows at each comparison. Instead, this comparator reads the values of the
+ * sorted columns once, and sorts all the rows at once with primitive arrays
+ * (in parallel for the large grids). Each row is then given its rank, so a
+ * comparison is simply a comparison between two ranks.
+ *
+ * <p>
+ * Two {@link SpreadsheetCellType#INTEGER} cells, or two
+ * {@link SpreadsheetCellType#DOUBLE} cells, are compared by their numeric
+ * values, the empty cells being always placed last. Any other pair of cells
+ * is compared by their text, ignoring the case. A column only holding
+ * numbers of one type, or no number at all, is sorted with primitive arrays.
+ * A column mixing them is sorted pair by pair with these rules. The rows
+ * having the same values keep their order in the {@link Grid}, so the sort
+ * is stable. The rows until the {@link SpreadsheetView#getFilteredRow() } are
+ * not sorted.
+ *
+ * <p>
+ * The values read are kept up to date as the cells are modified, but the
+ * rows are not sorted again automatically. Giving this comparator again to
+ * {@link SpreadsheetView#setComparator(java.util.Comparator) } sorts the rows
+ * with the current values, only the modified cells are read again. When the
+ * rows of the {@link Grid} are modified, all the values are read again. Only
+ * weak listeners are registered, so a discarded comparator does not stay
+ * referenced by the grid.
+ *
+ * <pre>
+ * //Sort by the first column, then by the third one in descending order.
+ * spreadsheetView.setComparator(new ColumnComparator(spreadsheetView, new int[]{0, 2}, new boolean[]{true, false}));
+ * </pre>
+ */
+public class ColumnComparator implements Comparator<ObservableList<SpreadsheetCell>> {
+
+    /***************************************************************************
+     *
+     * Private Fields
+     *
+     **************************************************************************/
+    private static final byte INTEGER = 0;
+    private static final byte DOUBLE = 1;
+    private static final byte TEXT = 2;
+
+    private final SpreadsheetView spv;
+    private final int[] columns;
+    private final boolean[] ascending;
+
+    private Grid grid;
+    //The first row sorted when the keys were read.
+    private int firstRow;
+    //The values of each sorted column, by model row.
+    private ColumnKeys[] keys;
+    //The rank of each model row, null when the rows have to be ranked again.
+    private int[] ranks;
+    //The index of the rows which cannot be found from their cells.
+    private Map<ObservableList<SpreadsheetCell>, Integer> rowIndexes;
+    //Listens to the rows and the cells of the current keys.
+    private InvalidationListener keysListener;
+    private WeakInvalidationListener weakKeysListener;
+    //Whether the rows of the grid have changed since the keys were read.
+    private boolean keysStale;
+
+    /***************************************************************************
+     *
+     * Constructors
+     *
+     **************************************************************************/
+
+    /**
+     * Creates a comparator sorting the rows by one column.
+     *
+     * @param spv the sorted {@code SpreadsheetView}
+     * @param column the model index of the column
+     * @param ascending whether the values are sorted in the ascending order
+     */
+    public ColumnComparator(SpreadsheetView spv, int column, boolean ascending) {
+        this(spv, new int[]{column}, new boolean[]{ascending});
+    }
+
+    /**
+     * Creates a comparator sorting the rows by several columns. The rows are
+     * sorted by the first column, then the rows having the same value are
+     * sorted by the second column and so on.
+     *
+     * @param spv the sorted {@code SpreadsheetView}
+     * @param columns the model index of the columns
+     * @param ascending whether the values of each column are sorted in the
+     * ascending order
+     */
+    public ColumnComparator(SpreadsheetView spv, int[] columns, boolean[] ascending) {
+        if (columns.length == 0 || columns.length != ascending.length) {
+            throw new IllegalArgumentException("Each column must have its order."); //$NON-NLS-1$
+        }
+        this.spv = spv;
+        this.columns = columns.clone();
+        this.ascending = ascending.clone();
+    }
+
+    /***************************************************************************
+     *
+     * Public Methods
+     *
+     **************************************************************************/
+
+    /**
+     * @return the model index of the sorted columns
+     */
+    public int[] getColumns() {
+        return columns.clone();
+    }
+
+    /**
+     * @return whether the values of each column are sorted in the ascending
+     * order
+     */
+    public boolean[] getAscending() {
+        return ascending.clone();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int compare(ObservableList<SpreadsheetCell> row1, ObservableList<SpreadsheetCell> row2) {
+        if (ranks == null) {
+            computeRanks();
+        }
+        return Integer.compare(getRank(row1), getRank(row2));
+    }
+
+    /***************************************************************************
+     *
+     * Private Implementation
+     *
+     **************************************************************************/
+
+    /**
+     * The rows will be ranked again with the current values at the next
+     * comparison.
+     */
+    void invalidate() {
+        ranks = null;
+    }
+
+    /**
+     * Gives the same comparator to the {@code SortedList} of the
+     * {@link SpreadsheetView} through another instance, since it only sorts
+     * again when its comparator changes.
+     */
+    static final class Resort implements Comparator<ObservableList<SpreadsheetCell>> {
+
+        final ColumnComparator comparator;
+
+        Resort(ColumnComparator comparator) {
+            this.comparator = comparator;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int compare(ObservableList<SpreadsheetCell> row1, ObservableList<SpreadsheetCell> row2) {
+            return comparator.compare(row1, row2);
+        }
+    }
+
+    /**
+     * The values of a sorted column. A column only holding numbers of one type
+     * has no texts, a column without any number has no numbers, and the kind
+     * of each row is only kept for the columns mixing them.
+     */
+    private static final class ColumnKeys {
+
+        double[] numbers;
+        String[] texts;
+        byte[] kinds;
+
+        int size() {
+            return numbers == null ? texts.length : numbers.length;
+        }
+    }
+
+    private int getRank(ObservableList<SpreadsheetCell> row) {
+        final int index = getRowIndex(row);
+        if (index < 0) {
+            return Integer.MAX_VALUE;
+        }
+        //The rows added since the ranking are placed last.
+        return index < ranks.length ? ranks[index] : index;
+    }
+
+    private int getRowIndex(ObservableList<SpreadsheetCell> row) {
+        if (!row.isEmpty()) {
+            //A cell spanning on one row gives its row.
+            final SpreadsheetCell cell = row.get(0);
+            if (cell.getRowSpan() == 1) {
+                return cell.getRow();
+            }
+        }
+        if (rowIndexes == null) {
+            rowIndexes = new IdentityHashMap<>();
+            final ObservableList<ObservableList<SpreadsheetCell>> rows = grid.getRows();
+            for (int i = 0; i < rows.size(); ++i) {
+                rowIndexes.put(rows.get(i), i);
+            }
+        }
+        final Integer index = rowIndexes.get(row);
+        return index == null ? -1 : index;
+    }
+
+    private void computeRanks() {
+        final Grid currentGrid = spv.getGrid();
+        final int rowCount = currentGrid.getRowCount();
+        final int first = Math.min(Math.max(spv.getFilteredRow() + 1, 0), rowCount);
+        if (keys == null || keysStale || currentGrid != grid || first != firstRow || keys[0].size() != rowCount) {
+            detachKeys();
+            grid = currentGrid;
+            firstRow = first;
+            readKeys(rowCount);
+        }
+        rowIndexes = null;
+
+        final int count = rowCount - first;
+        int[] ordinals = null;
+        for (int i = 0; i < columns.length; ++i) {
+            final ColumnKeys columnKeys = keys[i];
+            final int[] columnOrdinals = columnKeys.kinds != null ? getOrdinals(columnKeys, ascending[i], first)
+                    : columnKeys.numbers != null ? getOrdinals(columnKeys.numbers, ascending[i], first)
+                    : getOrdinals(columnKeys.texts, ascending[i], first);
+            if (ordinals == null) {
+                ordinals = columnOrdinals;
+            } else {
+                //The ordinals of the previous columns and of this one are merged into one ordinal.
+                final long[] pairs = new long[count];
+                for (int k = 0; k < count; ++k) {
+                    pairs[k] = ((long) ordinals[k] << 32) | columnOrdinals[k];
+                }
+                ordinals = getDenseRanks(pairs);
+            }
+        }
+
+        //The row itself breaks the ties, so the sort is stable.
+        final long[] order = new long[count];
+        for (int k = 0; k < count; ++k) {
+            order[k] = ((long) ordinals[k] << 32) | k;
+        }
+        Arrays.parallelSort(order);
+        final int[] newRanks = new int[rowCount];
+        for (int row = 0; row < first; ++row) {
+            newRanks[row] = row;
+        }
+        for (int position = 0; position < count; ++position) {
+            newRanks[first + (int) order[position]] = first + position;
+        }
+        ranks = newRanks;
+    }
+
+    /**
+     * Reads the values of the sorted columns, and listens to the rows and to
+     * the cells read so that the values follow
+     * {@link SpreadsheetCell#setItem(Object) }.
+     */
+    private void readKeys(int rowCount) {
+        final ObservableList<ObservableList<SpreadsheetCell>> rows = grid.getRows();
+        final ColumnKeys[] newKeys = new ColumnKeys[columns.length];
+        for (int i = 0; i < columns.length; ++i) {
+            final int column = columns[i];
+            final byte[] kinds = new byte[rowCount];
+            boolean integers = false;
+            boolean doubles = false;
+            boolean texts = false;
+            for (int row = 0; row < rowCount; ++row) {
+                kinds[row] = getKind(rows.get(row).get(column));
+                //The rows which are not sorted do not decide how the column is sorted.
+                if (row >= firstRow) {
+                    integers |= kinds[row] == INTEGER;
+                    doubles |= kinds[row] == DOUBLE;
+                    texts |= kinds[row] == TEXT;
+                }
+            }
+            final ColumnKeys columnKeys = new ColumnKeys();
+            if (integers || doubles) {
+                columnKeys.numbers = new double[rowCount];
+                for (int row = 0; row < rowCount; ++row) {
+                    columnKeys.numbers[row] = getNumber(rows.get(row).get(column));
+                }
+            }
+            if (texts || (integers && doubles) || !(integers || doubles)) {
+                columnKeys.texts = new String[rowCount];
+                for (int row = 0; row < rowCount; ++row) {
+                    columnKeys.texts[row] = rows.get(row).get(column).getText();
+                }
+            }
+            if (columnKeys.numbers != null && columnKeys.texts != null) {
+                columnKeys.kinds = kinds;
+            }
+            newKeys[i] = columnKeys;
+        }
+
+        final ColumnKeys[] readKeys = newKeys;
+        keysListener = (Observable observable) -> {
+            if (keys != readKeys || keysStale) {
+                return;
+            }
+            final Object bean = observable instanceof ReadOnlyProperty ? ((ReadOnlyProperty<?>) observable).getBean() : null;
+            if (bean instanceof SpreadsheetCell) {
+                updateKeys((SpreadsheetCell) bean);
+            } else {
+                //The values are read again at the next sort.
+                keysStale = true;
+                rowIndexes = null;
+            }
+        };
+        weakKeysListener = new WeakInvalidationListener(keysListener);
+        rows.addListener(weakKeysListener);
+        for (int row = 0; row < rowCount; ++row) {
+            rows.get(row).addListener(weakKeysListener);
+        }
+        for (int i = 0; i < columns.length; ++i) {
+            SpreadsheetCell previousCell = null;
+            for (int row = 0; row < rowCount; ++row) {
+                final SpreadsheetCell cell = rows.get(row).get(columns[i]);
+                //A cell spanning several rows is listened once.
+                if (cell != previousCell) {
+                    listenCell(cell, newKeys[i], true);
+                    previousCell = cell;
+                }
+            }
+        }
+        keys = newKeys;
+        keysStale = false;
+    }
+
+    /**
+     * Removes the listeners of the current keys from the rows and the cells
+     * still in the grid. The ones left on removed rows are only weak.
+     */
+    private void detachKeys() {
+        if (weakKeysListener != null) {
+            final ObservableList<ObservableList<SpreadsheetCell>> rows = grid.getRows();
+            rows.removeListener(weakKeysListener);
+            for (ObservableList<SpreadsheetCell> row : rows) {
+                row.removeListener(weakKeysListener);
+                for (int i = 0; i < columns.length; ++i) {
+                    if (columns[i] < row.size()) {
+                        listenCell(row.get(columns[i]), keys[i], false);
+                    }
+                }
+            }
+            keysListener = null;
+            weakKeysListener = null;
+        }
+        keys = null;
+    }
+
+    private void listenCell(SpreadsheetCell cell, ColumnKeys columnKeys, boolean add) {
+        if (columnKeys.numbers != null) {
+            if (add) {
+                cell.itemProperty().addListener(weakKeysListener);
+            } else {
+                cell.itemProperty().removeListener(weakKeysListener);
+            }
+        }
+        if (columnKeys.texts != null) {
+            if (add) {
+                cell.textProperty().addListener(weakKeysListener);
+            } else {
+                cell.textProperty().removeListener(weakKeysListener);
+            }
+        }
+    }
+
+    private static byte getKind(SpreadsheetCell cell) {
+        final SpreadsheetCellType<?> type = cell.getCellType();
+        return type == SpreadsheetCellType.INTEGER ? INTEGER : type == SpreadsheetCellType.DOUBLE ? DOUBLE : TEXT;
+    }
+
+    private static double getNumber(SpreadsheetCell cell) {
+        final Object item = cell.getItem();
+        return item instanceof Number ? ((Number) item).doubleValue() : Double.NaN;
+    }
+
+    /**
+     * Reads again the values of the rows covered by the modified cell.
+     */
+    private void updateKeys(SpreadsheetCell cell) {
+        final int lastRow = Math.min(cell.getRow() + cell.getRowSpan(), keys[0].size());
+        for (int i = 0; i < columns.length; ++i) {
+            if (columns[i] < cell.getColumn() || columns[i] >= cell.getColumn() + cell.getColumnSpan()) {
+                continue;
+            }
+            final ColumnKeys columnKeys = keys[i];
+            for (int row = Math.max(cell.getRow(), 0); row < lastRow; ++row) {
+                if (columnKeys.numbers != null) {
+                    columnKeys.numbers[row] = getNumber(cell);
+                }
+                if (columnKeys.texts != null) {
+                    columnKeys.texts[row] = cell.getText();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the ordinal of the value of each row from the first one, the
+     * empty values being always last.
+     */
+    private static int[] getOrdinals(double[] values, boolean ascending, int first) {
+        final long[] sortable = new long[values.length - first];
+        for (int k = 0; k < sortable.length; ++k) {
+            final double value = values[first + k];
+            if (Double.isNaN(value)) {
+                sortable[k] = Long.MAX_VALUE;
+            } else {
+                //The bits of a double give the same order as the double once the negative ones are flipped.
+                final long bits = Double.doubleToLongBits(value);
+                final long ordered = bits ^ ((bits >> 63) & Long.MAX_VALUE);
+                sortable[k] = ascending ? ordered : -ordered;
+            }
+        }
+        return getDenseRanks(sortable);
+    }
+
+    /**
+     * Returns the ordinal of the text of each row from the first one,
+     * ignoring the case.
+     */
+    private static int[] getOrdinals(String[] texts, boolean ascending, int first) {
+        final String[] sorted = new String[texts.length - first];
+        for (int k = 0; k < sorted.length; ++k) {
+            sorted[k] = texts[first + k] == null ? "" : texts[first + k]; //$NON-NLS-1$
+        }
+        final String[] values = sorted.clone();
+        Arrays.parallelSort(sorted, String.CASE_INSENSITIVE_ORDER);
+
+        final Map<String, Integer> ordinalByText = new HashMap<>();
+        int ordinal = -1;
+        String previous = null;
+        for (String text : sorted) {
+            if (previous == null || String.CASE_INSENSITIVE_ORDER.compare(previous, text) != 0) {
+                ++ordinal;
+                previous = text;
+            }
+            ordinalByText.putIfAbsent(text, ordinal);
+        }
+        final int[] ordinals = new int[values.length];
+        for (int k = 0; k < values.length; ++k) {
+            final int value = ordinalByText.get(values[k]);
+            ordinals[k] = ascending ? value : ordinal - value;
+        }
+        return ordinals;
+    }
+
+    /**
+     * Returns the ordinal of each row from the first one for a column mixing
+     * numbers and texts, the rows being compared pair by pair.
+     */
+    private static int[] getOrdinals(ColumnKeys columnKeys, boolean ascending, int first) {
+        final Integer[] sorted = new Integer[columnKeys.size() - first];
+        for (int k = 0; k < sorted.length; ++k) {
+            sorted[k] = first + k;
+        }
+        final Comparator<Integer> comparator = (Integer row1, Integer row2) -> compareRows(columnKeys, ascending, row1, row2);
+        Arrays.sort(sorted, comparator);
+
+        final int[] ordinals = new int[sorted.length];
+        int ordinal = 0;
+        for (int k = 0; k < sorted.length; ++k) {
+            if (k > 0 && comparator.compare(sorted[k - 1], sorted[k]) != 0) {
+                ++ordinal;
+            }
+            ordinals[sorted[k] - first] = ordinal;
+        }
+        return ordinals;
+    }
+
+    /**
+     * Compares two rows of a column mixing numbers and texts: two numbers of
+     * the same type by their value, the empty ones being last, and any other
+     * pair by their text ignoring the case.
+     */
+    private static int compareRows(ColumnKeys columnKeys, boolean ascending, int row1, int row2) {
+        final byte kind = columnKeys.kinds[row1];
+        if (kind != TEXT && kind == columnKeys.kinds[row2]) {
+            final double value1 = columnKeys.numbers[row1];
+            final double value2 = columnKeys.numbers[row2];
+            if (Double.isNaN(value1) || Double.isNaN(value2)) {
+                return Boolean.compare(Double.isNaN(value1), Double.isNaN(value2));
+            }
+            return ascending ? Double.compare(value1, value2) : Double.compare(value2, value1);
+        }
+        final String text1 = columnKeys.texts[row1] == null ? "" : columnKeys.texts[row1]; //$NON-NLS-1$
+        final String text2 = columnKeys.texts[row2] == null ? "" : columnKeys.texts[row2]; //$NON-NLS-1$
+        return ascending ? text1.compareToIgnoreCase(text2) : text2.compareToIgnoreCase(text1);
+    }
+
+    /**
+     * Replaces each value by its position among the distinct values.
+     */
+    private static int[] getDenseRanks(long[] values) {
+        final long[] sorted = values.clone();
+        Arrays.parallelSort(sorted);
+        int distinct = 0;
+        for (int k = 0; k < sorted.length; ++k) {
+            if (k == 0 || sorted[k] != sorted[distinct - 1]) {
+                sorted[distinct++] = sorted[k];
+            }
+        }
+        final int[] ranks = new int[values.length];
+        for (int k = 0; k < values.length; ++k) {
+            ranks[k] = Arrays.binarySearch(sorted, 0, distinct, values[k]);
+        }
+        return ranks;
+    }
+}
@@ -0,0 +1,649 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met: *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer. * Redistributions in binary
+ * form must reproduce the above copyright notice, this list of conditions and
+ * the following disclaimer in the documentation and/or other materials provided
+ * with the distribution. * Neither the name of ControlsFX, any associated
+ * website, nor the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.control.spreadsheet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javafx.application.Platform;
+
+/**
+ * A {@link VirtualGridBase} showing the content of a CSV file without loading
+ * it in memory.
+ *
+ * <p>
+ * The file is memory-mapped, and a background thread builds an index of the
+ * position where each row starts, growing {@link #getRowCount() } on the FX
+ * thread as the rows are found. The index only takes a few bytes per row. The
+ * cells of a row are parsed from the file when the row is requested by the
+ * {@link SpreadsheetView}, usually because it is about to be displayed, and
+ * are discarded with the row as explained in {@link VirtualGridBase}.
+ *
+ * <p>
+ * The file is parsed as specified by RFC 4180: the fields are separated by the
+ * given separator, and may be quoted with {@code "} in order to contain the
+ * separator, a line break, or a quote written {@code ""}. The number of
+ * columns is given by the first line, which can also give the
+ * {@link #getColumnHeaders() column headers}. The charset must encode the
+ * separator, the quote and the line feed as single bytes, like UTF-8 or
+ * ISO-8859-1.
+ *
+ * <h3>Edition</h3>
+ * The file is never written. As in {@link VirtualGridBase}, the modified values
+ * are kept by the grid and a {@link GridChange} is fired, so that they can be
+ * saved elsewhere.
+ *
+ * <h3>Index</h3>
+ * Once the whole file is indexed (see {@link #isIndexed() }), the index can
+ * be saved next to the file with {@link #saveIndex() }. When the file is opened
+ * again, the saved index is used, so that all the rows are available
+ * immediately, unless the file has been modified since.
+ *
+ * <h3>Code Sample</h3>
+ * <pre>
+ * CsvGrid grid = new CsvGrid(Paths.get("extract.csv"), ',', true);
+ * SpreadsheetView spv = new SpreadsheetView(grid);
+ * </pre>
+ *
+ * @see VirtualGridBase
+ */
+public class CsvGrid extends VirtualGridBase implements Closeable {
+
+    /***************************************************************************
+     *
+     * Private Fields
+     *
+     **************************************************************************/
+    private final CsvFile file;
+
+    /***************************************************************************
+     *
+     * Constructors
+     *
+     **************************************************************************/
+
+    /**
+     * Opens a CSV file encoded in UTF-8.
+     *
+     * @param path the CSV file
+     * @param separator the separator of the fields, usually ',' or '\t'
+     * @param header whether the first line gives the headers of the columns
+     * @throws IOException if the file cannot be opened
+     */
+    public CsvGrid(Path path, char separator, boolean header) throws IOException {
+        this(path, separator, header, StandardCharsets.UTF_8, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Opens a CSV file.
+     *
+     * @param path the CSV file
+     * @param separator the separator of the fields, usually ',' or '\t'
+     * @param header whether the first line gives the headers of the columns
+     * @param charset the charset of the file
+     * @param cacheSize the maximum number of parsed rows kept by the grid
+     * @throws IOException if the file cannot be opened
+     */
+    public CsvGrid(Path path, char separator, boolean header, Charset charset, int cacheSize) throws IOException {
+        this(new CsvFile(path, separator, header, charset), cacheSize);
+    }
+
+    private CsvGrid(CsvFile file, int cacheSize) {
+        super(file.index.getRowCount(), file.columnCount, file, cacheSize);
+        this.file = file;
+        file.grid = this;
+        if (file.headers != null) {
+            getColumnHeaders().setAll(file.headers);
+        }
+        if (!file.index.isComplete()) {
+            file.startIndexing();
+        }
+    }
+
+    /***************************************************************************
+     *
+     * Public Methods
+     *
+     **************************************************************************/
+
+    /**
+     * @return the CSV file
+     */
+    public Path getPath() {
+        return file.path;
+    }
+
+    /**
+     * @return the file where {@link #saveIndex() } saves the index, next to
+     * the CSV file
+     */
+    public Path getIndexPath() {
+        return getIndexPath(file.path);
+    }
+
+    /**
+     * @return whether the whole file has been indexed, in which case
+     * {@link #getRowCount() } is the number of rows of the file
+     */
+    public boolean isIndexed() {
+        return file.index.isComplete() && getRowCount() == file.index.getRowCount();
+    }
+
+    /**
+     * Waits until the whole file is indexed. When called on the FX thread, the
+     * rows are added to the grid before returning, otherwise they are added
+     * later on the FX thread.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void waitForIndex() throws InterruptedException {
+        final Thread indexer = file.indexer;
+        if (indexer != null) {
+            indexer.join();
+        }
+        if (Platform.isFxApplicationThread()) {
+            setRowCount(file.index.getRowCount());
+        }
+    }
+
+    /**
+     * Saves the index of the rows next to the CSV file (see
+     * {@link #getIndexPath() }), so that all the rows are available
+     * immediately when the file is opened again.
+     *
+     * @throws IOException if the index cannot be written
+     * @throws IllegalStateException if the file is not fully indexed
+     */
+    public void saveIndex() throws IOException {
+        if (!file.index.isComplete()) {
+            throw new IllegalStateException("The file is not fully indexed yet"); //$NON-NLS-1$
+        }
+        file.saveIndex(getIndexPath());
+    }
+
+    /**
+     * Stops the indexing and closes the file channel. The mapping of the file
+     * is only released when the grid is garbage collected.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    /***************************************************************************
+     *
+     * Protected Methods
+     *
+     **************************************************************************/
+
+    /**
+     * Creates the cell situated at the given coordinates, with the value read
+     * in the file. By default, a {@link SpreadsheetCellType#STRING} cell is
+     * created. This can be overridden in order to convert the values.
+     *
+     * @param row the row index
+     * @param column the column index
+     * @param value the value of the field, empty if the row has fewer fields
+     * @return the cell situated at the given coordinates
+     */
+    protected SpreadsheetCell createCell(int row, int column, String value) {
+        return SpreadsheetCellType.STRING.createCell(row, column, 1, 1, value);
+    }
+
+    /***************************************************************************
+     *
+     * Private Implementation
+     *
+     **************************************************************************/
+
+    private static Path getIndexPath(Path path) {
+        return path.resolveSibling(path.getFileName() + ".idx"); //$NON-NLS-1$
+    }
+
+    /**
+     * The mapped CSV file, with the index of its rows.
+     */
+    private static final class CsvFile implements CellProvider {
+
+        private static final int SEGMENT_SHIFT = 30;
+        private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+        private static final int CHUNK_SIZE = 64 * 1024;
+        //The number of rows found before the grid is notified.
+        private static final int PUBLISH_INTERVAL = 64 * 1024;
+        private static final byte LINE_FEED = '\n';
+        private static final byte CARRIAGE_RETURN = '\r';
+        private static final byte QUOTE = '"';
+
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer[] segments;
+        private final long size;
+        private final long lastModified;
+        private final byte separator;
+        private final boolean header;
+        private final Charset charset;
+        private final int columnCount;
+        private final List<String> headers;
+        private final RowIndex index;
+        private final AtomicBoolean publishing = new AtomicBoolean();
+        private volatile boolean closed;
+        private volatile Thread indexer;
+        private CsvGrid grid;
+
+        //The last parsed row, since the cells of a row are created one by one.
+        private int parsedRow = -1;
+        private List<String> parsedFields;
+
+        CsvFile(Path path, char separator, boolean header, Charset charset) throws IOException {
+            if (separator > 0x7F) {
+                throw new IllegalArgumentException("The separator must be an ASCII character"); //$NON-NLS-1$
+            }
+            this.path = path;
+            this.separator = (byte) separator;
+            this.header = header;
+            this.charset = charset;
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                size = channel.size();
+                lastModified = Files.getLastModifiedTime(path).toMillis();
+                segments = new MappedByteBuffer[(int) ((size + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+                for (int i = 0; i < segments.length; ++i) {
+                    final long position = (long) i << SEGMENT_SHIFT;
+                    segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(size - position, 1L << SEGMENT_SHIFT));
+                }
+
+                final long firstLineEnd = findLineEnd(0);
+                final List<String> firstLine = parse(0, firstLineEnd);
+                columnCount = size == 0 ? 0 : firstLine.size();
+                headers = header ? firstLine : null;
+                final long dataStart = header ? firstLineEnd : 0;
+
+                RowIndex savedIndex = loadIndex(getIndexPath(path));
+                index = savedIndex != null ? savedIndex : new RowIndex(dataStart);
+            } catch (IOException | RuntimeException ex) {
+                channel.close();
+                throw ex;
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public SpreadsheetCell createCell(int row, int column) {
+            if (row != parsedRow) {
+                parsedFields = parse(index.get(row), index.get(row + 1));
+                parsedRow = row;
+            }
+            return grid.createCell(row, column, column < parsedFields.size() ? parsedFields.get(column) : ""); //$NON-NLS-1$
+        }
+
+        void startIndexing() {
+            indexer = new Thread(this::buildIndex, "CsvGrid indexer " + path.getFileName()); //$NON-NLS-1$
+            indexer.setDaemon(true);
+            indexer.start();
+        }
+
+        void close() throws IOException {
+            closed = true;
+            channel.close();
+        }
+
+        /**
+         * Finds the rows of the file, out of the FX thread.
+         */
+        private void buildIndex() {
+            final byte[] chunk = new byte[CHUNK_SIZE];
+            final LineScanner scanner = new LineScanner(separator);
+            int lastPublishedRow = 0;
+            long position = index.get(0);
+            while (position < size && !closed) {
+                final int length = (int) Math.min(CHUNK_SIZE, size - position);
+                read(position, chunk, length);
+                for (int i = 0; i < length; ++i) {
+                    if (scanner.isLineEnd(chunk[i])) {
+                        index.add(position + i + 1);
+                    }
+                }
+                position += length;
+                if (index.getRowCount() - lastPublishedRow >= PUBLISH_INTERVAL) {
+                    lastPublishedRow = index.getRowCount();
+                    publish();
+                }
+            }
+            if (!closed) {
+                //The last line may not end with a line break.
+                if (index.get(index.getRowCount()) < size) {
+                    index.add(size);
+                }
+                index.complete();
+                publish();
+            }
+        }
+
+        /**
+         * Gives the rows found so far to the grid on the FX thread.
+         */
+        private void publish() {
+            if (publishing.compareAndSet(false, true)) {
+                Platform.runLater(() -> {
+                    publishing.set(false);
+                    grid.setRowCount(index.getRowCount());
+                });
+            }
+        }
+
+        private long findLineEnd(long from) {
+            final LineScanner scanner = new LineScanner(separator);
+            for (long position = from; position < size; ++position) {
+                if (scanner.isLineEnd(get(position))) {
+                    return position + 1;
+                }
+            }
+            return size;
+        }
+
+        private byte get(long position) {
+            return segments[(int) (position >>> SEGMENT_SHIFT)].get((int) (position & SEGMENT_MASK));
+        }
+
+        /**
+         * Copies the bytes of the file starting at the given position.
+         */
+        private void read(long position, byte[] bytes, int length) {
+            int offset = 0;
+            while (offset < length) {
+                final ByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)].duplicate();
+                segment.position((int) (position & SEGMENT_MASK));
+                final int count = Math.min(length - offset, segment.remaining());
+                segment.get(bytes, offset, count);
+                offset += count;
+                position += count;
+            }
+        }
+
+        /**
+         * Parses the fields of the line between from (inclusive) and to
+         * (exclusive), ignoring the line break.
+         */
+        private List<String> parse(long from, long to) {
+            final byte[] bytes = new byte[(int) (to - from)];
+            read(from, bytes, bytes.length);
+            int length = bytes.length;
+            if (length > 0 && bytes[length - 1] == LINE_FEED) {
+                --length;
+            }
+            if (length > 0 && bytes[length - 1] == CARRIAGE_RETURN) {
+                --length;
+            }
+
+            final List<String> fields = new ArrayList<>(Math.max(columnCount, 1));
+            byte[] unquoted = null;
+            int i = 0;
+            while (true) {
+                if (i < length && bytes[i] == QUOTE) {
+                    if (unquoted == null) {
+                        unquoted = new byte[length];
+                    }
+                    int count = 0;
+                    ++i;
+                    while (i < length) {
+                        final byte b = bytes[i++];
+                        if (b != QUOTE) {
+                            unquoted[count++] = b;
+                        } else if (i < length && bytes[i] == QUOTE) {
+                            unquoted[count++] = QUOTE;
+                            ++i;
+                        } else {
+                            break;
+                        }
+                    }
+                    //Anything between the closing quote and the separator is ignored.
+                    while (i < length && bytes[i] != separator) {
+                        ++i;
+                    }
+                    fields.add(new String(unquoted, 0, count, charset));
+                } else {
+                    final int start = i;
+                    while (i < length && bytes[i] != separator) {
+                        ++i;
+                    }
+                    fields.add(new String(bytes, start, i - start, charset));
+                }
+                if (i >= length) {
+                    return fields;
+                }
+                //Skip the separator
+                ++i;
+            }
+        }
+
+        /**
+         * Loads the index saved next to the file, if it was saved for the
+         * current version of the file.
+         */
+        private RowIndex loadIndex(Path indexPath) {
+            if (!Files.isRegularFile(indexPath)) {
+                return null;
+            }
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+                if (input.readInt() != RowIndex.MAGIC || input.readInt() != RowIndex.VERSION
+                        || input.readLong() != size || input.readLong() != lastModified
+                        || input.readByte() != separator || input.readBoolean() != header) {
+                    return null;
+                }
+                final RowIndex savedIndex = RowIndex.read(input);
+                return savedIndex != null && savedIndex.get(savedIndex.getRowCount()) == size ? savedIndex : null;
+            } catch (IOException ex) {
+                //The index will simply be built again.
+                return null;
+            }
+        }
+
+        private void saveIndex(Path indexPath) throws IOException {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexPath)))) {
+                output.writeInt(RowIndex.MAGIC);
+                output.writeInt(RowIndex.VERSION);
+                output.writeLong(size);
+                output.writeLong(lastModified);
+                output.writeByte(separator);
+                output.writeBoolean(header);
+                index.write(output);
+            }
+        }
+    }
+
+    /**
+     * Finds the line breaks that are not inside a quoted field, the bytes of
+     * the file being given one by one.
+     */
+    private static final class LineScanner {
+
+        private final byte separator;
+        private boolean quoted;
+        private boolean fieldStart = true;
+        private boolean afterQuote;
+
+        LineScanner(byte separator) {
+            this.separator = separator;
+        }
+
+        /**
+         * @param b the next byte of the file
+         * @return whether that byte ends a line
+         */
+        boolean isLineEnd(byte b) {
+            if (quoted) {
+                if (b == CsvFile.QUOTE) {
+                    quoted = false;
+                    afterQuote = true;
+                }
+                return false;
+            }
+            if (b == CsvFile.QUOTE && (fieldStart || afterQuote)) {
+                //A field starting with a quote, or an escaped quote inside it.
+                quoted = true;
+                fieldStart = false;
+                afterQuote = false;
+                return false;
+            }
+            afterQuote = false;
+            fieldStart = b == separator || b == CsvFile.LINE_FEED;
+            return b == CsvFile.LINE_FEED;
+        }
+    }
+
+    /**
+     * The position where each row starts, followed by the position where the
+     * last row ends. It is written by the indexing thread and read by the FX
+     * thread.
+     *
+     * <p>
+     * In order to take only four bytes per row, the positions are grouped by
+     * blocks: the first position of each block is kept as a {@code long},
+     * and each position is kept as an {@code int} relative to the first
+     * position of its block.
+     */
+    private static final class RowIndex {
+
+        private static final int MAGIC = 0x43535649; // "CSVI"
+        private static final int VERSION = 1;
+        private static final int BLOCK_SHIFT = 10;
+
+        private volatile long[] blockStarts;
+        private volatile int[] offsets;
+        private volatile int positionCount;
+        private volatile boolean complete;
+
+        RowIndex(long dataStart) {
+            blockStarts = new long[16];
+            offsets = new int[16 << BLOCK_SHIFT];
+            add(dataStart);
+        }
+
+        private RowIndex(long[] blockStarts, int[] offsets, int positionCount) {
+            this.blockStarts = blockStarts;
+            this.offsets = offsets;
+            this.positionCount = positionCount;
+            this.complete = true;
+        }
+
+        /**
+         * @return the number of rows whose end has been found
+         */
+        int getRowCount() {
+            return positionCount - 1;
+        }
+
+        boolean isComplete() {
+            return complete;
+        }
+
+        void complete() {
+            complete = true;
+        }
+
+        /**
+         * @param row a row index, or the row count for the end of the last row
+         * @return the position where the row starts
+         */
+        long get(int row) {
+            return blockStarts[row >>> BLOCK_SHIFT] + Integer.toUnsignedLong(offsets[row]);
+        }
+
+        /**
+         * Adds the position where the next row starts. Only called by the
+         * indexing thread.
+         *
+         * @throws IllegalStateException if the rows of a block take more than
+         * 4 GB
+         */
+        void add(long position) {
+            final int count = positionCount;
+            final int block = count >>> BLOCK_SHIFT;
+            if (block >= blockStarts.length) {
+                blockStarts = Arrays.copyOf(blockStarts, blockStarts.length * 2);
+            }
+            if (count >= offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            if ((count & ((1 << BLOCK_SHIFT) - 1)) == 0) {
+                blockStarts[block] = position;
+            }
+            final long offset = position - blockStarts[block];
+            if (offset > 0xFFFFFFFFL) {
+                throw new IllegalStateException("The rows are too long to be indexed"); //$NON-NLS-1$
+            }
+            offsets[count] = (int) offset;
+            positionCount = count + 1;
+        }
+
+        void write(DataOutputStream output) throws IOException {
+            final int count = positionCount;
+            output.writeInt(count);
+            final int blockCount = ((count - 1) >>> BLOCK_SHIFT) + 1;
+            for (int block = 0; block < blockCount; ++block) {
+                output.writeLong(blockStarts[block]);
+            }
+            for (int i = 0; i < count; ++i) {
+                output.writeInt(offsets[i]);
+            }
+        }
+
+        static RowIndex read(DataInputStream input) throws IOException {
+            final int count = input.readInt();
+            if (count <= 0) {
+                return null;
+            }
+            final int blockCount = ((count - 1) >>> BLOCK_SHIFT) + 1;
+            final long[] blockStarts = new long[blockCount];
+            for (int block = 0; block < blockCount; ++block) {
+                blockStarts[block] = input.readLong();
+            }
+            final int[] offsets = new int[count];
+            for (int i = 0; i < count; ++i) {
+                offsets[i] = input.readInt();
+            }
+            return new RowIndex(blockStarts, offsets, count);
+        }
+    }
+}
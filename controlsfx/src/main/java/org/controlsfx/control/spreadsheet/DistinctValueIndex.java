@@ -0,0 +1,242 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met: *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer. * Redistributions in binary
+ * form must reproduce the above copyright notice, this list of conditions and
+ * the following disclaimer in the documentation and/or other materials provided
+ * with the distribution. * Neither the name of ControlsFX, any associated
+ * website, nor the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.control.spreadsheet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The distinct texts of a column of a {@link Grid}, used by the
+ * {@link FilterBase}.
+ *
+ * <p>
+ * Each distinct text is given an id, and the id of every row is kept in an
+ * {@code int} array along with the number of rows of each id. Listing the
+ * distinct texts is thus done in O(distinct texts), and the rows to hide for
+ * a selection of texts are found without reading any cell. A modified row is
+ * updated in O(1). The id of a text no longer used by any row is given to the
+ * next new text, so the ids stay as many as the distinct texts even when the
+ * rows keep changing.
+ *
+ * <p>
+ * A {@link BitSet} of rows per text would need one bit per row for each
+ * distinct text, so the ids are far more compact when there are a lot of
+ * rows and a lot of distinct texts.
+ */
+final class DistinctValueIndex {
+
+    //The rows before firstRow are not indexed.
+    private final int firstRow;
+    private final int[] rowIds;
+    private final Map<String, Integer> ids = new HashMap<>();
+    //The text of each id, null for a released id.
+    private final List<String> texts = new ArrayList<>();
+    private int[] counts = new int[16];
+    //The released ids, reused before creating new ones.
+    private int[] freeIds = new int[16];
+    private int freeCount;
+
+    /**
+     * Builds the index.
+     *
+     * @param rowTexts the text of each row of the column
+     * @param rowCount the number of rows
+     * @param firstRow the first row to index
+     */
+    DistinctValueIndex(RowTexts rowTexts, int rowCount, int firstRow) {
+        this.firstRow = Math.max(firstRow, 0);
+        rowIds = new int[Math.max(rowCount - this.firstRow, 0)];
+        for (int i = 0; i < rowIds.length; ++i) {
+            final int id = getId(rowTexts.getText(this.firstRow + i));
+            rowIds[i] = id;
+            ++counts[id];
+        }
+    }
+
+    /**
+     * Gives the text of a row.
+     */
+    @FunctionalInterface
+    interface RowTexts {
+
+        String getText(int row);
+    }
+
+    /**
+     * @return the number of rows, indexed or not
+     */
+    int getRowCount() {
+        return firstRow + rowIds.length;
+    }
+
+    /**
+     * @return the first indexed row
+     */
+    int getFirstRow() {
+        return firstRow;
+    }
+
+    /**
+     * Gives a new text to a row.
+     *
+     * @param row
+     * @param text
+     */
+    void set(int row, String text) {
+        final int index = row - firstRow;
+        if (index < 0 || index >= rowIds.length) {
+            return;
+        }
+        final int id = getId(text);
+        final int previous = rowIds[index];
+        if (id != previous) {
+            ++counts[id];
+            rowIds[index] = id;
+            if (--counts[previous] == 0) {
+                release(previous);
+            }
+        }
+    }
+
+    /**
+     * @return the distinct texts of the indexed rows
+     */
+    List<String> getTexts() {
+        final List<String> result = new ArrayList<>(texts.size());
+        for (int id = 0; id < texts.size(); ++id) {
+            if (counts[id] > 0) {
+                result.add(texts.get(id));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param text
+     * @return the number of indexed rows having that text
+     */
+    int getCount(String text) {
+        final Integer id = ids.get(text);
+        return id == null ? 0 : counts[id];
+    }
+
+    /**
+     * @return the number of ids in use, released ones included
+     */
+    int getIdCount() {
+        return texts.size();
+    }
+
+    /**
+     * Returns the distinct texts of the indexed rows which are not hidden.
+     *
+     * @param hiddenRows
+     * @return the distinct texts of the visible rows
+     */
+    Set<String> getVisibleTexts(BitSet hiddenRows) {
+        final boolean[] visible = new boolean[texts.size()];
+        final int used = texts.size() - freeCount;
+        int found = 0;
+        for (int i = hiddenRows.nextClearBit(firstRow); i < getRowCount() && found < used; i = hiddenRows.nextClearBit(i + 1)) {
+            final int id = rowIds[i - firstRow];
+            if (!visible[id]) {
+                visible[id] = true;
+                ++found;
+            }
+        }
+        final Set<String> result = new HashSet<>();
+        for (int id = 0; id < visible.length; ++id) {
+            if (visible[id]) {
+                result.add(texts.get(id));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Hides the indexed rows whose text is not in the given texts, and shows
+     * the others. The rows which are not indexed are left untouched.
+     *
+     * @param selectedTexts the texts to show
+     * @param hiddenRows the hidden rows to update
+     */
+    void hideOthers(Collection<String> selectedTexts, BitSet hiddenRows) {
+        final boolean[] selected = new boolean[texts.size()];
+        for (String text : selectedTexts) {
+            final Integer id = ids.get(text);
+            if (id != null) {
+                selected[id] = true;
+            }
+        }
+        for (int i = 0; i < rowIds.length; ++i) {
+            hiddenRows.set(firstRow + i, !selected[rowIds[i]]);
+        }
+    }
+
+    /***************************************************************************
+     *
+     * Private Implementation
+     *
+     **************************************************************************/
+
+    private int getId(String text) {
+        Integer id = ids.get(text);
+        if (id == null) {
+            if (freeCount > 0) {
+                id = freeIds[--freeCount];
+                texts.set(id, text);
+            } else {
+                id = texts.size();
+                texts.add(text);
+                if (id == counts.length) {
+                    counts = Arrays.copyOf(counts, counts.length * 2);
+                }
+            }
+            ids.put(text, id);
+        }
+        return id;
+    }
+
+    /**
+     * Forgets the text of an id used by no row anymore.
+     */
+    private void release(int id) {
+        ids.remove(texts.get(id));
+        texts.set(id, null);
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeIds.length * 2);
+        }
+        freeIds[freeCount++] = id;
+    }
+}
@@ -27,9 +27,12 @@
 package org.controlsfx.control.spreadsheet;
 
 import java.util.BitSet;
-import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Set;
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.beans.WeakInvalidationListener;
+import javafx.beans.property.ReadOnlyProperty;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
@@ -47,6 +50,13 @@ import javafx.util.Callback;
 /**
  * A simple implementation of the {@link Filter}. It will show all rows
  * available below it, and offer the possibility to sort and filter some row.
+ * <br>
+ * The distinct texts of the column are indexed the first time the menu is
+ * shown. The index then listens to the text of the indexed cells, and is
+ * built again when the rows of the {@link Grid} are modified. Thus showing
+ * the menu only depends on the number of distinct texts, and applying the
+ * filter does not read any cell. Only weak listeners are registered, so a
+ * discarded filter does not stay referenced by the grid.
  */
 public class FilterBase implements Filter {
 
@@ -54,8 +64,17 @@ public class FilterBase implements Filter {
     private final int column;
     private MenuButton menuButton;
     private BitSet hiddenRows;
-    private Set<String> stringSet = new HashSet<>();
+    private ListView<String> listView;
     private Set<String> copySet = new HashSet<>();
+    private DistinctValueIndex index;
+    private Grid indexedGrid;
+    //Listens to the rows and the cells of the current index.
+    private InvalidationListener indexListener;
+    private WeakInvalidationListener weakIndexListener;
+    //Whether the rows of the grid have changed since the index was built.
+    private boolean indexStale;
+    private final ColumnComparator ascendingComp;
+    private final ColumnComparator descendingComp;
 
     /**
      * Constructor for the Filter indicating on which column it's applied on.
@@ -66,6 +85,8 @@ public class FilterBase implements Filter {
     public FilterBase(SpreadsheetView spv, int column) {
         this.spv = spv;
         this.column = column;
+        ascendingComp = new ColumnComparator(spv, column, true);
+        descendingComp = new ColumnComparator(spv, column, false);
     }
 
     /**
@@ -85,9 +106,7 @@ public class FilterBase implements Filter {
                         hiddenRows = new BitSet(spv.getHiddenRows().size());
                         hiddenRows.or(spv.getHiddenRows());
                     } else {
-                        for (int i = spv.getFilteredRow() + 1; i < spv.getGrid().getRowCount(); ++i) {
-                            hiddenRows.set(i, !copySet.contains(spv.getGrid().getRows().get(i).get(column).getText()));
-                        }
+                        getIndex().hideOthers(copySet, hiddenRows);
                         spv.setHiddenRows(hiddenRows);
                     }
                 }
@@ -115,7 +134,7 @@ public class FilterBase implements Filter {
                 }
             });
 
-            ListView<String> listView = new ListView<>();
+            listView = new ListView<>();
             listView.setCellFactory(new Callback<ListView<String>, ListCell<String>>() {
                 @Override
                 public ListCell<String> call(ListView<String> param) {
@@ -144,59 +163,99 @@ public class FilterBase implements Filter {
                 }
             });
 
-            for (int i = spv.getFilteredRow() + 1; i < spv.getGrid().getRowCount(); ++i) {
-                stringSet.add(spv.getGrid().getRows().get(i).get(column).getText());
-            }
-            listView.setItems(FXCollections.observableArrayList(stringSet));
-
             CustomMenuItem customMenuItem = new CustomMenuItem(listView);
             customMenuItem.setHideOnClick(false);
             menuButton.getItems().addAll(sortItem, customMenuItem);
         }
 
+        final DistinctValueIndex currentIndex = getIndex();
         copySet.clear();
-        for (int i = spv.getFilteredRow() + 1; i < spv.getGrid().getRowCount(); ++i) {
-            if (!spv.getHiddenRows().get(i)) {
-                copySet.add(spv.getGrid().getRows().get(i).get(column).getText());
-            }
+        copySet.addAll(currentIndex.getVisibleTexts(spv.getHiddenRows()));
+        listView.setItems(FXCollections.observableArrayList(currentIndex.getTexts()));
+    }
+
+    /**
+     * Returns the index of the texts of the column, built again if the grid,
+     * its rows or the filtered row have changed.
+     */
+    private DistinctValueIndex getIndex() {
+        final Grid grid = spv.getGrid();
+        if (index == null || indexStale || grid != indexedGrid || index.getRowCount() != grid.getRowCount()
+                || index.getFirstRow() != spv.getFilteredRow() + 1) {
+            detachIndex();
+            buildIndex(grid);
         }
+        return index;
     }
 
-    private final Comparator ascendingComp = new Comparator<ObservableList<SpreadsheetCell>>() {
-        @Override
-        public int compare(ObservableList<SpreadsheetCell> o1, ObservableList<SpreadsheetCell> o2) {
-            SpreadsheetCell cell1 = o1.get(column);
-            SpreadsheetCell cell2 = o2.get(column);
-            if (cell1.getRow() <= spv.getFilteredRow()) {
-                return Integer.compare(cell1.getRow(), cell2.getRow());
-            } else if (cell2.getRow() <= spv.getFilteredRow()) {
-                return Integer.compare(cell1.getRow(), cell2.getRow());
-            } else if (cell1.getCellType() == SpreadsheetCellType.INTEGER && cell2.getCellType() == SpreadsheetCellType.INTEGER) {
-                return Integer.compare((Integer) cell1.getItem(), (Integer) cell2.getItem());
-            } else if (cell1.getCellType() == SpreadsheetCellType.DOUBLE && cell2.getCellType() == SpreadsheetCellType.DOUBLE) {
-                return Double.compare((Double) cell1.getItem(), (Double) cell2.getItem());
+    /**
+     * Indexes the column and listens to the rows and to the text of each cell,
+     * so that the index follows {@link SpreadsheetCell#setItem(Object) } as
+     * well as {@link Grid#setCellValue(int, int, Object) }.
+     */
+    private void buildIndex(Grid grid) {
+        final ObservableList<ObservableList<SpreadsheetCell>> rows = grid.getRows();
+        final DistinctValueIndex builtIndex = new DistinctValueIndex((int row) -> rows.get(row).get(column).getText(),
+                grid.getRowCount(), spv.getFilteredRow() + 1);
+        indexListener = (Observable observable) -> {
+            if (index != builtIndex || indexStale) {
+                return;
+            }
+            final Object bean = observable instanceof ReadOnlyProperty ? ((ReadOnlyProperty<?>) observable).getBean() : null;
+            if (bean instanceof SpreadsheetCell) {
+                updateIndex((SpreadsheetCell) bean);
             } else {
-                return cell1.getText().compareToIgnoreCase(cell2.getText());
+                indexStale = true;
+            }
+        };
+        final WeakInvalidationListener weakListener = new WeakInvalidationListener(indexListener);
+        weakIndexListener = weakListener;
+        rows.addListener(weakListener);
+        SpreadsheetCell previousCell = null;
+        for (int row = builtIndex.getFirstRow(); row < builtIndex.getRowCount(); ++row) {
+            final ObservableList<SpreadsheetCell> cells = rows.get(row);
+            cells.addListener(weakListener);
+            final SpreadsheetCell cell = cells.get(column);
+            //A cell spanning several rows is listened once.
+            if (cell != previousCell) {
+                cell.textProperty().addListener(weakListener);
+                previousCell = cell;
             }
         }
-    };
+        indexedGrid = grid;
+        index = builtIndex;
+        indexStale = false;
+    }
 
-    private final Comparator descendingComp = new Comparator<ObservableList<SpreadsheetCell>>() {
-        @Override
-        public int compare(ObservableList<SpreadsheetCell> o1, ObservableList<SpreadsheetCell> o2) {
-            SpreadsheetCell cell1 = o1.get(column);
-            SpreadsheetCell cell2 = o2.get(column);
-            if (cell1.getRow() <= spv.getFilteredRow()) {
-                return Integer.compare(cell1.getRow(), cell2.getRow());
-            } else if (cell2.getRow() <= spv.getFilteredRow()) {
-                return Integer.compare(cell1.getRow(), cell2.getRow());
-            } else if (cell1.getCellType() == SpreadsheetCellType.INTEGER && cell2.getCellType() == SpreadsheetCellType.INTEGER) {
-                return Integer.compare((Integer) cell2.getItem(), (Integer) cell1.getItem());
-            } else if (cell1.getCellType() == SpreadsheetCellType.DOUBLE && cell2.getCellType() == SpreadsheetCellType.DOUBLE) {
-                return Double.compare((Double) cell2.getItem(), (Double) cell1.getItem());
-            } else {
-                return cell2.getText().compareToIgnoreCase(cell1.getText());
+    /**
+     * Removes the listeners of the current index from the rows and the cells
+     * still in the indexed grid. The ones left on removed rows are only weak.
+     */
+    private void detachIndex() {
+        if (weakIndexListener == null) {
+            return;
+        }
+        final ObservableList<ObservableList<SpreadsheetCell>> rows = indexedGrid.getRows();
+        rows.removeListener(weakIndexListener);
+        for (int row = index.getFirstRow(); row < rows.size(); ++row) {
+            final ObservableList<SpreadsheetCell> cells = rows.get(row);
+            cells.removeListener(weakIndexListener);
+            if (column < cells.size()) {
+                cells.get(column).textProperty().removeListener(weakIndexListener);
             }
         }
-    };
+        indexListener = null;
+        weakIndexListener = null;
+        index = null;
+    }
+
+    /**
+     * Updates the rows covered by the modified cell.
+     */
+    private void updateIndex(SpreadsheetCell cell) {
+        final int lastRow = Math.min(cell.getRow() + cell.getRowSpan(), index.getRowCount());
+        for (int row = cell.getRow(); row < lastRow; ++row) {
+            index.set(row, cell.getText());
+        }
+    }
 }
@@ -0,0 +1,173 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met: *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer. * Redistributions in binary
+ * form must reproduce the above copyright notice, this list of conditions and
+ * the following disclaimer in the documentation and/or other materials provided
+ * with the distribution. * Neither the name of ControlsFX, any associated
+ * website, nor the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.control.spreadsheet;
+
+import impl.org.controlsfx.i18n.Localization;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The formats used by the {@link SpreadsheetCellType} to convert the values
+ * of the cells into text.
+ *
+ * <p>
+ * Creating a {@link DecimalFormat} or a {@link DateTimeFormatter} means
+ * parsing its pattern, which is far more expensive than formatting a value.
+ * The formats are thus created once for each pattern and kept here, for the
+ * current locale of ControlsFX (see {@link Localization#getLocale() }). When
+ * that locale is modified, the formats of the new locale are created.
+ *
+ * <p>
+ * A {@link DateTimeFormatter} is immutable, so the same instance is shared
+ * by all the threads. A {@link DecimalFormat} is not thread-safe, so each
+ * thread has its own instances. The instances returned must therefore not be
+ * given to another thread, and must not be modified.
+ *
+ * <p>
+ * A custom {@link StringConverterWithFormat} can use these formats too:
+ *
+ * <pre>
+ * public String toStringFormat(Double item, String format) {
+ *     return FormatCache.getDecimalFormat(format).format(item);
+ * }
+ * </pre>
+ */
+public final class FormatCache {
+
+    /**
+     * The maximum number of patterns kept for one locale, the cache is
+     * cleared when it is reached.
+     */
+    private static final int MAX_PATTERNS = 256;
+
+    private static final ThreadLocal<Formats<DecimalFormat>> DECIMAL_FORMATS = new ThreadLocal<Formats<DecimalFormat>>() {
+        @Override
+        protected Formats<DecimalFormat> initialValue() {
+            return new Formats<>(new HashMap<>());
+        }
+    };
+
+    private static final Formats<DateTimeFormatter> DATE_FORMATTERS = new Formats<>(new ConcurrentHashMap<>());
+
+    private FormatCache() {
+    }
+
+    /**
+     * Returns the {@link DecimalFormat} of the given pattern for the current
+     * locale. The instance belongs to the calling thread and must not be
+     * modified.
+     *
+     * @param pattern the pattern of the format
+     * @return the {@code DecimalFormat} of the given pattern
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    public static DecimalFormat getDecimalFormat(String pattern) {
+        final Formats<DecimalFormat> formats = DECIMAL_FORMATS.get();
+        final Locale locale = formats.checkLocale();
+        DecimalFormat format = formats.get(pattern);
+        if (format == null) {
+            format = new DecimalFormat(pattern, DecimalFormatSymbols.getInstance(locale));
+            formats.put(pattern, format);
+        }
+        return format;
+    }
+
+    /**
+     * Returns the {@link DateTimeFormatter} of the given pattern for the
+     * current locale.
+     *
+     * @param pattern the pattern of the formatter
+     * @return the {@code DateTimeFormatter} of the given pattern
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    public static DateTimeFormatter getDateTimeFormatter(String pattern) {
+        final Locale locale = DATE_FORMATTERS.checkLocale();
+        DateTimeFormatter formatter = DATE_FORMATTERS.get(pattern);
+        //Another thread may have put a formatter of the previous locale.
+        if (formatter == null || !locale.equals(formatter.getLocale())) {
+            formatter = DateTimeFormatter.ofPattern(pattern, locale);
+            DATE_FORMATTERS.put(pattern, formatter);
+        }
+        return formatter;
+    }
+
+    /**
+     * @return the locale the formats are created for
+     */
+    static Locale getLocale() {
+        return Localization.getLocale();
+    }
+
+    /***************************************************************************
+     *
+     * Private Implementation
+     *
+     **************************************************************************/
+
+    /**
+     * The formats of one locale, by pattern.
+     */
+    private static final class Formats<T> {
+
+        private final Map<String, T> formats;
+        private volatile Locale locale;
+
+        Formats(Map<String, T> formats) {
+            this.formats = formats;
+        }
+
+        /**
+         * Discards the formats if the locale has changed.
+         *
+         * @return the current locale
+         */
+        Locale checkLocale() {
+            final Locale current = Localization.getLocale();
+            if (!current.equals(locale)) {
+                formats.clear();
+                locale = current;
+            }
+            return current;
+        }
+
+        T get(String pattern) {
+            return formats.get(pattern);
+        }
+
+        void put(String pattern, T format) {
+            if (formats.size() >= MAX_PATTERNS) {
+                formats.clear();
+            }
+            formats.put(pattern, format);
+        }
+    }
+}
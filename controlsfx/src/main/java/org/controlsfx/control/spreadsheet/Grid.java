@@ -231,6 +231,35 @@ public interface Grid {
      * @return {@code true} if the given cell will display a selection rectangle
      */
     public boolean isCellDisplaySelection(int row, int column);
+
+    /**
+     * Starts a batch of modifications. Until the matching call to
+     * {@link #commitBatch() }, the modifications made with
+     * {@link #setCellValue(int, int, Object) } are applied and fired as
+     * {@link GridChange} right away, and are also gathered in order to be
+     * fired together once the batch is committed. Batches can be nested, only
+     * the outermost one is taken into account.
+     *
+     * <p>
+     * The default implementation does nothing, so the changes are fired one
+     * by one.
+     *
+     * @see GridChangeBatch
+     */
+    public default void beginBatch() {
+    }
+
+    /**
+     * Ends a batch of modifications started with {@link #beginBatch() }. When
+     * the outermost batch is committed, all its changes are fired again as one
+     * {@link GridChangeBatch}.
+     *
+     * <p>
+     * The default implementation does nothing.
+     */
+    public default void commitBatch() {
+    }
+
     /**
      * Registers an event handler to this Grid. The Grid class allows 
      * registration of listeners which will be notified as a {@link SpreadsheetCell}'s value 
@@ -28,9 +28,12 @@ package org.controlsfx.control.spreadsheet;
 
 import com.sun.javafx.event.EventHandlerManager;
 import static impl.org.controlsfx.spreadsheet.RectangleSelection.SelectionRange.key;
+import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeSet;
 import javafx.beans.Observable;
@@ -146,6 +149,31 @@ import javafx.util.Callback;
  * 
  * </pre>
  *
+ * <h3>Batch</h3>
+ * When a lot of cells are modified at once, the modifications can be grouped
+ * between {@link #beginBatch() } and {@link #commitBatch() }. The values are
+ * still applied right away and a {@link GridChange} is still fired for each of
+ * them, so the handler above keeps receiving every change. In addition, one
+ * {@link GridChangeBatch} event is fired when the batch is committed, with one
+ * {@link GridChange} per modified cell. The SpreadsheetView refreshes its
+ * cells once for the whole batch, and a handler can also receive the batch as
+ * one unit:
+ * 
+ * <pre>
+ * grid.addEventHandler(GridChangeBatch.GRID_CHANGE_BATCH_EVENT, (GridChangeBatch batch) -&gt; {
+ *         undoStack.push(batch);
+ *     });
+ * 
+ * grid.beginBatch();
+ * try {
+ *     for (int row = 0; row &lt; grid.getRowCount(); ++row) {
+ *         grid.setCellValue(row, 0, compute(row));
+ *     }
+ * } finally {
+ *     grid.commitBatch();
+ * }
+ * </pre>
+ *
  * <h3>Display selection</h3>
  *
  * By default, the SpreadsheetView will display a black rectangle around your
@@ -178,6 +206,7 @@ public class GridBase implements Grid, EventTarget {
 
     private int rowCount;
     private int columnCount;
+    //Null means that every row is in AUTOFIT.
     private Callback<Integer, Double> rowHeightFactory;
     private final BooleanProperty locked;
     private final EventHandlerManager eventHandlerManager = new EventHandlerManager(this);
@@ -187,6 +216,10 @@ public class GridBase implements Grid, EventTarget {
     private final TreeSet<Long> displaySelectionCells = new TreeSet<>();
     private final TreeSet<Long> noDisplaySelectionCells = new TreeSet<>();
     private final BooleanProperty displaySelection = new SimpleBooleanProperty(true);
+    //The number of nested batches currently running.
+    private int batchDepth;
+    //The changes of the current batch, one per cell in the order of the first modification.
+    private final Map<Long, GridChange[]> batchedChanges = new LinkedHashMap<>();
 
     /***************************************************************************
      * 
@@ -206,7 +239,6 @@ public class GridBase implements Grid, EventTarget {
         rowsHeader = FXCollections.observableArrayList();
         columnsHeader = FXCollections.observableArrayList();
         locked = new SimpleBooleanProperty(false);
-        rowHeightFactory = new MapBasedRowHeightFactory(new HashMap<>());
         rows = FXCollections.observableArrayList();
         rows.addListener((Observable observable) -> {
             setRowCount(rows.size());
@@ -237,6 +269,9 @@ public class GridBase implements Grid, EventTarget {
             cell.setItem(convertedValue);
             if (!java.util.Objects.equals(previousItem, cell.getItem())) {
                 GridChange cellChange = new GridChange(cell.getRow(), cell.getColumn(), previousItem, convertedValue);
+                if (batchDepth > 0) {
+                    addBatchedChange(cellChange);
+                }
                 Event.fireEvent(this, cellChange);
             }
         }
@@ -257,6 +292,12 @@ public class GridBase implements Grid, EventTarget {
     /** {@inheritDoc} */
     @Override
     public double getRowHeight(int row) {
+        if (rowHeightFactory == null) {
+            return AUTOFIT;
+        } else if (rowHeightFactory instanceof ArrayBasedRowHeightFactory) {
+            //No boxing for the primitive factory.
+            return ((ArrayBasedRowHeightFactory) rowHeightFactory).getRowHeight(row);
+        }
         return rowHeightFactory.call((Integer) row);
     }
 
@@ -265,11 +306,22 @@ public class GridBase implements Grid, EventTarget {
      * each row.
      * 
      * @param rowHeight the {@code Callback} to use for rown height computation
+     * @see ArrayBasedRowHeightFactory
      */
     public void setRowHeightCallback(Callback<Integer, Double> rowHeight) {
         this.rowHeightFactory = rowHeight;
     }
 
+    /**
+     * Returns the {@link Callback} giving the height of each row, or
+     * {@code null} if every row is in {@link #AUTOFIT}.
+     *
+     * @return the {@code Callback} used for row height computation
+     */
+    public Callback<Integer, Double> getRowHeightCallback() {
+        return rowHeightFactory;
+    }
+
     /** {@inheritDoc} */
     @Override
     public ObservableList<String> getRowHeaders() {
@@ -421,7 +473,63 @@ public class GridBase implements Grid, EventTarget {
         }
         return isDisplaySelection();
     }
+
+    /**
+     * Returns {@code true} if some cells are overriding the value of
+     * {@link #isDisplaySelection() } with {@link #setCellDisplaySelection(int, int, boolean)
+     * }. Otherwise, every cell has the same display selection and there is no
+     * need to check them one by one.
+     *
+     * @return {@code true} if some cells are overriding the display selection
+     */
+    public boolean hasCellDisplaySelection() {
+        return isDisplaySelection() ? !noDisplaySelectionCells.isEmpty() : !displaySelectionCells.isEmpty();
+    }
     
+    /** {@inheritDoc} */
+    @Override
+    public void beginBatch() {
+        ++batchDepth;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException if no batch has been started
+     */
+    @Override
+    public void commitBatch() {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("No batch has been started."); //$NON-NLS-1$
+        }
+        if (--batchDepth > 0 || batchedChanges.isEmpty()) {
+            return;
+        }
+        final List<GridChange> changes = new ArrayList<>(batchedChanges.size());
+        for (GridChange[] change : batchedChanges.values()) {
+            //A cell that finally holds its initial value has not changed.
+            if (!java.util.Objects.equals(change[0].getOldValue(), change[1].getNewValue())) {
+                changes.add(change[0] == change[1] ? change[0]
+                        : new GridChange(change[0].getRow(), change[0].getColumn(), change[0].getOldValue(), change[1].getNewValue()));
+            }
+        }
+        batchedChanges.clear();
+        if (changes.isEmpty()) {
+            return;
+        }
+        Event.fireEvent(this, new GridChangeBatch(changes));
+    }
+
+    /**
+     * Returns {@code true} if a batch started with {@link #beginBatch() } is
+     * currently running.
+     *
+     * @return {@code true} if a batch is currently running
+     */
+    public boolean isBatching() {
+        return batchDepth > 0;
+    }
+
     /** {@inheritDoc} */
     @Override
     public <E extends GridChange> void addEventHandler(EventType<E> eventType, EventHandler<E> eventHandler) {
@@ -464,6 +572,22 @@ public class GridBase implements Grid, EventTarget {
         this.columnCount = columnCount;
     }
 
+    /**
+     * Keeps a change of the current batch. The first and the last change of
+     * each cell are kept.
+     *
+     * @param change
+     */
+    private void addBatchedChange(GridChange change) {
+        final Long key = key(change.getRow(), change.getColumn());
+        final GridChange[] previous = batchedChanges.get(key);
+        if (previous == null) {
+            batchedChanges.put(key, new GridChange[]{change, change});
+        } else {
+            previous[1] = change;
+        }
+    }
+
     /**
      * This class serves as a bridge between row height Callback needed by the
      * GridBase and a Map&lt;Integer,Double&gt; that one could have (each Integer
@@ -483,4 +607,51 @@ public class GridBase implements Grid, EventTarget {
         }
 
     }
+
+    /**
+     * This class serves as a bridge between row height Callback needed by the
+     * GridBase and an array of {@code double} (each index of the array
+     * specify a row index and its associated height). The rows outside the
+     * array, or with a {@code NaN} height, are in {@link #AUTOFIT}.
+     *
+     * Unlike the {@link MapBasedRowHeightFactory}, the heights are never
+     * boxed when they are given to the {@link SpreadsheetView}, which is
+     * better suited for grids with a lot of rows.
+     */
+    public static class ArrayBasedRowHeightFactory implements Callback<Integer, Double> {
+        private final double[] rowHeights;
+
+        public ArrayBasedRowHeightFactory(double[] rowHeights) {
+            this.rowHeights = rowHeights;
+        }
+
+        /**
+         * Creates a factory where every row has the same height.
+         *
+         * @param rowCount the number of rows
+         * @param height the height of every row
+         */
+        public ArrayBasedRowHeightFactory(int rowCount, double height) {
+            this.rowHeights = new double[rowCount];
+            Arrays.fill(rowHeights, height);
+        }
+
+        /**
+         * Returns the height of the given row without boxing.
+         *
+         * @param index the row index
+         * @return the height of the row, or {@link #AUTOFIT}
+         */
+        public double getRowHeight(int index) {
+            if (index < 0 || index >= rowHeights.length || Double.isNaN(rowHeights[index])) {
+                return AUTOFIT;
+            }
+            return rowHeights[index];
+        }
+
+        @Override
+        public Double call(Integer index) {
+            return getRowHeight(index);
+        }
+    }
 }
@@ -0,0 +1,214 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met: *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer. * Redistributions in binary
+ * form must reproduce the above copyright notice, this list of conditions and
+ * the following disclaimer in the documentation and/or other materials provided
+ * with the distribution. * Neither the name of ControlsFX, any associated
+ * website, nor the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.control.spreadsheet;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import javafx.event.Event;
+import javafx.event.EventType;
+
+/**
+ * This class represents all the changes made in a {@link Grid} between a
+ * call to {@link Grid#beginBatch() } and the matching call to
+ * {@link Grid#commitBatch() }.
+ *
+ * <p>
+ * The changes of a batch are fired as one event once the batch is committed,
+ * with {@link #GRID_CHANGE_BATCH_EVENT} as event type. Several modifications
+ * of the same cell are merged into one {@link GridChange} holding the value
+ * before the batch and the value after the batch. A cell finally holding its
+ * initial value is not reported.
+ *
+ * <p>
+ * An undo/redo implementation can therefore treat a batch as one unit, by
+ * restoring the old values of {@link #getChanges() } in the reverse order.
+ * The individual {@link GridChange} events are still fired as the cells are
+ * modified during the batch, so a handler listening to both
+ * {@link GridChange#GRID_CHANGE_EVENT} and this event is notified twice of
+ * each change.
+ *
+ * <p>
+ * Since this event represents several cells, {@link #getRow() } and
+ * {@link #getColumn() } return -1 and {@link #getOldValue() } and
+ * {@link #getNewValue() } return {@code null}.
+ *
+ * @see Grid#beginBatch()
+ * @see GridChange
+ */
+public class GridChangeBatch extends GridChange {
+
+    /**
+     * This is the event used by {@link GridChangeBatch}.
+     */
+    public static final EventType<GridChangeBatch> GRID_CHANGE_BATCH_EVENT
+            = new EventType<>(Event.ANY, "GridChangeBatch" + UUID.randomUUID().toString()); //$NON-NLS-1$
+
+    private static final long serialVersionUID = -3725016410585963512L;
+    private final List<GridChange> changes;
+    private List<Range> ranges;
+
+    /**
+     * Constructor of a GridChangeBatch.
+     *
+     * @param changes the changes made during the batch, at most one per cell
+     */
+    public GridChangeBatch(List<GridChange> changes) {
+        super(GRID_CHANGE_BATCH_EVENT, -1, -1, null, null);
+        this.changes = Collections.unmodifiableList(new ArrayList<>(changes));
+    }
+
+    /***************************************************************************
+     *
+     * Public Methods
+     *
+     **************************************************************************/
+
+    /**
+     * Returns the changes made during the batch, in the order in which the
+     * cells were first modified.
+     *
+     * @return an unmodifiable list of the changes made during the batch
+     */
+    public List<GridChange> getChanges() {
+        return changes;
+    }
+
+    /**
+     * Returns rectangles covering exactly the modified cells. They are found
+     * greedily by merging the consecutive modified cells of each row, and then
+     * the identical intervals of consecutive rows, so they are not always the
+     * fewest possible. The ranges are ordered by row and then by column.
+     *
+     * @return an unmodifiable list of the rectangles covering the modified
+     * cells
+     */
+    public List<Range> getRanges() {
+        if (ranges == null) {
+            ranges = Collections.unmodifiableList(computeRanges());
+        }
+        return ranges;
+    }
+
+    /**
+     * A rectangle of modified cells, the bounds are inclusive.
+     */
+    public static final class Range implements Serializable {
+
+        private static final long serialVersionUID = 5125698213687431040L;
+        private final int top;
+        private int bottom;
+        private final int left;
+        private final int right;
+
+        Range(int top, int bottom, int left, int right) {
+            this.top = top;
+            this.bottom = bottom;
+            this.left = left;
+            this.right = right;
+        }
+
+        /**
+         * @return the first row of this range
+         */
+        public int getTop() {
+            return top;
+        }
+
+        /**
+         * @return the last row of this range
+         */
+        public int getBottom() {
+            return bottom;
+        }
+
+        /**
+         * @return the first column of this range
+         */
+        public int getLeft() {
+            return left;
+        }
+
+        /**
+         * @return the last column of this range
+         */
+        public int getRight() {
+            return right;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String toString() {
+            return "Range[" + top + ", " + bottom + ", " + left + ", " + right + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+        }
+    }
+
+    /***************************************************************************
+     *
+     * Private Implementation
+     *
+     **************************************************************************/
+
+    private List<Range> computeRanges() {
+        final long[] keys = new long[changes.size()];
+        for (int i = 0; i < keys.length; ++i) {
+            final GridChange change = changes.get(i);
+            keys[i] = ((long) change.getRow() << 32) | change.getColumn();
+        }
+        Arrays.sort(keys);
+
+        final List<Range> result = new ArrayList<>();
+        //The last range created for each interval of columns.
+        final Map<Long, Range> lastRanges = new HashMap<>();
+        int i = 0;
+        while (i < keys.length) {
+            final int row = (int) (keys[i] >> 32);
+            final int left = (int) keys[i];
+            int right = left;
+            ++i;
+            while (i < keys.length && keys[i] == (((long) row << 32) | (right + 1))) {
+                ++right;
+                ++i;
+            }
+            final Long interval = ((long) left << 32) | right;
+            final Range range = lastRanges.get(interval);
+            if (range != null && range.bottom == row - 1) {
+                range.bottom = row;
+            } else {
+                final Range newRange = new Range(row, row, left, right);
+                result.add(newRange);
+                lastRanges.put(interval, newRange);
+            }
+        }
+        return result;
+    }
+}
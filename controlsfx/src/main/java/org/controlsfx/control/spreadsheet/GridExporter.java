@@ -0,0 +1,688 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met: *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer. * Redistributions in binary
+ * form must reproduce the above copyright notice, this list of conditions and
+ * the following disclaimer in the documentation and/or other materials provided
+ * with the distribution. * Neither the name of ControlsFX, any associated
+ * website, nor the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.control.spreadsheet;
+
+import static impl.org.controlsfx.spreadsheet.RectangleSelection.SelectionRange.key;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import javafx.event.EventHandler;
+
+/**
+ * Exports the cells of a {@link Grid} or of a {@link SpreadsheetView} to CSV,
+ * TSV or XML Spreadsheet, the XML format that Excel opens as a workbook.
+ *
+ * <p>
+ * The export is done by a {@link Task} created with
+ * {@link #createTask(Writer) }, which is meant to run on a background thread.
+ * The rows are written chunk by chunk into the {@link Writer}, so no text is
+ * built for the whole sheet, and the progress of the task is updated after
+ * each chunk.
+ *
+ * <h3>Snapshot</h3>
+ * The task exports the Grid as it was when the task was created, even if the
+ * Grid is modified on the FX thread during the export. The rows and the
+ * columns to export are taken when the task is created. Then the cells are
+ * copied chunk by chunk on the FX thread, and the previous value of any cell
+ * modified with {@link Grid#setCellValue(int, int, Object) } before being
+ * copied is kept aside and used instead of the new one. Modifications of the
+ * formats, or of the rows given by {@link Grid#getRows() }, are not tracked.
+ *
+ * <h3>SpreadsheetView</h3>
+ * When created with a {@link SpreadsheetView}, the rows are exported in the
+ * order in which they are displayed, so the sort order and the
+ * {@link SpreadsheetView#getFilteredRow() filtered row} are honored, and the
+ * hidden rows and columns are not exported. This can be changed with
+ * {@link #setHiddenRowsExported(boolean) } and
+ * {@link #setHiddenColumnsExported(boolean) }, in which case the rows are
+ * exported in the order of the Grid.
+ *
+ * <h3>Cells</h3>
+ * The text of a cell is given by
+ * {@link SpreadsheetCellType#toString(Object, String) } with the format of the
+ * cell, like in the {@link SpreadsheetView}. Since it is called on the thread
+ * running the task, the {@link SpreadsheetCellType} must be thread-safe, as
+ * are the provided ones. With {@link #setFormatted(boolean) }, the raw value
+ * can be written instead. A cell spanning several rows or columns is written
+ * once in CSV and TSV, at the first of its exported positions, the other
+ * positions being empty, and is merged from that position in XML
+ * Spreadsheet. So a span is still exported when the row or the column where
+ * it starts is hidden.
+ *
+ * <pre>
+ * GridExporter exporter = new GridExporter(spreadsheetView);
+ * exporter.setFormat(GridExporter.Format.TSV);
+ * Task&lt;Integer&gt; task = exporter.createTask(FileChannel.open(path, CREATE, WRITE));
+ * new Thread(task).start();
+ * </pre>
+ */
+public class GridExporter {
+
+    /**
+     * The formats of the export.
+     */
+    public static enum Format {
+        /**
+         * Comma-separated values, as specified by RFC 4180.
+         */
+        CSV,
+        /**
+         * Tab-separated values, quoted like CSV.
+         */
+        TSV,
+        /**
+         * The XML Spreadsheet 2003 format, which can be opened by Excel.
+         */
+        XML_SPREADSHEET
+    }
+
+    /***************************************************************************
+     *
+     * Private Fields
+     *
+     **************************************************************************/
+    private static final String LINE_SEPARATOR = "\r\n"; //$NON-NLS-1$
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Grid grid;
+    private final SpreadsheetView spreadsheetView;
+    private Format format = Format.CSV;
+    private boolean formatted = true;
+    private boolean hiddenRowsExported;
+    private boolean hiddenColumnsExported;
+    private int chunkSize = 1000;
+
+    /***************************************************************************
+     *
+     * Constructors
+     *
+     **************************************************************************/
+
+    /**
+     * Creates a {@code GridExporter} exporting all the cells of a Grid.
+     *
+     * @param grid the exported grid
+     */
+    public GridExporter(Grid grid) {
+        this.grid = grid;
+        this.spreadsheetView = null;
+        hiddenRowsExported = true;
+        hiddenColumnsExported = true;
+    }
+
+    /**
+     * Creates a {@code GridExporter} exporting the cells of the Grid of a
+     * SpreadsheetView as they are displayed. The Grid is the one of the
+     * SpreadsheetView when the task is created.
+     *
+     * @param spreadsheetView the exported view
+     */
+    public GridExporter(SpreadsheetView spreadsheetView) {
+        this.grid = null;
+        this.spreadsheetView = spreadsheetView;
+    }
+
+    /***************************************************************************
+     *
+     * Public Methods
+     *
+     **************************************************************************/
+
+    /**
+     * @return the format of the export, CSV by default
+     */
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Sets the format of the export.
+     *
+     * @param format
+     */
+    public void setFormat(Format format) {
+        this.format = format == null ? Format.CSV : format;
+    }
+
+    /**
+     * @return whether the text displayed by the cells is exported, true by
+     * default
+     */
+    public boolean isFormatted() {
+        return formatted;
+    }
+
+    /**
+     * Sets whether the text displayed by the cells is exported, or the
+     * {@code toString} of their value. In XML Spreadsheet, the numbers are
+     * always written as numbers.
+     *
+     * @param formatted
+     */
+    public void setFormatted(boolean formatted) {
+        this.formatted = formatted;
+    }
+
+    /**
+     * @return whether the hidden rows of the SpreadsheetView are exported
+     */
+    public boolean isHiddenRowsExported() {
+        return hiddenRowsExported;
+    }
+
+    /**
+     * Sets whether the hidden rows of the SpreadsheetView are exported. When
+     * true, all the rows of the Grid are exported in their order in the Grid,
+     * regardless of the sort order of the SpreadsheetView. This has no effect
+     * if this exporter was created with a Grid.
+     *
+     * @param hiddenRowsExported
+     */
+    public void setHiddenRowsExported(boolean hiddenRowsExported) {
+        this.hiddenRowsExported = spreadsheetView == null || hiddenRowsExported;
+    }
+
+    /**
+     * @return whether the hidden columns of the SpreadsheetView are exported
+     */
+    public boolean isHiddenColumnsExported() {
+        return hiddenColumnsExported;
+    }
+
+    /**
+     * Sets whether the hidden columns of the SpreadsheetView are exported.
+     * This has no effect if this exporter was created with a Grid.
+     *
+     * @param hiddenColumnsExported
+     */
+    public void setHiddenColumnsExported(boolean hiddenColumnsExported) {
+        this.hiddenColumnsExported = spreadsheetView == null || hiddenColumnsExported;
+    }
+
+    /**
+     * @return the number of rows copied and written at once
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Sets the number of rows copied at once on the FX thread, and then
+     * written. The progress of the task is updated after each chunk.
+     *
+     * @param chunkSize
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("The chunk size must be positive."); //$NON-NLS-1$
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Creates a task exporting the cells into the given Writer. The rows and
+     * the columns to export are taken now, so this method must be called on
+     * the FX thread. The task can then run on any thread, it returns the
+     * number of exported rows. The Writer is closed at the end of the task.
+     *
+     * @param writer
+     * @return a task exporting the cells
+     */
+    public Task<Integer> createTask(Writer writer) {
+        if (!Platform.isFxApplicationThread()) {
+            throw new IllegalStateException("The export must be created on the FX thread."); //$NON-NLS-1$
+        }
+        return new ExportTask(writer);
+    }
+
+    /**
+     * Creates a task exporting the cells, encoded in UTF-8, into the given
+     * channel, a {@code FileChannel} for example. See
+     * {@link #createTask(Writer) }.
+     *
+     * @param channel
+     * @return a task exporting the cells
+     */
+    public Task<Integer> createTask(WritableByteChannel channel) {
+        return createTask(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1));
+    }
+
+    /***************************************************************************
+     *
+     * Private Implementation
+     *
+     **************************************************************************/
+
+    private class ExportTask extends Task<Integer> {
+
+        private final Writer writer;
+        private final Grid grid = spreadsheetView == null ? GridExporter.this.grid : spreadsheetView.getGrid();
+        private final Format format = GridExporter.this.format;
+        private final boolean formatted = GridExporter.this.formatted;
+        private final int chunkSize = GridExporter.this.chunkSize;
+        private final char separator = format == Format.TSV ? '\t' : ',';
+
+        //The snapshot, taken on the FX thread when the task is created.
+        private final List<ObservableList<SpreadsheetCell>> gridRows;
+        private final int[] rows;
+        private final int[] columns;
+        //The position of each model row in the export, or -1.
+        private final int[] rowPositions;
+        //The number of exported columns before each model column.
+        private final int[] exportedColumnsBefore;
+
+        //Only used on the FX thread: the values of the cells modified before being copied.
+        private final Map<Long, Object> previousValues = new HashMap<>();
+        private int copiedRows;
+        private boolean listening;
+
+        //The chunk being written, copied on the FX thread.
+        private final Object[] items;
+        private final String[] formats;
+        private final SpreadsheetCellType<?>[] types;
+        //The spans of each cell from its first exported position, 0 for the other positions.
+        private final int[] rowSpans;
+        private final int[] columnSpans;
+
+        private final EventHandler<GridChange> changeHandler = change -> keepPreviousValue(change);
+
+        ExportTask(Writer writer) {
+            this.writer = new BufferedWriter(writer, BUFFER_SIZE);
+            gridRows = grid.getRows();
+            final int rowCount = Math.min(grid.getRowCount(), gridRows.size());
+            final int columnCount = grid.getColumnCount();
+
+            rowPositions = new int[rowCount];
+            if (hiddenRowsExported) {
+                rows = new int[rowCount];
+                for (int row = 0; row < rowCount; ++row) {
+                    rows[row] = row;
+                    rowPositions[row] = row;
+                }
+            } else {
+                Arrays.fill(rowPositions, -1);
+                rows = new int[spreadsheetView.getItems().size()];
+                for (int viewRow = 0; viewRow < rows.length; ++viewRow) {
+                    rows[viewRow] = spreadsheetView.getModelRow(viewRow);
+                    rowPositions[rows[viewRow]] = viewRow;
+                }
+            }
+
+            exportedColumnsBefore = new int[columnCount + 1];
+            int exportedColumns = 0;
+            for (int column = 0; column < columnCount; ++column) {
+                exportedColumnsBefore[column] = exportedColumns;
+                if (hiddenColumnsExported || !spreadsheetView.isColumnHidden(column)) {
+                    ++exportedColumns;
+                }
+            }
+            exportedColumnsBefore[columnCount] = exportedColumns;
+            columns = new int[exportedColumns];
+            for (int column = 0; column < columnCount; ++column) {
+                if (exportedColumnsBefore[column + 1] > exportedColumnsBefore[column]) {
+                    columns[exportedColumnsBefore[column]] = column;
+                }
+            }
+
+            final int chunkLength = Math.min(chunkSize, Math.max(rows.length, 1)) * columns.length;
+            items = new Object[chunkLength];
+            formats = new String[chunkLength];
+            types = new SpreadsheetCellType<?>[chunkLength];
+            rowSpans = new int[chunkLength];
+            columnSpans = new int[chunkLength];
+
+            grid.addEventHandler(GridChange.GRID_CHANGE_EVENT, changeHandler);
+            listening = true;
+            updateProgress(0, rows.length);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected Integer call() throws Exception {
+            try {
+                writeHeader();
+                for (int from = 0; from < rows.length; from += chunkSize) {
+                    if (isCancelled()) {
+                        return from;
+                    }
+                    final int to = Math.min(from + chunkSize, rows.length);
+                    copyChunk(from, to);
+                    for (int position = from; position < to; ++position) {
+                        writeRow(position, (position - from) * columns.length);
+                    }
+                    updateProgress(to, rows.length);
+                }
+                writeFooter();
+                return rows.length;
+            } finally {
+                try {
+                    writer.close();
+                } finally {
+                    if (Platform.isFxApplicationThread()) {
+                        stopListening();
+                    } else {
+                        Platform.runLater(this::stopListening);
+                    }
+                }
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected void cancelled() {
+            //call() may never run if the task is cancelled before.
+            stopListening();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected void failed() {
+            stopListening();
+        }
+
+        /**
+         * Keeps the value that a cell had when the task was created, if it
+         * has not been copied yet. Called on the FX thread.
+         */
+        private void keepPreviousValue(GridChange change) {
+            final int row = change.getRow();
+            final int column = change.getColumn();
+            if (row >= 0 && row < rowPositions.length && column >= 0 && column < exportedColumnsBefore.length - 1
+                    && getFirstExportedRowPosition(gridRows.get(row).get(column)) >= copiedRows) {
+                previousValues.putIfAbsent(key(row, column), change.getOldValue());
+            }
+        }
+
+        /**
+         * @return the first position in the export of the rows covered by
+         * that cell, or -1 if none of them is exported
+         */
+        private int getFirstExportedRowPosition(SpreadsheetCell cell) {
+            final int end = Math.min(cell.getRow() + cell.getRowSpan(), rowPositions.length);
+            int firstPosition = -1;
+            for (int row = cell.getRow(); row < end; ++row) {
+                final int position = rowPositions[row];
+                if (position >= 0 && (firstPosition == -1 || position < firstPosition)) {
+                    firstPosition = position;
+                }
+            }
+            return firstPosition;
+        }
+
+        /**
+         * @return whether that exported position is the first exported
+         * position of the cell, where its content is written
+         */
+        private boolean isFirstExportedPosition(SpreadsheetCell cell, int row, int column) {
+            if (cell.getRow() == row && cell.getColumn() == column
+                    && cell.getRowSpan() == 1 && cell.getColumnSpan() == 1) {
+                return true;
+            }
+            //No exported column between the start of the cell and that column.
+            return exportedColumnsBefore[cell.getColumn()] == exportedColumnsBefore[column]
+                    && getFirstExportedRowPosition(cell) == rowPositions[row];
+        }
+
+        private void stopListening() {
+            if (listening) {
+                grid.removeEventHandler(GridChange.GRID_CHANGE_EVENT, changeHandler);
+                listening = false;
+                previousValues.clear();
+            }
+        }
+
+        /**
+         * Copies the rows between from (inclusive) and to (exclusive) into
+         * the chunk, on the FX thread.
+         */
+        private void copyChunk(int from, int to) throws InterruptedException, ExecutionException {
+            if (Platform.isFxApplicationThread()) {
+                doCopyChunk(from, to);
+            } else {
+                final FutureTask<Void> copy = new FutureTask<>(() -> doCopyChunk(from, to), null);
+                Platform.runLater(copy);
+                copy.get();
+            }
+        }
+
+        private void doCopyChunk(int from, int to) {
+            int index = 0;
+            for (int position = from; position < to; ++position) {
+                final int row = rows[position];
+                final List<SpreadsheetCell> cells = gridRows.get(row);
+                for (int column : columns) {
+                    final SpreadsheetCell cell = cells.get(column);
+                    if (!isFirstExportedPosition(cell, row, column)) {
+                        items[index] = null;
+                        formats[index] = null;
+                        types[index] = null;
+                        rowSpans[index] = 0;
+                        columnSpans[index] = 0;
+                    } else {
+                        final Long key = key(cell.getRow(), cell.getColumn());
+                        items[index] = previousValues.containsKey(key) ? previousValues.remove(key) : cell.getItem();
+                        formats[index] = cell.getFormat();
+                        types[index] = cell.getCellType();
+                        rowSpans[index] = cell.getRow() + cell.getRowSpan() - row;
+                        columnSpans[index] = cell.getColumn() + cell.getColumnSpan() - column;
+                    }
+                    ++index;
+                }
+            }
+            copiedRows = to;
+        }
+
+        private void writeHeader() throws IOException {
+            if (format == Format.XML_SPREADSHEET) {
+                writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + LINE_SEPARATOR //$NON-NLS-1$
+                        + "<?mso-application progid=\"Excel.Sheet\"?>" + LINE_SEPARATOR //$NON-NLS-1$
+                        + "<Workbook xmlns=\"urn:schemas-microsoft-com:office:spreadsheet\"" //$NON-NLS-1$
+                        + " xmlns:ss=\"urn:schemas-microsoft-com:office:spreadsheet\">" + LINE_SEPARATOR //$NON-NLS-1$
+                        + "<Worksheet ss:Name=\"Sheet1\">" + LINE_SEPARATOR //$NON-NLS-1$
+                        + "<Table>" + LINE_SEPARATOR); //$NON-NLS-1$
+            }
+        }
+
+        private void writeFooter() throws IOException {
+            if (format == Format.XML_SPREADSHEET) {
+                writer.write("</Table>" + LINE_SEPARATOR //$NON-NLS-1$
+                        + "</Worksheet>" + LINE_SEPARATOR //$NON-NLS-1$
+                        + "</Workbook>" + LINE_SEPARATOR); //$NON-NLS-1$
+            }
+        }
+
+        /**
+         * Writes the row at the given position of the export, whose cells
+         * start at the given index in the chunk.
+         */
+        private void writeRow(int position, int start) throws IOException {
+            if (format == Format.XML_SPREADSHEET) {
+                writer.write("<Row>"); //$NON-NLS-1$
+                //The 1-based index of the next cell if no cell is skipped.
+                int nextIndex = 1;
+                for (int i = 0; i < columns.length; ++i) {
+                    final int index = start + i;
+                    final Object item = items[index];
+                    final int mergeAcross = getMergeAcross(i, columnSpans[index]);
+                    final int mergeDown = getMergeDown(position, rowSpans[index]);
+                    if (rowSpans[index] == 0 || (item == null && mergeAcross == 0 && mergeDown == 0)) {
+                        continue;
+                    }
+                    writer.write("<Cell"); //$NON-NLS-1$
+                    if (i + 1 != nextIndex) {
+                        writer.write(" ss:Index=\"" + (i + 1) + "\""); //$NON-NLS-1$ //$NON-NLS-2$
+                    }
+                    if (mergeAcross > 0) {
+                        writer.write(" ss:MergeAcross=\"" + mergeAcross + "\""); //$NON-NLS-1$ //$NON-NLS-2$
+                    }
+                    if (mergeDown > 0) {
+                        writer.write(" ss:MergeDown=\"" + mergeDown + "\""); //$NON-NLS-1$ //$NON-NLS-2$
+                    }
+                    nextIndex = i + 2 + mergeAcross;
+                    if (item == null) {
+                        writer.write("/>"); //$NON-NLS-1$
+                    } else if (isNumber(item)) {
+                        writer.write("><Data ss:Type=\"Number\">"); //$NON-NLS-1$
+                        writer.write(item instanceof Double ? BigDecimal.valueOf((Double) item).toPlainString() : item.toString());
+                        writer.write("</Data></Cell>"); //$NON-NLS-1$
+                    } else {
+                        writer.write("><Data ss:Type=\"String\">"); //$NON-NLS-1$
+                        writeXml(getText(index));
+                        writer.write("</Data></Cell>"); //$NON-NLS-1$
+                    }
+                }
+                writer.write("</Row>"); //$NON-NLS-1$
+            } else {
+                for (int i = 0; i < columns.length; ++i) {
+                    if (i > 0) {
+                        writer.write(separator);
+                    }
+                    final int index = start + i;
+                    if (rowSpans[index] > 0 && items[index] != null) {
+                        writeSeparatedValue(getText(index));
+                    }
+                }
+            }
+            writer.write(LINE_SEPARATOR);
+        }
+
+        private String getText(int index) {
+            final Object item = items[index];
+            if (!formatted) {
+                return item.toString();
+            }
+            final SpreadsheetCellType<Object> type = (SpreadsheetCellType<Object>) types[index];
+            final String cellFormat = formats[index];
+            return cellFormat == null || cellFormat.isEmpty() ? type.toString(item) : type.toString(item, cellFormat);
+        }
+
+        /**
+         * @return the number of exported columns covered by a cell, in
+         * addition to its own column
+         */
+        private int getMergeAcross(int i, int columnSpan) {
+            if (columnSpan <= 1) {
+                return 0;
+            }
+            final int column = columns[i];
+            final int end = Math.min(column + columnSpan, exportedColumnsBefore.length - 1);
+            return exportedColumnsBefore[end] - exportedColumnsBefore[column] - 1;
+        }
+
+        /**
+         * @return the number of rows following that position in the export
+         * and covered by a cell, in addition to its own row
+         */
+        private int getMergeDown(int position, int rowSpan) {
+            if (rowSpan <= 1) {
+                return 0;
+            }
+            final int row = rows[position];
+            int mergeDown = 0;
+            while (position + mergeDown + 1 < rows.length
+                    && rows[position + mergeDown + 1] > row
+                    && rows[position + mergeDown + 1] < row + rowSpan) {
+                ++mergeDown;
+            }
+            return mergeDown;
+        }
+
+        private boolean isNumber(Object item) {
+            return (item instanceof Integer) || (item instanceof Long)
+                    || ((item instanceof Double) && Double.isFinite((Double) item));
+        }
+
+        /**
+         * Writes a value of CSV or TSV, quoting it if it contains the
+         * separator, a quote or a line break.
+         */
+        private void writeSeparatedValue(String text) throws IOException {
+            boolean quoted = false;
+            for (int i = 0; i < text.length() && !quoted; ++i) {
+                final char c = text.charAt(i);
+                quoted = c == separator || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quoted) {
+                writer.write(text);
+                return;
+            }
+            writer.write('"');
+            for (int i = 0; i < text.length(); ++i) {
+                final char c = text.charAt(i);
+                if (c == '"') {
+                    writer.write('"');
+                }
+                writer.write(c);
+            }
+            writer.write('"');
+        }
+
+        /**
+         * Writes a text escaped for XML, dropping the characters that XML
+         * does not allow.
+         */
+        private void writeXml(String text) throws IOException {
+            for (int i = 0; i < text.length(); ++i) {
+                final char c = text.charAt(i);
+                switch (c) {
+                    case '&':
+                        writer.write("&amp;"); //$NON-NLS-1$
+                        break;
+                    case '<':
+                        writer.write("&lt;"); //$NON-NLS-1$
+                        break;
+                    case '>':
+                        writer.write("&gt;"); //$NON-NLS-1$
+                        break;
+                    case '\n':
+                        writer.write("&#10;"); //$NON-NLS-1$
+                        break;
+                    case '\r':
+                        writer.write("&#13;"); //$NON-NLS-1$
+                        break;
+                    default:
+                        if (c >= 0x20 || c == '\t') {
+                            writer.write(c);
+                        }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,340 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met: *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer. * Redistributions in binary
+ * form must reproduce the above copyright notice, this list of conditions and
+ * the following disclaimer in the documentation and/or other materials provided
+ * with the distribution. * Neither the name of ControlsFX, any associated
+ * website, nor the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.control.spreadsheet;
+
+import static impl.org.controlsfx.spreadsheet.RectangleSelection.SelectionRange.key;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import javafx.animation.AnimationTimer;
+
+/**
+ * Collects the modifications of the cells of a {@link Grid} coming from any
+ * thread, and applies them on the FX thread once per pulse.
+ *
+ * <p>
+ * A live {@link SpreadsheetView} may receive far more updates than what can
+ * be displayed. Instead of giving each of them to
+ * {@code Platform.runLater}, the updates are given to
+ * {@link #update(int, int, Object) }, which can be called from any thread
+ * without blocking. The updates of a same cell are merged: only the last
+ * value received before the next pulse is applied. At each pulse, all the
+ * pending values are given to {@link Grid#setCellValue(int, int, Object) }
+ * inside one batch (see {@link Grid#beginBatch() }), so that the view is
+ * refreshed once with one {@link GridChangeBatch}.
+ *
+ * <p>
+ * The number of cells waiting for the next pulse can be limited. When that
+ * limit is reached, the updates of the cells not already waiting are dropped.
+ * Several metrics are available in order to monitor the flow of updates: the
+ * number of applied, merged and dropped updates, and the latency between the
+ * reception of an update and its application.
+ *
+ * <pre>
+ * GridUpdateCoalescer coalescer = new GridUpdateCoalescer(grid);
+ * coalescer.start();
+ *
+ * //In any thread
+ * coalescer.update(row, column, price);
+ * </pre>
+ *
+ * @see Grid#beginBatch()
+ */
+public class GridUpdateCoalescer {
+
+    /***************************************************************************
+     *
+     * Private Fields
+     *
+     **************************************************************************/
+    private final Grid grid;
+    private final int maxPendingCells;
+    //The values waiting for the next pulse, by cell.
+    private final Map<Long, PendingUpdate> pendingUpdates = new ConcurrentHashMap<>();
+    //The cells waiting for the next pulse, in the order of their first update.
+    private final Queue<Long> pendingCells = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    private final LongAdder receivedCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    //Only modified on the FX thread.
+    private volatile long appliedCount;
+    private volatile long totalLatency;
+    private volatile long maxLatency;
+    private volatile long lastPulseDuration;
+
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            flush();
+        }
+    };
+
+    /***************************************************************************
+     *
+     * Constructors
+     *
+     **************************************************************************/
+
+    /**
+     * Creates a {@code GridUpdateCoalescer} without any limit on the number of
+     * cells waiting for the next pulse.
+     *
+     * @param grid the grid receiving the updates
+     */
+    public GridUpdateCoalescer(Grid grid) {
+        this(grid, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a {@code GridUpdateCoalescer}.
+     *
+     * @param grid the grid receiving the updates
+     * @param maxPendingCells the maximum number of cells waiting for the next
+     * pulse. This limit is approximate when several threads are giving
+     * updates at the same time.
+     */
+    public GridUpdateCoalescer(Grid grid, int maxPendingCells) {
+        if (maxPendingCells <= 0) {
+            throw new IllegalArgumentException("The maximum number of pending cells must be positive."); //$NON-NLS-1$
+        }
+        this.grid = grid;
+        this.maxPendingCells = maxPendingCells;
+    }
+
+    /***************************************************************************
+     *
+     * Public Methods
+     *
+     **************************************************************************/
+
+    /**
+     * Starts applying the updates at each pulse. This method must be called
+     * on the FX thread.
+     */
+    public void start() {
+        timer.start();
+    }
+
+    /**
+     * Stops applying the updates at each pulse. The updates received in the
+     * meantime are kept until the next call to {@link #start() } or
+     * {@link #flush() }. This method must be called on the FX thread.
+     */
+    public void stop() {
+        timer.stop();
+    }
+
+    /**
+     * Gives a new value to the cell at the given position. The value will be
+     * applied at the next pulse, unless another value is given to the same
+     * cell in the meantime. This method can be called from any thread.
+     *
+     * @param modelRow the row index of the cell
+     * @param column the column index of the cell
+     * @param value the new value of the cell
+     * @return {@code false} if the update has been dropped because too many
+     * cells are waiting for the next pulse
+     */
+    public boolean update(int modelRow, int column, Object value) {
+        receivedCount.increment();
+        final long now = System.nanoTime();
+        final PendingUpdate created = new PendingUpdate(modelRow, column, value, now);
+        final Long key = key(modelRow, column);
+        final PendingUpdate pending = pendingUpdates.compute(key, (Long cell, PendingUpdate previous) -> {
+            if (previous != null) {
+                //The time of the first update is kept in order to measure the latency.
+                previous.value = value;
+                return previous;
+            } else if (pendingCount.get() >= maxPendingCells) {
+                return null;
+            }
+            pendingCount.incrementAndGet();
+            return created;
+        });
+        if (pending == null) {
+            droppedCount.increment();
+            return false;
+        } else if (pending == created) {
+            pendingCells.offer(key);
+        } else {
+            coalescedCount.increment();
+        }
+        return true;
+    }
+
+    /**
+     * Applies right away all the updates currently waiting. This method must
+     * be called on the FX thread.
+     *
+     * @return the number of cells modified
+     */
+    public int flush() {
+        final long start = System.nanoTime();
+        //Only the cells waiting now are applied, the later ones will wait for the next pulse.
+        int remaining = pendingCount.get();
+        if (remaining == 0) {
+            return 0;
+        }
+        int applied = 0;
+        long latency = 0;
+        long max = maxLatency;
+        grid.beginBatch();
+        try {
+            Long key;
+            while (remaining-- > 0 && (key = pendingCells.poll()) != null) {
+                final PendingUpdate update = pendingUpdates.remove(key);
+                if (update == null) {
+                    continue;
+                }
+                pendingCount.decrementAndGet();
+                grid.setCellValue(update.modelRow, update.column, update.value);
+                final long elapsed = Math.max(0, start - update.time);
+                latency += elapsed;
+                max = Math.max(max, elapsed);
+                ++applied;
+            }
+        } finally {
+            grid.commitBatch();
+            appliedCount += applied;
+            totalLatency += latency;
+            maxLatency = max;
+            lastPulseDuration = System.nanoTime() - start;
+        }
+        return applied;
+    }
+
+    /**
+     * @return the number of cells waiting for the next pulse
+     */
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    /**
+     * @return the number of updates received by {@link #update(int, int, Object)
+     * }
+     */
+    public long getReceivedCount() {
+        return receivedCount.sum();
+    }
+
+    /**
+     * @return the number of values applied to the grid
+     */
+    public long getAppliedCount() {
+        return appliedCount;
+    }
+
+    /**
+     * @return the number of updates replaced by a later update of the same
+     * cell before being applied
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    /**
+     * @return the number of updates dropped because too many cells were
+     * waiting for the next pulse
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * Returns the average time between the first update of a cell and the
+     * application of its value, in nanoseconds.
+     *
+     * @return the average apply latency in nanoseconds, or 0 if nothing has
+     * been applied
+     */
+    public long getAverageLatency() {
+        final long count = appliedCount;
+        return count == 0 ? 0 : totalLatency / count;
+    }
+
+    /**
+     * Returns the longest time between the first update of a cell and the
+     * application of its value, in nanoseconds.
+     *
+     * @return the maximum apply latency in nanoseconds
+     */
+    public long getMaxLatency() {
+        return maxLatency;
+    }
+
+    /**
+     * @return the time spent applying the values during the last pulse, in
+     * nanoseconds
+     */
+    public long getLastPulseDuration() {
+        return lastPulseDuration;
+    }
+
+    /**
+     * Resets all the metrics. This method must be called on the FX thread.
+     */
+    public void resetMetrics() {
+        receivedCount.reset();
+        coalescedCount.reset();
+        droppedCount.reset();
+        appliedCount = 0;
+        totalLatency = 0;
+        maxLatency = 0;
+        lastPulseDuration = 0;
+    }
+
+    /***************************************************************************
+     *
+     * Private Implementation
+     *
+     **************************************************************************/
+
+    /**
+     * The last value given to a cell. The value is only modified while the
+     * map holds the lock of the cell.
+     */
+    private static final class PendingUpdate {
+
+        private final int modelRow;
+        private final int column;
+        private Object value;
+        private final long time;
+
+        PendingUpdate(int modelRow, int column, Object value, long time) {
+            this.modelRow = modelRow;
+            this.column = column;
+            this.value = value;
+            this.time = time;
+        }
+    }
+}
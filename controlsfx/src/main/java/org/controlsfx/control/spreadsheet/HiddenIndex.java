@@ -0,0 +1,187 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.control.spreadsheet;
+
+import java.util.BitSet;
+
+/**
+ * Translates the indexes of the rows, or the columns, between the {@link Grid}
+ * and the {@link SpreadsheetView} regarding the hidden ones.
+ *
+ * <p>
+ * A Fenwick tree counts the hidden indexes, so the translation is done in
+ * O(log n) both ways, without boxing. The index is built in O(n) from the
+ * hidden indexes, and hiding or showing one index afterwards is done in
+ * O(log n) with {@link #setHidden(int, boolean) }.
+ */
+final class HiddenIndex {
+
+    private final int size;
+    private int hiddenCount;
+    /**
+     * The Fenwick tree, 1-based. Null when nothing has been hidden, the
+     * translation is then the identity.
+     */
+    private int[] tree;
+
+    /**
+     * Builds the index.
+     *
+     * @param hidden the hidden indexes
+     * @param size the number of indexes
+     */
+    HiddenIndex(BitSet hidden, int size) {
+        this.size = size;
+        int count = 0;
+        int[] counts = null;
+        for (int i = hidden.nextSetBit(0); i >= 0 && i < size; i = hidden.nextSetBit(i + 1)) {
+            if (counts == null) {
+                counts = new int[size + 1];
+            }
+            counts[i + 1] = 1;
+            ++count;
+        }
+        if (counts != null) {
+            for (int i = 1; i <= size; ++i) {
+                final int parent = i + (i & -i);
+                if (parent <= size) {
+                    counts[parent] += counts[i];
+                }
+            }
+        }
+        hiddenCount = count;
+        tree = counts;
+    }
+
+    /**
+     * Hides or shows one index. The index must not already be in the
+     * requested state.
+     *
+     * @param index
+     * @param hidden
+     */
+    void setHidden(int index, boolean hidden) {
+        if (index < 0 || index >= size) {
+            return;
+        }
+        if (tree == null) {
+            if (!hidden) {
+                return;
+            }
+            tree = new int[size + 1];
+        }
+        final int delta = hidden ? 1 : -1;
+        for (int i = index + 1; i <= size; i += i & -i) {
+            tree[i] += delta;
+        }
+        hiddenCount += delta;
+    }
+
+    /**
+     * @return the number of indexes
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of visible indexes
+     */
+    int getVisibleCount() {
+        return size - hiddenCount;
+    }
+
+    /**
+     * Returns the number of hidden indexes strictly before the given one.
+     *
+     * @param index
+     * @return the number of hidden indexes strictly before the given one
+     */
+    int getHiddenBefore(int index) {
+        if (tree == null || index <= 0) {
+            return 0;
+        }
+        int sum = 0;
+        for (int i = Math.min(index, size); i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the number of hidden indexes between from (inclusive) and to
+     * (exclusive).
+     *
+     * @param from
+     * @param to
+     * @return the number of hidden indexes between from and to
+     */
+    int getHiddenCount(int from, int to) {
+        return getHiddenBefore(to) - getHiddenBefore(from);
+    }
+
+    /**
+     * Given a model index, returns the view index. A hidden index gives the
+     * view index of the next visible one.
+     *
+     * @param modelIndex
+     * @return the view index
+     */
+    int getViewIndex(int modelIndex) {
+        return modelIndex - getHiddenBefore(modelIndex);
+    }
+
+    /**
+     * Given a view index, returns the model index, or -1 if there is no such
+     * visible index.
+     *
+     * @param viewIndex
+     * @return the model index
+     */
+    int getModelIndex(int viewIndex) {
+        if (viewIndex < 0 || viewIndex >= getVisibleCount()) {
+            return -1;
+        }
+        if (tree == null) {
+            return viewIndex;
+        }
+        //We look for the (viewIndex + 1)th visible index by going down the tree.
+        int position = 0;
+        int remaining = viewIndex + 1;
+        for (int step = Integer.highestOneBit(size); step > 0; step >>= 1) {
+            final int next = position + step;
+            if (next <= size) {
+                final int visible = step - tree[next];
+                if (visible < remaining) {
+                    position = next;
+                    remaining -= visible;
+                }
+            }
+        }
+        return position;
+    }
+}
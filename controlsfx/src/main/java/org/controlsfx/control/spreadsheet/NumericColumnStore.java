@@ -0,0 +1,822 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.control.spreadsheet;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import javafx.beans.InvalidationListener;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableSet;
+import javafx.collections.SetChangeListener;
+import javafx.event.Event;
+import javafx.event.EventDispatchChain;
+import javafx.event.EventHandler;
+import javafx.event.EventTarget;
+import javafx.event.EventType;
+import javafx.scene.Node;
+import javafx.scene.control.MenuItem;
+
+/**
+ * A columnar storage for the numeric values of one column of a {@link Grid}.
+ *
+ * <p>
+ * Each {@link SpreadsheetCellBase} holds its own value, and a
+ * {@link SpreadsheetCellType#DOUBLE} cell is boxing its value in a
+ * {@link Double}. A {@code NumericColumnStore} keeps the values of a column
+ * inside a primitive array instead, and the cells it creates are views over
+ * that array: a cell only holds its coordinates, it doesn't copy the value.
+ * The state a cell does not share with the store (style, format, graphic,
+ * corners, event handlers etc) is only allocated when it is first modified.
+ *
+ * <p>
+ * A {@code NumericColumnStore} is holding either {@code double} values (for
+ * {@link SpreadsheetCellType#DOUBLE} cells) or {@code int} values (for
+ * {@link SpreadsheetCellType#INTEGER} cells). The empty values are tracked
+ * separately, so that a {@code null} value can be distinguished from a
+ * {@code NaN}. The method {@link #createCell(int, int) } gives a
+ * {@link SpreadsheetCell} reading its value from the store, and writing it
+ * into the store when modified with {@link Grid#setCellValue(int, int, java.lang.Object)
+ * }. A {@link VirtualGridBase} doesn't keep a copy of the values modified in
+ * these cells, since the store already holds them.
+ *
+ * <p>
+ * This class is meant to be used as the {@link VirtualGridBase.CellProvider}
+ * of a {@link VirtualGridBase}, so that only the cells of the displayed rows
+ * are created:
+ *
+ * <pre>
+ * NumericColumnStore[] columns = new NumericColumnStore[columnCount];
+ * for (int column = 0; column &lt; columnCount; ++column) {
+ *     columns[column] = NumericColumnStore.doubleColumn(rowCount);
+ *     for (int row = 0; row &lt; rowCount; ++row) {
+ *         columns[column].setDouble(row, computeRisk(row, column));
+ *     }
+ * }
+ * VirtualGridBase grid = new VirtualGridBase(rowCount, columnCount,
+ *         (row, column) -&gt; columns[column].createCell(row, column));
+ * </pre>
+ *
+ * Beware that modifying directly the store does not notify the cells already
+ * created: a cell returns the new value, but its item and text properties,
+ * if they have been created, are not updated. Once the {@link Grid} is given
+ * to a {@link SpreadsheetView}, the values should be modified through
+ * {@link Grid#setCellValue(int, int, java.lang.Object) }.
+ *
+ * @see VirtualGridBase
+ */
+public final class NumericColumnStore {
+
+    /***************************************************************************
+     *
+     * Private Fields
+     *
+     **************************************************************************/
+    private static final ObservableSet<String> DEFAULT_STYLE_CLASS = FXCollections.unmodifiableObservableSet(
+            FXCollections.observableSet("spreadsheet-cell")); //$NON-NLS-1$
+    private final double[] doubleValues;
+    private final int[] intValues;
+    private final int size;
+    private final SpreadsheetCellType<?> type;
+    //Created only when an empty value is stored.
+    private BitSet nullValues;
+
+    /***************************************************************************
+     *
+     * Constructor
+     *
+     **************************************************************************/
+
+    private NumericColumnStore(int size, boolean integer) {
+        if (size < 0) {
+            throw new IllegalArgumentException("The size cannot be negative"); //$NON-NLS-1$
+        }
+        this.size = size;
+        if (integer) {
+            intValues = new int[size];
+            doubleValues = null;
+            type = SpreadsheetCellType.INTEGER;
+        } else {
+            doubleValues = new double[size];
+            intValues = null;
+            type = SpreadsheetCellType.DOUBLE;
+        }
+    }
+
+    /**
+     * Creates a store holding {@code double} values, all initialized to
+     * {@code 0}. The cells created will be of type
+     * {@link SpreadsheetCellType#DOUBLE}.
+     *
+     * @param size the number of rows
+     * @return a new {@code NumericColumnStore}
+     */
+    public static NumericColumnStore doubleColumn(int size) {
+        return new NumericColumnStore(size, false);
+    }
+
+    /**
+     * Creates a store holding {@code int} values, all initialized to
+     * {@code 0}. The cells created will be of type
+     * {@link SpreadsheetCellType#INTEGER}.
+     *
+     * @param size the number of rows
+     * @return a new {@code NumericColumnStore}
+     */
+    public static NumericColumnStore integerColumn(int size) {
+        return new NumericColumnStore(size, true);
+    }
+
+    /***************************************************************************
+     *
+     * Public Methods
+     *
+     **************************************************************************/
+
+    /**
+     * Returns the number of values of this store.
+     *
+     * @return the number of values of this store
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the {@link SpreadsheetCellType} of the cells created by this
+     * store.
+     *
+     * @return the {@link SpreadsheetCellType} of the cells
+     */
+    public SpreadsheetCellType<?> getCellType() {
+        return type;
+    }
+
+    /**
+     * Returns whether the value at the given row is empty.
+     *
+     * @param row the row index
+     * @return {@code true} if the value is empty
+     */
+    public boolean isNull(int row) {
+        return nullValues != null && nullValues.get(row);
+    }
+
+    /**
+     * Returns the value at the given row as a {@code double}. An empty value
+     * is returned as {@code NaN}.
+     *
+     * @param row the row index
+     * @return the value at the given row
+     */
+    public double getDouble(int row) {
+        if (isNull(row)) {
+            return Double.NaN;
+        }
+        return doubleValues != null ? doubleValues[row] : intValues[row];
+    }
+
+    /**
+     * Returns the value at the given row as an {@code int}. An empty value is
+     * returned as {@code 0}.
+     *
+     * @param row the row index
+     * @return the value at the given row
+     */
+    public int getInt(int row) {
+        if (isNull(row)) {
+            return 0;
+        }
+        return intValues != null ? intValues[row] : (int) doubleValues[row];
+    }
+
+    /**
+     * Sets the value at the given row.
+     *
+     * @param row the row index
+     * @param value the new value
+     */
+    public void setDouble(int row, double value) {
+        if (doubleValues != null) {
+            doubleValues[row] = value;
+        } else {
+            intValues[row] = (int) value;
+        }
+        clearNull(row);
+    }
+
+    /**
+     * Sets the value at the given row.
+     *
+     * @param row the row index
+     * @param value the new value
+     */
+    public void setInt(int row, int value) {
+        if (intValues != null) {
+            intValues[row] = value;
+        } else {
+            doubleValues[row] = value;
+        }
+        clearNull(row);
+    }
+
+    /**
+     * Empties the value at the given row.
+     *
+     * @param row the row index
+     */
+    public void setNull(int row) {
+        if (nullValues == null) {
+            nullValues = new BitSet(size);
+        }
+        nullValues.set(row);
+    }
+
+    /**
+     * Returns the value at the given row, as it would be held by a
+     * {@link SpreadsheetCell}: a {@link Double} or an {@link Integer}, or
+     * {@code null} if the value is empty.
+     *
+     * @param row the row index
+     * @return the value at the given row
+     */
+    public Object getValue(int row) {
+        if (isNull(row)) {
+            return null;
+        }
+        return doubleValues != null ? (Object) doubleValues[row] : (Object) intValues[row];
+    }
+
+    /**
+     * Sets the value at the given row. A {@code null} value, or a value that
+     * is not a {@link Number}, empties the row.
+     *
+     * @param row the row index
+     * @param value the new value
+     */
+    public void setValue(int row, Object value) {
+        if (value instanceof Number) {
+            if (doubleValues != null) {
+                setDouble(row, ((Number) value).doubleValue());
+            } else {
+                setInt(row, ((Number) value).intValue());
+            }
+        } else {
+            setNull(row);
+        }
+    }
+
+    /**
+     * Creates a {@link SpreadsheetCell} for the given row. The cell reads its
+     * value from the store, and writes it inside the store when modified.
+     *
+     * @param row the row index inside the store and the {@link Grid}
+     * @param column the column index of the cell in the {@link Grid}
+     * @return a new {@link SpreadsheetCell}
+     */
+    public SpreadsheetCell createCell(int row, int column) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " is out of the store"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        return new StoredCell(row, column);
+    }
+
+    /***************************************************************************
+     *
+     * Private Implementation
+     *
+     **************************************************************************/
+
+    private void clearNull(int row) {
+        if (nullValues != null) {
+            nullValues.clear(row);
+        }
+    }
+
+    /**
+     * A view over a value of the store. The cell only holds its coordinates,
+     * its value is read from the store and written into it. The properties are
+     * created when requested, and the state that is not shared with the store
+     * is delegated to a {@link SpreadsheetCellBase} created on its first
+     * modification.
+     */
+    final class StoredCell implements SpreadsheetCell, EventTarget {
+
+        private final int row;
+        private final int column;
+        private ObjectProperty<Object> item;
+        private StringProperty text;
+        //Holds the style, format, corners, spans, handlers etc.
+        private SpreadsheetCellBase state;
+        //A view over the style class of the state, created when requested.
+        private StyleClass styleClass;
+
+        StoredCell(int row, int column) {
+            this.row = row;
+            this.column = column;
+        }
+
+        /**
+         * @return the store holding the value of this cell
+         */
+        NumericColumnStore getStore() {
+            return NumericColumnStore.this;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean match(Object value) {
+            return type.match(value, getOptionsForEditor());
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void setItem(Object value) {
+            if (isEditable()) {
+                if (item != null) {
+                    item.set(value);
+                } else {
+                    setValue(row, value);
+                    updateText();
+                }
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Object getItem() {
+            return getValue(row);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public ObjectProperty<Object> itemProperty() {
+            if (item == null) {
+                item = new SimpleObjectProperty<Object>(this, "item", getValue(row)) { //$NON-NLS-1$
+                    @Override
+                    protected void invalidated() {
+                        NumericColumnStore.this.setValue(row, get());
+                        updateText();
+                    }
+                };
+            }
+            return item;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean isEditable() {
+            return state == null || state.isEditable();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void setEditable(boolean editable) {
+            if (editable != isEditable()) {
+                getState().setEditable(editable);
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean isWrapText() {
+            return state != null && state.isWrapText();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void setWrapText(boolean wrapText) {
+            if (wrapText != isWrapText()) {
+                getState().setWrapText(wrapText);
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public List<Object> getOptionsForEditor() {
+            return Collections.emptyList();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean hasPopup() {
+            return state != null && state.hasPopup();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void setHasPopup(boolean value) {
+            getState().setHasPopup(value);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public List<MenuItem> getPopupItems() {
+            return getState().getPopupItems();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void setStyle(String style) {
+            if (state != null || style != null) {
+                getState().setStyle(style);
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String getStyle() {
+            return state == null ? null : state.getStyle();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public StringProperty styleProperty() {
+            return getState().styleProperty();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void activateCorner(CornerPosition position) {
+            getState().activateCorner(position);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void deactivateCorner(CornerPosition position) {
+            if (state != null) {
+                state.deactivateCorner(position);
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean isCornerActivated(CornerPosition position) {
+            return state != null && state.isCornerActivated(position);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public StringProperty formatProperty() {
+            return getState().formatProperty();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String getFormat() {
+            return state == null ? "" : state.getFormat(); //$NON-NLS-1$
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void setFormat(String format) {
+            if (!Objects.equals(format, getFormat())) {
+                getState().setFormat(format);
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public ReadOnlyStringProperty textProperty() {
+            if (text == null) {
+                text = new SimpleStringProperty(this, "text", buildText()); //$NON-NLS-1$
+            }
+            return text;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String getText() {
+            return text == null ? buildText() : text.get();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public SpreadsheetCellType getCellType() {
+            return type;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int getRow() {
+            return row;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int getColumn() {
+            return column;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int getRowSpan() {
+            return state == null ? 1 : state.getRowSpan();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void setRowSpan(int rowSpan) {
+            if (rowSpan != getRowSpan()) {
+                getState().setRowSpan(rowSpan);
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int getColumnSpan() {
+            return state == null ? 1 : state.getColumnSpan();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void setColumnSpan(int columnSpan) {
+            if (columnSpan != getColumnSpan()) {
+                getState().setColumnSpan(columnSpan);
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public ObservableSet<String> getStyleClass() {
+            if (styleClass == null) {
+                styleClass = new StyleClass();
+            }
+            return styleClass;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public ObjectProperty<Node> graphicProperty() {
+            return getState().graphicProperty();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void setGraphic(Node graphic) {
+            if (state != null || graphic != null) {
+                getState().setGraphic(graphic);
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Node getGraphic() {
+            return state == null ? null : state.getGraphic();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Optional<String> getTooltip() {
+            return state == null ? Optional.empty() : state.getTooltip();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void addEventHandler(EventType<Event> eventType, EventHandler<Event> eventHandler) {
+            getState().addEventHandler(eventType, eventHandler);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void removeEventHandler(EventType<Event> eventType, EventHandler<Event> eventHandler) {
+            if (state != null) {
+                state.removeEventHandler(eventType, eventHandler);
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public EventDispatchChain buildEventDispatchChain(EventDispatchChain tail) {
+            return state == null ? tail : state.buildEventDispatchChain(tail);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String toString() {
+            return "cell[" + row + "][" + column + "]" + getRowSpan() + "-" + getColumnSpan(); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof SpreadsheetCell)) {
+                return false;
+            }
+            final SpreadsheetCell otherCell = (SpreadsheetCell) obj;
+            return otherCell.getRow() == row && otherCell.getColumn() == column
+                    && Objects.equals(otherCell.getText(), getText())
+                    && getRowSpan() == otherCell.getRowSpan()
+                    && getColumnSpan() == otherCell.getColumnSpan()
+                    && Objects.equals(getStyleClassOrDefault(), otherCell instanceof StoredCell
+                            ? ((StoredCell) otherCell).getStyleClassOrDefault() : otherCell.getStyleClass());
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + column;
+            result = prime * result + row;
+            result = prime * result + getRowSpan();
+            result = prime * result + getColumnSpan();
+            result = prime * result + Objects.hashCode(getText());
+            result = prime * result + getStyleClassOrDefault().hashCode();
+            return result;
+        }
+
+        private SpreadsheetCellBase getState() {
+            if (state == null) {
+                state = new SpreadsheetCellBase(row, column, 1, 1, type);
+                state.formatProperty().addListener(o -> updateText());
+                if (styleClass != null) {
+                    styleClass.moveListeners(state.getStyleClass());
+                }
+            }
+            return state;
+        }
+
+        /**
+         * Returns whether the state of this cell has been created.
+         */
+        boolean hasState() {
+            return state != null;
+        }
+
+        private ObservableSet<String> getStyleClassOrDefault() {
+            return state == null ? DEFAULT_STYLE_CLASS : state.getStyleClass();
+        }
+
+        private void updateText() {
+            if (text != null) {
+                text.set(buildText());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private String buildText() {
+            final Object value = getValue(row);
+            if (value == null) {
+                return ""; //$NON-NLS-1$
+            }
+            final SpreadsheetCellType<Object> cellType = (SpreadsheetCellType<Object>) type;
+            final String format = getFormat();
+            return format == null || format.isEmpty() ? cellType.toString(value) : cellType.toString(value, format);
+        }
+
+        /**
+         * The style class of a {@link StoredCell}. Reading it or listening to
+         * it does not create the state of the cell, only a modification does.
+         * The listeners added before are then moved onto the style class of
+         * the state.
+         */
+        private final class StyleClass extends AbstractSet<String> implements ObservableSet<String> {
+
+            private List<InvalidationListener> invalidationListeners;
+            private List<SetChangeListener<? super String>> setChangeListeners;
+
+            @Override
+            public Iterator<String> iterator() {
+                if (state != null) {
+                    return state.getStyleClass().iterator();
+                }
+                final Iterator<String> iterator = DEFAULT_STYLE_CLASS.iterator();
+                return new Iterator<String>() {
+                    private String last;
+
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public String next() {
+                        last = iterator.next();
+                        return last;
+                    }
+
+                    @Override
+                    public void remove() {
+                        getState().getStyleClass().remove(last);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return getStyleClassOrDefault().size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return getStyleClassOrDefault().contains(o);
+            }
+
+            @Override
+            public boolean add(String e) {
+                return (state != null || !DEFAULT_STYLE_CLASS.contains(e)) && getState().getStyleClass().add(e);
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                return (state != null || DEFAULT_STYLE_CLASS.contains(o)) && getState().getStyleClass().remove(o);
+            }
+
+            @Override
+            public void clear() {
+                getState().getStyleClass().clear();
+            }
+
+            @Override
+            public void addListener(SetChangeListener<? super String> listener) {
+                if (state != null) {
+                    state.getStyleClass().addListener(listener);
+                } else {
+                    if (setChangeListeners == null) {
+                        setChangeListeners = new ArrayList<>(1);
+                    }
+                    setChangeListeners.add(listener);
+                }
+            }
+
+            @Override
+            public void removeListener(SetChangeListener<? super String> listener) {
+                if (state != null) {
+                    state.getStyleClass().removeListener(listener);
+                } else if (setChangeListeners != null) {
+                    setChangeListeners.remove(listener);
+                }
+            }
+
+            @Override
+            public void addListener(InvalidationListener listener) {
+                if (state != null) {
+                    state.getStyleClass().addListener(listener);
+                } else {
+                    if (invalidationListeners == null) {
+                        invalidationListeners = new ArrayList<>(1);
+                    }
+                    invalidationListeners.add(listener);
+                }
+            }
+
+            @Override
+            public void removeListener(InvalidationListener listener) {
+                if (state != null) {
+                    state.getStyleClass().removeListener(listener);
+                } else if (invalidationListeners != null) {
+                    invalidationListeners.remove(listener);
+                }
+            }
+
+            private void moveListeners(ObservableSet<String> target) {
+                if (invalidationListeners != null) {
+                    invalidationListeners.forEach(target::addListener);
+                    invalidationListeners = null;
+                }
+                if (setChangeListeners != null) {
+                    setChangeListeners.forEach(target::addListener);
+                    setChangeListeners = null;
+                }
+            }
+        }
+    }
+}
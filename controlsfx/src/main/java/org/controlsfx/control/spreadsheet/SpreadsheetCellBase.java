@@ -32,6 +32,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.ReadOnlyStringProperty;
 import javafx.beans.property.SimpleObjectProperty;
@@ -220,15 +221,27 @@ public class SpreadsheetCellBase implements SpreadsheetCell, EventTarget{
     private static final int EDITABLE_BIT_POSITION = 4;
     private static final int WRAP_BIT_POSITION = 5;
     private static final int POPUP_BIT_POSITION = 6;
+    private static final String DEFAULT_STYLE_CLASS = "spreadsheet-cell"; //$NON-NLS-1$
     private final SpreadsheetCellType type;
     private final int row;
     private final int column;
     private int rowSpan;
     private int columnSpan;
-    private final StringProperty format;
-    private final StringProperty text;
-    private final StringProperty styleProperty;
-    private final ObjectProperty<Node> graphic;
+    /**
+     * The values below are held in plain fields until somebody asks for the
+     * corresponding property. Once the property is created, it becomes the
+     * only holder of the value.
+     */
+    private Object itemValue;
+    private String textValue = ""; //$NON-NLS-1$
+    private String formatValue = ""; //$NON-NLS-1$
+    private String styleValue;
+    private Node graphicValue;
+    private ObjectProperty<Object> item;
+    private StringProperty format;
+    private StringProperty text;
+    private StringProperty styleProperty;
+    private ObjectProperty<Node> graphic;
     private String tooltip;
     /**
      * This variable handles all boolean values of this SpreadsheetCell inside
@@ -236,7 +249,8 @@ public class SpreadsheetCellBase implements SpreadsheetCell, EventTarget{
      * can reduce memory usage to the bare minimum.
      */
     private int propertyContainer = 0;
-    private final EventHandlerManager eventHandlerManager = new EventHandlerManager(this);
+    //Created when the first handler is registered.
+    private EventHandlerManager eventHandlerManager;
 
     private ObservableSet<String> styleClass;
     private List<MenuItem> actionsList;
@@ -275,19 +289,13 @@ public class SpreadsheetCellBase implements SpreadsheetCell, EventTarget{
         this.rowSpan = rowSpan;
         this.columnSpan = columnSpan;
         this.type = type;
-        text = new SimpleStringProperty(""); //$NON-NLS-1$
-        format = new SimpleStringProperty(""); //$NON-NLS-1$
-        graphic = new SimpleObjectProperty<>();
-        format.addListener(new ChangeListener<String>() {
-            @Override
-            public void changed(ObservableValue<? extends String> arg0, String arg1, String arg2) {
-                updateText();
-            }
-        });
-        //Editable is true at the initialisation
-        setEditable(true);
-        getStyleClass().add("spreadsheet-cell"); //$NON-NLS-1$
-        styleProperty = new SimpleStringProperty();
+        /**
+         * Editable is true at the initialisation. Nobody can listen to the
+         * cell yet so there is no need to fire an event. The default
+         * "spreadsheet-cell" styleClass is added when the styleClass set is
+         * created.
+         */
+        setMask(true, EDITABLE_BIT_POSITION);
     }
 
    /***************************************************************************
@@ -303,29 +311,37 @@ public class SpreadsheetCellBase implements SpreadsheetCell, EventTarget{
     }
 
     // --- item
-    private final ObjectProperty<Object> item = new SimpleObjectProperty<Object>(this, "item") { //$NON-NLS-1$
-        @Override
-        protected void invalidated() {
-            updateText();
-        }
-    };
-
    /** {@inheritDoc} */
     @Override
     public final void setItem(Object value) {
-        if (isEditable())
-            item.set(value);
+        if (isEditable()) {
+            if (item != null) {
+                item.set(value);
+            } else if (itemValue != value) {
+                itemValue = value;
+                updateText();
+            }
+        }
     }
 
     /** {@inheritDoc} */
     @Override
     public final Object getItem() {
-        return item.get();
+        return item == null ? itemValue : item.get();
     }
 
     /** {@inheritDoc} */
     @Override
     public final ObjectProperty<Object> itemProperty() {
+        if (item == null) {
+            item = new SimpleObjectProperty<Object>(this, "item", itemValue) { //$NON-NLS-1$
+                @Override
+                protected void invalidated() {
+                    updateText();
+                }
+            };
+            itemValue = null;
+        }
         return item;
     }
 
@@ -339,7 +355,7 @@ public class SpreadsheetCellBase implements SpreadsheetCell, EventTarget{
     @Override
     public final void setEditable(boolean editable) {
         if(setMask(editable, EDITABLE_BIT_POSITION)){
-            Event.fireEvent(this, new Event(EDITABLE_EVENT_TYPE));
+            fireEvent(EDITABLE_EVENT_TYPE);
         }
     }
     
@@ -353,7 +369,7 @@ public class SpreadsheetCellBase implements SpreadsheetCell, EventTarget{
     @Override
     public void setWrapText(boolean wrapText) {
         if (setMask(wrapText, WRAP_BIT_POSITION)) {
-            Event.fireEvent(this, new Event(WRAP_EVENT_TYPE));
+            fireEvent(WRAP_EVENT_TYPE);
         }
     }
     
@@ -374,7 +390,7 @@ public class SpreadsheetCellBase implements SpreadsheetCell, EventTarget{
     public void setHasPopup(boolean value){
         setMask(value, POPUP_BIT_POSITION);
         //We want to refresh the cell.
-        Event.fireEvent(this, new Event(CORNER_EVENT_TYPE));
+        fireEvent(CORNER_EVENT_TYPE);
     }
     
     /** {@inheritDoc} */
@@ -389,32 +405,50 @@ public class SpreadsheetCellBase implements SpreadsheetCell, EventTarget{
    /** {@inheritDoc} */
     @Override
     public final StringProperty formatProperty() {
+        if (format == null) {
+            format = new SimpleStringProperty(formatValue);
+            format.addListener(new ChangeListener<String>() {
+                @Override
+                public void changed(ObservableValue<? extends String> arg0, String arg1, String arg2) {
+                    updateText();
+                }
+            });
+            formatValue = null;
+        }
         return format;
     }
 
     /** {@inheritDoc} */
     @Override
     public final String getFormat() {
-        return format.get();
+        return format == null ? formatValue : format.get();
     }
 
     /** {@inheritDoc} */
     @Override
     public final void setFormat(String format) {
-        formatProperty().set(format);
+        if (this.format != null) {
+            this.format.set(format);
+        } else {
+            formatValue = format;
+        }
         updateText();
     }
 
     /** {@inheritDoc} */
     @Override
     public final ReadOnlyStringProperty textProperty() {
+        if (text == null) {
+            text = new SimpleStringProperty(this, "text", textValue); //$NON-NLS-1$
+            textValue = null;
+        }
         return text;
     }
 
     /** {@inheritDoc} */
     @Override
     public final String getText() {
-        return text.get();
+        return text == null ? textValue : text.get();
     }
 
    /** {@inheritDoc} */
@@ -464,6 +498,7 @@ public class SpreadsheetCellBase implements SpreadsheetCell, EventTarget{
     public final ObservableSet<String> getStyleClass() {
         if (styleClass == null) {
             styleClass = FXCollections.observableSet();
+            styleClass.add(DEFAULT_STYLE_CLASS);
         }
         return styleClass;
     }
@@ -471,37 +506,53 @@ public class SpreadsheetCellBase implements SpreadsheetCell, EventTarget{
     /** {@inheritDoc} */
     @Override
     public void setStyle(String style){
-        styleProperty.set(style);
+        if (styleProperty != null) {
+            styleProperty.set(style);
+        } else {
+            styleValue = style;
+        }
     }
     
     /** {@inheritDoc} */
     @Override
     public String getStyle(){
-        return styleProperty.get();
+        return styleProperty == null ? styleValue : styleProperty.get();
     }
     
     /** {@inheritDoc} */
     @Override
     public StringProperty styleProperty(){
+        if (styleProperty == null) {
+            styleProperty = new SimpleStringProperty(styleValue);
+            styleValue = null;
+        }
         return styleProperty;
     }
 
     /** {@inheritDoc} */
     @Override
     public ObjectProperty<Node> graphicProperty() {
+        if (graphic == null) {
+            graphic = new SimpleObjectProperty<>(graphicValue);
+            graphicValue = null;
+        }
         return graphic;
     }
 
     /** {@inheritDoc} */
     @Override
     public void setGraphic(Node graphic) {
-        this.graphic.set(graphic);
+        if (this.graphic != null) {
+            this.graphic.set(graphic);
+        } else {
+            graphicValue = graphic;
+        }
     }
 
     /** {@inheritDoc} */
     @Override
     public Node getGraphic() {
-        return graphic.get();
+        return graphic == null ? graphicValue : graphic.get();
     }
 
     /** {@inheritDoc} */
@@ -522,7 +573,7 @@ public class SpreadsheetCellBase implements SpreadsheetCell, EventTarget{
     @Override
     public void activateCorner(CornerPosition position) {
         if(setMask(true, getCornerBitNumber(position))){
-            Event.fireEvent(this, new Event(CORNER_EVENT_TYPE));
+            fireEvent(CORNER_EVENT_TYPE);
         }
     }
     
@@ -530,7 +581,7 @@ public class SpreadsheetCellBase implements SpreadsheetCell, EventTarget{
     @Override
     public void deactivateCorner(CornerPosition position) {
         if(setMask(false, getCornerBitNumber(position))){
-             Event.fireEvent(this, new Event(CORNER_EVENT_TYPE));
+             fireEvent(CORNER_EVENT_TYPE);
         }
     }
 
@@ -543,7 +594,7 @@ public class SpreadsheetCellBase implements SpreadsheetCell, EventTarget{
     /** {@inheritDoc} */
     @Override
     public EventDispatchChain buildEventDispatchChain(EventDispatchChain tail) {
-        return tail.append(eventHandlerManager);
+        return eventHandlerManager == null ? tail : tail.append(eventHandlerManager);
     }
     
     /***************************************************************************
@@ -571,7 +622,7 @@ public class SpreadsheetCellBase implements SpreadsheetCell, EventTarget{
                 && Objects.equals(otherCell.getText(), getText())
                 && rowSpan == otherCell.getRowSpan()
                 && columnSpan == otherCell.getColumnSpan()
-                && Objects.equals(getStyleClass(), otherCell.getStyleClass());
+                && Objects.equals(getStyleClassOrDefault(this), getStyleClassOrDefault(otherCell));
     }
 
     /** {@inheritDoc} */
@@ -584,7 +635,7 @@ public class SpreadsheetCellBase implements SpreadsheetCell, EventTarget{
         result = prime * result + rowSpan;
         result = prime * result + columnSpan;
         result = prime * result + Objects.hashCode(getText());
-        result = prime * result + Objects.hashCode(getStyleClass());
+        result = prime * result + (styleClass == null ? DEFAULT_STYLE_CLASS.hashCode() : styleClass.hashCode());
         return result;
     }
     
@@ -599,7 +650,10 @@ public class SpreadsheetCellBase implements SpreadsheetCell, EventTarget{
      */
     @Override
     public void addEventHandler(EventType<Event> eventType, EventHandler<Event> eventHandler) {
-         eventHandlerManager.addEventHandler(eventType, eventHandler);
+        if (eventHandlerManager == null) {
+            eventHandlerManager = new EventHandlerManager(this);
+        }
+        eventHandlerManager.addEventHandler(eventType, eventHandler);
     }
 
     /**
@@ -614,7 +668,9 @@ public class SpreadsheetCellBase implements SpreadsheetCell, EventTarget{
      */
     @Override
     public void removeEventHandler(EventType<Event> eventType, EventHandler<Event> eventHandler) {
-         eventHandlerManager.removeEventHandler(eventType, eventHandler);
+        if (eventHandlerManager != null) {
+            eventHandlerManager.removeEventHandler(eventType, eventHandler);
+        }
     }
     
     /***************************************************************************
@@ -634,11 +690,43 @@ public class SpreadsheetCellBase implements SpreadsheetCell, EventTarget{
     @SuppressWarnings("unchecked")
     protected void updateText() {
         if(getItem() == null){
-            text.setValue(""); //$NON-NLS-1$
+            setText(""); //$NON-NLS-1$
         }else if (!("").equals(getFormat())) { //$NON-NLS-1$
-            text.setValue(type.toString(getItem(), getFormat()));
+            setText(type.toString(getItem(), getFormat()));
         } else {
-            text.setValue(type.toString(getItem()));
+            setText(type.toString(getItem()));
+        }
+    }
+
+    private void setText(String value) {
+        if (text != null) {
+            text.setValue(value);
+        } else {
+            textValue = value;
+        }
+    }
+
+    /**
+     * Returns the styleClass of the given cell without creating the lazy set
+     * of a {@link SpreadsheetCellBase} that has not been styled yet.
+     */
+    private static Set<String> getStyleClassOrDefault(SpreadsheetCell cell) {
+        if (cell instanceof SpreadsheetCellBase) {
+            ObservableSet<String> styleClass = ((SpreadsheetCellBase) cell).styleClass;
+            return styleClass == null ? Collections.singleton(DEFAULT_STYLE_CLASS) : styleClass;
+        }
+        return cell.getStyleClass();
+    }
+
+    /**
+     * Fires an event of the given type on this cell, only if someone has
+     * registered an handler.
+     *
+     * @param eventType
+     */
+    private void fireEvent(EventType<Event> eventType) {
+        if (eventHandlerManager != null) {
+            Event.fireEvent(this, new Event(eventType));
         }
     }
 
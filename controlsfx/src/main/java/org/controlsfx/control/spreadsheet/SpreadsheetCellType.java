@@ -26,9 +26,7 @@
  */
 package org.controlsfx.control.spreadsheet;
 
-import java.text.DecimalFormat;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.Collections;
 import java.util.List;
 
@@ -113,7 +111,7 @@ import javafx.util.converter.IntegerStringConverter;
  *                 } else{
  *                     if (!("").equals(format) &amp;&amp; !Double.isNaN(item)) {
  *                     //We format here the value
- *                         return new DecimalFormat(format).format(item);
+ *                         return FormatCache.getDecimalFormat(format).format(item);
  *                     } else {
  *                     //We call the DoubleStringConverter that we gave in argument
  *                         return myConverter.toString(item);
@@ -469,7 +467,7 @@ public abstract class SpreadsheetCellType<T> {
                         if (item == null || Double.isNaN(item)) {
                             return ""; //$NON-NLS-1$
                         } else {
-                            return new DecimalFormat(format).format(item);
+                            return FormatCache.getDecimalFormat(format).format(item);
                         }
                     } catch (Exception ex) {
                         return myConverter.toString(item);
@@ -786,7 +784,7 @@ public abstract class SpreadsheetCellType<T> {
                     if (("").equals(format) && item != null) { //$NON-NLS-1$
                         return item.toString();
                     } else if (item != null) {
-                        return item.format(DateTimeFormatter.ofPattern(format));
+                        return item.format(FormatCache.getDateTimeFormatter(format));
                     } else {
                         return ""; //$NON-NLS-1$
                     }
@@ -400,6 +400,16 @@ public final class SpreadsheetColumn {
      * @return if it's freezable.
      */
     private boolean initCanFix(Grid grid) {
+        //We do not want to create every row of a VirtualGridBase.
+        if (grid instanceof VirtualGridBase) {
+            for (SpreadsheetCell cell : ((VirtualGridBase) grid).getSpannedCells()) {
+                if (cell.getColumnSpan() > 1 && cell.getColumn() <= indexColumn
+                        && indexColumn < cell.getColumn() + cell.getColumnSpan()) {
+                    return false;
+                }
+            }
+            return true;
+        }
         for (ObservableList<SpreadsheetCell> row : grid.getRows()) {
             int columnSpan = row.get(indexColumn).getColumnSpan();
             if (columnSpan > 1) {
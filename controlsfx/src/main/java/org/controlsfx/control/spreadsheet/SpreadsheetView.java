@@ -33,20 +33,17 @@ import impl.org.controlsfx.spreadsheet.FocusModelListener;
 import impl.org.controlsfx.spreadsheet.GridViewBehavior;
 import impl.org.controlsfx.spreadsheet.GridViewSkin;
 import impl.org.controlsfx.spreadsheet.RectangleSelection.GridRange;
-import impl.org.controlsfx.spreadsheet.RectangleSelection.SelectionRange;
 import impl.org.controlsfx.spreadsheet.SpreadsheetGridView;
 import impl.org.controlsfx.spreadsheet.SpreadsheetHandle;
 import impl.org.controlsfx.spreadsheet.TableViewSpanSelectionModel;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -108,6 +105,7 @@ import javafx.scene.input.ScrollEvent;
 import javafx.scene.transform.Scale;
 import javafx.stage.WindowEvent;
 import javafx.util.Pair;
+import org.controlsfx.tools.RenderingMetrics;
 import org.controlsfx.tools.Utils;
 
 /**
@@ -369,6 +367,7 @@ public class SpreadsheetView extends Control{
     private final SpreadsheetGridView cellsView;// The main cell container.
     private SimpleObjectProperty<Grid> gridProperty = new SimpleObjectProperty<>();
     private DataFormat fmt;
+    private DataFormat blockFmt;
     
     private final ObservableList<Integer> fixedRows = FXCollections.observableArrayList();
     private final ObservableList<SpreadsheetColumn> fixedColumns = FXCollections.observableArrayList();
@@ -411,15 +410,21 @@ public class SpreadsheetView extends Control{
     private static final double MAX_ZOOM = 2;
     private static final double STEP_ZOOM = 0.10;
     //The visible rows.
-    private final ObjectProperty<BitSet> hiddenRowsProperty = new SimpleObjectProperty<>();
+    private final HiddenIndexesProperty hiddenRowsProperty = new HiddenIndexesProperty();
     //Used to get a row index directly from the ObservableList in filteredList.
     private IdentityHashMap<ObservableList<SpreadsheetCell>, Integer> identityMap;
-    private final ObjectProperty<BitSet> hiddenColumnsProperty = new SimpleObjectProperty<>();
-    private HashMap<Integer, Integer> rowMap;
-    private HashMap<Integer, Integer> columnMap = new HashMap<>();
+    private final HiddenIndexesProperty hiddenColumnsProperty = new HiddenIndexesProperty();
+    //Translate the indexes regarding the hidden rows and columns, null means no translation.
+    private HiddenIndex rowIndex;
+    private HiddenIndex columnIndex;
+    //True when the index has already been updated for the current change.
+    private boolean rowIndexUpdated;
+    private boolean columnIndexUpdated;
     private Integer filteredRow;
     private FilteredList<ObservableList<SpreadsheetCell>> filteredList;
     private SortedList<ObservableList<SpreadsheetCell>> sortedList;
+    //The position in the sortedList of each index of the filteredList, computed when needed.
+    private int[] sortedViewIndexes;
 
     /**
      * Since the default with applied to TableColumn is 80. If a user sets a
@@ -430,6 +435,16 @@ public class SpreadsheetView extends Control{
      * width applied by the system, and a 80 width applid by a user.
      */
     private final BitSet columnWidthSet = new BitSet();
+    private RenderingMetrics renderingMetrics;
+    /**
+     * The texts of the cells are formatted with the locale of the
+     * {@link FormatCache}. When it changes, the texts of a row are formatted
+     * again the first time the row is displayed, so the cells do not need to
+     * keep their locale.
+     */
+    private Locale textLocale = FormatCache.getLocale();
+    //The rows formatted again since the locale has changed, null if it has not.
+    private BitSet localizedRows;
     // The handle that bridges with implementation.
     final SpreadsheetHandle handle = new SpreadsheetHandle() {
         
@@ -452,6 +467,11 @@ public class SpreadsheetView extends Control{
         protected boolean isColumnWidthSet(int indexColumn) {
             return columnWidthSet.get(indexColumn);
         }
+
+        @Override
+        protected void updateTextLocale(SpreadsheetCell cell) {
+            SpreadsheetView.this.updateTextLocale(cell);
+        }
     };
 
     /**
@@ -478,6 +498,30 @@ public class SpreadsheetView extends Control{
         columnWidthSet.set(indexColumn);
     }
 
+    /**
+     * Formats again the texts of the row of the given cell if the locale has
+     * changed since they were formatted.
+     *
+     * @param cell the cell about to be displayed
+     */
+    private void updateTextLocale(SpreadsheetCell cell) {
+        final Locale locale = FormatCache.getLocale();
+        if (!locale.equals(textLocale)) {
+            textLocale = locale;
+            localizedRows = new BitSet();
+        }
+        final int row = cell.getRow();
+        if (localizedRows == null || row < 0 || row >= getGrid().getRowCount() || localizedRows.get(row)) {
+            return;
+        }
+        localizedRows.set(row);
+        for (SpreadsheetCell rowCell : getGrid().getRows().get(row)) {
+            if (rowCell instanceof SpreadsheetCellBase) {
+                ((SpreadsheetCellBase) rowCell).updateText();
+            }
+        }
+    }
+
     /***************************************************************************
      * * Constructor * *
      **************************************************************************/
@@ -750,9 +794,41 @@ public class SpreadsheetView extends Control{
             return;
         }
         getHiddenRows().set(row, true);
-        BitSet bitSet = new BitSet(getHiddenRows().size());
-        bitSet.or(getHiddenRows());
-        setHiddenRows(bitSet);
+        rowIndexUpdated = updateIndex(rowIndex, getGrid().getRowCount(), row, true);
+        hiddenRowsProperty.fireChanged();
+        requestLayout();
+    }
+
+    /**
+     * Hide all the specified rows at once. The {@code SpreadsheetView} is
+     * refreshed only once, so this should be preferred to several calls of
+     * {@link #hideRow(int) }.
+     *
+     * @param rows a BitSet where true means that the row must be hidden
+     */
+    public void hideRows(BitSet rows) {
+        final BitSet bitSet = (BitSet) getHiddenRows().clone();
+        bitSet.or(rows);
+        if (!bitSet.equals(getHiddenRows())) {
+            hiddenRowsProperty.setValue(bitSet);
+            requestLayout();
+        }
+    }
+
+    /**
+     * Show all the specified rows at once. The {@code SpreadsheetView} is
+     * refreshed only once, so this should be preferred to several calls of
+     * {@link #showRow(int) }.
+     *
+     * @param rows a BitSet where true means that the row must be shown
+     */
+    public void showRows(BitSet rows) {
+        final BitSet bitSet = (BitSet) getHiddenRows().clone();
+        bitSet.andNot(rows);
+        if (!bitSet.equals(getHiddenRows())) {
+            hiddenRowsProperty.setValue(bitSet);
+            requestLayout();
+        }
     }
 
     /**
@@ -766,9 +842,43 @@ public class SpreadsheetView extends Control{
             return;
         }
         getHiddenColumns().set(indexColumn, true);
-        BitSet bitSet = new BitSet(getHiddenColumns().size());
-        bitSet.or(getHiddenColumns());
-        setHiddenColumns(bitSet);
+        columnIndexUpdated = updateIndex(columnIndex, getGrid().getColumnCount(), indexColumn, true);
+        hiddenColumnsProperty.fireChanged();
+        requestLayout();
+    }
+
+    /**
+     * Hide all the specified columns at once, the indexes are based on the
+     * {@link #getColumns() } list. The {@code SpreadsheetView} is refreshed
+     * only once, so this should be preferred to several calls of
+     * {@link #hideColumn(org.controlsfx.control.spreadsheet.SpreadsheetColumn) }.
+     *
+     * @param columns a BitSet where true means that the column must be hidden
+     */
+    public void hideColumns(BitSet columns) {
+        final BitSet bitSet = (BitSet) getHiddenColumns().clone();
+        bitSet.or(columns);
+        if (!bitSet.equals(getHiddenColumns())) {
+            hiddenColumnsProperty.setValue(bitSet);
+            requestLayout();
+        }
+    }
+
+    /**
+     * Show all the specified columns at once, the indexes are based on the
+     * {@link #getColumns() } list. The {@code SpreadsheetView} is refreshed
+     * only once, so this should be preferred to several calls of
+     * {@link #showColumn(org.controlsfx.control.spreadsheet.SpreadsheetColumn) }.
+     *
+     * @param columns a BitSet where true means that the column must be shown
+     */
+    public void showColumns(BitSet columns) {
+        final BitSet bitSet = (BitSet) getHiddenColumns().clone();
+        bitSet.andNot(columns);
+        if (!bitSet.equals(getHiddenColumns())) {
+            hiddenColumnsProperty.setValue(bitSet);
+            requestLayout();
+        }
     }
 
     private void computeRowMap() {
@@ -778,45 +888,29 @@ public class SpreadsheetView extends Control{
             filteredList.setPredicate(new Predicate<ObservableList<SpreadsheetCell>>() {
                 @Override
                 public boolean test(ObservableList<SpreadsheetCell> t) {
-                    int index = identityMap.get(t);
+                    int index = getRowIndex(t);
                     return !getHiddenRows().get(index) || index == getFilteredRow();
                 }
             });
         }
-        final int rowCount = getGrid().getRowCount();
-        rowMap = new HashMap<>(rowCount);
-        int visibleRow = 0;
-        for (int i = 0; i < rowCount; ++i) {
-            if (!getHiddenRows().get(i)) {
-                rowMap.put(i, visibleRow++);
-            } else {
-                rowMap.put(i, visibleRow);
-            }
+        if (!rowIndexUpdated) {
+            rowIndex = new HiddenIndex(getHiddenRows(), getGrid().getRowCount());
         }
+        rowIndexUpdated = false;
     }
 
     private void computeColumnMap() {
-        int columnCount = getGrid().getColumnCount();
-        columnMap = new HashMap<>(columnCount);
+        if (!columnIndexUpdated) {
+            columnIndex = new HiddenIndex(getHiddenColumns(), getGrid().getColumnCount());
+        }
+        columnIndexUpdated = false;
 
         //Toggling visibility can cause NotOnFxThread Exception.
         CellView.getValue(() -> {
             //Column count can have changed..
             final int columnSize = getColumns().size();
-            int totalColumn = getGrid().getColumnCount();
-            int visibleColumn = 0;
-            for (int i = 0; i < totalColumn; ++i) {
-                if (!getHiddenColumns().get(i)) {
-                    if (i < columnSize) {
-                        getColumns().get(i).column.setVisible(true);
-                    }
-                    columnMap.put(i, visibleColumn++);
-                } else {
-                    if (i < columnSize) {
-                        getColumns().get(i).column.setVisible(false);
-                    }
-                    columnMap.put(i, visibleColumn);
-                }
+            for (int i = 0; i < columnSize; ++i) {
+                getColumns().get(i).column.setVisible(!getHiddenColumns().get(i));
             }
         });
     }
@@ -831,9 +925,9 @@ public class SpreadsheetView extends Control{
             return;
         }
         getHiddenRows().set(row, false);
-        BitSet bitSet = new BitSet(getHiddenRows().size());
-        bitSet.or(getHiddenRows());
-        setHiddenRows(bitSet);
+        rowIndexUpdated = updateIndex(rowIndex, getGrid().getRowCount(), row, false);
+        hiddenRowsProperty.fireChanged();
+        requestLayout();
     }
 
     /**
@@ -847,9 +941,9 @@ public class SpreadsheetView extends Control{
             return;
         }
         getHiddenColumns().set(indexColumn, false);
-        BitSet bitSet = new BitSet(getHiddenColumns().size());
-        bitSet.or(getHiddenColumns());
-        setHiddenColumns(bitSet);
+        columnIndexUpdated = updateIndex(columnIndex, getGrid().getColumnCount(), indexColumn, false);
+        hiddenColumnsProperty.fireChanged();
+        requestLayout();
     }
 
     /**
@@ -861,11 +955,10 @@ public class SpreadsheetView extends Control{
      * @return the index used in the SpreadsheetView.
      */
     public int getFilteredRow(int modelRow) {
-        try {
-            return rowMap.get(modelRow);
-        } catch (NullPointerException ex) {
+        if (rowIndex == null || modelRow < 0 || modelRow >= rowIndex.size()) {
             return modelRow;
         }
+        return rowIndex.getViewIndex(modelRow);
     }
 
     /**
@@ -876,11 +969,10 @@ public class SpreadsheetView extends Control{
      * @return an index based on the visible columns in the SpreadsheetView.
      */
     public int getViewColumn(int modelColumn) {
-        try {
-            return columnMap.get(modelColumn);
-        } catch (NullPointerException ex) {
+        if (columnIndex == null || modelColumn < 0 || modelColumn >= columnIndex.size()) {
             return modelColumn;
         }
+        return columnIndex.getViewIndex(modelColumn);
     }
 
     /**
@@ -893,16 +985,19 @@ public class SpreadsheetView extends Control{
      * SpreadsheetView.
      */
     public int getModelColumn(int viewColumn) {
-        try {
+        if (viewColumn < 0 || viewColumn >= cellsView.getVisibleLeafColumns().size()) {
+            return -1;
+        }
+        if (columnIndex == null || columnIndex.size() != cellsView.getColumns().size()) {
             return cellsView.getColumns().indexOf(cellsView.getVisibleLeafColumn(viewColumn));
-        } catch (NullPointerException ex) {
-            return viewColumn;
         }
+        return columnIndex.getModelIndex(viewColumn);
     }
 
     /**
      * Given the row of a {@code SpreadsheetCell}, returns the actual row as displayed
-     * in the {@code SpreadsheetView}. Beware as it can be a time-consuming operation.
+     * in the {@code SpreadsheetView}. The first call after a new sort has to
+     * index the sorted rows, the following calls are immediate.
      * Also, calling this method on a row that it hidden will return incoherent
      * information.
      *
@@ -921,13 +1016,16 @@ public class SpreadsheetView extends Control{
 
     private int getViewIndex(int sourceIndex) {
         //FIXME Will be improved in JDK9 with https://bugs.openjdk.java.net/browse/JDK-8139848
-        int max = sortedList.size();
-        for (int i = 0; i < max; i++) {
-            if (sortedList.getSourceIndex(i) == sourceIndex) {
-                return i;
+        if (sortedViewIndexes == null) {
+            final int[] viewIndexes = new int[filteredList.size()];
+            Arrays.fill(viewIndexes, -1);
+            final int max = sortedList.size();
+            for (int i = 0; i < max; i++) {
+                viewIndexes[sortedList.getSourceIndex(i)] = i;
             }
+            sortedViewIndexes = viewIndexes;
         }
-        return -1;
+        return sourceIndex >= 0 && sourceIndex < sortedViewIndexes.length ? sortedViewIndexes[sourceIndex] : -1;
     }
     
     /**
@@ -983,6 +1081,29 @@ public class SpreadsheetView extends Control{
      * @return the current row span for the given cell
      */
     public int getRowSpan(SpreadsheetCell cell, int index) {
+        if (cell.getRowSpan() == 1) {
+            return 1;
+        }
+        final RenderingMetrics metrics = getRenderingMetrics();
+        if (metrics == null) {
+            return computeRowSpan(cell, index);
+        }
+        final long start = metrics.begin();
+        try {
+            return computeRowSpan(cell, index);
+        } finally {
+            metrics.endSpan(start);
+        }
+    }
+
+    private int computeRowSpan(SpreadsheetCell cell, int index) {
+        final int firstRow = getFirstViewRow(cell);
+        if (firstRow >= 0 && index >= firstRow) {
+            final int lastRow = firstRow + getRowSpanFilter(cell);
+            if (index < lastRow) {
+                return lastRow - index;
+            }
+        }
         /**
          * We return here the exact rowSpan of the considered index. So if a
          * cell span on 4 but we give the second index, the rowspan will be 2.
@@ -1007,6 +1128,26 @@ public class SpreadsheetView extends Control{
      * @return the current reverse row span for the given cell
      */
     public int getReverseRowSpan(SpreadsheetCell cell, int index) {
+        if (cell.getRowSpan() == 1) {
+            return 1;
+        }
+        final RenderingMetrics metrics = getRenderingMetrics();
+        if (metrics == null) {
+            return computeReverseRowSpan(cell, index);
+        }
+        final long start = metrics.begin();
+        try {
+            return computeReverseRowSpan(cell, index);
+        } finally {
+            metrics.endSpan(start);
+        }
+    }
+
+    private int computeReverseRowSpan(SpreadsheetCell cell, int index) {
+        final int firstRow = getFirstViewRow(cell);
+        if (firstRow >= 0 && index >= firstRow && index < firstRow + getRowSpanFilter(cell)) {
+            return index - firstRow + 1;
+        }
         /**
          * We return here the exact rowSpan of the considered index. So if a
          * cell span on 4 but we give the second index, the rowspan will be 2.
@@ -1028,6 +1169,12 @@ public class SpreadsheetView extends Control{
      */
     public int getRowSpanFilter(SpreadsheetCell cell) {
         int rowSpan = cell.getRowSpan();
+        if (rowSpan == 1) {
+            return getHiddenRows().get(cell.getRow()) ? 0 : 1;
+        }
+        if (rowIndex != null && getGrid() != null && rowIndex.size() == getGrid().getRowCount()) {
+            return rowSpan - rowIndex.getHiddenCount(cell.getRow(), cell.getRow() + rowSpan);
+        }
         //First remove the filtered
         for (int i = cell.getRow(); i < cell.getRow() + cell.getRowSpan(); ++i) {
             rowSpan -= getHiddenRows().get(i) ? 1 : 0;
@@ -1035,6 +1182,29 @@ public class SpreadsheetView extends Control{
         return rowSpan;
     }
 
+    /**
+     * Returns the view row where the given spanned cell starts, or -1 when it
+     * cannot be deduced from the hidden rows. This is only possible when no
+     * sort is applied, because a sort may split the spanned cells.
+     */
+    private int getFirstViewRow(SpreadsheetCell cell) {
+        if (getComparator() != null || rowIndex == null || getGrid() == null
+                || rowIndex.size() != getGrid().getRowCount()) {
+            return -1;
+        }
+        //The filtered row is displayed even if hidden, and is not in the index.
+        final int filtered = getFilteredRow();
+        if (filtered >= cell.getRow() && filtered < cell.getRow() + cell.getRowSpan()
+                && getHiddenRows().get(filtered)) {
+            return -1;
+        }
+        final int row = getHiddenRows().nextClearBit(cell.getRow());
+        if (row >= cell.getRow() + cell.getRowSpan() || row >= rowIndex.size()) {
+            return -1;
+        }
+        return rowIndex.getViewIndex(row);
+    }
+
     /**
      * Return the current list of rows set in the SpreadsheetView as they appear
      * on the screen.
@@ -1053,6 +1223,12 @@ public class SpreadsheetView extends Control{
      */
     public int getColumnSpan(SpreadsheetCell cell) {
         int colSpan = cell.getColumnSpan();
+        if (colSpan == 1) {
+            return getHiddenColumns().get(cell.getColumn()) ? 0 : 1;
+        }
+        if (columnIndex != null && getGrid() != null && columnIndex.size() == getGrid().getColumnCount()) {
+            return colSpan - columnIndex.getHiddenCount(cell.getColumn(), cell.getColumn() + colSpan);
+        }
         for (int i = cell.getColumn(); i < cell.getColumn() + cell.getColumnSpan(); ++i) {
             colSpan -= getHiddenColumns().get(i) ? 1 : 0;
         }
@@ -1132,12 +1308,16 @@ public class SpreadsheetView extends Control{
      * SpreadsheetView.
      */
     public Comparator getComparator() {
-        return sortedList == null ? null : sortedList.getComparator();
+        final Comparator<? super ObservableList<SpreadsheetCell>> comparator = sortedList == null ? null : sortedList.getComparator();
+        return comparator instanceof ColumnComparator.Resort ? ((ColumnComparator.Resort) comparator).comparator : comparator;
     }
 
     /**
      * Return an ObjectProperty wrapping the comparator used in the
-     * SpreadsheetView.
+     * SpreadsheetView. After a {@link ColumnComparator} has been given again
+     * to {@link #setComparator(java.util.Comparator) }, this property holds
+     * another instance sorting like it, while {@link #getComparator() } still
+     * returns the {@link ColumnComparator}.
      *
      * @return an ObjectProperty wrapping the comparator used in the
      * SpreadsheetView.
@@ -1148,11 +1328,22 @@ public class SpreadsheetView extends Control{
 
     /**
      * Sets a new Comparator for the SpreadsheetView in order to sort the rows.
+     * Giving again the current {@link ColumnComparator} sorts the rows again
+     * with the current values of the cells.
      *
      * @param comparator the comparator that will sort the rows.
+     * @see ColumnComparator
      */
     public void setComparator(Comparator<ObservableList<SpreadsheetCell>> comparator) {
-        sortedList.setComparator(comparator);
+        Comparator<ObservableList<SpreadsheetCell>> sortComparator = comparator;
+        if (comparator instanceof ColumnComparator) {
+            ((ColumnComparator) comparator).invalidate();
+            //The SortedList only sorts again when its comparator changes, so the same one is given through another instance.
+            if (comparator == sortedList.getComparator()) {
+                sortComparator = new ColumnComparator.Resort((ColumnComparator) comparator);
+            }
+        }
+        sortedList.setComparator(sortComparator);
         computeRowMap();
         requestLayout();
     }
@@ -1170,8 +1361,21 @@ public class SpreadsheetView extends Control{
         }
         // Reactivate that after
 //        verifyGrid(grid);
+        //The cells of the new grid may have been formatted before the locale changed.
+        if (localizedRows != null) {
+            localizedRows.clear();
+        }
         filteredList = new FilteredList<>(grid.getRows());
         sortedList = new SortedList<>(filteredList);
+        sortedViewIndexes = null;
+        sortedList.addListener((Observable observable) -> {
+            sortedViewIndexes = null;
+        });
+        final Grid previousGrid = gridProperty.get();
+        if (previousGrid != null) {
+            previousGrid.removeEventHandler(GridChangeBatch.GRID_CHANGE_BATCH_EVENT, gridChangeBatchHandler);
+        }
+        grid.addEventHandler(GridChangeBatch.GRID_CHANGE_BATCH_EVENT, gridChangeBatchHandler);
         gridProperty.set(grid);
         setHiddenRows(new BitSet(filteredList.getSource().size()));
         setHiddenColumns(new BitSet(grid.getColumnCount()));
@@ -1239,10 +1443,7 @@ public class SpreadsheetView extends Control{
             }
         }
         
-        List<Pair<Integer, Integer>> selectedCells = new ArrayList<>();
-        for (TablePosition position : getSelectionModel().getSelectedCells()) {
-            selectedCells.add(new Pair<>(position.getRow(), position.getColumn()));
-        }
+        final List<GridRange> selectedRanges = ((TableViewSpanSelectionModel) cellsView.getSelectionModel()).getSelectedRanges();
         
         
         /**
@@ -1264,7 +1465,7 @@ public class SpreadsheetView extends Control{
                     cellsView.getColumns().add(columns.get(i).column);
                 }
             }
-            ((TableViewSpanSelectionModel) cellsView.getSelectionModel()).verifySelectedCells(selectedCells);
+            ((TableViewSpanSelectionModel) cellsView.getSelectionModel()).verifySelectedRanges(selectedRanges);
             //Just like the selected cell we update the focused cell.
             if(finalPair != null && finalPair.getKey() < getGrid().getRowCount() && finalPair.getValue() < getGrid().getColumnCount()){
                 cellsView.getFocusModel().focus(finalPair.getKey(), cellsView.getColumns().get(finalPair.getValue()));
@@ -1662,6 +1863,27 @@ public class SpreadsheetView extends Control{
             getCellsViewSkin().resizeRowsToFitContent();
         }
     }
+
+    /**
+     * This method has the same result as {@link #resizeRowsToFitContent() }
+     * but does not block the application while the rows are measured. The
+     * displayed rows are fitted first, then the other rows are fitted a few
+     * at each pulse. A {@link RowHeightEvent} is fired each time a row is
+     * fitted.
+     *
+     * <p>
+     * The heights of the cells are cached, so fitting again the rows is only
+     * measuring the cells that were modified.
+     *
+     * <p>
+     * Calling {@link #resizeRowsToDefault() } or {@link #resizeRowsToMaximum()
+     * } stops the fitting.
+     */
+    public void resizeRowsToFitContentProgressively() {
+        if (getCellsViewSkin() != null) {
+            getCellsViewSkin().resizeRowsToFitContentProgressively();
+        }
+    }
     
     /**
      * This method will first apply {@link #resizeRowsToFitContent() } and then
@@ -1879,6 +2101,27 @@ public class SpreadsheetView extends Control{
         return cellsView.getPlaceholder();
     }
 
+    /**
+     * Gives the {@link RenderingMetrics} gathering the rendering work of this
+     * SpreadsheetView, or null in order to stop gathering them. No metrics
+     * are gathered by default.
+     *
+     * @param renderingMetrics
+     */
+    public final void setRenderingMetrics(RenderingMetrics renderingMetrics) {
+        this.renderingMetrics = renderingMetrics;
+    }
+
+    /**
+     * Returns the {@link RenderingMetrics} gathering the rendering work of
+     * this SpreadsheetView.
+     *
+     * @return the RenderingMetrics, or null if none
+     */
+    public final RenderingMetrics getRenderingMetrics() {
+        return renderingMetrics;
+    }
+
     
     /***************************************************************************
      * COPY / PASTE METHODS
@@ -1887,65 +2130,165 @@ public class SpreadsheetView extends Control{
     /**
      * Put the current selection into the ClipBoard. This can be overridden by
      * developers for custom behavior.
+     *
+     * The selection is put as text (tab-separated values) and as an HTML
+     * table, so that it can be pasted into other applications, and in a
+     * compact binary form keeping the values of the cells for this
+     * {@code SpreadsheetView}.
      */
     public void copyClipboard() {
         checkFormat();
 
-        final ArrayList<ClipboardCell> list = new ArrayList<>();
-        final ObservableList<TablePosition> posList = getSelectionModel().getSelectedCells();
-
-        Set<SpreadsheetCell> treatedCells = new HashSet<>();
-        for (final TablePosition<?, ?> p : posList) {
-            SpreadsheetCell cell = getGrid().getRows().get(getModelRow(p.getRow())).get(getModelColumn(p.getColumn()));
-            if (!treatedCells.contains(cell)) {
-                treatedCells.add(cell);
-
-                /**
-                 * We need to add every cell contained in a span otherwise the
-                 * rectangles computed when pasting will be wrong.
-                 */
-                for (int row = 0; row < getRowSpan(cell, p.getRow()); ++row) {
-                    for (int col = 0; col < getColumnSpan(cell); ++col) {
-                        try {
-                            new ObjectOutputStream(new ByteArrayOutputStream()).writeObject(cell.getItem());
-                            list.add(new ClipboardCell(p.getRow() + row, p.getColumn() + col, cell.getItem() == null ? null : cell.getItem()));
-                        } catch (IOException exception) {
-                            list.add(new ClipboardCell(p.getRow() + row, p.getColumn() + col, cell.getItem() == null ? null : cell.getItem().toString()));
-                        }
-                    }
-                }
+        //The ranges are ordered by row then by column.
+        final List<GridRange> ranges = ((TableViewSpanSelectionModel) cellsView.getSelectionModel()).getSelectedRanges();
+        long count = 0;
+        int left = Integer.MAX_VALUE;
+        for (GridRange range : ranges) {
+            count += (long) (range.getBottom() - range.getTop() + 1) * (range.getRight() - range.getLeft() + 1);
+            left = Math.min(left, range.getLeft());
+        }
+        //The cells are written one by one, the values are not gathered.
+        final ClipboardBlock.Writer block = new ClipboardBlock.Writer((int) Math.min(count, Integer.MAX_VALUE - 8));
+        final StringBuilder text = new StringBuilder();
+        final StringBuilder html = new StringBuilder("<table>"); //$NON-NLS-1$
+        final Set<SpreadsheetCell> copiedSpans = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        int first = 0;
+        while (first < ranges.size()) {
+            /**
+             * The ranges sharing the same rows are next to each other, so we
+             * can write the selection row by row.
+             */
+            final GridRange band = ranges.get(first);
+            int last = first + 1;
+            while (last < ranges.size() && ranges.get(last).getTop() == band.getTop()) {
+                ++last;
+            }
+            for (int row = band.getTop(); row <= band.getBottom(); ++row) {
+                copyRow(row, ranges.subList(first, last), left, block, text, html, copiedSpans);
             }
+            first = last;
         }
+        html.append("</table>"); //$NON-NLS-1$
+
         final ClipboardContent content = new ClipboardContent();
-        content.put(fmt, list);
+        content.put(blockFmt, block.toBytes());
+        content.putString(text.toString());
+        content.putHtml(html.toString());
         Clipboard.getSystemClipboard().setContent(content);
     }
 
+    /**
+     * Copies the selected cells of one row. A spanned cell is copied in every
+     * position it covers, so that the rectangles computed when pasting are
+     * right, but its text is only written once, at its first selected
+     * position. That position is not the origin of the span if the span
+     * starts outside of the selection.
+     */
+    private void copyRow(int row, List<GridRange> ranges, int left, ClipboardBlock.Writer block, StringBuilder text, StringBuilder html,
+            Set<SpreadsheetCell> copiedSpans) {
+        if (text.length() > 0) {
+            text.append('\n');
+        }
+        html.append("<tr>"); //$NON-NLS-1$
+        final int modelRow = getModelRow(row);
+        final List<SpreadsheetCell> rowCells = getGrid().getRows().get(modelRow);
+        int slot = left;
+        for (GridRange range : ranges) {
+            for (int column = range.getLeft(); column <= range.getRight(); ++column) {
+                //The columns that are not selected are left empty.
+                for (; slot < column; ++slot) {
+                    if (slot > left) {
+                        text.append('\t');
+                    }
+                    html.append("<td></td>"); //$NON-NLS-1$
+                }
+                final int modelColumn = getModelColumn(column);
+                final SpreadsheetCell cell = rowCells.get(modelColumn);
+                block.write(row, column, cell.getItem());
+
+                final boolean firstPosition = (cell.getRowSpan() == 1 && cell.getColumnSpan() == 1) || copiedSpans.add(cell);
+                final String cellText = firstPosition && cell.getText() != null ? cell.getText() : ""; //$NON-NLS-1$
+                if (column > left) {
+                    text.append('\t');
+                }
+                appendTabSeparatedValue(text, cellText);
+                html.append("<td>"); //$NON-NLS-1$
+                appendHtmlValue(html, cellText);
+                html.append("</td>"); //$NON-NLS-1$
+                slot = column + 1;
+            }
+        }
+        html.append("</tr>"); //$NON-NLS-1$
+    }
+
+    private static void appendTabSeparatedValue(StringBuilder builder, String value) {
+        if (value.indexOf('\t') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0 && value.indexOf('"') < 0) {
+            builder.append(value);
+        } else {
+            builder.append('"').append(value.replace("\"", "\"\"")).append('"'); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+    private static void appendHtmlValue(StringBuilder builder, String value) {
+        for (int i = 0; i < value.length(); ++i) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '<':
+                    builder.append("&lt;"); //$NON-NLS-1$
+                    break;
+                case '>':
+                    builder.append("&gt;"); //$NON-NLS-1$
+                    break;
+                case '&':
+                    builder.append("&amp;"); //$NON-NLS-1$
+                    break;
+                case '"':
+                    builder.append("&quot;"); //$NON-NLS-1$
+                    break;
+                case '\n':
+                    builder.append("<br>"); //$NON-NLS-1$
+                    break;
+                default:
+                    builder.append(c);
+            }
+        }
+    }
+
     /**
      * Paste one value from the clipboard over the whole selection.
-     * @param change 
+     * @param value 
      */
-    private void pasteOneValue(ClipboardCell change) {
-        for (TablePosition position : getSelectionModel().getSelectedCells()) {
-            tryPasteCell(getModelRow(position.getRow()), getModelColumn(position.getColumn()), change.getValue());
+    private void pasteOneValue(Object value) {
+        final Set<SpreadsheetCell> pastedSpans = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (GridRange range : ((TableViewSpanSelectionModel) cellsView.getSelectionModel()).getSelectedRanges()) {
+            for (int row = range.getTop(); row <= range.getBottom(); ++row) {
+                final int modelRow = getModelRow(row);
+                for (int column = range.getLeft(); column <= range.getRight(); ++column) {
+                    tryPasteCell(modelRow, getModelColumn(column), value, pastedSpans);
+                }
+            }
         }
     }
 
     /**
-     * Try to paste the given value into the given position.
+     * Try to paste the given value into the given position. A spanned cell
+     * only receives the value pasted at its first position in the pasted
+     * area, even if the span starts outside of that area.
      * @param row
      * @param column
      * @param value 
+     * @param pastedSpans the spanned cells already pasted
      */
-    private void tryPasteCell(int row, int column, Object value) {
-        final SpanType type = getSpanType(row, column);
-        if (type == SpanType.NORMAL_CELL || type == SpanType.ROW_VISIBLE) {
-            SpreadsheetCell cell = getGrid().getRows().get(row).get(column);
-            boolean succeed = cell.getCellType().match(value, cell.getOptionsForEditor());
-            if (succeed) {
-                getGrid().setCellValue(cell.getRow(), cell.getColumn(),
-                        cell.getCellType().convertValue(value));
-            }
+    private void tryPasteCell(int row, int column, Object value, Set<SpreadsheetCell> pastedSpans) {
+        SpreadsheetCell cell = getGrid().getRows().get(row).get(column);
+        if ((cell.getRowSpan() > 1 || cell.getColumnSpan() > 1) && !pastedSpans.add(cell)) {
+            return;
+        }
+        boolean succeed = cell.getCellType().match(value, cell.getOptionsForEditor());
+        if (succeed) {
+            getGrid().setCellValue(cell.getRow(), cell.getColumn(),
+                    cell.getCellType().convertValue(value));
         }
     }
 
@@ -1956,20 +2299,18 @@ public class SpreadsheetView extends Control{
      * of the number of columns of the source, then we can paste.
      *
      * Same goes if we invert the rows and columns.
-     * @param list
+     * @param block
      */
-    private void pasteMixedValues(ArrayList<ClipboardCell> list) {
-        SelectionRange sourceSelectionRange = new SelectionRange();
-        sourceSelectionRange.fillClipboardRange(list);
+    private void pasteMixedValues(ClipboardBlock block) {
+        final GridRange sourceRange = block.getRange();
+        final Set<SpreadsheetCell> pastedSpans = Collections.newSetFromMap(new IdentityHashMap<>());
 
         //It means we have a rectangle.
-        if (sourceSelectionRange.getRange() != null) {
-            SelectionRange targetSelectionRange = new SelectionRange();
-            targetSelectionRange.fill(cellsView.getSelectionModel().getSelectedCells());
-            if (targetSelectionRange.getRange() != null) {
+        if (sourceRange != null) {
+            final List<GridRange> targetRanges = ((TableViewSpanSelectionModel) cellsView.getSelectionModel()).getSelectedRanges();
+            if (targetRanges.size() == 1) {
                 //If both selection are rectangle
-                GridRange sourceRange = sourceSelectionRange.getRange();
-                GridRange targetRange = targetSelectionRange.getRange();
+                GridRange targetRange = targetRanges.get(0);
                 int sourceRowGap = sourceRange.getBottom() - sourceRange.getTop() + 1;
                 int targetRowGap = targetRange.getBottom() - targetRange.getTop() + 1;
 
@@ -1981,28 +2322,28 @@ public class SpreadsheetView extends Control{
 
                 //If the numbers of rows are the same and the targetColumnGap is a multiple of sourceColumnGap
                 if ((sourceRowGap == targetRowGap || targetRowGap == 1) && (targetColumnGap % sourceColumnGap) == 0) {
-                    for (final ClipboardCell change : list) {
-                        int row = getModelRow(change.getRow() + offsetRow);
-                        int column = change.getColumn() + offsetCol;
+                    for (int i = 0; i < block.size(); ++i) {
+                        int row = getModelRow(block.getRow(i) + offsetRow);
+                        int column = block.getColumn(i) + offsetCol;
                         do {
                             int modelColumn = getModelColumn(column);
                             if (row < getGrid().getRowCount() && modelColumn < getGrid().getColumnCount()
                                     && row >= 0 && column >= 0) {
-                                tryPasteCell(row, modelColumn, change.getValue());
+                                tryPasteCell(row, modelColumn, block.getValue(i), pastedSpans);
                             }
                         } while ((column = column + sourceColumnGap) <= targetRange.getRight());
                     }
                     //If the numbers of columns are the same and the targetRowGap is a multiple of sourceRowGap
                 } else if ((sourceColumnGap == targetColumnGap || targetColumnGap == 1) && (targetRowGap % sourceRowGap) == 0) {
-                    for (final ClipboardCell change : list) {
+                    for (int i = 0; i < block.size(); ++i) {
 
-                        int row = change.getRow() + offsetRow;
-                        int column = getModelColumn(change.getColumn() + offsetCol);
+                        int row = block.getRow(i) + offsetRow;
+                        int column = getModelColumn(block.getColumn(i) + offsetCol);
                         do {
                             int modelRow = getModelRow(row);
                             if (modelRow < getGrid().getRowCount() && column < getGrid().getColumnCount()
                                     && row >= 0 && column >= 0) {
-                                tryPasteCell(modelRow, column, change.getValue());
+                                tryPasteCell(modelRow, column, block.getValue(i), pastedSpans);
                             }
                         } while ((row = row + sourceRowGap) <= targetRange.getBottom());
                     }
@@ -2014,46 +2355,26 @@ public class SpreadsheetView extends Control{
     /**
      * If we have several source values to paste into one cell, we do it.
      *
-     * @param list
+     * @param block
      */
-    private void pasteSeveralValues(ArrayList<ClipboardCell> list) {
-        // TODO algorithm very bad
-        int minRow = getGrid().getRowCount();
-        int minCol = getGrid().getColumnCount();
-        int maxRow = 0;
-        int maxCol = 0;
-        for (final ClipboardCell p : list) {
-            final int tempcol = p.getColumn();
-            final int temprow = p.getRow();
-            if (tempcol < minCol) {
-                minCol = tempcol;
-            }
-            if (tempcol > maxCol) {
-                maxCol = tempcol;
-            }
-            if (temprow < minRow) {
-                minRow = temprow;
-            }
-            if (temprow > maxRow) {
-                maxRow = temprow;
-            }
-        }
-
+    private void pasteSeveralValues(ClipboardBlock block) {
+        final GridRange bounds = block.getBounds();
         final TablePosition<?, ?> p = cellsView.getFocusModel().getFocusedCell();
 
-        final int offsetRow = p.getRow() - minRow;
-        final int offsetCol = p.getColumn() - minCol;
+        final int offsetRow = p.getRow() - bounds.getTop();
+        final int offsetCol = p.getColumn() - bounds.getLeft();
         final int rowCount = getGrid().getRowCount();
         final int columnCount = getGrid().getColumnCount();
+        final Set<SpreadsheetCell> pastedSpans = Collections.newSetFromMap(new IdentityHashMap<>());
         int row;
         int column;
 
-        for (final ClipboardCell change : list) {
-            row = getModelRow(change.getRow() + offsetRow);
-            column = getModelColumn(change.getColumn() + offsetCol);
+        for (int i = 0; i < block.size(); ++i) {
+            row = getModelRow(block.getRow(i) + offsetRow);
+            column = getModelColumn(block.getColumn(i) + offsetCol);
             if (row < rowCount && column < columnCount
                     && row >= 0 && column >= 0) {
-                tryPasteCell(row, column, change.getValue());
+                tryPasteCell(row, column, block.getValue(i), pastedSpans);
             }
         }
     }
@@ -2073,16 +2394,29 @@ public class SpreadsheetView extends Control{
 
         checkFormat();
         final Clipboard clipboard = Clipboard.getSystemClipboard();
-        if (clipboard.getContent(fmt) != null) {
-
+        ClipboardBlock block = null;
+        final Object content = clipboard.getContent(blockFmt);
+        if (content instanceof byte[]) {
+            block = ClipboardBlock.fromBytes((byte[]) content);
+        } else if (clipboard.getContent(fmt) != null) {
+            //Content copied by a previous version.
             @SuppressWarnings("unchecked")
             final ArrayList<ClipboardCell> list = (ArrayList<ClipboardCell>) clipboard.getContent(fmt);
-            if (list.size() == 1) {
-                pasteOneValue(list.get(0));
-            } else if (selectedCells.size() > 1) {
-                pasteMixedValues(list);
-            } else {
-                pasteSeveralValues(list);
+            block = ClipboardBlock.of(list);
+        }
+        if (block != null && block.size() > 0) {
+            //All the pasted values are notified as one batch.
+            getGrid().beginBatch();
+            try {
+                if (block.size() == 1) {
+                    pasteOneValue(block.getValue(0));
+                } else if (selectedCells.size() > 1) {
+                    pasteMixedValues(block);
+                } else {
+                    pasteSeveralValues(block);
+                }
+            } finally {
+                getGrid().commitBatch();
             }
             // To be improved
         } else if (clipboard.hasString()) {
@@ -2185,8 +2519,13 @@ public class SpreadsheetView extends Control{
      * be overridden by developers for custom behavior.
      */
     public void deleteSelectedCells() {
-        for (TablePosition<ObservableList<SpreadsheetCell>, ?> position : getSelectionModel().getSelectedCells()) {
-            getGrid().setCellValue(getModelRow(position.getRow()), getModelColumn(position.getColumn()), null);
+        getGrid().beginBatch();
+        try {
+            for (TablePosition<ObservableList<SpreadsheetCell>, ?> position : getSelectionModel().getSelectedCells()) {
+                getGrid().setCellValue(getModelRow(position.getRow()), getModelColumn(position.getColumn()), null);
+            }
+        } finally {
+            getGrid().commitBatch();
         }
     }
     
@@ -2216,6 +2555,19 @@ public class SpreadsheetView extends Control{
         if (cellColumn == modelColumn /*&& cellRow == rowIndex*/ && cellRowSpan == 1) {
             return SpanType.NORMAL_CELL;
         }
+        final RenderingMetrics metrics = getRenderingMetrics();
+        if (metrics == null) {
+            return computeSpanType(rowIndex, modelColumn, cell, cellColumn, cellRowSpan);
+        }
+        final long start = metrics.begin();
+        try {
+            return computeSpanType(rowIndex, modelColumn, cell, cellColumn, cellRowSpan);
+        } finally {
+            metrics.endSpan(start);
+        }
+    }
+
+    private SpanType computeSpanType(int rowIndex, int modelColumn, SpreadsheetCell cell, int cellColumn, int cellRowSpan) {
 //        cellRowSpan = spv.getRowSpanFilter(cell);
         final int cellColumnSpan = getColumnSpan(cell);
         /**
@@ -2328,6 +2680,20 @@ public class SpreadsheetView extends Control{
         ObservableList<ObservableList<SpreadsheetCell>> rows = grid.getRows();
         final int rowSize = rows.size();
         rowFix = new BitSet(rowSize);
+        /**
+         * A VirtualGridBase knows its spans, so we must not go through every
+         * cell because it would create all the rows.
+         */
+        if (grid instanceof VirtualGridBase) {
+            identityMap = null;
+            rowFix.set(0, rowSize);
+            for (SpreadsheetCell cell : ((VirtualGridBase) grid).getSpannedCells()) {
+                if (getRowSpanFilter(cell) > 1) {
+                    rowFix.clear(cell.getRow(), Math.min(cell.getRow() + cell.getRowSpan(), rowSize));
+                }
+            }
+            return;
+        }
         identityMap = new IdentityHashMap<>(rowSize);
         rows:
         for (int r = 0; r < rowSize; ++r) {
@@ -2342,6 +2708,16 @@ public class SpreadsheetView extends Control{
         }
     }
     
+    /**
+     * Return the model index of a row given by {@link Grid#getRows() }.
+     *
+     * @param row
+     * @return the model index of the row.
+     */
+    private int getRowIndex(ObservableList<SpreadsheetCell> row) {
+        return identityMap == null ? VirtualGridBase.getRowIndex(row) : identityMap.get(row);
+    }
+
     /**
      * Verify that the grid is well-formed. Can be quite time-consuming I guess
      * so I would like it not to be compulsory..
@@ -2387,6 +2763,9 @@ public class SpreadsheetView extends Control{
         if ((fmt = DataFormat.lookupMimeType("SpreadsheetView")) == null) { //$NON-NLS-1$
             fmt = new DataFormat("SpreadsheetView"); //$NON-NLS-1$
         }
+        if ((blockFmt = DataFormat.lookupMimeType("SpreadsheetView/block")) == null) { //$NON-NLS-1$
+            blockFmt = new DataFormat("SpreadsheetView/block"); //$NON-NLS-1$
+        }
     }
 
     /**
@@ -2527,6 +2906,19 @@ public class SpreadsheetView extends Control{
         }
     };
     
+    /**
+     * When a batch of modifications is committed, the rows displaying its
+     * cells are refreshed once for the whole batch.
+     */
+    private final EventHandler<GridChangeBatch> gridChangeBatchHandler = (GridChangeBatch batch) -> {
+        final GridViewSkin skin = getCellsViewSkin();
+        if (skin == null) {
+            requestLayout();
+        } else {
+            skin.refreshRows(batch);
+        }
+    };
+
     private final EventHandler<KeyEvent> keyPressedHandler = (KeyEvent keyEvent) -> {
         TablePosition<ObservableList<SpreadsheetCell>, ?> position = getSelectionModel().getFocusedCell();
         // Go to the next row only if we're not editing
@@ -2591,6 +2983,32 @@ public class SpreadsheetView extends Control{
                 && !keyEvent.getCode().isMediaKey()
                 && keyEvent.getCode() != KeyCode.ESCAPE;
     }
+
+    /**
+     * Hides or shows one index in the given {@link HiddenIndex} if it is
+     * still in use.
+     *
+     * @return true if the index has been updated, false if it must be rebuilt
+     */
+    private static boolean updateIndex(HiddenIndex index, int size, int hiddenIndex, boolean hidden) {
+        if (index == null || index.size() != size) {
+            return false;
+        }
+        index.setHidden(hiddenIndex, hidden);
+        return true;
+    }
+
+    /**
+     * The BitSet of the hidden rows or columns. When only one index is hidden
+     * or shown, the BitSet is modified in place and the listeners are then
+     * notified, instead of copying it.
+     */
+    private static class HiddenIndexesProperty extends SimpleObjectProperty<BitSet> {
+
+        void fireChanged() {
+            fireValueChangedEvent();
+        }
+    }
     
     /**
      * This event is thrown on the SpreadsheetView when the user resize a row
@@ -0,0 +1,523 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.control.spreadsheet;
+
+import static impl.org.controlsfx.spreadsheet.RectangleSelection.SelectionRange.key;
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+
+/**
+ * A {@link Grid} implementation that creates its {@link SpreadsheetCell}
+ * on demand.
+ *
+ * <p>
+ * {@link GridBase} requires every row to be materialized as an
+ * {@code ObservableList} of {@link SpreadsheetCell} before being given to the
+ * {@link SpreadsheetView}. With very large grids (millions of rows), this is
+ * costing a lot of memory and time. The {@code VirtualGridBase} only knows its
+ * {@link #getRowCount() row count} and {@link #getColumnCount() column count}
+ * and asks a {@link CellProvider} to create the cells of a row only when that
+ * row is actually requested by the {@link SpreadsheetView} (usually because
+ * it is about to be displayed).
+ *
+ * <p>
+ * The materialized rows are kept in a bounded cache in which the least
+ * recently used rows are discarded first. A discarded row will simply be
+ * created again by the {@link CellProvider} the next time it is needed. Thus
+ * the {@link CellProvider} must always give the same cells for the same
+ * coordinates, and any specific configuration of a cell (style, format,
+ * graphic etc) should be done by the provider itself.
+ *
+ * <h3>Cell values</h3>
+ * The values modified through {@link #setCellValue(int, int, Object)} are
+ * kept by the grid so that they survive the eviction of their row: they are
+ * applied again on the newly created cells. Just like {@link GridBase}, a
+ * {@link GridChange} event is fired for each modification so the values can
+ * be written back into the underlying data source.
+ *
+ * <h3>Span</h3>
+ * Spans must be declared with {@link #spanRow(int, int, int) } and
+ * {@link #spanColumn(int, int, int) }. The cells involved in a span are
+ * never discarded because the same instance must be shared by every position
+ * covered by the span. The {@link CellProvider} should therefore return cells
+ * with a row and column span of one.
+ *
+ * <h3>Code Sample</h3>
+ * <pre>
+ * VirtualGridBase grid = new VirtualGridBase(2_000_000, 40, (row, column) -&gt;
+ *         SpreadsheetCellType.DOUBLE.createCell(row, column, 1, 1, loadValue(row, column)));
+ * grid.spanColumn(40, 0, 0);
+ *
+ * SpreadsheetView spv = new SpreadsheetView(grid);
+ * </pre>
+ *
+ * @see Grid
+ * @see GridBase
+ */
+public class VirtualGridBase extends GridBase {
+
+    /**
+     * The default number of materialized rows kept by the grid.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 1000;
+
+    /**
+     * Creates the {@link SpreadsheetCell} of a {@link VirtualGridBase} when
+     * they are requested.
+     */
+    @FunctionalInterface
+    public static interface CellProvider {
+
+        /**
+         * Creates the cell situated at the given coordinates.
+         *
+         * @param row the row index
+         * @param column the column index
+         * @return the cell situated at the given coordinates
+         */
+        public SpreadsheetCell createCell(int row, int column);
+    }
+
+    /***************************************************************************
+     *
+     * Private Fields
+     *
+     **************************************************************************/
+    private final CellProvider cellProvider;
+    private final int columnCount;
+    private int rowCount;
+    private final VirtualRows rows = new VirtualRows();
+    //The row views are light objects, only the recently used ones are kept.
+    private final Map<Integer, VirtualRow> rowViews;
+    private final Map<Integer, SpreadsheetCell[]> materializedRows;
+    //The values modified through setCellValue.
+    private final Map<Long, Object> editedValues = new HashMap<>();
+    //Every position covered by a span, associated with the spanning cell.
+    private final Map<Long, SpreadsheetCell> spannedCells = new HashMap<>();
+    private BitSet resizableRows;
+
+    /***************************************************************************
+     *
+     * Constructor
+     *
+     **************************************************************************/
+
+    /**
+     * Creates a {@code VirtualGridBase} keeping at most
+     * {@link #DEFAULT_CACHE_SIZE} materialized rows.
+     *
+     * @param rowCount the number of rows
+     * @param columnCount the number of columns
+     * @param cellProvider the provider creating the cells
+     */
+    public VirtualGridBase(int rowCount, int columnCount, CellProvider cellProvider) {
+        this(rowCount, columnCount, cellProvider, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a {@code VirtualGridBase}.
+     *
+     * @param rowCount the number of rows
+     * @param columnCount the number of columns
+     * @param cellProvider the provider creating the cells
+     * @param cacheSize the maximum number of materialized rows kept by the
+     * grid
+     */
+    public VirtualGridBase(int rowCount, int columnCount, CellProvider cellProvider, int cacheSize) {
+        super(0, columnCount);
+        if (cellProvider == null) {
+            throw new NullPointerException("The cellProvider cannot be null"); //$NON-NLS-1$
+        }
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("The cacheSize must be positive"); //$NON-NLS-1$
+        }
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.cellProvider = cellProvider;
+        rowViews = new LinkedHashMap<Integer, VirtualRow>(Math.min(cacheSize, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, VirtualRow> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        materializedRows = new LinkedHashMap<Integer, SpreadsheetCell[]>(Math.min(cacheSize, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, SpreadsheetCell[]> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /***************************************************************************
+     *
+     * Public Methods
+     *
+     **************************************************************************/
+
+    /**
+     * {@inheritDoc}
+     *
+     * The returned list cannot be modified. Its rows are views that will
+     * request their cells to the {@link CellProvider} only when accessed.
+     */
+    @Override
+    public ObservableList<ObservableList<SpreadsheetCell>> getRows() {
+        return rows;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    /**
+     * Changes the number of rows of this grid. This is useful when the data
+     * are loaded progressively. The {@link SpreadsheetView} will be notified
+     * of the added or removed rows.
+     *
+     * @param rowCount the new number of rows
+     */
+    public void setRowCount(int rowCount) {
+        if (rowCount < 0 || rowCount == this.rowCount) {
+            return;
+        }
+        final int oldRowCount = this.rowCount;
+        if (rowCount > oldRowCount) {
+            this.rowCount = rowCount;
+            rows.fireRowsAdded(oldRowCount, rowCount);
+        } else {
+            //The removed rows are given as views created on demand, so that
+            //removing millions of rows does not create millions of objects.
+            final int from = rowCount;
+            List<ObservableList<SpreadsheetCell>> removed = new AbstractList<ObservableList<SpreadsheetCell>>() {
+                @Override
+                public ObservableList<SpreadsheetCell> get(int index) {
+                    return new VirtualRow(from + index);
+                }
+
+                @Override
+                public int size() {
+                    return oldRowCount - from;
+                }
+            };
+            this.rowCount = rowCount;
+            pruneRows();
+            rows.fireRowsRemoved(rowCount, removed);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The modified value is kept by the grid, so that it can be applied again
+     * if the row is discarded and then created again.
+     */
+    @Override
+    public void setCellValue(int modelRow, int column, Object value) {
+        super.setCellValue(modelRow, column, value);
+        if (modelRow >= 0 && modelRow < rowCount && column >= 0 && column < columnCount && !isLocked()) {
+            SpreadsheetCell cell = getCell(modelRow, column);
+            //The value of a stored cell is already kept by its store.
+            if (!(cell instanceof NumericColumnStore.StoredCell)) {
+                editedValues.put(key(cell.getRow(), cell.getColumn()), cell.getItem());
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void spanRow(int count, int rowIndex, int colIndex) {
+        if (count <= 0 || count > getRowCount() || rowIndex < 0 || rowIndex >= getRowCount()
+                || colIndex < 0 || colIndex >= columnCount) {
+            return;
+        }
+        final SpreadsheetCell cell = getCell(rowIndex, colIndex);
+        cell.setRowSpan(count);
+        span(cell, rowIndex, colIndex, count, cell.getColumnSpan());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void spanColumn(int count, int rowIndex, int colIndex) {
+        if (count <= 0 || count > columnCount || rowIndex < 0 || rowIndex >= getRowCount()
+                || colIndex < 0 || colIndex >= columnCount) {
+            return;
+        }
+        final SpreadsheetCell cell = getCell(rowIndex, colIndex);
+        cell.setColumnSpan(count);
+        span(cell, rowIndex, colIndex, cell.getRowSpan(), count);
+    }
+
+    /**
+     * The rows of a {@code VirtualGridBase} are provided by the
+     * {@link CellProvider}, thus this method is not supported.
+     *
+     * @param rows
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void setRows(Collection<ObservableList<SpreadsheetCell>> rows) {
+        throw new UnsupportedOperationException("The rows of a VirtualGridBase are given by its CellProvider"); //$NON-NLS-1$
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * By default, every row of a {@code VirtualGridBase} is resizable.
+     */
+    @Override
+    public void setResizableRows(BitSet resizableRow) {
+        this.resizableRows = resizableRow;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isRowResizable(int row) {
+        return resizableRows == null || resizableRows.get(row);
+    }
+
+    /**
+     * Returns the {@link SpreadsheetCell} situated at the given position,
+     * creating its row if necessary.
+     *
+     * @param row the row index
+     * @param column the column index
+     * @return the {@link SpreadsheetCell} situated at the given position
+     */
+    public SpreadsheetCell getCell(int row, int column) {
+        if (row < 0 || row >= rowCount || column < 0 || column >= columnCount) {
+            throw new IndexOutOfBoundsException("Cell [" + row + "][" + column + "] is out of the grid"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        }
+        return materializeRow(row)[column];
+    }
+
+    /**
+     * Returns the cells that have been spanned with {@link #spanRow(int, int, int)
+     * } or {@link #spanColumn(int, int, int) }. This allows to know the spans of
+     * the grid without creating all its rows.
+     *
+     * @return an unmodifiable collection of the spanning cells
+     */
+    public Collection<SpreadsheetCell> getSpannedCells() {
+        Set<SpreadsheetCell> cells = Collections.newSetFromMap(new IdentityHashMap<>());
+        cells.addAll(spannedCells.values());
+        return Collections.unmodifiableCollection(cells);
+    }
+
+    /**
+     * Returns whether the row is currently materialized, that is to say its
+     * cells have been created and are kept by the grid.
+     *
+     * @param row the row index
+     * @return {@code true} if the row is currently materialized
+     */
+    public boolean isRowMaterialized(int row) {
+        return materializedRows.containsKey(row);
+    }
+
+    /***************************************************************************
+     *
+     * Private implementation
+     *
+     **************************************************************************/
+
+    /**
+     * Returns the model index of a row given by {@link #getRows() } of a
+     * VirtualGridBase.
+     *
+     * @param row
+     * @return the model index of the row
+     */
+    static int getRowIndex(ObservableList<SpreadsheetCell> row) {
+        return ((VirtualRow) row).index;
+    }
+
+    private VirtualRow getRowView(int row) {
+        return rowViews.computeIfAbsent(row, VirtualRow::new);
+    }
+
+    /**
+     * Forgets everything the grid knows about the rows that are now beyond
+     * {@link #rowCount}, and shortens the spans crossing the new end.
+     */
+    private void pruneRows() {
+        rowViews.keySet().removeIf(row -> row >= rowCount);
+        materializedRows.keySet().removeIf(row -> row >= rowCount);
+        editedValues.keySet().removeIf(key -> getRow(key) >= rowCount);
+        if (!spannedCells.isEmpty()) {
+            spannedCells.keySet().removeIf(key -> getRow(key) >= rowCount);
+            for (SpreadsheetCell cell : spannedCells.values()) {
+                if (cell.getRow() + cell.getRowSpan() > rowCount) {
+                    cell.setRowSpan(rowCount - cell.getRow());
+                }
+            }
+        }
+    }
+
+    private static int getRow(Long key) {
+        return (int) (key >> 32);
+    }
+
+    private SpreadsheetCell[] materializeRow(int row) {
+        SpreadsheetCell[] cells = materializedRows.get(row);
+        if (cells == null) {
+            cells = new SpreadsheetCell[columnCount];
+            for (int column = 0; column < columnCount; ++column) {
+                cells[column] = createCell(row, column);
+            }
+            materializedRows.put(row, cells);
+        }
+        return cells;
+    }
+
+    private SpreadsheetCell createCell(int row, int column) {
+        if (!spannedCells.isEmpty()) {
+            SpreadsheetCell spannedCell = spannedCells.get(key(row, column));
+            if (spannedCell != null) {
+                return spannedCell;
+            }
+        }
+        SpreadsheetCell cell = cellProvider.createCell(row, column);
+        if (!editedValues.isEmpty()) {
+            Long key = key(row, column);
+            if (editedValues.containsKey(key)) {
+                cell.setItem(editedValues.get(key));
+            }
+        }
+        return cell;
+    }
+
+    /**
+     * Puts the spanning cell in every position it covers, and remember them so
+     * that the span survive the eviction of its rows.
+     */
+    private void span(SpreadsheetCell cell, int rowIndex, int colIndex, int rowSpan, int colSpan) {
+        for (int row = rowIndex; row < rowIndex + rowSpan && row < getRowCount(); ++row) {
+            SpreadsheetCell[] cells = materializedRows.get(row);
+            for (int col = colIndex; col < colIndex + colSpan && col < columnCount; ++col) {
+                spannedCells.put(key(row, col), cell);
+                if (cells != null) {
+                    cells[col] = cell;
+                }
+            }
+        }
+    }
+
+    /**
+     * The list of all rows, it only creates the row views when requested.
+     */
+    private class VirtualRows extends ObservableListBase<ObservableList<SpreadsheetCell>> {
+
+        @Override
+        public ObservableList<SpreadsheetCell> get(int index) {
+            if (index < 0 || index >= rowCount) {
+                throw new IndexOutOfBoundsException("Row " + index + " is out of the grid"); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+            return getRowView(index);
+        }
+
+        @Override
+        public int size() {
+            return rowCount;
+        }
+
+        void fireRowsAdded(int from, int to) {
+            beginChange();
+            nextAdd(from, to);
+            endChange();
+        }
+
+        void fireRowsRemoved(int from, List<ObservableList<SpreadsheetCell>> removed) {
+            beginChange();
+            nextRemove(from, removed);
+            endChange();
+        }
+    }
+
+    /**
+     * A read-only view on one row. The cells are materialized by the grid when
+     * the view is accessed.
+     */
+    private class VirtualRow extends ObservableListBase<SpreadsheetCell> {
+
+        private final int index;
+
+        VirtualRow(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public SpreadsheetCell get(int column) {
+            return getCell(index, column);
+        }
+
+        @Override
+        public int size() {
+            return columnCount;
+        }
+
+        /**
+         * We do not want to compare the content because it would require to
+         * materialize the rows. Since the views are discarded and created
+         * again, two views of the same row of the same grid are equal.
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof VirtualRow)) {
+                return false;
+            }
+            VirtualRow other = (VirtualRow) obj;
+            return index == other.index && getGrid() == other.getGrid();
+        }
+
+        @Override
+        public int hashCode() {
+            return index;
+        }
+
+        private VirtualGridBase getGrid() {
+            return VirtualGridBase.this;
+        }
+    }
+}
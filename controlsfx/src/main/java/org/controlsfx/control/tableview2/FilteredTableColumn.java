@@ -44,6 +44,7 @@ import javafx.css.PseudoClass;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.scene.control.Button;
+import javafx.scene.control.TableColumn.CellEditEvent;
 import javafx.scene.control.TableView;
 
 import java.util.HashMap;
@@ -95,6 +96,9 @@ public class FilteredTableColumn<S, T> extends TableColumn2<S, T> {
     private final ChangeListener<T> changeListener = (obs, ov, nv) -> 
         Platform.runLater(() -> runOnFilteredTableView(FilteredTableView::filter));
     
+    private final EventHandler<CellEditEvent<S, T>> editCommitHandler = e -> 
+        runOnFilteredTableView(table -> table.cellEdited(this, e.getRowValue()));
+    
     private final ChangeListener<Predicate<?>> filterListener = (obs, ov, nv) -> updateButton(nv != null);
     private final WeakChangeListener<Predicate<?>> weakFilterListener = new WeakChangeListener<>(filterListener);
     
@@ -127,6 +131,7 @@ public class FilteredTableColumn<S, T> extends TableColumn2<S, T> {
         setGraphic(filterButton);
         updateButton(getPredicate() != null);
         predicateProperty().addListener(weakFilterListener);
+        addEventHandler(editCommitEvent(), editCommitHandler);
     }
     
     public FilteredTableColumn(String text) {
@@ -158,13 +163,51 @@ public class FilteredTableColumn<S, T> extends TableColumn2<S, T> {
         @Override
         protected void invalidated() {
             // Auto filter table based on column's predicate changes
-            getFilteredTableView().ifPresent(FilteredTableView::filter);
+            getFilteredTableView().ifPresent(FilteredTableView::filterColumns);
         }
     };
     public final void setPredicate(Predicate<? super T> value) { predicate.set(value); }
     public final Predicate<? super T> getPredicate() { return predicate.get(); }
     public final ObservableValue<Predicate<? super T>> predicateProperty() { return predicate; }
     
+    /**
+     * When the textIndexed property is set to true, the text of the cells of
+     * the column is indexed by trigrams, so that the string filters (contains,
+     * begins with, ends with and equals to) only test the rows that contain
+     * all the trigrams of the filter. This trades memory, see 
+     * {@link #getTextIndexMemoryUsage()}, for speed on large tables.
+     * 
+     * The index is built in the background the first time the column is 
+     * filtered with a string filter, from the values of the cells read on the
+     * JavaFX Application Thread. It is then maintained from the changes of the
+     * backing list, including the updates it reports when it has an
+     * extractor, see {@link javafx.collections.FXCollections#observableArrayList(javafx.util.Callback)},
+     * and from the edits committed in the cells of the column. A value 
+     * changed by any other means is only indexed again when 
+     * {@link FilteredTableView#filter()} is called.
+     */
+    private final BooleanProperty textIndexed = new SimpleBooleanProperty(this, "textIndexed", false) {
+        @Override
+        protected void invalidated() {
+            if (! get()) {
+                getFilteredTableView().ifPresent(table -> table.removeTextIndex(FilteredTableColumn.this));
+            }
+        }
+    };
+    public final void setTextIndexed(boolean value) { textIndexed.set(value); }
+    public final boolean isTextIndexed() { return textIndexed.get(); }
+    public final BooleanProperty textIndexedProperty() { return textIndexed; }
+    
+    /**
+     * Returns an estimate of the memory used by the text index of the column.
+     * 
+     * @return the number of bytes, 0 if the column is not 
+     * {@link #textIndexedProperty() text indexed} or the index is not built yet
+     */
+    public final long getTextIndexMemoryUsage() {
+        return getFilteredTableView().map(table -> table.getTextIndexMemoryUsage(this)).orElse(0L);
+    }
+    
     /**
      * The filter button's action, which is invoked whenever the filter button is 
      * fired.
@@ -26,15 +26,21 @@
  */
 package org.controlsfx.control.tableview2;
 
+import impl.org.controlsfx.tableview2.FilteredColumnBitSets;
 import impl.org.controlsfx.tableview2.FilteredColumnPredicate;
+import impl.org.controlsfx.tableview2.ParallelFilterTask;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.ObjectPropertyBase;
 import javafx.beans.property.ReadOnlyObjectProperty;
 import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
@@ -174,6 +180,25 @@ public class FilteredTableView<S> extends TableView2<S> {
      */
     private ObservableList<S> backingList;
     
+    /**
+     * The items of the backing list accepted by each filtered column, so 
+     * that only the column whose predicate has changed is evaluated again.
+     */
+    private final FilteredColumnBitSets<S> columnBitSets = new FilteredColumnBitSets<>();
+    
+    /**
+     * The filtering running in the background, if any.
+     */
+    private ParallelFilterTask<S> filterTask;
+    
+    /**
+     * The number of times the filtering has been started again because the
+     * backing list had changed in the meantime, and how many times it may be
+     * before filtering on the JavaFX Application Thread instead.
+     */
+    private int filterRestarts;
+    static final int MAX_FILTER_RESTARTS = 3;
+    
     /**
      * The default {@link #filterPolicyProperty() filter policy} that this FilteredTableView
      * will use if no other policy is specified. The filter policy is a simple
@@ -357,6 +382,49 @@ public class FilteredTableView<S> extends TableView2<S> {
         return filterPolicy;
     }
 
+    // --- asyncFiltering
+    /**
+     * When true, the predicates of the columns are evaluated in the 
+     * background, in parallel, on a snapshot of the backing list. The table 
+     * keeps showing the previous result meanwhile, and the new result replaces
+     * it in one change. A filtering still running is cancelled when a filter 
+     * changes again.
+     * 
+     * <p>A {@link FilterEvent#filterStartedEvent() started} event is fired when
+     * the evaluation starts, followed by either a 
+     * {@link FilterEvent#filterCompletedEvent() completed} or a 
+     * {@link FilterEvent#filterCancelledEvent() cancelled} event. The 
+     * {@link #onFilterProperty() onFilter} event is fired, and the 
+     * {@link #filterPolicyProperty() filter policy} is called, when the result
+     * is applied: if either rejects it, the previous predicate is restored and
+     * the filtering is cancelled.
+     * 
+     * <p>If the backing list has changed when the result is ready, the 
+     * filtering is cancelled and started again, up to 
+     * {@value #MAX_FILTER_RESTARTS} times in a row; after that, the items are
+     * filtered on the JavaFX Application Thread.
+     * 
+     * <p>The cell values of the filtered columns are read on the JavaFX 
+     * Application Thread when the filtering starts, but the predicates are 
+     * called from several threads, so they must not modify anything.
+     * 
+     * <p>This is false by default: filtering is done on the JavaFX 
+     * Application Thread, as soon as a predicate changes.
+     */
+    private BooleanProperty asyncFiltering;
+    public final void setAsyncFiltering(boolean value) {
+        asyncFilteringProperty().set(value);
+    }
+    public final boolean isAsyncFiltering() {
+        return asyncFiltering != null && asyncFiltering.get();
+    }
+    public final BooleanProperty asyncFilteringProperty() {
+        if (asyncFiltering == null) {
+            asyncFiltering = new SimpleBooleanProperty(this, "asyncFiltering", false);
+        }
+        return asyncFiltering;
+    }
+
     // onFilter
     /**
      * Called when there's a request to filter the control.
@@ -413,8 +481,37 @@ public class FilteredTableView<S> extends TableView2<S> {
      * something external changes and a filter is required.
      */
     public void filter() {
+        columnBitSets.invalidateAll();
+        filterColumns();
+    }
+    
+    /***************************************************************************
+     * * Protected/Private Methods * *
+     **************************************************************************/
+
+    /**
+     * Runs the filtering algorithm after the predicate of a column has 
+     * changed: the columns whose predicate is unchanged are not evaluated 
+     * again, unless {@link #filter()} has been called since.
+     */
+    void filterColumns() {
+        filterColumns(0);
+    }
+    
+    private void filterColumns(int restarts) {
         
-        Predicate<S> oldPredicate = getPredicate();
+        cancelFilterTask();
+        filterRestarts = restarts;
+        
+        if (isAsyncFiltering() && getBackingList() != null && 
+                ! columnBitSets.getFilteredColumns(getVisibleLeafColumns()).isEmpty()) {
+            startFilterTask();
+        } else {
+            filterNow();
+        }
+    }
+    
+    private void filterNow() {
         
         final boolean filterExists = getVisibleLeafColumns().stream()
                 .filter(FilteredTableColumn.class::isInstance)
@@ -422,32 +519,47 @@ public class FilteredTableView<S> extends TableView2<S> {
                 .filter(FilteredTableColumn::isFilterable)
                 .noneMatch(f -> f.getPredicate() != null);
         
+        applyPredicate(filterExists ? null : createPredicate());
+    }
+    
+    /**
+     * Sets the predicate, and keeps it unless the onFilter event is consumed
+     * or the filter policy fails.
+     * 
+     * @param newPredicate the predicate of the filtered columns, or null
+     * @return true if the predicate has been kept
+     */
+    private boolean applyPredicate(FilteredColumnPredicate<S, ?> newPredicate) {
+        
+        Predicate<S> oldPredicate = getPredicate();
+        
         // update the Predicate property
-        setPredicate(filterExists ? null : new FilteredColumnPredicate(getVisibleLeafColumns()));
+        setPredicate(newPredicate);
+        if (newPredicate != null) {
+            // the filtered list has been filtered with the evaluated columns,
+            // the items it will test from now on are tested one by one
+            newPredicate.release();
+        }
 
         // fire the onFilter event and check if it is consumed, if so, don't run the filtering
         FilterEvent<TableView<S>> filterEvent = new FilterEvent<>(FilteredTableView.this, FilteredTableView.this);
         fireEvent(filterEvent);
         if (filterEvent.isConsumed()) {
             setPredicate(oldPredicate);
-            return;
+            return false;
         }
         // get the filter policy and run it
         Callback<TableView<S>, Boolean> filterPolicy = getFilterPolicy();
         if (filterPolicy == null) {
-            return;
+            return true;
         }
         boolean success = filterPolicy.call(this);
         if (! success) {
             setPredicate(oldPredicate);
         }
-
+        return success;
     }
     
-    /***************************************************************************
-     * * Protected/Private Methods * *
-     **************************************************************************/
-
     /**
      * Returns the original observable list, before it is wrapped into a 
      * {@link FilteredList} and a {@link SortedList}.
@@ -458,6 +570,83 @@ public class FilteredTableView<S> extends TableView2<S> {
         return backingList;
     }
     
+    long getTextIndexMemoryUsage(FilteredTableColumn<S, ?> column) {
+        return columnBitSets.getTextIndexMemoryUsage(column);
+    }
+    
+    void removeTextIndex(FilteredTableColumn<S, ?> column) {
+        columnBitSets.removeTextIndex(column);
+    }
+    
+    void cellEdited(FilteredTableColumn<S, ?> column, S item) {
+        columnBitSets.cellEdited(column, item);
+    }
+    
+    private void startFilterTask() {
+        columnBitSets.setItems(getBackingList());
+        final List<FilteredTableColumn<S, ?>> filteredColumns = columnBitSets.getFilteredColumns(getVisibleLeafColumns());
+        final ParallelFilterTask<S> task = new ParallelFilterTask<>(columnBitSets, columnBitSets.getStaleColumns(filteredColumns));
+        task.setOnSucceeded(e -> {
+            if (filterTask == task) {
+                filterTask = null;
+                completeFilterTask(task, filteredColumns);
+            }
+        });
+        task.setOnFailed(e -> {
+            if (filterTask == task) {
+                filterTask = null;
+                Logger.getLogger(FilteredTableView.class.getName()).log(Level.WARNING, 
+                        "Filtering in the background has failed, filtering again on the JavaFX Application Thread", task.getException());
+                fireEvent(new FilterEvent<>(FilteredTableView.this, FilteredTableView.this, FilterEvent.filterCancelledEvent()));
+                filterNow();
+            }
+        });
+        filterTask = task;
+        fireEvent(new FilterEvent<>(FilteredTableView.this, FilteredTableView.this, FilterEvent.filterStartedEvent()));
+        task.start();
+    }
+    
+    private void completeFilterTask(ParallelFilterTask<S> task, List<FilteredTableColumn<S, ?>> filteredColumns) {
+        if (task.getVersion() != columnBitSets.getVersion()) {
+            // the items have changed meanwhile, the result is obsolete
+            fireEvent(new FilterEvent<>(FilteredTableView.this, FilteredTableView.this, FilterEvent.filterCancelledEvent()));
+            if (filterRestarts < MAX_FILTER_RESTARTS) {
+                filterColumns(filterRestarts + 1);
+            } else {
+                // the items keep changing, filter them at once
+                filterNow();
+            }
+            return;
+        }
+        final BitSet[] result = task.getValue();
+        for (int i = 0; i < result.length; i++) {
+            columnBitSets.put(task.getColumns().get(i), task.getPredicates().get(i), result[i]);
+        }
+        final BitSet accepted = columnBitSets.combine(filteredColumns);
+        final FilteredColumnPredicate<S, ?> newPredicate = new FilteredColumnPredicate<>(getVisibleLeafColumns(), task.getItems(), accepted);
+        final EventType<FilterEvent<TableView<S>>> eventType = applyPredicate(newPredicate) ?
+                FilterEvent.filterCompletedEvent() : FilterEvent.filterCancelledEvent();
+        fireEvent(new FilterEvent<>(FilteredTableView.this, FilteredTableView.this, eventType));
+    }
+    
+    private void cancelFilterTask() {
+        if (filterTask != null) {
+            filterTask.cancel();
+            filterTask = null;
+            fireEvent(new FilterEvent<>(FilteredTableView.this, FilteredTableView.this, FilterEvent.filterCancelledEvent()));
+        }
+    }
+    
+    private FilteredColumnPredicate<S, ?> createPredicate() {
+        final ObservableList<S> items = getBackingList();
+        if (items == null) {
+            return new FilteredColumnPredicate<>(getVisibleLeafColumns());
+        }
+        columnBitSets.setItems(items);
+        final BitSet accepted = columnBitSets.evaluate(getVisibleLeafColumns());
+        return new FilteredColumnPredicate<>(getVisibleLeafColumns(), items, accepted);
+    }
+    
     private void resetColumnsFilter() {
         getVisibleLeafColumns().stream()
                 .filter(FilteredTableColumn.class::isInstance)
@@ -56,6 +56,7 @@ import org.controlsfx.control.tableview2.actions.ColumnFixAction;
 import org.controlsfx.control.tableview2.actions.RowFixAction;
 import org.controlsfx.control.tableview2.cell.ComboBox2TableCell;
 import org.controlsfx.control.tableview2.cell.TextField2TableCell;
+import org.controlsfx.tools.RenderingMetrics;
 
 /**
  * The TableView2 is an advanced JavaFX {@link TableView} control, that can 
@@ -625,6 +626,29 @@ public class TableView2<S> extends TableView<S> {
     public final void setSouthHeaderBlended(boolean value) { southHeaderBlended.set(value); }
     public final boolean isSouthHeaderBlended() { return southHeaderBlended.get(); }
     public final BooleanProperty southHeaderBlendedProperty() { return southHeaderBlended; }
+    
+    private RenderingMetrics renderingMetrics;
+
+    /**
+     * Gives the {@link RenderingMetrics} gathering the rendering work of this
+     * TableView2, or null in order to stop gathering them. No metrics are
+     * gathered by default.
+     *
+     * @param renderingMetrics
+     */
+    public final void setRenderingMetrics(RenderingMetrics renderingMetrics) {
+        this.renderingMetrics = renderingMetrics;
+    }
+
+    /**
+     * Returns the {@link RenderingMetrics} gathering the rendering work of
+     * this TableView2.
+     *
+     * @return the RenderingMetrics, or null if none
+     */
+    public final RenderingMetrics getRenderingMetrics() {
+        return renderingMetrics;
+    }
    
     /**
      * Return the {@link SpanType} of a cell. This is used internally by the
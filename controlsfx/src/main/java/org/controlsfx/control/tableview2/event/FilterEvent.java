@@ -52,6 +52,47 @@ public class FilterEvent<C> extends Event {
 
     private static final EventType<?> FILTER_EVENT = new EventType<>(FilterEvent.ANY, "FILTER_EVENT");
 
+    /**
+     * Fired when an asynchronous filtering starts in the background.
+     * 
+     * @param <C> The event source
+     * @return the event type
+     */
+    @SuppressWarnings("unchecked")
+    public static <C> EventType<FilterEvent<C>> filterStartedEvent() {
+        return (EventType<FilterEvent<C>>) FILTER_STARTED;
+    }
+
+    private static final EventType<?> FILTER_STARTED = new EventType<>(FilterEvent.ANY, "FILTER_STARTED");
+
+    /**
+     * Fired when the result of an asynchronous filtering has been applied to
+     * the items.
+     * 
+     * @param <C> The event source
+     * @return the event type
+     */
+    @SuppressWarnings("unchecked")
+    public static <C> EventType<FilterEvent<C>> filterCompletedEvent() {
+        return (EventType<FilterEvent<C>>) FILTER_COMPLETED;
+    }
+
+    private static final EventType<?> FILTER_COMPLETED = new EventType<>(FilterEvent.ANY, "FILTER_COMPLETED");
+
+    /**
+     * Fired when an asynchronous filtering is cancelled before completion,
+     * because a filter has changed again or has been reset.
+     * 
+     * @param <C> The event source
+     * @return the event type
+     */
+    @SuppressWarnings("unchecked")
+    public static <C> EventType<FilterEvent<C>> filterCancelledEvent() {
+        return (EventType<FilterEvent<C>>) FILTER_CANCELLED;
+    }
+
+    private static final EventType<?> FILTER_CANCELLED = new EventType<>(FilterEvent.ANY, "FILTER_CANCELLED");
+
 //    /**
 //     * Construct a new {@code Event} with the specified event source, target
 //     * and type. If the source or target is set to {@code null}, it is replaced
@@ -67,6 +108,18 @@ public class FilterEvent<C> extends Event {
 
     }
 
+    /**
+     * Creates a FilterEvent of the given type.
+     * 
+     * @param source the event source which sent the event
+     * @param target the target of the event
+     * @param eventType the type of the event
+     */
+    public FilterEvent(@NamedArg("source") C source, @NamedArg("target") EventTarget target, 
+            @NamedArg("eventType") EventType<FilterEvent<C>> eventType) {
+        super(source, target, eventType);
+    }
+
     /** {@inheritDoc} */
     @SuppressWarnings("unchecked")
     @Override public C getSource() {
@@ -0,0 +1,469 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met: *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer. * Redistributions in binary
+ * form must reproduce the above copyright notice, this list of conditions and
+ * the following disclaimer in the documentation and/or other materials provided
+ * with the distribution. * Neither the name of ControlsFX, any associated
+ * website, nor the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.tools;
+
+import com.sun.javafx.tk.TKPulseListener;
+import com.sun.javafx.tk.Toolkit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Measures the rendering work of the virtualized controls, in order to find
+ * what is slowing down their scrolling.
+ *
+ * <p>
+ * The metrics are opt-in: they are only gathered once a
+ * {@code RenderingMetrics} is given to a control, with
+ * {@code SpreadsheetView.setRenderingMetrics},
+ * {@code TableView2.setRenderingMetrics} or
+ * {@code GridView.setRenderingMetrics}. Otherwise the skins only check that
+ * no metrics are given, and nothing is measured. Several controls can share
+ * the same instance.
+ *
+ * <p>
+ * The following metrics are gathered:
+ * <ul>
+ * <li>The layout passes of the virtual flow, and of its rows.</li>
+ * <li>The cells created by the rows, and the cells reused from their cache.</li>
+ * <li>The calls updating the item of a cell.</li>
+ * <li>The computations of the spans of the spanned cells. The cells without
+ * span are answered right away and are not measured, because timing them
+ * would cost more than computing them.</li>
+ * <li>The CSS passes of the virtual flow, and the CSS applied to the cells in
+ * order to measure them.</li>
+ * <li>The time spent in each of these, and the time spent in all of them
+ * during each pulse.</li>
+ * </ul>
+ * The time of a measure includes the time of the measures made during it,
+ * for example the layout of a row includes the update of its cells. The time
+ * of a pulse only counts the outermost measures, so it is the time really
+ * spent by the controls during the pulse.
+ *
+ * <p>
+ * The metrics can be read at any time with {@link #getSnapshot() }, or be
+ * received after each pulse by a listener.
+ *
+ * <pre>
+ * Logger logger = Logger.getLogger("rendering");
+ * RenderingMetrics metrics = new RenderingMetrics();
+ * metrics.addListener(snapshot -&gt; {
+ *     if (snapshot.getLastPulseTime() &gt; 16_000_000) {
+ *         logger.warning("Slow pulse: " + snapshot);
+ *     }
+ * });
+ * spreadsheetView.setRenderingMetrics(metrics);
+ * </pre>
+ *
+ * <p>
+ * All the methods must be called on the FX thread, except
+ * {@link #getSnapshot() } which returns the metrics as they were at the end
+ * of the last pulse when called on another thread.
+ *
+ * <p>
+ * The metrics only listen to the pulses while something is measured: the
+ * listener is removed after a pulse during which nothing was measured, and
+ * added again by the next measure. So metrics no longer given to a control
+ * are not kept by the toolkit.
+ */
+public final class RenderingMetrics {
+
+    /***************************************************************************
+     *
+     * Private Fields
+     *
+     **************************************************************************/
+    private final List<Consumer<Snapshot>> listeners = new ArrayList<>();
+    private final TKPulseListener pulseListener = this::pulseCompleted;
+    private boolean listeningPulses;
+    //The measures in progress, in order to only count the outermost in the pulse time.
+    private int depth;
+
+    private long flowLayoutCount;
+    private long flowLayoutTime;
+    private long rowLayoutCount;
+    private long rowLayoutTime;
+    private long cellCreatedCount;
+    private long cellReusedCount;
+    private long updateItemCount;
+    private long updateItemTime;
+    private long spanCount;
+    private long spanTime;
+    private long cssPassCount;
+    private long cssTime;
+    private long pulseCount;
+    private long pulseTime;
+    private long currentPulseTime;
+    private long lastPulseTime;
+    private long maxPulseTime;
+    private volatile Snapshot lastSnapshot = new Snapshot(this);
+
+    /***************************************************************************
+     *
+     * Public Methods
+     *
+     **************************************************************************/
+
+    /**
+     * Adds a listener receiving the metrics at the end of each pulse during
+     * which something was measured.
+     *
+     * @param listener
+     */
+    public void addListener(Consumer<Snapshot> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener
+     */
+    public void removeListener(Consumer<Snapshot> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns the metrics gathered so far. On another thread than the FX
+     * thread, the metrics gathered until the end of the last pulse are
+     * returned.
+     *
+     * @return the metrics
+     */
+    public Snapshot getSnapshot() {
+        return javafx.application.Platform.isFxApplicationThread() ? new Snapshot(this) : lastSnapshot;
+    }
+
+    /**
+     * Sets all the metrics back to zero.
+     */
+    public void reset() {
+        flowLayoutCount = 0;
+        flowLayoutTime = 0;
+        rowLayoutCount = 0;
+        rowLayoutTime = 0;
+        cellCreatedCount = 0;
+        cellReusedCount = 0;
+        updateItemCount = 0;
+        updateItemTime = 0;
+        spanCount = 0;
+        spanTime = 0;
+        cssPassCount = 0;
+        cssTime = 0;
+        pulseCount = 0;
+        pulseTime = 0;
+        currentPulseTime = 0;
+        lastPulseTime = 0;
+        maxPulseTime = 0;
+        lastSnapshot = new Snapshot(this);
+    }
+
+    /*
+     * The following methods are called by the skins of the controls.
+     */
+
+    /**
+     * Starts a measure, which must be ended by one of the {@code end} methods.
+     *
+     * @return the start time of the measure
+     */
+    public long begin() {
+        if (!listeningPulses) {
+            Toolkit.getToolkit().addPostSceneTkPulseListener(pulseListener);
+            listeningPulses = true;
+        }
+        ++depth;
+        return System.nanoTime();
+    }
+
+    /**
+     * Ends the measure of a layout pass of a virtual flow.
+     *
+     * @param start the time returned by {@link #begin() }
+     */
+    public void endFlowLayout(long start) {
+        ++flowLayoutCount;
+        flowLayoutTime += end(start);
+    }
+
+    /**
+     * Ends the measure of a layout pass of a row.
+     *
+     * @param start the time returned by {@link #begin() }
+     */
+    public void endRowLayout(long start) {
+        ++rowLayoutCount;
+        rowLayoutTime += end(start);
+    }
+
+    /**
+     * Ends the measure of the update of the item of a cell.
+     *
+     * @param start the time returned by {@link #begin() }
+     */
+    public void endUpdateItem(long start) {
+        ++updateItemCount;
+        updateItemTime += end(start);
+    }
+
+    /**
+     * Ends the measure of the computation of the span of a spanned cell.
+     *
+     * @param start the time returned by {@link #begin() }
+     */
+    public void endSpan(long start) {
+        ++spanCount;
+        spanTime += end(start);
+    }
+
+    /**
+     * Ends the measure of a CSS pass.
+     *
+     * @param start the time returned by {@link #begin() }
+     */
+    public void endCss(long start) {
+        ++cssPassCount;
+        cssTime += end(start);
+    }
+
+    /**
+     * Counts a cell created by a row.
+     */
+    public void cellCreated() {
+        ++cellCreatedCount;
+    }
+
+    /**
+     * Counts a cell reused by a row.
+     */
+    public void cellReused() {
+        ++cellReusedCount;
+    }
+
+    /***************************************************************************
+     *
+     * Private Implementation
+     *
+     **************************************************************************/
+
+    private long end(long start) {
+        final long time = System.nanoTime() - start;
+        if (--depth == 0) {
+            currentPulseTime += time;
+        }
+        return time;
+    }
+
+    private void pulseCompleted() {
+        if (currentPulseTime == 0) {
+            //Nothing measured, we stop listening until the next measure.
+            if (depth == 0) {
+                Toolkit.getToolkit().removePostSceneTkPulseListener(pulseListener);
+                listeningPulses = false;
+            }
+            return;
+        }
+        ++pulseCount;
+        pulseTime += currentPulseTime;
+        lastPulseTime = currentPulseTime;
+        maxPulseTime = Math.max(maxPulseTime, currentPulseTime);
+        currentPulseTime = 0;
+        final Snapshot snapshot = new Snapshot(this);
+        lastSnapshot = snapshot;
+        for (Consumer<Snapshot> listener : new ArrayList<>(listeners)) {
+            listener.accept(snapshot);
+        }
+    }
+
+    /**
+     * The metrics gathered by a {@link RenderingMetrics} at a given time. The
+     * times are in nanoseconds.
+     */
+    public static final class Snapshot {
+
+        private final long flowLayoutCount;
+        private final long flowLayoutTime;
+        private final long rowLayoutCount;
+        private final long rowLayoutTime;
+        private final long cellCreatedCount;
+        private final long cellReusedCount;
+        private final long updateItemCount;
+        private final long updateItemTime;
+        private final long spanCount;
+        private final long spanTime;
+        private final long cssPassCount;
+        private final long cssTime;
+        private final long pulseCount;
+        private final long pulseTime;
+        private final long lastPulseTime;
+        private final long maxPulseTime;
+
+        private Snapshot(RenderingMetrics metrics) {
+            flowLayoutCount = metrics.flowLayoutCount;
+            flowLayoutTime = metrics.flowLayoutTime;
+            rowLayoutCount = metrics.rowLayoutCount;
+            rowLayoutTime = metrics.rowLayoutTime;
+            cellCreatedCount = metrics.cellCreatedCount;
+            cellReusedCount = metrics.cellReusedCount;
+            updateItemCount = metrics.updateItemCount;
+            updateItemTime = metrics.updateItemTime;
+            spanCount = metrics.spanCount;
+            spanTime = metrics.spanTime;
+            cssPassCount = metrics.cssPassCount;
+            cssTime = metrics.cssTime;
+            pulseCount = metrics.pulseCount;
+            pulseTime = metrics.pulseTime;
+            lastPulseTime = metrics.lastPulseTime;
+            maxPulseTime = metrics.maxPulseTime;
+        }
+
+        /**
+         * @return the number of layout passes of the virtual flows
+         */
+        public long getFlowLayoutCount() {
+            return flowLayoutCount;
+        }
+
+        /**
+         * @return the time spent in the layout passes of the virtual flows
+         */
+        public long getFlowLayoutTime() {
+            return flowLayoutTime;
+        }
+
+        /**
+         * @return the number of layout passes of the rows
+         */
+        public long getRowLayoutCount() {
+            return rowLayoutCount;
+        }
+
+        /**
+         * @return the time spent in the layout passes of the rows
+         */
+        public long getRowLayoutTime() {
+            return rowLayoutTime;
+        }
+
+        /**
+         * @return the number of cells created by the rows
+         */
+        public long getCellCreatedCount() {
+            return cellCreatedCount;
+        }
+
+        /**
+         * @return the number of cells reused by the rows
+         */
+        public long getCellReusedCount() {
+            return cellReusedCount;
+        }
+
+        /**
+         * @return the number of updates of the item of a cell
+         */
+        public long getUpdateItemCount() {
+            return updateItemCount;
+        }
+
+        /**
+         * @return the time spent updating the item of the cells
+         */
+        public long getUpdateItemTime() {
+            return updateItemTime;
+        }
+
+        /**
+         * @return the number of computations of the span of a spanned cell
+         */
+        public long getSpanCount() {
+            return spanCount;
+        }
+
+        /**
+         * @return the time spent computing the spans of the spanned cells
+         */
+        public long getSpanTime() {
+            return spanTime;
+        }
+
+        /**
+         * @return the number of CSS passes
+         */
+        public long getCssPassCount() {
+            return cssPassCount;
+        }
+
+        /**
+         * @return the time spent in the CSS passes
+         */
+        public long getCssTime() {
+            return cssTime;
+        }
+
+        /**
+         * @return the number of pulses during which something was measured
+         */
+        public long getPulseCount() {
+            return pulseCount;
+        }
+
+        /**
+         * @return the time spent by the controls during all the pulses
+         */
+        public long getPulseTime() {
+            return pulseTime;
+        }
+
+        /**
+         * @return the time spent by the controls during the last pulse
+         */
+        public long getLastPulseTime() {
+            return lastPulseTime;
+        }
+
+        /**
+         * @return the longest time spent by the controls during a pulse
+         */
+        public long getMaxPulseTime() {
+            return maxPulseTime;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String toString() {
+            return "RenderingMetrics[flowLayouts=" + flowLayoutCount //$NON-NLS-1$
+                    + ", rowLayouts=" + rowLayoutCount //$NON-NLS-1$
+                    + ", cellsCreated=" + cellCreatedCount //$NON-NLS-1$
+                    + ", cellsReused=" + cellReusedCount //$NON-NLS-1$
+                    + ", updateItems=" + updateItemCount //$NON-NLS-1$
+                    + ", spans=" + spanCount //$NON-NLS-1$
+                    + ", cssPasses=" + cssPassCount //$NON-NLS-1$
+                    + ", pulses=" + pulseCount //$NON-NLS-1$
+                    + ", lastPulse=" + lastPulseTime / 1000 + "us" //$NON-NLS-1$ //$NON-NLS-2$
+                    + ", maxPulse=" + maxPulseTime / 1000 + "us]"; //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package impl.org.controlsfx.spreadsheet;
+
+import org.controlsfx.control.spreadsheet.SpreadsheetCell;
+import org.controlsfx.control.spreadsheet.SpreadsheetCellType;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CellHeightCacheTest {
+
+    private static final double WIDTH = 100;
+
+    @Test public void testGet() {
+        CellHeightCache cache = new CellHeightCache();
+        SpreadsheetCell cell = SpreadsheetCellType.STRING.createCell(3, 2, 1, 1, "text");
+        assertTrue(Double.isNaN(cache.get(cell, WIDTH)));
+
+        cache.put(cell, WIDTH, 42);
+        assertEquals(42, cache.get(cell, WIDTH), 0);
+        //An identical cell is not measured again.
+        assertEquals(42, cache.get(SpreadsheetCellType.STRING.createCell(3, 2, 1, 1, "text"), WIDTH), 0);
+        //Another width or another position must be measured.
+        assertTrue(Double.isNaN(cache.get(cell, WIDTH + 1)));
+        assertTrue(Double.isNaN(cache.get(SpreadsheetCellType.STRING.createCell(4, 2, 1, 1, "text"), WIDTH)));
+    }
+
+    @Test public void testCellModified() {
+        CellHeightCache cache = new CellHeightCache();
+        SpreadsheetCell cell = SpreadsheetCellType.STRING.createCell(3, 2, 1, 1, "text");
+        cache.put(cell, WIDTH, 42);
+
+        cell.setItem("other text");
+        assertTrue(Double.isNaN(cache.get(cell, WIDTH)));
+        cache.put(cell, WIDTH, 21);
+        assertEquals(21, cache.get(cell, WIDTH), 0);
+
+        cell.setStyle("-fx-font-size: 20px;");
+        assertTrue(Double.isNaN(cache.get(cell, WIDTH)));
+        cache.put(cell, WIDTH, 30);
+
+        cell.getStyleClass().add("big");
+        assertTrue(Double.isNaN(cache.get(cell, WIDTH)));
+    }
+
+    @Test public void testBounded() {
+        CellHeightCache cache = new CellHeightCache();
+        for (int row = 0; row <= CellHeightCache.MAX_SIZE; ++row) {
+            cache.put(SpreadsheetCellType.STRING.createCell(row, 0, 1, 1, "text"), WIDTH, 20);
+        }
+        assertTrue(cache.size() <= CellHeightCache.MAX_SIZE);
+    }
+}
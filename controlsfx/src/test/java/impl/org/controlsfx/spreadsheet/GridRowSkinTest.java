@@ -0,0 +1,179 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package impl.org.controlsfx.spreadsheet;
+
+import com.sun.javafx.tk.Toolkit;
+import impl.org.controlsfx.tools.ColumnOffsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import javafx.animation.AnimationTimer;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import org.controlsfx.control.spreadsheet.JavaFXThreadingRule;
+import org.controlsfx.control.spreadsheet.SpreadsheetView;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * The columns laid out by the rows of a displayed SpreadsheetView: only the
+ * columns inside the viewport, found with the {@link ColumnOffsets} of the
+ * {@link GridViewSkin}, and the fixed columns.
+ */
+public class GridRowSkinTest {
+
+    @Rule public JavaFXThreadingRule javafxRule = new JavaFXThreadingRule();
+
+    private SpreadsheetView spv;
+    private Stage stage;
+
+    @Before
+    public void setUp() {
+        //100 rows and 15 columns of 100 pixels.
+        spv = new SpreadsheetView();
+        stage = new Stage();
+        stage.setScene(new Scene(spv, 400, 300));
+        stage.show();
+        waitUntil(() -> !getLaidOutColumns().isEmpty());
+    }
+
+    @After
+    public void tearDown() {
+        stage.hide();
+    }
+
+    /**
+     * Test of getColumnOffsets method, of class GridViewSkin. The offsets are
+     * built again when a column is resized or hidden.
+     */
+    @Test public void testColumnOffsetsInvalidated() {
+        final GridViewSkin skin = getSkin();
+        final double left = skin.getColumnOffsets(0).getOffset(3);
+
+        spv.getColumns().get(1).setPrefWidth(300);
+        waitUntil(() -> spv.getColumns().get(1).getWidth() == 300);
+        assertEquals(left + 200, skin.getColumnOffsets(0).getOffset(3), 0.5);
+
+        spv.hideColumn(spv.getColumns().get(2));
+        waitUntil(() -> !getLaidOutColumns().contains(2));
+        final ColumnOffsets offsets = skin.getColumnOffsets(0);
+        assertEquals(offsets.getOffset(2), offsets.getOffset(3), 0);
+    }
+
+    /**
+     * Test of layoutChildren method, of class GridRowSkin. Only the columns
+     * of the viewport are laid out as the view is scrolled horizontally.
+     */
+    @Test public void testLayoutColumnsInViewport() {
+        Set<Integer> columns = getLaidOutColumns();
+        assertTrue(columns.contains(0));
+        assertFalse(columns.contains(14));
+
+        spv.scrollToColumnIndex(14);
+        waitUntil(() -> getLaidOutColumns().contains(14));
+        columns = getLaidOutColumns();
+        assertFalse(columns.contains(0));
+        assertTrue(columns.size() < spv.getColumns().size());
+
+        //A wider column leaves less columns in the viewport.
+        spv.scrollToColumnIndex(0);
+        spv.getColumns().get(0).setPrefWidth(1000);
+        waitUntil(() -> getLaidOutColumns().equals(Collections.singleton(0)));
+    }
+
+    /**
+     * Test of layoutChildren method, of class GridRowSkin. A fixed column is
+     * laid out wherever the view is scrolled.
+     */
+    @Test public void testLayoutFixedColumn() {
+        spv.getColumns().get(1).setFixed(true);
+        spv.scrollToColumnIndex(14);
+        waitUntil(() -> getLaidOutColumns().contains(14));
+        Set<Integer> columns = getLaidOutColumns();
+        assertTrue(columns.contains(1));
+        assertFalse(columns.contains(0));
+        assertFalse(columns.contains(5));
+    }
+
+    /***************************************************************************
+     *
+     * Private Implementation
+     *
+     **************************************************************************/
+
+    private GridViewSkin getSkin() {
+        for (Node node : spv.lookupAll(".table-view")) {
+            if (node instanceof SpreadsheetGridView) {
+                return (GridViewSkin) ((SpreadsheetGridView) node).getSkin();
+            }
+        }
+        throw new AssertionError("No SpreadsheetGridView");
+    }
+
+    /**
+     * @return the model columns of the cells laid out in the first row
+     */
+    private Set<Integer> getLaidOutColumns() {
+        final Set<Integer> columns = new TreeSet<>();
+        for (Node node : spv.lookupAll(".table-row-cell")) {
+            if (node instanceof GridRow && ((GridRow) node).getIndex() == 0) {
+                for (Node child : ((GridRow) node).getChildrenUnmodifiable()) {
+                    if (child instanceof CellView && child.isVisible() && ((CellView) child).getItem() != null) {
+                        columns.add(((CellView) child).getItem().getColumn());
+                    }
+                }
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Runs the pulses until the condition is fulfilled, for 10 seconds at
+     * most.
+     */
+    private static void waitUntil(BooleanSupplier condition) {
+        final Object key = new Object();
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                if (condition.getAsBoolean() || System.nanoTime() > deadline) {
+                    stop();
+                    Toolkit.getToolkit().exitNestedEventLoop(key, null);
+                }
+            }
+        }.start();
+        Toolkit.getToolkit().enterNestedEventLoop(key);
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package impl.org.controlsfx.spreadsheet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javafx.collections.ListChangeListener;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class IndexRangeListTest {
+
+    @Test public void testAddRange() {
+        IndexRangeList list = new IndexRangeList();
+        list.addRange(5, 1_000_004);
+        list.add(1_000_005);
+        list.add(2);
+        assertEquals(1_000_002, list.size());
+        assertEquals(Integer.valueOf(5), list.get(0));
+        assertEquals(Integer.valueOf(1_000_005), list.get(1_000_000));
+        assertEquals(Integer.valueOf(2), list.get(1_000_001));
+        assertTrue(list.contains(500_000));
+        assertTrue(list.contains(2));
+        assertFalse(list.contains(3));
+        assertFalse(list.contains(1_000_006));
+    }
+
+    @Test public void testRemove() {
+        IndexRangeList list = new IndexRangeList();
+        list.addRange(0, 9);
+        list.addRange(3, 4);
+        List<Integer> expected = new ArrayList<>(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 3, 4));
+        for (Integer index : Arrays.asList(4, 0, 9, 7, 4, 3, 12)) {
+            assertEquals(expected.remove(index), list.remove(index));
+            assertEquals(expected, new ArrayList<>(list));
+        }
+        //The index is still selected by the second range.
+        assertTrue(list.contains(3));
+    }
+
+    @Test public void testChanges() {
+        IndexRangeList list = new IndexRangeList();
+        List<String> changes = new ArrayList<>();
+        list.addListener((ListChangeListener.Change<? extends Integer> change) -> {
+            while (change.next()) {
+                changes.add(change.getFrom() + ":" + change.getAddedSubList() + ":" + change.getRemoved());
+            }
+        });
+        list.addRange(2, 4);
+        list.remove(Integer.valueOf(3));
+        list.add(7);
+        list.clear();
+        list.clear();
+        assertEquals(Arrays.asList("0:[2, 3, 4]:[]", "1:[]:[3]", "2:[7]:[]", "0:[]:[2, 4, 7]"), changes);
+        assertTrue(list.isEmpty());
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package impl.org.controlsfx.spreadsheet;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.function.IntToDoubleFunction;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class RowHeightStoreTest {
+
+    private static final int ROW_COUNT = 500;
+    private static final double DELTA = 1e-6;
+
+    private final IntToDoubleFunction defaultHeight = row -> 20 + row % 7 + 0.25;
+
+    private static double bruteHeight(RowHeightStore store, BitSet hidden, IntToDoubleFunction defaultHeight,
+            int from, int to, boolean snapped) {
+        double sum = 0;
+        for (int row = from; row < to; ++row) {
+            if (!hidden.get(row)) {
+                final double height = store.contains(row) ? store.get(row) : defaultHeight.applyAsDouble(row);
+                sum += snapped ? Math.ceil(height) : height;
+            }
+        }
+        return sum;
+    }
+
+    private static int bruteRowAt(RowHeightStore store, BitSet hidden, IntToDoubleFunction defaultHeight, double offset) {
+        for (int row = 0; row < ROW_COUNT; ++row) {
+            if (bruteHeight(store, hidden, defaultHeight, 0, row + 1, false) > offset) {
+                return row;
+            }
+        }
+        return ROW_COUNT;
+    }
+
+    private void assertPrefixSums(RowHeightStore store, BitSet hidden, Random random) {
+        for (int i = 0; i < 200; ++i) {
+            final int from = random.nextInt(ROW_COUNT + 1);
+            final int to = from + random.nextInt(ROW_COUNT + 1 - from);
+            assertEquals(bruteHeight(store, hidden, defaultHeight, from, to, false), store.getHeight(from, to, false), DELTA);
+            assertEquals(bruteHeight(store, hidden, defaultHeight, from, to, true), store.getHeight(from, to, true), DELTA);
+        }
+        final double total = bruteHeight(store, hidden, defaultHeight, 0, ROW_COUNT, false);
+        for (int i = 0; i < 200; ++i) {
+            final double offset = random.nextDouble() * (total + 50);
+            assertEquals(bruteRowAt(store, hidden, defaultHeight, offset), store.getRowAt(offset));
+        }
+    }
+
+    @Test public void testQuery() {
+        final Random random = new Random(42);
+        final RowHeightStore store = new RowHeightStore();
+        final BitSet hidden = new BitSet();
+        for (int i = 0; i < 50; ++i) {
+            hidden.set(random.nextInt(ROW_COUNT));
+            store.put(random.nextInt(ROW_COUNT), 10 + random.nextDouble() * 40);
+        }
+        assertFalse(store.hasPrefixSums(ROW_COUNT));
+        store.buildPrefixSums(ROW_COUNT, hidden, defaultHeight);
+        assertTrue(store.hasPrefixSums(ROW_COUNT));
+        assertPrefixSums(store, hidden, random);
+
+        //A row ends exactly at the offset of the next one.
+        final double top = store.getHeight(0, 10, false);
+        assertEquals(bruteRowAt(store, hidden, defaultHeight, top), store.getRowAt(top));
+        assertEquals(0, store.getRowAt(0));
+    }
+
+    @Test public void testUpdate() {
+        final Random random = new Random(7);
+        final RowHeightStore store = new RowHeightStore();
+        final BitSet hidden = new BitSet();
+        hidden.set(3);
+        hidden.set(100, 120);
+        store.buildPrefixSums(ROW_COUNT, hidden, defaultHeight);
+        assertPrefixSums(store, hidden, random);
+
+        for (int i = 0; i < 100; ++i) {
+            final int row = random.nextInt(ROW_COUNT);
+            if (random.nextBoolean()) {
+                store.put(row, 5 + random.nextDouble() * 60);
+            } else {
+                store.remove(row);
+            }
+        }
+        //Giving a height to a hidden row does not display it.
+        store.put(110, 99);
+        assertTrue(store.hasPrefixSums(ROW_COUNT));
+        assertPrefixSums(store, hidden, random);
+
+        //Rows outside of the prefix sums are ignored by them.
+        store.put(ROW_COUNT + 10, 30);
+        assertPrefixSums(store, hidden, random);
+    }
+
+    @Test public void testInvalidation() {
+        final RowHeightStore store = new RowHeightStore();
+        final BitSet hidden = new BitSet();
+        store.put(2, 40);
+        store.buildPrefixSums(ROW_COUNT, hidden, defaultHeight);
+
+        //The number of rows has changed.
+        assertFalse(store.hasPrefixSums(ROW_COUNT + 1));
+        assertFalse(store.hasPrefixSums(ROW_COUNT - 1));
+
+        store.invalidatePrefixSums();
+        assertFalse(store.hasPrefixSums(ROW_COUNT));
+
+        store.buildPrefixSums(ROW_COUNT, hidden, defaultHeight);
+        store.clear();
+        assertFalse(store.hasPrefixSums(ROW_COUNT));
+        assertTrue(store.isEmpty());
+        assertEquals(0, store.getMaximum(), 0);
+
+        //Rebuilt with new default heights.
+        final IntToDoubleFunction newHeight = row -> 12;
+        store.buildPrefixSums(ROW_COUNT, hidden, newHeight);
+        assertEquals(12 * ROW_COUNT, store.getHeight(0, ROW_COUNT, false), DELTA);
+        assertEquals(ROW_COUNT, store.getRowAt(12 * ROW_COUNT));
+    }
+
+    @Test public void testListener() {
+        final RowHeightStore store = new RowHeightStore();
+        final BitSet changed = new BitSet();
+        final int[] clears = new int[1];
+        store.addListener(row -> {
+            if (row == -1) {
+                clears[0]++;
+            } else {
+                changed.set(row);
+            }
+        });
+        store.put(4, 30);
+        store.put(8, 30);
+        store.remove(4);
+        store.remove(5);
+        assertEquals(2, changed.cardinality());
+        assertTrue(changed.get(4) && changed.get(8));
+        assertEquals(30, store.getMaximum(), 0);
+
+        store.clear();
+        store.clear();
+        assertEquals(1, clears[0]);
+    }
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package impl.org.controlsfx.tableview2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.scene.control.TableView;
+import org.controlsfx.control.spreadsheet.JavaFXThreadingRule;
+import org.controlsfx.control.tableview2.FilteredTableColumn;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+/**
+ * The results given to FilteredColumnPredicate are computed with
+ * FilteredColumnBitSets, and checked against the columns tested item by item.
+ */
+public class FilteredColumnPredicateTest {
+
+    @Rule public JavaFXThreadingRule javafxRule = new JavaFXThreadingRule();
+
+    private static final class Row {
+
+        private final String name;
+        private final int value;
+
+        Row(String name, int value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        @Override public String toString() {
+            return name + value;
+        }
+    }
+
+    private ObservableList<Row> items;
+    private FilteredTableColumn<Row, String> nameColumn;
+    private FilteredTableColumn<Row, Integer> valueColumn;
+    private List<FilteredTableColumn<Row, ?>> columns;
+    private FilteredColumnBitSets<Row> bitSets;
+
+    @Before
+    public void setUp() {
+        items = FXCollections.observableArrayList();
+        for (int i = 0; i < 20; ++i) {
+            items.add(new Row(i % 3 == 0 ? "apple" : i % 3 == 1 ? "banana" : "cherry", i));
+        }
+        nameColumn = new FilteredTableColumn<>("Name");
+        nameColumn.setCellValueFactory(p -> new SimpleStringProperty(p.getValue().name));
+        valueColumn = new FilteredTableColumn<>("Value");
+        valueColumn.setCellValueFactory(p -> new SimpleObjectProperty<>(p.getValue().value));
+        columns = Arrays.asList(nameColumn, valueColumn);
+        // the cell values are only given for the columns of a table
+        TableView<Row> tableView = new TableView<>(items);
+        tableView.getColumns().addAll(nameColumn, valueColumn);
+        bitSets = new FilteredColumnBitSets<>();
+        bitSets.setItems(items);
+    }
+
+    private List<Row> bruteForce(List<Row> rows) {
+        return rows.stream()
+                .filter(row -> accepts(nameColumn, row.name) && accepts(valueColumn, row.value))
+                .collect(Collectors.toList());
+    }
+
+    private static <T> boolean accepts(FilteredTableColumn<Row, T> column, T value) {
+        return column.getPredicate() == null || ! column.isFilterable() || column.getPredicate().test(value);
+    }
+
+    private List<Row> replay(List<Row> evaluated, BitSet accepted) {
+        return new ArrayList<>(new FilteredList<>(items, new FilteredColumnPredicate<>(columns, evaluated, accepted)));
+    }
+
+    /**
+     * Test of test method with an item that appears twice in the list, of
+     * class FilteredColumnPredicate.
+     */
+    @Test public void testDuplicateItem() {
+        Row apple = new Row("apple", 100);
+        Row banana = new Row("banana", 100);
+        items.setAll(apple, banana, apple, banana, new Row("cherry", 100));
+        nameColumn.setPredicate(name -> name.startsWith("a"));
+
+        BitSet accepted = bitSets.evaluate(columns);
+        assertEquals(asList(apple, apple), replay(items, accepted));
+
+        // tested out of order: the second apple is answered like the first
+        // one, then the banana at index 1 is missed and the columns are evaluated
+        FilteredColumnPredicate<Row, ?> predicate = new FilteredColumnPredicate<>(columns, items, accepted);
+        assertTrue(predicate.test(apple));
+        assertTrue(predicate.test(apple));
+        assertFalse(predicate.test(banana));
+        assertTrue(predicate.test(apple));
+    }
+
+    /**
+     * Test of test method when the list changes between the evaluation and
+     * the replay of the result, of class FilteredColumnPredicate.
+     */
+    @Test public void testItemsChanged() {
+        nameColumn.setPredicate(name -> name.contains("an"));
+        List<Row> snapshot = new ArrayList<>(items);
+        BitSet accepted = bitSets.evaluate(columns);
+        assertEquals(bruteForce(items), replay(snapshot, accepted));
+
+        items.remove(0);
+        items.add(3, new Row("banana", 50));
+        items.set(6, new Row("apple", 60));
+        assertEquals(bruteForce(items), replay(snapshot, accepted));
+
+        // a result that accepts everything is only used while the items match
+        BitSet all = new BitSet();
+        all.set(0, items.size());
+        snapshot = new ArrayList<>(items);
+        assertEquals(items, replay(snapshot, all));
+        items.add(0, new Row("cherry", 70));
+        List<Row> replayed = replay(snapshot, all);
+        assertEquals(bruteForce(items), replayed);
+        assertNotEquals(items, replayed);
+    }
+
+    /**
+     * Test of test method with several filtered columns, of class
+     * FilteredColumnPredicate.
+     */
+    @Test public void testSeveralColumns() {
+        nameColumn.setPredicate(name -> name.contains("e"));
+        valueColumn.setPredicate(value -> value > 4);
+        assertEquals(bruteForce(items), replay(items, bitSets.evaluate(columns)));
+        assertFalse(bruteForce(items).isEmpty());
+
+        // only the value column is evaluated again
+        valueColumn.setPredicate(value -> value % 2 == 0);
+        assertEquals(bruteForce(items), replay(items, bitSets.evaluate(columns)));
+        nameColumn.setPredicate(name -> name.startsWith("b"));
+        assertEquals(bruteForce(items), replay(items, bitSets.evaluate(columns)));
+
+        nameColumn.setFilterable(false);
+        assertEquals(bruteForce(items), replay(items, bitSets.evaluate(columns)));
+        nameColumn.setFilterable(true);
+        valueColumn.setPredicate(null);
+        assertEquals(bruteForce(items), replay(items, bitSets.evaluate(columns)));
+
+        nameColumn.setPredicate(null);
+        assertNull(bitSets.evaluate(columns));
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package impl.org.controlsfx.tableview2;
+
+import com.sun.javafx.tk.Toolkit;
+import impl.org.controlsfx.tools.ColumnOffsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import javafx.animation.AnimationTimer;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.stage.Stage;
+import org.controlsfx.control.spreadsheet.JavaFXThreadingRule;
+import org.controlsfx.control.tableview2.TableView2;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * The columns laid out by the rows of a displayed TableView2: only the
+ * columns inside the viewport, found with the {@link ColumnOffsets} of the
+ * {@link TableView2Skin}, and the fixed columns.
+ */
+public class TableRow2SkinTest {
+
+    @Rule public JavaFXThreadingRule javafxRule = new JavaFXThreadingRule();
+
+    private static final int COLUMN_COUNT = 15;
+
+    private TableView2<Integer> table;
+    private Stage stage;
+
+    @Before
+    public void setUp() {
+        table = new TableView2<>();
+        for (int column = 0; column < COLUMN_COUNT; ++column) {
+            final int value = column;
+            TableColumn<Integer, Integer> tableColumn = new TableColumn<>("C" + column);
+            tableColumn.setCellValueFactory(p -> new ReadOnlyObjectWrapper<>(p.getValue() * COLUMN_COUNT + value));
+            tableColumn.setPrefWidth(100);
+            table.getColumns().add(tableColumn);
+        }
+        table.setItems(FXCollections.observableArrayList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9));
+        stage = new Stage();
+        stage.setScene(new Scene(table, 400, 300));
+        stage.show();
+        waitUntil(() -> !getLaidOutColumns().isEmpty());
+    }
+
+    @After
+    public void tearDown() {
+        stage.hide();
+    }
+
+    /**
+     * Test of getColumnOffsets method, of class TableView2Skin. The offsets
+     * are built again when a column is resized or hidden.
+     */
+    @Test public void testColumnOffsetsInvalidated() {
+        final TableView2Skin<?> skin = (TableView2Skin<?>) table.getSkin();
+        final double left = skin.getColumnOffsets(0).getOffset(3);
+
+        table.getColumns().get(1).setPrefWidth(300);
+        waitUntil(() -> table.getColumns().get(1).getWidth() == 300);
+        assertEquals(left + 200, skin.getColumnOffsets(0).getOffset(3), 0.5);
+
+        //The offsets follow the visible leaf columns, so the hidden column is
+        //not counted anymore.
+        table.getColumns().get(2).setVisible(false);
+        waitUntil(() -> !getLaidOutColumns().contains(2));
+        final ColumnOffsets offsets = skin.getColumnOffsets(0);
+        assertEquals(COLUMN_COUNT - 1, offsets.getColumnCount());
+        assertEquals(left + 200, offsets.getOffset(2), 0.5);
+    }
+
+    /**
+     * Test of layoutChildren method, of class TableRow2Skin. Only the columns
+     * of the viewport are laid out as the table is scrolled horizontally.
+     */
+    @Test public void testLayoutColumnsInViewport() {
+        Set<Integer> columns = getLaidOutColumns();
+        assertTrue(columns.contains(0));
+        assertFalse(columns.contains(COLUMN_COUNT - 1));
+
+        table.scrollToColumnIndex(COLUMN_COUNT - 1);
+        waitUntil(() -> getLaidOutColumns().contains(COLUMN_COUNT - 1));
+        columns = getLaidOutColumns();
+        assertFalse(columns.contains(0));
+        assertTrue(columns.size() < COLUMN_COUNT);
+
+        //A wider column leaves less columns in the viewport.
+        table.scrollToColumnIndex(0);
+        table.getColumns().get(0).setPrefWidth(1000);
+        waitUntil(() -> getLaidOutColumns().equals(Collections.singleton(0)));
+    }
+
+    /**
+     * Test of layoutChildren method, of class TableRow2Skin. A fixed column
+     * is laid out wherever the table is scrolled.
+     */
+    @Test public void testLayoutFixedColumn() {
+        table.getFixedColumns().add(table.getColumns().get(1));
+        table.scrollToColumnIndex(COLUMN_COUNT - 1);
+        waitUntil(() -> getLaidOutColumns().contains(COLUMN_COUNT - 1));
+        Set<Integer> columns = getLaidOutColumns();
+        assertTrue(columns.contains(1));
+        assertFalse(columns.contains(0));
+        assertFalse(columns.contains(5));
+    }
+
+    /***************************************************************************
+     *
+     * Private Implementation
+     *
+     **************************************************************************/
+
+    /**
+     * @return the columns of the cells laid out in the first row
+     */
+    private Set<Integer> getLaidOutColumns() {
+        final Set<Integer> columns = new TreeSet<>();
+        for (Node node : table.lookupAll(".table-row-cell")) {
+            if (node instanceof TableRow2 && ((TableRow2<?>) node).getTableView() == table
+                    && ((TableRow2<?>) node).getIndex() == 0) {
+                for (Node child : ((TableRow2<?>) node).getChildrenUnmodifiable()) {
+                    if (child instanceof TableCell && child.isVisible()) {
+                        columns.add(table.getColumns().indexOf(((TableCell<?, ?>) child).getTableColumn()));
+                    }
+                }
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Runs the pulses until the condition is fulfilled, for 10 seconds at
+     * most.
+     */
+    private static void waitUntil(BooleanSupplier condition) {
+        final Object key = new Object();
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                if (condition.getAsBoolean() || System.nanoTime() > deadline) {
+                    stop();
+                    Toolkit.getToolkit().exitNestedEventLoop(key, null);
+                }
+            }
+        }.start();
+        Toolkit.getToolkit().enterNestedEventLoop(key);
+        assertTrue(condition.getAsBoolean());
+    }
+}
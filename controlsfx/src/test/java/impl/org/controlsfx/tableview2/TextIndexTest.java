@@ -0,0 +1,300 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package impl.org.controlsfx.tableview2;
+
+import com.sun.javafx.tk.Toolkit;
+import impl.org.controlsfx.i18n.Localization;
+import impl.org.controlsfx.tableview2.filter.parser.FilterCompiler;
+import impl.org.controlsfx.tableview2.filter.parser.TextQuery;
+import impl.org.controlsfx.tableview2.filter.parser.string.StringParser;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import javafx.animation.AnimationTimer;
+import javafx.beans.Observable;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.control.TableView;
+import javafx.util.StringConverter;
+import org.controlsfx.control.spreadsheet.JavaFXThreadingRule;
+import org.controlsfx.control.tableview2.FilteredTableColumn;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * The candidates found by TextIndex are checked against the rows accepted by
+ * the predicates, tested one by one.
+ */
+public class TextIndexTest {
+
+    @Rule public JavaFXThreadingRule javafxRule = new JavaFXThreadingRule();
+
+    private static final String[] WORDS = {"apple pie", "banana split", "cherry tart", "date loaf", "apple crumble"};
+
+    private static final class Row {
+
+        private final StringProperty name;
+
+        Row(String name) {
+            this.name = new SimpleStringProperty(name);
+        }
+    }
+
+    private ObservableList<Row> items;
+    private FilteredTableColumn<Row, String> column;
+    private TextIndex<Row, String> index;
+    private final StringParser<String> parser = new StringParser<>(false);
+
+    @BeforeClass
+    public static void setUpClass() {
+        Localization.setLocale(Locale.ENGLISH);
+    }
+
+    private void createIndex(ObservableList<Row> rows) {
+        items = rows;
+        for (int i = 0; i < 200; ++i) {
+            items.add(new Row(WORDS[i % WORDS.length] + " " + i));
+        }
+        column = new FilteredTableColumn<>("Name");
+        // the cell value is not the property, edits are not seen by the column
+        column.setCellValueFactory(p -> new SimpleStringProperty(p.getValue().name.get()));
+        TableView<Row> tableView = new TableView<>(items);
+        tableView.getColumns().add(column);
+        index = new TextIndex<>(column, items);
+    }
+
+    private void createIndex() {
+        createIndex(FXCollections.observableArrayList(row -> new Observable[]{row.name}));
+    }
+
+    /**
+     * Runs the events of the JavaFX Application Thread until the condition
+     * is met, or a few seconds have passed.
+     */
+    private static void waitUntil(BooleanSupplier condition) {
+        final Object key = new Object();
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                if (condition.getAsBoolean() || System.nanoTime() > deadline) {
+                    stop();
+                    Toolkit.getToolkit().exitNestedEventLoop(key, null);
+                }
+            }
+        }.start();
+        Toolkit.getToolkit().enterNestedEventLoop(key);
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private TextQuery query(String filter) {
+        TextQuery query = FilterCompiler.getTextQuery(parser.parse(filter));
+        assertNotNull(filter, query);
+        return query;
+    }
+
+    /**
+     * Builds the index for the converter of the filter.
+     */
+    private void build(String filter) {
+        assertNull(index.find(query(filter)));
+        waitUntil(() -> index.find(query(filter)) != null);
+    }
+
+    private BitSet bruteForce(String filter) {
+        Predicate<String> predicate = parser.parse(filter);
+        BitSet accepted = new BitSet();
+        for (int row = 0; row < items.size(); ++row) {
+            if (predicate.test(column.getCellData(row))) {
+                accepted.set(row);
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Returns the candidates of the filter, after checking they contain all
+     * the rows it accepts.
+     */
+    private BitSet find(String filter) {
+        BitSet found = index.find(query(filter));
+        assertNotNull(filter, found);
+        BitSet missed = bruteForce(filter);
+        missed.andNot(found);
+        assertTrue(filter + " misses " + missed, missed.isEmpty());
+        return found;
+    }
+
+    /**
+     * Test of find method with every operator, of class TextIndex.
+     */
+    @Test public void testFind() {
+        createIndex();
+        build("contains \"apple\"");
+        assertEquals(bruteForce("contains \"apple\""), find("contains \"apple\""));
+        assertEquals(bruteForce("contains \"PIE 1\""), find("contains \"PIE 1\""));
+        assertEquals(bruteForce("begins with \"apple\""), find("begins with \"apple\""));
+        assertEquals(bruteForce("begins with \"cherry tart 1\""), find("begins with \"cherry tart 1\""));
+        assertEquals(bruteForce("ends with \"12\""), find("ends with \"12\""));
+        assertEquals(bruteForce("equals to \"date loaf 3\""), find("equals to \"date loaf 3\""));
+        assertEquals(1, find("equals to \"date loaf 3\"").cardinality());
+        assertTrue(find("contains \"split 1\"").cardinality() < items.size() / 4);
+        assertTrue(find("contains \"nothing\"").isEmpty());
+        // the query of a text shorter than a trigram doesn't restrict the rows
+        assertNull(index.find(query("contains \"ap\"")));
+    }
+
+    /**
+     * Test of find method with aggregations, of class TextIndex.
+     */
+    @Test public void testFindAggregations() {
+        createIndex();
+        build("contains \"apple\"");
+        assertEquals(bruteForce("contains \"apple\" AND ends with \"14\""),
+                find("contains \"apple\" AND ends with \"14\""));
+        assertEquals(bruteForce("begins with \"cherry\" OR begins with \"date\""),
+                find("begins with \"cherry\" OR begins with \"date\""));
+        assertEquals(bruteForce("contains \"pie\" OR contains \"tart\" AND ends with \"17\""),
+                find("contains \"pie\" OR contains \"tart\" AND ends with \"17\""));
+        // a side that doesn't restrict the rows is ignored by AND...
+        assertEquals(bruteForce("contains \"crumble\""), find("contains \"crumble\" AND contains \"e\""));
+        // ...and makes OR accept everything
+        assertNull(index.find(query("contains \"crumble\" OR contains \"e\"")));
+    }
+
+    /**
+     * Test of find method after rows are added at the end of the items, of
+     * class TextIndex.
+     */
+    @Test public void testAppendedRows() {
+        createIndex();
+        build("contains \"apple\"");
+        items.addAll(new Row("apple strudel"), new Row("fig roll"), new Row("strudel apple"));
+        BitSet found = find("contains \"apple\"");
+        assertEquals(bruteForce("contains \"apple\""), found);
+        assertTrue(found.get(200));
+        assertFalse(found.get(201));
+        assertTrue(found.get(202));
+        assertEquals(bruteForce("contains \"roll\""), find("contains \"roll\""));
+    }
+
+    /**
+     * Test of find method after rows are updated or replaced, which are then
+     * candidates of every query, of class TextIndex.
+     */
+    @Test public void testDirtyRows() {
+        createIndex();
+        build("contains \"apple\"");
+        // an update reported by the extractor
+        items.get(1).name.set("apple strudel");
+        // a replaced row
+        items.set(2, new Row("fig roll"));
+        BitSet found = find("contains \"apple\"");
+        assertTrue(found.get(1));
+        assertTrue(found.get(2));
+        assertEquals(bruteForce("contains \"apple\"").cardinality() + 1, found.cardinality());
+        BitSet roll = find("contains \"roll\"");
+        assertEquals(2, roll.cardinality());
+
+        // too many updated rows build the index again
+        for (int row = 0; row < items.size() / 2; ++row) {
+            items.get(row).name.set("row " + row);
+        }
+        assertNull(index.find(query("contains \"apple\"")));
+        waitUntil(() -> index.find(query("contains \"apple\"")) != null);
+        assertEquals(bruteForce("contains \"apple\""), find("contains \"apple\""));
+    }
+
+    /**
+     * Test of itemUpdated method, for cells whose change is not reported by
+     * the items, of class TextIndex.
+     */
+    @Test public void testItemUpdated() {
+        createIndex(FXCollections.observableArrayList());
+        build("contains \"apple\"");
+        Row row = items.get(3);
+        row.name.set("apple strudel");
+        // the change is not reported, the index is stale
+        assertFalse(index.find(query("contains \"apple\"")).get(3));
+
+        index.itemUpdated(row);
+        assertTrue(find("contains \"apple\"").get(3));
+        assertTrue(find("contains \"strudel\"").get(3));
+    }
+
+    /**
+     * Test that the edit of a cell is reported to the text index, of class
+     * FilteredColumnBitSets.
+     */
+    @Test public void testCellEdited() {
+        createIndex(FXCollections.observableArrayList());
+        FilteredColumnBitSets<Row> bitSets = new FilteredColumnBitSets<>();
+        bitSets.setItems(items);
+        column.setTextIndexed(true);
+        column.setPredicate(parser.parse("contains \"a\""));
+        bitSets.evaluate(Collections.singletonList(column));
+        waitUntil(() -> bitSets.getTextIndexMemoryUsage(column) > 0);
+
+        Row row = items.get(1);
+        row.name.set("apple strudel");
+        bitSets.cellEdited(column, row);
+        column.setPredicate(parser.parse("contains \"apple\""));
+        assertEquals(bruteForce("contains \"apple\""), bitSets.evaluate(Collections.singletonList(column)));
+    }
+
+    /**
+     * Test that the index is built again for a query with another converter,
+     * of class TextIndex.
+     */
+    @Test public void testConverterChanged() {
+        createIndex();
+        build("contains \"apple\"");
+        parser.setConverter(new StringConverter<String>() {
+            @Override
+            public String toString(String object) {
+                return object.replace(' ', '_');
+            }
+
+            @Override
+            public String fromString(String string) {
+                return string;
+            }
+        });
+        assertNull(index.find(query("contains \"apple_pie\"")));
+        waitUntil(() -> index.find(query("contains \"apple_pie\"")) != null);
+        assertEquals(bruteForce("contains \"apple_pie\""), find("contains \"apple_pie\""));
+        assertFalse(find("contains \"apple_pie\"").isEmpty());
+        assertTrue(find("contains \"apple pie\"").isEmpty());
+    }
+}
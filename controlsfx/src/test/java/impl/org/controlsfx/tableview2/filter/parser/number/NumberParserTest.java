@@ -0,0 +1,236 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package impl.org.controlsfx.tableview2.filter.parser.number;
+
+import impl.org.controlsfx.i18n.Localization;
+import impl.org.controlsfx.tableview2.filter.parser.FilterCompiler;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+/**
+ * The expected results of the single terms and of the aggregations are the
+ * ones of the parser that split the text at the first aggregator and parsed
+ * both sides again, which FilterCompiler replaced.
+ */
+public class NumberParserTest {
+
+    private static final List<Integer> VALUES = Arrays.asList(1, 3, 5, 7, 9, -2, null);
+
+    @BeforeClass
+    public static void setUpClass() {
+        Localization.setLocale(Locale.ENGLISH);
+    }
+
+    private static List<Integer> accepted(Predicate<Integer> predicate) {
+        assertNotNull(predicate);
+        return VALUES.stream().filter(predicate).collect(Collectors.toList());
+    }
+
+    private static boolean narrows(NumberParser<Integer> parser, String text, String previous) {
+        return FilterCompiler.isNarrowing(parser.parse(text), parser.parse(previous));
+    }
+
+    /**
+     * Test of parse method with every operator, of class NumberParser.
+     */
+    @Test public void testOperators() {
+        NumberParser<Integer> parser = new NumberParser<>();
+        assertEquals(asList(5), accepted(parser.parse("= 5")));
+        assertEquals(asList(1, 3, 7, 9, -2), accepted(parser.parse("≠ 5")));
+        assertEquals(asList(5, 7, 9), accepted(parser.parse("≥ 5")));
+        assertEquals(asList(7, 9), accepted(parser.parse("> 5")));
+        assertEquals(asList(1, 3, 5, -2), accepted(parser.parse("≤ 5")));
+        assertEquals(asList(1, 3, -2), accepted(parser.parse("< 5")));
+        assertEquals(asList(5), accepted(parser.parse("= 5.0")));
+        assertEquals(asList(1, 3, 5, 7, 9), accepted(parser.parse("> -1")));
+        assertEquals(asList(7, 9), accepted(parser.parse(">5")));
+    }
+
+    /**
+     * Test of parse method with aggregators, applied from right to left, of
+     * class NumberParser.
+     */
+    @Test public void testAggregation() {
+        NumberParser<Integer> parser = new NumberParser<>();
+        assertEquals(asList(3, 5, 7), accepted(parser.parse("≥ 3 AND < 9")));
+        assertEquals(asList(1, 9, -2), accepted(parser.parse("< 3 OR > 7")));
+        assertEquals(asList(5, 9), accepted(parser.parse("≥ 3 AND ≥ 5 AND ≠ 7")));
+        //> 1 AND (< 9 OR = 1), 1 would be accepted from left to right.
+        assertEquals(asList(3, 5, 7), accepted(parser.parse("> 1 AND < 9 OR = 1")));
+        //= 1 OR (= 3 AND = 5)
+        assertEquals(asList(1), accepted(parser.parse("= 1 OR = 3 AND = 5")));
+    }
+
+    /**
+     * Test of isValid and getErrorMessage methods, of class NumberParser.
+     */
+    @Test public void testErrors() {
+        NumberParser<Integer> parser = new NumberParser<>();
+        assertFalse(parser.isValid("> abc"));
+        assertEquals("Input must be a number", parser.getErrorMessage());
+        assertNull(parser.parse("> abc"));
+        assertFalse(parser.isValid("> "));
+        assertEquals("Input must be a number", parser.getErrorMessage());
+        assertFalse(parser.isValid(">"));
+        assertEquals("Condition should start with an operator", parser.getErrorMessage());
+        assertFalse(parser.isValid("foo"));
+        assertEquals("Condition should start with an operator", parser.getErrorMessage());
+        assertFalse(parser.isValid("> 5 AND"));
+        assertEquals("Input must be a number", parser.getErrorMessage());
+        //The error is the one of the term that fails.
+        assertFalse(parser.isValid("> 5 AND foo"));
+        assertEquals("Condition should start with an operator", parser.getErrorMessage());
+
+        assertTrue(parser.isValid("> 5"));
+        assertEquals("", parser.getErrorMessage());
+    }
+
+    /**
+     * Test of the cache of the compiled expressions, of class NumberParser.
+     */
+    @Test public void testCache() {
+        NumberParser<Integer> parser = new NumberParser<>();
+        assertTrue(parser.isValid("> 2 AND < 8"));
+        Predicate<Integer> predicate = parser.parse("> 2 AND < 8");
+        assertSame(predicate, parser.parse("> 2 AND < 8"));
+
+        Predicate<Integer> unused = parser.parse("< 4");
+        for (int i = 0; i < 1000; ++i) {
+            parser.parse("> " + i + " OR = " + i);
+            assertSame(predicate, parser.parse("> 2 AND < 8"));
+        }
+        Predicate<Integer> compiledAgain = parser.parse("< 4");
+        assertNotSame(unused, compiledAgain);
+        assertEquals(accepted(unused), accepted(compiledAgain));
+    }
+
+    /**
+     * Test of isNarrowing method with single terms, of class FilterCompiler.
+     */
+    @Test public void testNarrowingTerms() {
+        NumberParser<Integer> parser = new NumberParser<>();
+        assertTrue(narrows(parser, "> 5", "> 3"));
+        assertTrue(narrows(parser, "> 3", "> 3"));
+        assertTrue(narrows(parser, "> 3", "≥ 3"));
+        assertTrue(narrows(parser, "≥ 5", "≥ 3"));
+        assertTrue(narrows(parser, "≥ 4", "> 3"));
+        assertTrue(narrows(parser, "< 2", "< 4"));
+        assertTrue(narrows(parser, "< 4", "≤ 4"));
+        assertTrue(narrows(parser, "≤ 2", "≤ 4"));
+        assertTrue(narrows(parser, "≤ 3", "< 4"));
+        assertTrue(narrows(parser, "= 4", "> 3"));
+        assertTrue(narrows(parser, "= 4", "≤ 4"));
+        assertTrue(narrows(parser, "= 4", "≠ 5"));
+        assertTrue(narrows(parser, "= 4.0", "= 4"));
+
+        assertFalse(narrows(parser, "> 3", "> 5"));
+        assertFalse(narrows(parser, "≥ 3", "> 3"));
+        assertFalse(narrows(parser, "≥ 3", "≥ 5"));
+        assertFalse(narrows(parser, "< 4", "< 2"));
+        assertFalse(narrows(parser, "≤ 4", "< 4"));
+        assertFalse(narrows(parser, "> 3", "< 5"));
+        assertFalse(narrows(parser, "< 5", "> 3"));
+        assertFalse(narrows(parser, "= 2", "> 3"));
+        assertFalse(narrows(parser, "= 5", "≠ 5"));
+        assertFalse(narrows(parser, "> 3", "= 4"));
+        assertFalse(narrows(parser, "≠ 4", "≠ 5"));
+        assertFalse(narrows(parser, "> 3", "≠ 5"));
+    }
+
+    /**
+     * Test of isNarrowing method with aggregations, of class FilterCompiler.
+     */
+    @Test public void testNarrowingAggregations() {
+        NumberParser<Integer> parser = new NumberParser<>();
+        assertTrue(narrows(parser, "> 3 AND < 8", "> 3"));
+        assertTrue(narrows(parser, "> 3 AND < 8", "> 2 AND < 9"));
+        assertTrue(narrows(parser, "> 4 AND < 6", "≥ 3 AND ≤ 8"));
+        assertTrue(narrows(parser, "= 5", "> 3 AND < 8"));
+        assertTrue(narrows(parser, "> 7", "< 2 OR > 5"));
+        assertTrue(narrows(parser, "< 1 OR > 8", "< 2 OR > 5"));
+        assertTrue(narrows(parser, "= 1 OR = 9", "≠ 5"));
+
+        assertFalse(narrows(parser, "> 3", "> 3 AND < 8"));
+        assertFalse(narrows(parser, "> 3 AND < 9", "> 2 AND < 8"));
+        assertFalse(narrows(parser, "< 2 OR > 5", "> 5"));
+        assertFalse(narrows(parser, "< 3 OR > 8", "< 2 OR > 5"));
+        assertFalse(narrows(parser, "= 1 OR = 5", "≠ 5"));
+    }
+
+    /**
+     * Test that isNarrowing only answers for predicates of the same compiler,
+     * of class FilterCompiler.
+     */
+    @Test public void testNarrowingCompiler() {
+        NumberParser<Integer> parser = new NumberParser<>();
+        Predicate<Integer> previous = parser.parse("> 3");
+        assertTrue(FilterCompiler.isNarrowing(parser.parse("> 5"), previous));
+        assertFalse(FilterCompiler.isNarrowing(new NumberParser<Integer>().parse("> 5"), previous));
+        assertFalse(FilterCompiler.isNarrowing((Integer i) -> i > 5, previous));
+        assertFalse(FilterCompiler.isNarrowing(parser.parse("> 5"), (Integer i) -> i > 3));
+    }
+
+    /**
+     * Test that every predicate isNarrowing tells narrows another accepts
+     * only values the other accepts, of class FilterCompiler.
+     */
+    @Test public void testNarrowingSound() {
+        NumberParser<Integer> parser = new NumberParser<>();
+        List<String> terms = new ArrayList<>();
+        for (String operator : Arrays.asList("=", "≠", "≥", ">", "≤", "<")) {
+            for (int number = 2; number <= 6; number += 2) {
+                terms.add(operator + " " + number);
+            }
+        }
+        List<String> expressions = new ArrayList<>(terms);
+        for (String lhs : terms) {
+            for (String rhs : terms) {
+                expressions.add(lhs + " AND " + rhs);
+                expressions.add(lhs + " OR " + rhs);
+            }
+        }
+        int narrowing = 0;
+        for (String text : expressions) {
+            for (String previous : expressions) {
+                if (narrows(parser, text, previous)) {
+                    ++narrowing;
+                    List<Integer> accepted = accepted(parser.parse(text));
+                    assertTrue(text + " narrows " + previous, accepted(parser.parse(previous)).containsAll(accepted));
+                }
+            }
+        }
+        assertTrue(narrowing > expressions.size());
+    }
+}
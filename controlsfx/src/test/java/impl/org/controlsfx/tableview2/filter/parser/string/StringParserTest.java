@@ -0,0 +1,329 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package impl.org.controlsfx.tableview2.filter.parser.string;
+
+import impl.org.controlsfx.i18n.Localization;
+import impl.org.controlsfx.tableview2.filter.parser.FilterCompiler;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import javafx.util.StringConverter;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+/**
+ * The expected results of the single terms and of the aggregations are the
+ * ones of the parser that split the text at the first aggregator and parsed
+ * both sides again, which FilterCompiler replaced.
+ */
+public class StringParserTest {
+
+    private static final List<String> VALUES = Arrays.asList(
+            "abc", "ABC", "xabcx", "ab", "bc", "cats and dogs", "dogs", "a\"b", "", null);
+
+    @BeforeClass
+    public static void setUpClass() {
+        Localization.setLocale(Locale.ENGLISH);
+    }
+
+    private static List<String> accepted(Predicate<String> predicate) {
+        assertNotNull(predicate);
+        return VALUES.stream().filter(predicate).collect(Collectors.toList());
+    }
+
+    private static boolean narrows(StringParser<String> parser, String text, String previous) {
+        return FilterCompiler.isNarrowing(parser.parse(text), parser.parse(previous));
+    }
+
+    /**
+     * Test of parse method with every operator, of class StringParser.
+     */
+    @Test public void testOperators() {
+        StringParser<String> parser = new StringParser<>(false);
+        assertEquals(asList("abc", "ABC", "ab"), accepted(parser.parse("begins with \"ab\"")));
+        assertEquals(asList("abc", "ABC", "bc"), accepted(parser.parse("ends with \"bc\"")));
+        assertEquals(asList("abc", "ABC", "xabcx", "ab", "bc", "a\"b"), accepted(parser.parse("contains \"b\"")));
+        assertEquals(asList("abc", "ABC"), accepted(parser.parse("equals to \"abc\"")));
+        assertEquals(asList("xabcx", "ab", "bc", "cats and dogs", "dogs", "a\"b", "", null),
+                accepted(parser.parse("not equals to \"abc\"")));
+        assertEquals(asList("a\"b"), accepted(parser.parse("contains \"a\"b\"")));
+        assertTrue(parser.isValid("contains \"b\""));
+        assertEquals("", parser.getErrorMessage());
+
+        parser.setCaseSensitive(true);
+        assertEquals(asList("abc", "xabcx", "ab", "bc", "a\"b"), accepted(parser.parse("contains \"b\"")));
+    }
+
+    /**
+     * Test of parse method with aggregators, applied from right to left, of
+     * class StringParser.
+     */
+    @Test public void testAggregation() {
+        StringParser<String> parser = new StringParser<>(false);
+        assertEquals(asList("abc", "ABC"), accepted(parser.parse("begins with \"ab\" AND ends with \"c\"")));
+        assertEquals(asList("ab", "cats and dogs", "dogs"), accepted(parser.parse("contains \"dogs\" OR equals to \"ab\"")));
+        //contains "a" OR (contains "dogs" AND begins with "c")
+        assertEquals(asList("abc", "ABC", "xabcx", "ab", "cats and dogs", "a\"b"),
+                accepted(parser.parse("contains \"a\" OR contains \"dogs\" AND begins with \"c\"")));
+        //contains "a" AND (contains "b" OR equals to "dogs"), "dogs" would be accepted from left to right.
+        assertEquals(asList("abc", "ABC", "xabcx", "ab", "a\"b"),
+                accepted(parser.parse("contains \"a\" AND contains \"b\" OR equals to \"dogs\"")));
+    }
+
+    /**
+     * Test of parse method with aggregators inside quoted operands, of class
+     * StringParser.
+     */
+    @Test public void testQuotedAggregator() {
+        StringParser<String> parser = new StringParser<>(false);
+        assertTrue(parser.isValid("contains \"cats AND dogs\""));
+        assertEquals(asList("cats and dogs"), accepted(parser.parse("contains \"cats AND dogs\"")));
+        assertTrue(parser.isValid("contains \"cats OR dogs\""));
+        assertEquals(asList(), accepted(parser.parse("contains \"cats OR dogs\"")));
+        assertEquals(asList("cats and dogs", "dogs"),
+                accepted(parser.parse("contains \"cats AND dogs\" OR equals to \"dogs\"")));
+    }
+
+    /**
+     * Test of parse method with empty operands, which accept everything, of
+     * class StringParser.
+     */
+    @Test public void testAcceptAll() {
+        StringParser<String> parser = new StringParser<>(false);
+        assertNull(parser.parse("contains \"\""));
+        assertTrue(parser.isValid("contains \"\""));
+        assertEquals(accepted(parser.parse("contains \"a\"")), accepted(parser.parse("contains \"\" AND contains \"a\"")));
+        assertEquals(accepted(parser.parse("contains \"a\"")), accepted(parser.parse("contains \"a\" AND contains \"\"")));
+        assertNull(parser.parse("contains \"\" OR contains \"dogs\""));
+        assertNull(parser.parse("contains \"dogs\" OR contains \"\""));
+        assertTrue(parser.isValid("contains \"dogs\" OR contains \"\""));
+    }
+
+    /**
+     * Test of isValid and getErrorMessage methods, of class StringParser.
+     */
+    @Test public void testErrors() {
+        StringParser<String> parser = new StringParser<>(false);
+        assertFalse(parser.isValid("foo"));
+        assertEquals("Condition should start with an operator", parser.getErrorMessage());
+        assertNull(parser.parse("foo"));
+        assertFalse(parser.isValid("begins with"));
+        assertEquals("Condition should start with an operator", parser.getErrorMessage());
+        assertFalse(parser.isValid("contains abc"));
+        assertEquals("abc should start with a \"", parser.getErrorMessage());
+        assertFalse(parser.isValid("contains \"abc"));
+        assertEquals("abc should end with a \"", parser.getErrorMessage());
+        //The error is the one of the term that fails.
+        assertFalse(parser.isValid("contains \"a\" AND foo"));
+        assertEquals("Condition should start with an operator", parser.getErrorMessage());
+        assertNull(parser.parse("contains \"a\" AND contains b"));
+        assertEquals("b should start with a \"", parser.getErrorMessage());
+
+        assertTrue(parser.isValid("contains \"a\""));
+        assertEquals("", parser.getErrorMessage());
+    }
+
+    /**
+     * Test of the cache of the compiled expressions, of class StringParser.
+     */
+    @Test public void testCache() {
+        StringParser<String> parser = new StringParser<>(false);
+        String text = "contains \"b\" AND ends with \"c\"";
+        assertTrue(parser.isValid(text));
+        Predicate<String> predicate = parser.parse(text);
+        assertSame(predicate, parser.parse(text));
+
+        //The case sensitivity and the converter clear the cache.
+        parser.setCaseSensitive(true);
+        Predicate<String> sensitive = parser.parse(text);
+        assertNotSame(predicate, sensitive);
+        assertEquals(asList("abc", "bc"), accepted(sensitive));
+        parser.setCaseSensitive(false);
+        Predicate<String> insensitive = parser.parse(text);
+        assertNotSame(predicate, insensitive);
+        assertEquals(asList("abc", "ABC", "bc"), accepted(insensitive));
+
+        parser.setConverter(new StringConverter<String>() {
+            @Override
+            public String toString(String object) {
+                return object + "c";
+            }
+
+            @Override
+            public String fromString(String string) {
+                return string;
+            }
+        });
+        Predicate<String> converted = parser.parse(text);
+        assertNotSame(insensitive, converted);
+        assertEquals(asList("abc", "ABC", "xabcx", "ab", "bc", "a\"b"), accepted(converted));
+    }
+
+    /**
+     * Test that the least recently used expressions are dropped from the
+     * cache, of class StringParser.
+     */
+    @Test public void testCacheEviction() {
+        StringParser<String> parser = new StringParser<>(false);
+        Predicate<String> used = parser.parse("contains \"a\"");
+        Predicate<String> unused = parser.parse("contains \"b\"");
+        for (int i = 0; i < 1000; ++i) {
+            parser.parse("contains \"" + i + "\" OR ends with \"" + i + "\"");
+            assertSame(used, parser.parse("contains \"a\""));
+        }
+        Predicate<String> compiledAgain = parser.parse("contains \"b\"");
+        assertNotSame(unused, compiledAgain);
+        assertEquals(accepted(unused), accepted(compiledAgain));
+    }
+
+    /**
+     * Test of isNarrowing method with single terms, of class FilterCompiler.
+     */
+    @Test public void testNarrowingTerms() {
+        StringParser<String> parser = new StringParser<>(false);
+        assertTrue(narrows(parser, "contains \"ab\"", "contains \"ab\""));
+        assertTrue(narrows(parser, "contains \"abc\"", "contains \"b\""));
+        assertTrue(narrows(parser, "begins with \"ab\"", "contains \"b\""));
+        assertTrue(narrows(parser, "ends with \"abc\"", "contains \"bc\""));
+        assertTrue(narrows(parser, "equals to \"abc\"", "contains \"bc\""));
+        assertTrue(narrows(parser, "begins with \"abc\"", "begins with \"ab\""));
+        assertTrue(narrows(parser, "equals to \"abc\"", "begins with \"ab\""));
+        assertTrue(narrows(parser, "ends with \"abc\"", "ends with \"bc\""));
+        assertTrue(narrows(parser, "equals to \"abc\"", "ends with \"bc\""));
+        //The case is ignored.
+        assertTrue(narrows(parser, "contains \"AB\"", "contains \"a\""));
+
+        assertFalse(narrows(parser, "contains \"a\"", "contains \"ab\""));
+        assertFalse(narrows(parser, "contains \"abc\"", "contains \"x\""));
+        assertFalse(narrows(parser, "contains \"abc\"", "begins with \"ab\""));
+        assertFalse(narrows(parser, "contains \"abc\"", "ends with \"bc\""));
+        assertFalse(narrows(parser, "begins with \"abc\"", "ends with \"bc\""));
+        assertFalse(narrows(parser, "ends with \"abc\"", "begins with \"ab\""));
+        assertFalse(narrows(parser, "begins with \"abc\"", "begins with \"bc\""));
+        assertFalse(narrows(parser, "equals to \"abc\"", "begins with \"bc\""));
+        assertFalse(narrows(parser, "equals to \"abc\"", "equals to \"ab\""));
+        assertFalse(narrows(parser, "contains \"abc\"", "equals to \"abc\""));
+        assertFalse(narrows(parser, "not equals to \"abc\"", "contains \"b\""));
+        assertFalse(narrows(parser, "contains \"abc\"", "not equals to \"abc\""));
+        assertFalse(FilterCompiler.isNarrowing(parser.parse("contains \"ab\""), null));
+        assertFalse(FilterCompiler.isNarrowing(null, parser.parse("contains \"ab\"")));
+        assertFalse(FilterCompiler.isNarrowing(s -> true, parser.parse("contains \"ab\"")));
+
+        parser.setCaseSensitive(true);
+        assertFalse(narrows(parser, "contains \"AB\"", "contains \"a\""));
+        assertTrue(narrows(parser, "contains \"ab\"", "contains \"a\""));
+    }
+
+    /**
+     * Test of isNarrowing method with aggregations, of class FilterCompiler.
+     */
+    @Test public void testNarrowingAggregations() {
+        StringParser<String> parser = new StringParser<>(false);
+        assertTrue(narrows(parser, "contains \"ab\" AND ends with \"c\"", "contains \"ab\""));
+        assertTrue(narrows(parser, "ends with \"c\" AND contains \"abc\"", "contains \"ab\""));
+        assertTrue(narrows(parser, "contains \"abc\"", "contains \"a\" AND contains \"c\""));
+        assertTrue(narrows(parser, "contains \"ab\"", "contains \"a\" OR contains \"z\""));
+        assertTrue(narrows(parser, "contains \"ab\" OR contains \"cd\"", "contains \"b\" OR contains \"c\""));
+        assertTrue(narrows(parser, "contains \"ab\" AND contains \"cd\"", "contains \"b\" AND contains \"c\""));
+
+        assertFalse(narrows(parser, "contains \"ab\"", "contains \"ab\" AND ends with \"c\""));
+        assertFalse(narrows(parser, "contains \"ab\" OR ends with \"c\"", "contains \"ab\""));
+        assertFalse(narrows(parser, "contains \"abc\"", "contains \"a\" AND contains \"d\""));
+        assertFalse(narrows(parser, "contains \"a\" OR contains \"z\"", "contains \"ab\""));
+        assertFalse(narrows(parser, "contains \"ab\" OR contains \"x\"", "contains \"b\" OR contains \"c\""));
+    }
+
+    /**
+     * Test that isNarrowing only answers for predicates of the same compiler,
+     * compiled with the same case sensitivity and converter, of class
+     * FilterCompiler.
+     */
+    @Test public void testNarrowingGeneration() {
+        StringParser<String> parser = new StringParser<>(false);
+        Predicate<String> previous = parser.parse("contains \"a\"");
+        assertTrue(FilterCompiler.isNarrowing(parser.parse("contains \"ab\""), previous));
+        assertFalse(FilterCompiler.isNarrowing(new StringParser<String>(false).parse("contains \"ab\""), previous));
+
+        parser.setCaseSensitive(true);
+        assertFalse(FilterCompiler.isNarrowing(parser.parse("contains \"ab\""), previous));
+        previous = parser.parse("contains \"a\"");
+        assertTrue(FilterCompiler.isNarrowing(parser.parse("contains \"ab\""), previous));
+
+        parser.setConverter(new StringConverter<String>() {
+            @Override
+            public String toString(String object) {
+                return object;
+            }
+
+            @Override
+            public String fromString(String string) {
+                return string;
+            }
+        });
+        assertFalse(FilterCompiler.isNarrowing(parser.parse("contains \"ab\""), previous));
+        assertFalse(FilterCompiler.isNarrowing(parser.parse("contains \"a\""), previous));
+    }
+
+    /**
+     * Test that every predicate isNarrowing tells narrows another accepts
+     * only values the other accepts, of class FilterCompiler.
+     */
+    @Test public void testNarrowingSound() {
+        StringParser<String> parser = new StringParser<>(false);
+        List<String> texts = Arrays.asList("a", "ab", "abc", "b", "bc", "c", "dogs");
+        List<String> operators = Arrays.asList("begins with", "ends with", "contains", "equals to", "not equals to");
+        List<String> expressions = new ArrayList<>();
+        for (String operator : operators) {
+            for (String text : texts) {
+                expressions.add(operator + " \"" + text + "\"");
+            }
+        }
+        List<String> terms = new ArrayList<>(expressions);
+        for (String lhs : terms.subList(0, 14)) {
+            for (String rhs : terms.subList(14, 28)) {
+                expressions.add(lhs + " AND " + rhs);
+                expressions.add(lhs + " OR " + rhs);
+            }
+        }
+        int narrowing = 0;
+        for (String text : expressions) {
+            for (String previous : expressions) {
+                if (narrows(parser, text, previous)) {
+                    ++narrowing;
+                    List<String> accepted = accepted(parser.parse(text));
+                    assertTrue(text + " narrows " + previous, accepted(parser.parse(previous)).containsAll(accepted));
+                }
+            }
+        }
+        assertTrue(narrowing > expressions.size());
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package impl.org.controlsfx.tools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ColumnOffsetsTest {
+
+    //The third column is hidden.
+    private static final double[] WIDTHS = {100, 50, 0, 200, 100, 100};
+
+    private ColumnOffsets offsets;
+
+    @Before
+    public void setUp() {
+        offsets = new ColumnOffsets();
+        offsets.build(WIDTHS.length, column -> WIDTHS[column], column -> column == 0 || column == 4, 2);
+    }
+
+    /**
+     * Test of build method, of class ColumnOffsets.
+     */
+    @Test public void testBuild() {
+        assertEquals(6, offsets.getColumnCount());
+        assertEquals(0, offsets.getOffset(0), 0);
+        assertEquals(150, offsets.getOffset(2), 0);
+        assertEquals(150, offsets.getOffset(3), 0);
+        assertEquals(350, offsets.getOffset(4), 0);
+        assertEquals(550, offsets.getTotalWidth(), 0);
+        assertArrayEquals(new int[]{0, 4}, offsets.getFixedColumns());
+    }
+
+    /**
+     * Test of getFirstColumn and getLastColumn methods, of class
+     * ColumnOffsets.
+     */
+    @Test public void testBinarySearch() {
+        assertEquals(0, offsets.getFirstColumn(-10));
+        assertEquals(0, offsets.getFirstColumn(0));
+        assertEquals(0, offsets.getFirstColumn(100));
+        assertEquals(1, offsets.getFirstColumn(100.5));
+        //The hidden column ends where it starts, the first column reaching 150 is the second one.
+        assertEquals(1, offsets.getFirstColumn(150));
+        assertEquals(3, offsets.getFirstColumn(151));
+        assertEquals(6, offsets.getFirstColumn(551));
+
+        assertEquals(-1, offsets.getLastColumn(-1));
+        assertEquals(0, offsets.getLastColumn(0));
+        assertEquals(0, offsets.getLastColumn(99));
+        assertEquals(1, offsets.getLastColumn(100));
+        assertEquals(3, offsets.getLastColumn(150));
+        assertEquals(3, offsets.getLastColumn(349));
+        assertEquals(5, offsets.getLastColumn(1000));
+
+        //Every column is compared with a linear scan.
+        for (double position = -10; position <= 560; position += 0.5) {
+            int first = 0;
+            while (first < WIDTHS.length && offsets.getOffset(first + 1) < position) {
+                ++first;
+            }
+            int last = WIDTHS.length - 1;
+            while (last >= 0 && offsets.getOffset(last) > position) {
+                --last;
+            }
+            assertEquals("first at " + position, first, offsets.getFirstColumn(position));
+            assertEquals("last at " + position, last, offsets.getLastColumn(position));
+        }
+    }
+
+    /**
+     * Test of isValid and invalidate methods, of class ColumnOffsets.
+     */
+    @Test public void testInvalidate() {
+        assertTrue(offsets.isValid(2));
+        //Another padding gives other widths.
+        assertFalse(offsets.isValid(3));
+
+        offsets.invalidate();
+        assertFalse(offsets.isValid(2));
+        WIDTHS[1] = 80;
+        try {
+            offsets.build(WIDTHS.length, column -> WIDTHS[column], column -> false, 2);
+        } finally {
+            WIDTHS[1] = 50;
+        }
+        assertTrue(offsets.isValid(2));
+        assertEquals(180, offsets.getOffset(3), 0);
+        assertEquals(0, offsets.getFixedColumns().length);
+    }
+
+    /**
+     * Test of getNextColumn method, of class ColumnOffsets, with the columns
+     * laid out by a row for several horizontal positions of the viewport.
+     */
+    @Test public void testGetNextColumn() {
+        //A viewport of 150 pixels at the left.
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), getLaidOutColumns(0, 150));
+        //Scrolled to the fifth column, only the first fixed column is added before it.
+        assertEquals(Arrays.asList(0, 4, 5), getLaidOutColumns(360, 150));
+        //Scrolled in the middle of the fourth column, the fixed fifth column is in the viewport.
+        assertEquals(Arrays.asList(0, 3, 4), getLaidOutColumns(200, 100));
+        //Scrolled past the last column, only the fixed columns are left.
+        assertEquals(Arrays.asList(0, 4), getLaidOutColumns(600, 100));
+    }
+
+    /**
+     * @return the columns visited by the loop of the row skins for the given
+     * viewport
+     */
+    private List<Integer> getLaidOutColumns(double scroll, double viewportWidth) {
+        final int columnCount = offsets.getColumnCount();
+        final int firstColumn = offsets.getFirstColumn(scroll);
+        final int lastColumn = offsets.getLastColumn(scroll + viewportWidth);
+        final List<Integer> columns = new ArrayList<>();
+        for (int column = ColumnOffsets.getNextColumn(-1, firstColumn, lastColumn, offsets.getFixedColumns(), columnCount); column < columnCount;
+                column = ColumnOffsets.getNextColumn(column, firstColumn, lastColumn, offsets.getFixedColumns(), columnCount)) {
+            columns.add(column);
+        }
+        return columns;
+    }
+}
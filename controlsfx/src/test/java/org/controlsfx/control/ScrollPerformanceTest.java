@@ -0,0 +1,455 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met: *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer. * Redistributions in binary
+ * form must reproduce the above copyright notice, this list of conditions and
+ * the following disclaimer in the documentation and/or other materials provided
+ * with the distribution. * Neither the name of ControlsFX, any associated
+ * website, nor the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.control;
+
+import com.sun.javafx.scene.control.skin.VirtualFlow;
+import com.sun.javafx.tk.TKPulseListener;
+import com.sun.javafx.tk.Toolkit;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.control.TableColumn;
+import org.controlsfx.control.spreadsheet.GridBase;
+import org.controlsfx.control.spreadsheet.SpreadsheetCell;
+import org.controlsfx.control.spreadsheet.SpreadsheetCellType;
+import org.controlsfx.control.spreadsheet.SpreadsheetView;
+import org.controlsfx.control.tableview2.FilteredTableColumn;
+import org.controlsfx.control.tableview2.FilteredTableView;
+import org.controlsfx.control.tableview2.TableView2;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.testfx.api.FxToolkit;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Headless performance regression tests of the virtualized controls.
+ *
+ * Every scenario shows a large control in the primary stage, then changes it
+ * (scrolling, selection or filtering) at the start of a fixed number of
+ * pulses. For each pulse, the wall time between the change and the end of the
+ * CSS and layout passes is recorded, together with the bytes allocated by the
+ * JavaFX thread and the number of nodes of the scene.
+ *
+ * These tests are excluded from the regular test task, run them with
+ * {@code ./gradlew :controlsfx:performanceTest}. The following system
+ * properties configure them:
+ * <ul>
+ * <li>{@code controlsfx.perf.pulses}: the number of measured pulses (120),
+ * at least 1,</li>
+ * <li>{@code controlsfx.perf.warmup}: the number of pulses run before (60),</li>
+ * <li>{@code controlsfx.perf.report}: a text file where a summary of each
+ * scenario is written ({@code build/reports/performance/scroll.txt}),</li>
+ * <li>{@code controlsfx.perf.output}: a properties file where the results
+ * are written, it can be used as a baseline for a later run,</li>
+ * <li>{@code controlsfx.perf.baseline}: a properties file of expected results,
+ * a scenario fails if one of its results exceeds it by more than the
+ * tolerance. A single threshold can also be given directly, for example
+ * {@code -Dcontrolsfx.perf.spreadsheetView.scroll.time=2500000},</li>
+ * <li>{@code controlsfx.perf.tolerance}: the tolerance, 0.2 by default.</li>
+ * </ul>
+ * The results are the mean time of a pulse in nanoseconds ({@code time}), the
+ * mean bytes allocated during a pulse ({@code allocation}) and the maximum
+ * number of nodes ({@code nodes}).
+ */
+public class ScrollPerformanceTest {
+
+    private static final String PREFIX = "controlsfx.perf.";
+    private static final String[] METRICS = {"time", "allocation", "nodes"};
+    private static final int ROW_COUNT = 100000;
+    private static final int COLUMN_COUNT = 30;
+
+    private static int pulses;
+    private static int warmup;
+    private static double tolerance;
+    private static final Properties baseline = new Properties();
+    private static final Properties results = new Properties();
+    private static final List<String> report = new ArrayList<>();
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        pulses = Integer.getInteger(PREFIX + "pulses", 120);
+        warmup = Integer.getInteger(PREFIX + "warmup", 60);
+        if (pulses < 1 || warmup < 0) {
+            throw new IllegalArgumentException("At least one pulse must be measured, after a non-negative warmup: "
+                    + PREFIX + "pulses=" + pulses + ", " + PREFIX + "warmup=" + warmup);
+        }
+        tolerance = Double.parseDouble(System.getProperty(PREFIX + "tolerance", "0.2"));
+        String baselineFile = System.getProperty(PREFIX + "baseline");
+        if (baselineFile != null) {
+            try (InputStream in = new FileInputStream(baselineFile)) {
+                baseline.load(in);
+            }
+        }
+        FxToolkit.registerPrimaryStage();
+        FxToolkit.setupStage(stage -> {
+            stage.setWidth(1280);
+            stage.setHeight(800);
+        });
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws IOException {
+        Path reportFile = Paths.get(System.getProperty(PREFIX + "report", "build/reports/performance/scroll.txt"));
+        if (reportFile.getParent() != null) {
+            Files.createDirectories(reportFile.getParent());
+        }
+        Files.write(reportFile, report);
+        String outputFile = System.getProperty(PREFIX + "output");
+        if (outputFile != null) {
+            try (OutputStream out = new FileOutputStream(outputFile)) {
+                results.store(out, "ScrollPerformanceTest results");
+            }
+        }
+    }
+
+    /**
+     * Test of the vertical scrolling of a SpreadsheetView.
+     */
+    @Test
+    public void testSpreadsheetViewScroll() throws Exception {
+        SpreadsheetView spreadsheetView = show(() -> new SpreadsheetView(createGrid()));
+        VirtualFlow<?> flow = getFlow(spreadsheetView);
+        measure("spreadsheetView.scroll", pulse -> scroll(flow));
+    }
+
+    /**
+     * Test of the selection of cells of a SpreadsheetView, scrolled to the
+     * selected row.
+     */
+    @Test
+    public void testSpreadsheetViewSelection() throws Exception {
+        SpreadsheetView spreadsheetView = show(() -> new SpreadsheetView(createGrid()));
+        measure("spreadsheetView.selection", pulse -> {
+            int row = (pulse * 37) % ROW_COUNT;
+            spreadsheetView.getSelectionModel().clearAndSelect(row, spreadsheetView.getColumns().get(pulse % COLUMN_COUNT));
+            spreadsheetView.scrollToRow(row);
+        });
+    }
+
+    /**
+     * Test of the vertical scrolling of a TableView2 with a row header.
+     */
+    @Test
+    public void testTableView2Scroll() throws Exception {
+        TableView2<Integer> tableView = show(() -> {
+            TableView2<Integer> table = new TableView2<>(createItems());
+            table.getColumns().setAll(createColumns(TableColumn::new));
+            table.setRowHeaderVisible(true);
+            return table;
+        });
+        VirtualFlow<?> flow = getFlow(tableView);
+        measure("tableView2.scroll", pulse -> scroll(flow));
+    }
+
+    /**
+     * Test of the selection of rows of a TableView2, scrolled to the selected
+     * row.
+     */
+    @Test
+    public void testTableView2Selection() throws Exception {
+        TableView2<Integer> tableView = show(() -> {
+            TableView2<Integer> table = new TableView2<>(createItems());
+            table.getColumns().setAll(createColumns(TableColumn::new));
+            return table;
+        });
+        measure("tableView2.selection", pulse -> {
+            int row = (pulse * 37) % ROW_COUNT;
+            tableView.getSelectionModel().clearAndSelect(row);
+            tableView.scrollTo(row);
+        });
+    }
+
+    /**
+     * Test of the filtering of a FilteredTableView, one of its columns
+     * predicate changing at every pulse.
+     */
+    @Test
+    public void testFilteredTableViewFilter() throws Exception {
+        FilteredTableColumn<Integer, Integer>[] columns = new FilteredTableColumn[1];
+        show(() -> {
+            FilteredTableView<Integer> table = new FilteredTableView<>();
+            FilteredTableView.configureForFiltering(table, createItems());
+            table.getColumns().setAll(createColumns(FilteredTableColumn::new));
+            columns[0] = (FilteredTableColumn<Integer, Integer>) table.getColumns().get(1);
+            return table;
+        });
+        measure("filteredTableView.filter", pulse -> {
+            final int modulo = 2 + pulse % 5;
+            columns[0].setPredicate(value -> value % modulo == 0);
+        });
+    }
+
+    /**
+     * Test of the vertical scrolling of a GridView.
+     */
+    @Test
+    public void testGridViewScroll() throws Exception {
+        GridView<Integer> gridView = show(() -> {
+            GridView<Integer> grid = new GridView<>(createItems());
+            grid.setCellFactory(view -> new GridCell<Integer>() {
+                @Override
+                protected void updateItem(Integer item, boolean empty) {
+                    super.updateItem(item, empty);
+                    setText(empty || item == null ? null : item.toString());
+                }
+            });
+            return grid;
+        });
+        VirtualFlow<?> flow = getFlow(gridView);
+        measure("gridView.scroll", pulse -> scroll(flow));
+    }
+
+    /***************************************************************************
+     * * Private Implementation * *
+     **************************************************************************/
+
+    /**
+     * Supplies the control to show, on the JavaFX thread.
+     */
+    private interface ControlFactory<T extends Parent> {
+
+        T create() throws Exception;
+    }
+
+    /**
+     * Creates the control on the JavaFX thread, sets it as the root of the
+     * primary stage and waits for it to be laid out.
+     */
+    private static <T extends Parent> T show(ControlFactory<T> factory) throws Exception {
+        final Object[] control = new Object[1];
+        FxToolkit.setupSceneRoot(() -> {
+            try {
+                control[0] = factory.create();
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+            return (Parent) control[0];
+        });
+        FxToolkit.showStage();
+        waitForPulses(5);
+        return (T) control[0];
+    }
+
+    private static VirtualFlow<?> getFlow(Node control) {
+        Node flow = control.lookup(".virtual-flow");
+        assertTrue("No VirtualFlow in " + control, flow instanceof VirtualFlow);
+        return (VirtualFlow<?>) flow;
+    }
+
+    /**
+     * Scrolls down by a few rows, and goes back to the top once the end is
+     * reached.
+     */
+    private static void scroll(VirtualFlow<?> flow) {
+        if (flow.adjustPixels(60) == 0) {
+            flow.scrollTo(0);
+        }
+    }
+
+    private static GridBase createGrid() {
+        GridBase grid = new GridBase(ROW_COUNT, COLUMN_COUNT);
+        ObservableList<ObservableList<SpreadsheetCell>> rows = FXCollections.observableArrayList();
+        for (int row = 0; row < ROW_COUNT; ++row) {
+            final ObservableList<SpreadsheetCell> list = FXCollections.observableArrayList();
+            for (int column = 0; column < COLUMN_COUNT; ++column) {
+                list.add(SpreadsheetCellType.INTEGER.createCell(row, column, 1, 1, row * column));
+            }
+            rows.add(list);
+        }
+        grid.setRows(rows);
+        return grid;
+    }
+
+    private static ObservableList<Integer> createItems() {
+        ObservableList<Integer> items = FXCollections.observableArrayList();
+        for (int i = 0; i < ROW_COUNT; ++i) {
+            items.add(i);
+        }
+        return items;
+    }
+
+    private static <C extends TableColumn<Integer, Integer>> ObservableList<C> createColumns(Function<String, C> factory) {
+        ObservableList<C> columns = FXCollections.observableArrayList();
+        for (int column = 0; column < COLUMN_COUNT; ++column) {
+            final int multiplier = column + 1;
+            C tableColumn = factory.apply("Column " + column);
+            tableColumn.setCellValueFactory(p -> new ReadOnlyObjectWrapper<>(p.getValue() * multiplier));
+            columns.add(tableColumn);
+        }
+        return columns;
+    }
+
+    private static void waitForPulses(int count) throws InterruptedException {
+        PulseRecorder recorder = new PulseRecorder(count, 0, pulse -> {});
+        recorder.await();
+    }
+
+    /**
+     * Runs the scenario, records its results and compares them with the
+     * baseline.
+     */
+    private static void measure(String scenario, IntConsumer step) throws InterruptedException {
+        PulseRecorder recorder = new PulseRecorder(pulses, warmup, step);
+        recorder.await();
+
+        long[] times = recorder.times.clone();
+        Arrays.sort(times);
+        long[] values = {
+            (long) Arrays.stream(recorder.times).average().orElse(0),
+            (long) Arrays.stream(recorder.allocations).average().orElse(0),
+            Arrays.stream(recorder.nodes).max().orElse(0)
+        };
+        report.add(String.format("%s: %d pulses, mean %.3f ms, p95 %.3f ms, %d bytes allocated, %d nodes",
+                scenario, pulses, values[0] / 1e6, times[(int) (times.length * 0.95)] / 1e6, values[1], values[2]));
+
+        StringBuilder regressions = new StringBuilder();
+        for (int i = 0; i < METRICS.length; ++i) {
+            String key = scenario + "." + METRICS[i];
+            results.setProperty(key, Long.toString(values[i]));
+            String expected = System.getProperty(PREFIX + key, baseline.getProperty(key));
+            // Allocations are not measured on every JVM
+            if (expected != null && values[i] >= 0) {
+                long threshold = (long) (Long.parseLong(expected.trim()) * (1 + tolerance));
+                if (values[i] > threshold) {
+                    regressions.append(String.format("%s is %d, expected at most %d (%s + %.0f%%)%n",
+                            key, values[i], threshold, expected.trim(), tolerance * 100));
+                }
+            }
+        }
+        if (regressions.length() > 0) {
+            fail(regressions.toString());
+        }
+    }
+
+    private static int countNodes(Node node) {
+        int count = 1;
+        if (node instanceof Parent) {
+            for (Node child : ((Parent) node).getChildrenUnmodifiable()) {
+                count += countNodes(child);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Applies a step at the start of each pulse, with an AnimationTimer, and
+     * records the cost of the pulse once the scenes have been laid out.
+     */
+    private static class PulseRecorder extends AnimationTimer implements TKPulseListener {
+
+        private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+
+        final long[] times;
+        final long[] allocations;
+        final int[] nodes;
+        private final int warmup;
+        private final IntConsumer step;
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private int pulse;
+        private long start = -1;
+        private long startAllocation;
+
+        PulseRecorder(int pulses, int warmup, IntConsumer step) {
+            this.times = new long[pulses];
+            this.allocations = new long[pulses];
+            this.nodes = new int[pulses];
+            this.warmup = warmup;
+            this.step = step;
+            Platform.runLater(() -> {
+                Toolkit.getToolkit().addPostSceneTkPulseListener(this);
+                start();
+            });
+        }
+
+        void await() throws InterruptedException {
+            assertTrue("The pulses did not complete", latch.await(5, TimeUnit.MINUTES));
+        }
+
+        @Override
+        public void handle(long now) {
+            startAllocation = getAllocatedBytes();
+            start = System.nanoTime();
+            step.accept(pulse);
+        }
+
+        @Override
+        public void pulse() {
+            if (start < 0) {
+                return;
+            }
+            final long time = System.nanoTime() - start;
+            final long allocation = startAllocation < 0 ? -1 : getAllocatedBytes() - startAllocation;
+            start = -1;
+            final int index = pulse - warmup;
+            if (index >= 0) {
+                times[index] = time;
+                allocations[index] = allocation;
+                nodes[index] = countNodes(FxToolkit.toolkitContext().getRegisteredStage().getScene().getRoot());
+            }
+            if (++pulse == warmup + times.length) {
+                stop();
+                Toolkit.getToolkit().removePostSceneTkPulseListener(this);
+                latch.countDown();
+            }
+        }
+
+        private static long getAllocatedBytes() {
+            if (THREAD_BEAN instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) THREAD_BEAN;
+                if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+                    return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+                }
+            }
+            return -1;
+        }
+    }
+}
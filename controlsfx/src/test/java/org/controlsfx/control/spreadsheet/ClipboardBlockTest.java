@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.control.spreadsheet;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Arrays;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ClipboardBlockTest {
+
+    private static class NonSerializableClass {
+
+        @Override
+        public String toString() {
+            return "non serializable";
+        }
+    }
+
+    /**
+     * Serializable, but holding a value that is not.
+     */
+    private static class BrokenClass implements Serializable {
+
+        private final Object value = new NonSerializableClass();
+
+        @Override
+        public String toString() {
+            return "broken";
+        }
+    }
+
+    private static ClipboardBlock copy(Object... values) {
+        ClipboardBlock.Writer writer = new ClipboardBlock.Writer(values.length);
+        for (int i = 0; i < values.length; ++i) {
+            writer.write(i / 2, i % 2, values[i]);
+        }
+        return ClipboardBlock.fromBytes(writer.toBytes());
+    }
+
+    @Test public void testValues() {
+        char[] longText = new char[100_000];
+        Arrays.fill(longText, 'a');
+        Object[] values = {null, "text", 1.5, 3, true, LocalDate.of(2020, 2, 29), new String(longText),
+            Arrays.asList(1, 2)};
+        ClipboardBlock block = copy(values);
+
+        assertEquals(values.length, block.size());
+        for (int i = 0; i < values.length; ++i) {
+            assertEquals(i / 2, block.getRow(i));
+            assertEquals(i % 2, block.getColumn(i));
+            assertEquals(values[i], block.getValue(i));
+        }
+    }
+
+    /**
+     * A value that cannot be serialized is copied as text, without affecting
+     * the other values.
+     */
+    @Test public void testNonSerializable() {
+        ClipboardBlock block = copy(new NonSerializableClass(), new BrokenClass(), 4, new BrokenClass(), "end");
+        assertEquals("non serializable", block.getValue(0));
+        assertEquals("broken", block.getValue(1));
+        assertEquals(4, block.getValue(2));
+        assertEquals("broken", block.getValue(3));
+        assertEquals("end", block.getValue(4));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMissingCells() {
+        ClipboardBlock.Writer writer = new ClipboardBlock.Writer(2);
+        writer.write(0, 0, "a");
+        writer.toBytes();
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met: *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer. * Redistributions in binary
+ * form must reproduce the above copyright notice, this list of conditions and
+ * the following disclaimer in the documentation and/or other materials provided
+ * with the distribution. * Neither the name of ControlsFX, any associated
+ * website, nor the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.control.spreadsheet;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class CsvGridTest {
+    @Rule public JavaFXThreadingRule javafxRule = new JavaFXThreadingRule();
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path write(String content) throws IOException {
+        Path path = folder.newFile("data.csv").toPath();
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+
+    /**
+     * Test of parsing the rows, of class CsvGrid.
+     */
+    @Test public void testParse() throws Exception {
+        Path path = write("name,text,value\r\na,\"b, \"\"quoted\"\"\nline\",1\n,,\nshort\nlast,x,2");
+        try (CsvGrid grid = new CsvGrid(path, ',', true)) {
+            grid.waitForIndex();
+            assertTrue(grid.isIndexed());
+            assertEquals(3, grid.getColumnCount());
+            assertEquals(4, grid.getRowCount());
+            assertEquals("value", grid.getColumnHeaders().get(2));
+
+            assertEquals("a", grid.getCell(0, 0).getItem());
+            assertEquals("b, \"quoted\"\nline", grid.getCell(0, 1).getItem());
+            assertEquals("1", grid.getCell(0, 2).getItem());
+            assertEquals("", grid.getCell(1, 1).getItem());
+            assertEquals("short", grid.getCell(2, 0).getItem());
+            assertEquals("", grid.getCell(2, 2).getItem());
+            assertEquals("2", grid.getCell(3, 2).getItem());
+        }
+    }
+
+    /**
+     * Test that the edited values do not modify the file, of class CsvGrid.
+     */
+    @Test public void testEdit() throws Exception {
+        Path path = write("a\tb\nc\td\n");
+        try (CsvGrid grid = new CsvGrid(path, '\t', false)) {
+            grid.waitForIndex();
+            assertEquals(2, grid.getRowCount());
+            grid.setCellValue(1, 0, "edited");
+            assertEquals("edited", grid.getCell(1, 0).getItem());
+        }
+        assertEquals("a\tb\nc\td\n", new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Test of saveIndex method, of class CsvGrid.
+     */
+    @Test public void testSaveIndex() throws Exception {
+        StringBuilder content = new StringBuilder("id,square\n");
+        for (int i = 0; i < 5000; ++i) {
+            content.append(i).append(',').append(i * i).append('\n');
+        }
+        Path path = write(content.toString());
+        try (CsvGrid grid = new CsvGrid(path, ',', true)) {
+            grid.waitForIndex();
+            grid.saveIndex();
+        }
+        assertTrue(Files.exists(path.resolveSibling("data.csv.idx")));
+
+        try (CsvGrid grid = new CsvGrid(path, ',', true)) {
+            //The saved index gives all the rows immediately.
+            assertTrue(grid.isIndexed());
+            assertEquals(5000, grid.getRowCount());
+            assertEquals("4999", grid.getCell(4999, 0).getItem());
+            assertEquals("9998001", grid.getCell(4999, 1).getItem());
+        }
+    }
+}
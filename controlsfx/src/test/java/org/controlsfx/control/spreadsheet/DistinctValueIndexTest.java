@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met: *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer. * Redistributions in binary
+ * form must reproduce the above copyright notice, this list of conditions and
+ * the following disclaimer in the documentation and/or other materials provided
+ * with the distribution. * Neither the name of ControlsFX, any associated
+ * website, nor the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.control.spreadsheet;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class DistinctValueIndexTest {
+
+    private static final String[] TEXTS = {"header", "a", "b", "a", "c", "b", "a"};
+
+    private DistinctValueIndex buildIndex() {
+        return new DistinctValueIndex((int row) -> TEXTS[row], TEXTS.length, 1);
+    }
+
+    @Test public void testTexts() {
+        DistinctValueIndex index = buildIndex();
+        assertEquals(Arrays.asList("a", "b", "c"), index.getTexts());
+        assertEquals(3, index.getCount("a"));
+        assertEquals(0, index.getCount("header"));
+    }
+
+    @Test public void testSet() {
+        DistinctValueIndex index = buildIndex();
+        index.set(4, "a");
+        assertEquals(Arrays.asList("a", "b"), index.getTexts());
+        assertEquals(4, index.getCount("a"));
+        //The rows before the first row are not indexed.
+        index.set(0, "d");
+        assertEquals(0, index.getCount("d"));
+    }
+
+    @Test public void testReleasedIds() {
+        DistinctValueIndex index = buildIndex();
+        for (int i = 0; i < 1000; ++i) {
+            index.set(4, "d" + i);
+        }
+        //The ids of the texts no longer used are given to the new ones, the
+        //new text of a row being given an id before the previous one is released.
+        assertEquals(4, index.getIdCount());
+        assertEquals(Arrays.asList("a", "b", "d999"), index.getTexts());
+        assertEquals(0, index.getCount("c"));
+        assertEquals(0, index.getCount("d998"));
+        assertEquals(1, index.getCount("d999"));
+
+        index.set(4, "a");
+        index.set(2, "c");
+        assertEquals(Arrays.asList("a", "b", "c"), index.getTexts());
+        assertEquals(1, index.getCount("c"));
+        BitSet hiddenRows = new BitSet();
+        index.hideOthers(Collections.singleton("c"), hiddenRows);
+        BitSet expected = new BitSet();
+        expected.set(1, TEXTS.length);
+        expected.clear(2);
+        assertEquals(expected, hiddenRows);
+    }
+
+    @Test public void testHideOthers() {
+        DistinctValueIndex index = buildIndex();
+        BitSet hiddenRows = new BitSet();
+        hiddenRows.set(0);
+        index.hideOthers(Collections.singleton("b"), hiddenRows);
+        BitSet expected = new BitSet();
+        expected.set(0, 2);
+        expected.set(3, 5);
+        expected.set(6);
+        assertEquals(expected, hiddenRows);
+        assertEquals(new HashSet<>(Arrays.asList("b")), index.getVisibleTexts(hiddenRows));
+    }
+}
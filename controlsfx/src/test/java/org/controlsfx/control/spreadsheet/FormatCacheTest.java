@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met: *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer. * Redistributions in binary
+ * form must reproduce the above copyright notice, this list of conditions and
+ * the following disclaimer in the documentation and/or other materials provided
+ * with the distribution. * Neither the name of ControlsFX, any associated
+ * website, nor the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.control.spreadsheet;
+
+import impl.org.controlsfx.i18n.Localization;
+import java.time.LocalDate;
+import java.util.Locale;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class FormatCacheTest {
+
+    @After
+    public void tearDown() {
+        Localization.setLocale(null);
+    }
+
+    @Test public void testSameInstance() {
+        Localization.setLocale(Locale.US);
+        assertSame(FormatCache.getDecimalFormat("#.00"), FormatCache.getDecimalFormat("#.00"));
+        assertSame(FormatCache.getDateTimeFormatter("dd MMMM"), FormatCache.getDateTimeFormatter("dd MMMM"));
+        assertEquals("3.14", FormatCache.getDecimalFormat("#.00").format(3.14159));
+    }
+
+    @Test public void testLocale() {
+        Localization.setLocale(Locale.US);
+        assertEquals("01 March", LocalDate.of(2018, 3, 1).format(FormatCache.getDateTimeFormatter("dd MMMM")));
+        Localization.setLocale(Locale.FRANCE);
+        assertEquals("01 mars", LocalDate.of(2018, 3, 1).format(FormatCache.getDateTimeFormatter("dd MMMM")));
+        assertEquals("3,14", FormatCache.getDecimalFormat("#.00").format(3.14159));
+    }
+
+    @Test public void testCellTextLocale() {
+        Localization.setLocale(Locale.US);
+        SpreadsheetCell cell = SpreadsheetCellType.DOUBLE.createCell(0, 0, 1, 1, 3.14159);
+        cell.setFormat("#.00");
+        assertEquals("3.14", cell.getText());
+
+        Localization.setLocale(Locale.FRANCE);
+        assertEquals(Locale.FRANCE, FormatCache.getLocale());
+        //The text is kept until the SpreadsheetView formats it again.
+        assertEquals("3.14", cell.getText());
+        ((SpreadsheetCellBase) cell).updateText();
+        assertEquals("3,14", cell.getText());
+    }
+}
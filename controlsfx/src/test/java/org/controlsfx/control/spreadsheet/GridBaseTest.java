@@ -26,6 +26,7 @@
  */
 package org.controlsfx.control.spreadsheet;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -75,6 +76,74 @@ public class GridBaseTest {
         assertEquals(value, grid.getRows().get(0).get(0).getItem());
     }
 
+    /**
+     * Test of beginBatch and commitBatch methods, of class GridBase.
+     */
+    @Test public void testBatch() {
+        grid.setCellValue(2, 2, "x");
+        final List<GridChange> changes = new ArrayList<>();
+        final List<GridChangeBatch> batches = new ArrayList<>();
+        grid.addEventHandler(GridChange.GRID_CHANGE_EVENT, changes::add);
+        grid.addEventHandler(GridChangeBatch.GRID_CHANGE_BATCH_EVENT, batches::add);
+
+        grid.beginBatch();
+        grid.setCellValue(0, 0, "a");
+        grid.setCellValue(0, 1, "b");
+        grid.beginBatch();
+        grid.setCellValue(1, 0, "c");
+        grid.setCellValue(1, 1, "d");
+        grid.commitBatch();
+        grid.setCellValue(3, 5, "e");
+        grid.setCellValue(0, 0, "f");
+        //Back to its initial value, so not reported.
+        grid.setCellValue(2, 2, "g");
+        grid.setCellValue(2, 2, "x");
+        assertTrue(grid.isBatching());
+        //Every change is still fired right away.
+        assertEquals(8, changes.size());
+        assertEquals("a", changes.get(0).getNewValue());
+        assertEquals("x", changes.get(7).getNewValue());
+        assertTrue(batches.isEmpty());
+        assertEquals("f", grid.getRows().get(0).get(0).getItem());
+        grid.commitBatch();
+        assertFalse(grid.isBatching());
+
+        assertEquals(1, batches.size());
+        GridChangeBatch batch = batches.get(0);
+        assertEquals(5, batch.getChanges().size());
+        GridChange first = batch.getChanges().get(0);
+        assertEquals(0, first.getRow());
+        assertEquals(0, first.getColumn());
+        assertEquals("", first.getOldValue());
+        assertEquals("f", first.getNewValue());
+
+        assertEquals(2, batch.getRanges().size());
+        GridChangeBatch.Range range = batch.getRanges().get(0);
+        assertEquals(0, range.getTop());
+        assertEquals(1, range.getBottom());
+        assertEquals(0, range.getLeft());
+        assertEquals(1, range.getRight());
+        range = batch.getRanges().get(1);
+        assertEquals(3, range.getTop());
+        assertEquals(3, range.getBottom());
+        assertEquals(5, range.getLeft());
+        assertEquals(5, range.getRight());
+
+        //The changes are not fired again one by one when committing.
+        assertEquals(8, changes.size());
+
+        //Outside of a batch, no batch is fired.
+        grid.setCellValue(4, 4, "h");
+        assertEquals(1, batches.size());
+        assertEquals(9, changes.size());
+        assertEquals("h", changes.get(8).getNewValue());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCommitWithoutBatch() {
+        grid.commitBatch();
+    }
+
     /**
      * Test of getRowCount method, of class GridBase.
      */
@@ -134,6 +203,22 @@ public class GridBaseTest {
         assertEquals(12.0, result, 0.0);
     }
 
+    /**
+     * Test of getRowHeight method with an ArrayBasedRowHeightFactory, of class
+     * GridBase.
+     */
+    @Test public void testGetRowHeightFromArray() {
+        assertEquals(Grid.AUTOFIT, grid.getRowHeight(1), 0.0);
+
+        double[] rowHeight = new double[]{Double.NaN, 100.0, 12.0};
+        grid.setRowHeightCallback(new GridBase.ArrayBasedRowHeightFactory(rowHeight));
+
+        assertEquals(Grid.AUTOFIT, grid.getRowHeight(0), 0.0);
+        assertEquals(100.0, grid.getRowHeight(1), 0.0);
+        assertEquals(12.0, grid.getRowHeight(2), 0.0);
+        assertEquals(Grid.AUTOFIT, grid.getRowHeight(3), 0.0);
+    }
+
     /**
      * Test of setLocked method, of class GridBase.
      */
@@ -0,0 +1,193 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met: *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer. * Redistributions in binary
+ * form must reproduce the above copyright notice, this list of conditions and
+ * the following disclaimer in the documentation and/or other materials provided
+ * with the distribution. * Neither the name of ControlsFX, any associated
+ * website, nor the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.control.spreadsheet;
+
+import java.io.StringWriter;
+import java.util.BitSet;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class GridExporterTest {
+    @Rule public JavaFXThreadingRule javafxRule = new JavaFXThreadingRule();
+
+    private GridBase grid;
+
+    @Before
+    public void setUp() {
+        grid = new GridBase(2, 3);
+        ObservableList<ObservableList<SpreadsheetCell>> rows = FXCollections.observableArrayList();
+        rows.add(FXCollections.observableArrayList(
+                SpreadsheetCellType.STRING.createCell(0, 0, 1, 1, "a"),
+                SpreadsheetCellType.STRING.createCell(0, 1, 1, 1, "b,c"),
+                SpreadsheetCellType.STRING.createCell(0, 2, 1, 1, "say \"hi\"")));
+        rows.add(FXCollections.observableArrayList(
+                SpreadsheetCellType.INTEGER.createCell(1, 0, 1, 1, 1),
+                SpreadsheetCellType.DOUBLE.createCell(1, 1, 1, 1, 2.5),
+                SpreadsheetCellType.STRING.createCell(1, 2, 1, 1, null)));
+        grid.setRows(rows);
+    }
+
+    private String export(GridExporter exporter) {
+        StringWriter writer = new StringWriter();
+        Task<Integer> task = exporter.createTask(writer);
+        task.run();
+        return writer.toString();
+    }
+
+    /**
+     * Test of createTask method, of class GridExporter.
+     */
+    @Test public void testCsv() {
+        GridExporter exporter = new GridExporter(grid);
+        exporter.setFormatted(false);
+        assertEquals("a,\"b,c\",\"say \"\"hi\"\"\"\r\n1,2.5,\r\n", export(exporter));
+
+        exporter.setFormat(GridExporter.Format.TSV);
+        exporter.setChunkSize(1);
+        assertEquals("a\tb,c\t\"say \"\"hi\"\"\"\r\n1\t2.5\t\r\n", export(exporter));
+    }
+
+    /**
+     * Test of createTask method with spans, of class GridExporter.
+     */
+    @Test public void testXmlSpreadsheet() {
+        grid.getRows().get(1).set(2, SpreadsheetCellType.STRING.createCell(1, 2, 1, 1, "x<y"));
+        grid.spanColumn(2, 0, 0);
+        GridExporter exporter = new GridExporter(grid);
+        exporter.setFormat(GridExporter.Format.XML_SPREADSHEET);
+        exporter.setFormatted(false);
+        String xml = export(exporter);
+        assertTrue(xml.startsWith("<?xml"));
+        assertTrue(xml.contains("<Row><Cell ss:MergeAcross=\"1\"><Data ss:Type=\"String\">a</Data></Cell>"
+                + "<Cell><Data ss:Type=\"String\">say \"hi\"</Data></Cell></Row>"));
+        assertTrue(xml.contains("<Row><Cell><Data ss:Type=\"Number\">1</Data></Cell>"
+                + "<Cell><Data ss:Type=\"Number\">2.5</Data></Cell>"
+                + "<Cell><Data ss:Type=\"String\">x&lt;y</Data></Cell></Row>"));
+        assertTrue(xml.endsWith("</Workbook>\r\n"));
+
+        exporter.setFormat(GridExporter.Format.CSV);
+        assertEquals("a,,\"say \"\"hi\"\"\"\r\n1,2.5,x<y\r\n", export(exporter));
+    }
+
+    /**
+     * Test that the cells are exported as they were when the task was
+     * created, of class GridExporter.
+     */
+    @Test public void testSnapshot() throws Exception {
+        GridExporter exporter = new GridExporter(grid);
+        exporter.setFormatted(false);
+        StringWriter writer = new StringWriter();
+        Task<Integer> task = exporter.createTask(writer);
+
+        grid.setCellValue(0, 0, "new");
+        grid.beginBatch();
+        grid.setCellValue(1, 0, 2);
+        grid.setCellValue(1, 0, 3);
+        grid.commitBatch();
+
+        task.run();
+        assertEquals(Integer.valueOf(2), task.get());
+        assertEquals("a,\"b,c\",\"say \"\"hi\"\"\"\r\n1,2.5,\r\n", writer.toString());
+        assertEquals("new,\"b,c\",\"say \"\"hi\"\"\"\r\n3,2.5,\r\n", export(exporter));
+    }
+
+    /**
+     * Test of createTask method with hidden rows and columns, of class
+     * GridExporter.
+     */
+    @Test public void testHiddenRowsAndColumns() {
+        SpreadsheetView spv = new SpreadsheetView(grid);
+        BitSet hiddenRows = new BitSet();
+        hiddenRows.set(0);
+        spv.setHiddenRows(hiddenRows);
+        BitSet hiddenColumns = new BitSet();
+        hiddenColumns.set(1);
+        spv.setHiddenColumns(hiddenColumns);
+
+        GridExporter exporter = new GridExporter(spv);
+        exporter.setFormatted(false);
+        assertEquals("1,\r\n", export(exporter));
+
+        exporter.setHiddenRowsExported(true);
+        assertEquals("a,\"say \"\"hi\"\"\"\r\n1,\r\n", export(exporter));
+
+        exporter.setHiddenColumnsExported(true);
+        assertEquals("a,\"b,c\",\"say \"\"hi\"\"\"\r\n1,2.5,\r\n", export(exporter));
+    }
+
+    /**
+     * Test that a span starting in a hidden row or column is exported at its
+     * first exported position, of class GridExporter.
+     */
+    @Test public void testSpanStartingHidden() {
+        grid.spanRow(2, 0, 0);
+        grid.spanColumn(2, 0, 1);
+        SpreadsheetView spv = new SpreadsheetView(grid);
+        BitSet hiddenRows = new BitSet();
+        hiddenRows.set(0);
+        spv.setHiddenRows(hiddenRows);
+
+        GridExporter exporter = new GridExporter(spv);
+        exporter.setFormatted(false);
+        assertEquals("a,2.5,\r\n", export(exporter));
+
+        exporter.setFormat(GridExporter.Format.XML_SPREADSHEET);
+        assertTrue(export(exporter).contains("<Row><Cell><Data ss:Type=\"String\">a</Data></Cell>"
+                + "<Cell><Data ss:Type=\"Number\">2.5</Data></Cell></Row>"));
+
+        spv.setHiddenRows(new BitSet());
+        BitSet hiddenColumns = new BitSet();
+        hiddenColumns.set(1);
+        spv.setHiddenColumns(hiddenColumns);
+        exporter.setFormat(GridExporter.Format.CSV);
+        assertEquals("a,\"b,c\"\r\n,\r\n", export(exporter));
+
+        exporter.setFormat(GridExporter.Format.XML_SPREADSHEET);
+        assertTrue(export(exporter).contains("<Row><Cell ss:MergeDown=\"1\"><Data ss:Type=\"String\">a</Data></Cell>"
+                + "<Cell><Data ss:Type=\"String\">b,c</Data></Cell></Row>"));
+    }
+
+    /**
+     * Test that a span modified before being copied is exported with its
+     * previous value, of class GridExporter.
+     */
+    @Test public void testSnapshotSpan() {
+        grid.spanRow(2, 0, 0);
+        GridExporter exporter = new GridExporter(grid);
+        exporter.setFormatted(false);
+        StringWriter writer = new StringWriter();
+        Task<Integer> task = exporter.createTask(writer);
+        grid.setCellValue(0, 0, "new");
+        task.run();
+        assertEquals("a,\"b,c\",\"say \"\"hi\"\"\"\r\n,2.5,\r\n", writer.toString());
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met: *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer. * Redistributions in binary
+ * form must reproduce the above copyright notice, this list of conditions and
+ * the following disclaimer in the documentation and/or other materials provided
+ * with the distribution. * Neither the name of ControlsFX, any associated
+ * website, nor the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.control.spreadsheet;
+
+import java.util.ArrayList;
+import java.util.List;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class GridUpdateCoalescerTest {
+    @Rule public JavaFXThreadingRule javafxRule = new JavaFXThreadingRule();
+
+    private GridBase grid;
+    private List<GridChangeBatch> batches;
+
+    @Before
+    public void setUp() {
+        grid = new GridBase(10, 10);
+        List<ObservableList<SpreadsheetCell>> rows = FXCollections.observableArrayList();
+        for (int row = 0; row < grid.getRowCount(); ++row) {
+            ObservableList<SpreadsheetCell> currentRow = FXCollections.observableArrayList();
+            for (int column = 0; column < grid.getColumnCount(); ++column) {
+                currentRow.add(SpreadsheetCellType.DOUBLE.createCell(row, column, 1, 1, 0.0));
+            }
+            rows.add(currentRow);
+        }
+        grid.setRows(rows);
+        batches = new ArrayList<>();
+        grid.addEventHandler(GridChangeBatch.GRID_CHANGE_BATCH_EVENT, batches::add);
+    }
+
+    @Test public void testCoalesce() {
+        GridUpdateCoalescer coalescer = new GridUpdateCoalescer(grid);
+        for (int i = 1; i <= 100; ++i) {
+            coalescer.update(1, 2, (double) i);
+        }
+        coalescer.update(3, 4, 5.0);
+        assertEquals(2, coalescer.getPendingCount());
+        assertEquals(0.0, grid.getRows().get(1).get(2).getItem());
+
+        assertEquals(2, coalescer.flush());
+        assertEquals(100.0, grid.getRows().get(1).get(2).getItem());
+        assertEquals(5.0, grid.getRows().get(3).get(4).getItem());
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).getChanges().size());
+
+        assertEquals(101, coalescer.getReceivedCount());
+        assertEquals(99, coalescer.getCoalescedCount());
+        assertEquals(2, coalescer.getAppliedCount());
+        assertEquals(0, coalescer.getDroppedCount());
+        assertEquals(0, coalescer.getPendingCount());
+        assertEquals(0, coalescer.flush());
+    }
+
+    @Test public void testDrop() {
+        GridUpdateCoalescer coalescer = new GridUpdateCoalescer(grid, 2);
+        assertTrue(coalescer.update(0, 0, 1.0));
+        assertTrue(coalescer.update(0, 1, 1.0));
+        assertFalse(coalescer.update(0, 2, 1.0));
+        //A cell already waiting can still be updated.
+        assertTrue(coalescer.update(0, 1, 2.0));
+        assertEquals(1, coalescer.getDroppedCount());
+
+        coalescer.flush();
+        assertEquals(2.0, grid.getRows().get(0).get(1).getItem());
+        assertEquals(0.0, grid.getRows().get(0).get(2).getItem());
+        assertTrue(coalescer.update(0, 2, 1.0));
+    }
+
+    @Test public void testConcurrentUpdates() throws InterruptedException {
+        GridUpdateCoalescer coalescer = new GridUpdateCoalescer(grid);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; ++t) {
+            final int column = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; ++i) {
+                    coalescer.update(i % grid.getRowCount(), column, (double) i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40_000, coalescer.getReceivedCount());
+        assertEquals(40, coalescer.flush());
+        assertEquals(40_000, coalescer.getAppliedCount() + coalescer.getCoalescedCount());
+        for (int column = 0; column < threads.length; ++column) {
+            assertEquals(9999.0, grid.getRows().get(9).get(column).getItem());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.control.spreadsheet;
+
+import java.util.BitSet;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class HiddenIndexTest {
+
+    private static final int SIZE = 300;
+
+    private static void assertSameIndex(HiddenIndex expected, HiddenIndex index) {
+        assertEquals(expected.getVisibleCount(), index.getVisibleCount());
+        for (int i = 0; i <= SIZE; ++i) {
+            assertEquals(expected.getHiddenBefore(i), index.getHiddenBefore(i));
+            assertEquals(expected.getViewIndex(Math.min(i, SIZE - 1)), index.getViewIndex(Math.min(i, SIZE - 1)));
+            assertEquals(expected.getModelIndex(i), index.getModelIndex(i));
+        }
+    }
+
+    @Test public void testTranslation() {
+        BitSet hidden = new BitSet();
+        hidden.set(0);
+        hidden.set(5, 10);
+        hidden.set(SIZE - 1);
+        HiddenIndex index = new HiddenIndex(hidden, SIZE);
+        assertEquals(SIZE - 7, index.getVisibleCount());
+        assertEquals(1, index.getModelIndex(0));
+        assertEquals(4, index.getModelIndex(3));
+        assertEquals(10, index.getModelIndex(4));
+        assertEquals(4, index.getViewIndex(10));
+        assertEquals(5, index.getHiddenCount(1, 10));
+        assertEquals(-1, index.getModelIndex(SIZE - 7));
+    }
+
+    /**
+     * Hiding or showing one index must give the same result as rebuilding
+     * the index.
+     */
+    @Test public void testSetHidden() {
+        Random random = new Random(7);
+        BitSet hidden = new BitSet();
+        HiddenIndex index = new HiddenIndex(hidden, SIZE);
+        for (int step = 0; step < 200; ++step) {
+            final int i = random.nextInt(SIZE);
+            hidden.flip(i);
+            index.setHidden(i, hidden.get(i));
+            assertSameIndex(new HiddenIndex(hidden, SIZE), index);
+        }
+    }
+}
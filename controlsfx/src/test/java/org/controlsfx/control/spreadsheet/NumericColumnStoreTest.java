@@ -0,0 +1,230 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.control.spreadsheet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javafx.collections.SetChangeListener;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class NumericColumnStoreTest {
+    @Rule public JavaFXThreadingRule javafxRule = new JavaFXThreadingRule();
+
+    private static final int ROW_COUNT = 100_000;
+
+    @Test public void testValues() {
+        NumericColumnStore doubles = NumericColumnStore.doubleColumn(ROW_COUNT);
+        NumericColumnStore integers = NumericColumnStore.integerColumn(ROW_COUNT);
+        doubles.setDouble(7, 1.5);
+        integers.setInt(7, 42);
+        doubles.setNull(8);
+
+        assertEquals(1.5, doubles.getValue(7));
+        assertEquals(42, integers.getValue(7));
+        assertNull(doubles.getValue(8));
+        assertTrue(Double.isNaN(doubles.getDouble(8)));
+        assertEquals(0.0, doubles.getValue(9));
+
+        doubles.setValue(8, 3);
+        assertFalse(doubles.isNull(8));
+        assertEquals(3.0, doubles.getValue(8));
+        integers.setValue(7, "not a number");
+        assertTrue(integers.isNull(7));
+    }
+
+    @Test public void testCellIsAView() {
+        NumericColumnStore doubles = NumericColumnStore.doubleColumn(ROW_COUNT);
+        SpreadsheetCell cell = doubles.createCell(5, 2);
+        assertEquals(SpreadsheetCellType.DOUBLE, cell.getCellType());
+        assertEquals(5, cell.getRow());
+        assertEquals(2, cell.getColumn());
+
+        //The value is not copied into the cell.
+        doubles.setDouble(5, 2.5);
+        assertEquals(2.5, cell.getItem());
+        assertEquals(SpreadsheetCellType.DOUBLE.toString(2.5), cell.getText());
+
+        cell.setItem(4.0);
+        assertEquals(4.0, doubles.getDouble(5), 0);
+        cell.setItem(null);
+        assertTrue(doubles.isNull(5));
+        assertEquals("", cell.getText());
+    }
+
+    @Test public void testCellProperties() {
+        NumericColumnStore integers = NumericColumnStore.integerColumn(ROW_COUNT);
+        SpreadsheetCell cell = integers.createCell(3, 0);
+        List<Object> items = new ArrayList<>();
+        cell.itemProperty().addListener((o, oldValue, newValue) -> items.add(newValue));
+        cell.setItem(12);
+        assertEquals(1, items.size());
+        assertEquals(12, integers.getInt(3));
+        assertEquals(SpreadsheetCellType.INTEGER.toString(12), cell.textProperty().get());
+
+        cell.setItem(13);
+        assertEquals(SpreadsheetCellType.INTEGER.toString(13), cell.textProperty().get());
+
+        //A read-only cell does not modify the store.
+        cell.setEditable(false);
+        cell.setItem(14);
+        assertEquals(13, integers.getInt(3));
+    }
+
+    @Test public void testCellState() {
+        NumericColumnStore doubles = NumericColumnStore.doubleColumn(ROW_COUNT);
+        doubles.setDouble(1, 1.25);
+        SpreadsheetCell cell = doubles.createCell(1, 0);
+        SpreadsheetCell baseCell = SpreadsheetCellType.DOUBLE.createCell(1, 0, 1, 1, 1.25);
+
+        assertTrue(cell.isEditable());
+        assertFalse(cell.isWrapText());
+        assertNull(cell.getStyle());
+        assertEquals("", cell.getFormat());
+        assertEquals(1, cell.getRowSpan());
+        assertFalse(cell.getTooltip().isPresent());
+        assertEquals(baseCell, cell);
+        assertEquals(baseCell.hashCode(), cell.hashCode());
+
+        List<SpreadsheetCell> corners = new ArrayList<>();
+        cell.addEventHandler(SpreadsheetCell.CORNER_EVENT_TYPE, e -> corners.add(cell));
+        cell.activateCorner(SpreadsheetCell.CornerPosition.TOP_LEFT);
+        assertTrue(cell.isCornerActivated(SpreadsheetCell.CornerPosition.TOP_LEFT));
+        assertEquals(1, corners.size());
+
+        cell.setColumnSpan(2);
+        cell.getStyleClass().add("risk");
+        assertEquals(2, cell.getColumnSpan());
+        assertTrue(cell.getStyleClass().contains("spreadsheet-cell"));
+        assertNotEquals(baseCell, cell);
+    }
+
+    @Test public void testStyleClassIsLazy() {
+        NumericColumnStore doubles = NumericColumnStore.doubleColumn(ROW_COUNT);
+        NumericColumnStore.StoredCell cell = (NumericColumnStore.StoredCell) doubles.createCell(1, 0);
+        NumericColumnStore.StoredCell other = (NumericColumnStore.StoredCell) doubles.createCell(1, 0);
+        List<String> added = new ArrayList<>();
+        cell.getStyleClass().addListener((SetChangeListener.Change<? extends String> change) -> added.add(change.getElementAdded()));
+
+        assertTrue(cell.getStyleClass().contains("spreadsheet-cell"));
+        assertEquals(1, cell.getStyleClass().size());
+        assertFalse(cell.getStyleClass().add("spreadsheet-cell"));
+        assertFalse(cell.getStyleClass().remove("risk"));
+        assertEquals(other, cell);
+        assertEquals(other.hashCode(), cell.hashCode());
+        assertFalse(cell.hasState());
+        assertFalse(other.hasState());
+
+        //The listener survives the creation of the state.
+        cell.getStyleClass().add("risk");
+        assertTrue(cell.hasState());
+        assertEquals(Arrays.asList("risk"), added);
+        assertTrue(cell.getStyleClass().contains("risk"));
+        assertNotEquals(other, cell);
+        assertFalse(other.hasState());
+    }
+
+    /**
+     * The cells of a store are meant to be far lighter than a
+     * {@link SpreadsheetCellBase}, even once they have been displayed.
+     */
+    @Test public void testFootprint() {
+        final int count = 50_000;
+        NumericColumnStore doubles = NumericColumnStore.doubleColumn(count);
+        SpreadsheetCell[] cells = new SpreadsheetCell[count];
+
+        long before = usedMemory();
+        for (int row = 0; row < count; ++row) {
+            cells[row] = SpreadsheetCellType.DOUBLE.createCell(row, 0, 1, 1, 0.0);
+            touch(cells[row]);
+        }
+        long baseFootprint = usedMemory() - before;
+        Arrays.fill(cells, null);
+
+        before = usedMemory();
+        for (int row = 0; row < count; ++row) {
+            cells[row] = doubles.createCell(row, 0);
+            touch(cells[row]);
+        }
+        long storedFootprint = usedMemory() - before;
+
+        for (SpreadsheetCell cell : cells) {
+            assertFalse(((NumericColumnStore.StoredCell) cell).hasState());
+        }
+        assertTrue("stored: " + storedFootprint / count + " bytes per cell, base: " + baseFootprint / count, //$NON-NLS-1$ //$NON-NLS-2$
+                storedFootprint * 2 < baseFootprint);
+    }
+
+    /**
+     * Does what a displayed cell goes through.
+     */
+    private static void touch(SpreadsheetCell cell) {
+        cell.getStyleClass().addListener((SetChangeListener.Change<? extends String> change) -> {});
+        cell.getText();
+        cell.getStyle();
+        cell.getGraphic();
+        cell.isCornerActivated(SpreadsheetCell.CornerPosition.TOP_LEFT);
+        cell.equals(cell);
+        cell.hashCode();
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; ++i) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Test public void testVirtualGridBase() {
+        NumericColumnStore doubles = NumericColumnStore.doubleColumn(ROW_COUNT);
+        NumericColumnStore integers = NumericColumnStore.integerColumn(ROW_COUNT);
+        doubles.setDouble(7, 1.5);
+        integers.setInt(7, 42);
+        doubles.setNull(8);
+        VirtualGridBase numericGrid = new VirtualGridBase(ROW_COUNT, 2,
+                (row, column) -> (column == 0 ? doubles : integers).createCell(row, column), 1);
+
+        assertEquals(1.5, numericGrid.getCell(7, 0).getItem());
+        assertEquals(42, numericGrid.getCell(7, 1).getItem());
+        assertNull(numericGrid.getCell(8, 0).getItem());
+        assertEquals(SpreadsheetCellType.INTEGER, numericGrid.getCell(7, 1).getCellType());
+
+        numericGrid.setCellValue(9, 0, 2.25);
+        numericGrid.setCellValue(7, 1, null);
+        assertEquals(2.25, doubles.getDouble(9), 0);
+        assertTrue(integers.isNull(7));
+        assertFalse(doubles.isNull(9));
+
+        //The rows are discarded, the values come back from the stores.
+        numericGrid.getCell(100, 0);
+        assertEquals(2.25, numericGrid.getCell(9, 0).getItem());
+        assertNull(numericGrid.getCell(7, 1).getItem());
+    }
+}
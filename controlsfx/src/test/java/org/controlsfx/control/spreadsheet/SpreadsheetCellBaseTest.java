@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.control.spreadsheet;
+
+import java.util.ArrayList;
+import java.util.List;
+import javafx.scene.shape.Rectangle;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SpreadsheetCellBaseTest {
+    @Rule public JavaFXThreadingRule javafxRule = new JavaFXThreadingRule();
+
+    private static SpreadsheetCellBase createCell() {
+        return new SpreadsheetCellBase(1, 2, 1, 1, SpreadsheetCellType.DOUBLE);
+    }
+
+    private static void createProperties(SpreadsheetCell cell) {
+        cell.itemProperty();
+        cell.textProperty();
+        cell.formatProperty();
+        cell.styleProperty();
+        cell.graphicProperty();
+        cell.getStyleClass();
+    }
+
+    private static void assertSameState(SpreadsheetCell expected, SpreadsheetCell actual) {
+        assertEquals(expected.getItem(), actual.getItem());
+        assertEquals(expected.getText(), actual.getText());
+        assertEquals(expected.getFormat(), actual.getFormat());
+        assertEquals(expected.getStyle(), actual.getStyle());
+        assertSame(expected.getGraphic(), actual.getGraphic());
+        assertEquals(expected.isEditable(), actual.isEditable());
+        assertEquals(expected, actual);
+        assertEquals(expected.hashCode(), actual.hashCode());
+    }
+
+    @Test public void testLazyAndCreatedPropertiesAgree() {
+        SpreadsheetCellBase lazy = createCell();
+        SpreadsheetCellBase created = createCell();
+        createProperties(created);
+        assertSameState(lazy, created);
+
+        Rectangle graphic = new Rectangle();
+        for (SpreadsheetCell cell : new SpreadsheetCell[]{lazy, created}) {
+            cell.setItem(1.5);
+            cell.setFormat("0.00");
+            cell.setStyle("-fx-background-color: red;");
+            cell.setGraphic(graphic);
+        }
+        assertEquals(SpreadsheetCellType.DOUBLE.toString(1.5, "0.00"), lazy.getText());
+        assertSameState(lazy, created);
+
+        for (SpreadsheetCell cell : new SpreadsheetCell[]{lazy, created}) {
+            cell.setEditable(false);
+            cell.setItem(2.0);
+        }
+        assertEquals(1.5, lazy.getItem());
+        assertSameState(lazy, created);
+
+        //Creating the properties late keeps the values set so far.
+        createProperties(lazy);
+        assertSameState(lazy, created);
+    }
+
+    @Test public void testLateListeners() {
+        SpreadsheetCellBase cell = createCell();
+        cell.setItem(1.0);
+        cell.setFormat("0.0");
+
+        List<Object> items = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        List<String> formats = new ArrayList<>();
+        assertEquals(1.0, cell.itemProperty().get());
+        assertEquals(SpreadsheetCellType.DOUBLE.toString(1.0, "0.0"), cell.textProperty().get());
+        assertEquals("0.0", cell.formatProperty().get());
+        cell.itemProperty().addListener((o, oldValue, newValue) -> items.add(newValue));
+        cell.textProperty().addListener((o, oldValue, newValue) -> texts.add(newValue));
+        cell.formatProperty().addListener((o, oldValue, newValue) -> formats.add(newValue));
+
+        cell.setItem(2.0);
+        cell.setFormat("0.00");
+        assertEquals(1, items.size());
+        assertEquals(2.0, items.get(0));
+        assertEquals(1, formats.size());
+        assertEquals("0.00", formats.get(0));
+        assertEquals(2, texts.size());
+        assertEquals(SpreadsheetCellType.DOUBLE.toString(2.0, "0.0"), texts.get(0));
+        assertEquals(SpreadsheetCellType.DOUBLE.toString(2.0, "0.00"), texts.get(1));
+
+        //Setting an equal value fires nothing.
+        cell.setItem(2.0);
+        assertEquals(1, items.size());
+    }
+
+    @Test public void testStyleClassEquality() {
+        SpreadsheetCellBase lazy = createCell();
+        SpreadsheetCellBase created = createCell();
+        assertTrue(created.getStyleClass().contains("spreadsheet-cell"));
+        assertEquals(lazy, created);
+        assertEquals(created, lazy);
+        assertEquals(lazy.hashCode(), created.hashCode());
+
+        created.getStyleClass().add("row_header");
+        assertNotEquals(lazy, created);
+        assertNotEquals(created, lazy);
+        lazy.getStyleClass().add("row_header");
+        assertEquals(lazy, created);
+        assertEquals(lazy.hashCode(), created.hashCode());
+    }
+}
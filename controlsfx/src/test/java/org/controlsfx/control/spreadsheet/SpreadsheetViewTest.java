@@ -27,13 +27,21 @@
 
 package org.controlsfx.control.spreadsheet;
 
+import com.sun.javafx.tk.Toolkit;
+import javafx.animation.AnimationTimer;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.scene.Scene;
 import javafx.scene.control.TablePosition;
+import javafx.scene.input.Clipboard;
+import javafx.stage.Stage;
+import javafx.util.Pair;
 import org.controlsfx.control.spreadsheet.SpreadsheetView.SpanType;
 import org.junit.*;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 
 import static org.junit.Assert.*;
 
@@ -87,6 +95,108 @@ public class SpreadsheetViewTest {
         spv.copyClipboard();
     }
     
+    /**
+     * We test that a copied rectangle is pasted at the focused cell, and put
+     * as text into the clipboard.
+     */
+    @Test public void testCopyPasteClipBoard() {
+        GridBase grid = buildGrid();
+        spv.setGrid(grid);
+        grid.setCellValue(0, 0, "a");
+        grid.setCellValue(0, 1, "b");
+        grid.setCellValue(1, 0, "c");
+        grid.setCellValue(1, 1, "d\te");
+
+        spv.getSelectionModel().selectRange(0, spv.getColumns().get(0), 1, spv.getColumns().get(1));
+        spv.copyClipboard();
+        assertEquals("a\tb\nc\t\"d\te\"", Clipboard.getSystemClipboard().getString());
+
+        spv.getSelectionModel().clearAndSelect(5, spv.getColumns().get(5));
+        spv.pasteClipboard();
+        assertEquals("a", grid.getRows().get(5).get(5).getItem());
+        assertEquals("b", grid.getRows().get(5).get(6).getItem());
+        assertEquals("c", grid.getRows().get(6).get(5).getItem());
+        assertEquals("d\te", grid.getRows().get(6).get(6).getItem());
+    }
+
+    /**
+     * We test that a span starting above or on the left of the selection is
+     * copied and pasted at its first selected position.
+     */
+    @Test public void testCopyPasteSpanOutsideSelection() {
+        GridBase grid = buildGrid();
+        grid.setCellValue(0, 0, "s");
+        grid.spanRow(3, 0, 0);
+        grid.setCellValue(1, 1, "b");
+        grid.setCellValue(2, 1, "d");
+        spv.setGrid(grid);
+
+        spv.getSelectionModel().selectRange(1, spv.getColumns().get(0), 2, spv.getColumns().get(1));
+        spv.copyClipboard();
+        assertEquals("s\tb\n\td", Clipboard.getSystemClipboard().getString());
+
+        grid.spanColumn(2, 11, 4);
+        spv.getSelectionModel().clearAndSelect(10, spv.getColumns().get(5));
+        spv.pasteClipboard();
+        assertEquals("s", grid.getRows().get(10).get(5).getItem());
+        assertEquals("b", grid.getRows().get(10).get(6).getItem());
+        //The span starting at column 4 receives the value pasted in column 5.
+        assertEquals("s", grid.getRows().get(11).get(4).getItem());
+        assertEquals("d", grid.getRows().get(11).get(6).getItem());
+    }
+
+    /**
+     * Test of setComparator method with a ColumnComparator, of class
+     * SpreadsheetView.
+     */
+    @Test public void testColumnComparator() {
+        GridBase grid = buildGrid();
+        spv.setGrid(grid);
+        for (int row = 0; row < grid.getRowCount(); ++row) {
+            grid.setCellValue(row, 0, row % 2 == 0 ? "b" : "a");
+            grid.setCellValue(row, 1, String.valueOf((char) ('z' - row)));
+        }
+        ColumnComparator comparator = new ColumnComparator(spv, new int[]{0, 1}, new boolean[]{true, true});
+        spv.setComparator(comparator);
+        //The "a" rows first, then sorted by the second column.
+        assertEquals(13, spv.getModelRow(0));
+        assertEquals(1, spv.getModelRow(6));
+        assertEquals(14, spv.getModelRow(7));
+        assertEquals(0, spv.getModelRow(14));
+        assertEquals(0, spv.getViewRow(13));
+
+        //The rows are sorted again with the new value.
+        grid.setCellValue(0, 0, "a");
+        assertEquals(0, spv.getModelRow(14));
+        spv.setComparator(comparator);
+        assertEquals(0, spv.getModelRow(7));
+
+        //The values set directly on the cells are followed too.
+        grid.getRows().get(0).get(0).setItem("b");
+        spv.setComparator(comparator);
+        assertEquals(0, spv.getModelRow(14));
+        assertSame(comparator, spv.getComparator());
+    }
+
+    /**
+     * Test of setComparator method with a ColumnComparator on a column mixing
+     * the cell types, of class SpreadsheetView.
+     */
+    @Test public void testColumnComparatorMixedTypes() {
+        GridBase grid = buildGrid();
+        grid.getRows().get(0).set(0, SpreadsheetCellType.INTEGER.createCell(0, 0, 1, 1, 10));
+        grid.getRows().get(1).set(0, SpreadsheetCellType.INTEGER.createCell(1, 0, 1, 1, 9));
+        for (int row = 2; row < grid.getRowCount(); ++row) {
+            grid.setCellValue(row, 0, "a");
+        }
+        spv.setGrid(grid);
+        spv.setComparator(new ColumnComparator(spv, 0, true));
+        //The two integers are compared by their value, and by their text with the other cells.
+        assertEquals(1, spv.getModelRow(0));
+        assertEquals(0, spv.getModelRow(1));
+        assertEquals(2, spv.getModelRow(2));
+    }
+
     /**
      * We test that a null item does not throw exception in copyClipboard.
      */
@@ -119,6 +229,27 @@ public class SpreadsheetViewTest {
         assertEquals(10, position.getRow());
         assertEquals(10, position.getColumn());
     }
+
+    /**
+     * Select a cell covered by a span, and verify that the whole span is
+     * selected, and that the selected cells are given by row then by column.
+     */
+    @Test public void testSelectCellsWithSpan() {
+        Grid grid = buildGrid();
+        grid.spanRow(2, 3, 3);
+        grid.spanColumn(2, 3, 3);
+        spv.setGrid(grid);
+
+        spv.getSelectionModel().selectCells(new Pair<>(4, 4), new Pair<>(0, 1), new Pair<>(0, 0));
+        List<TablePosition> selectedCells = spv.getSelectionModel().getSelectedCells();
+        assertEquals(6, selectedCells.size());
+
+        int[][] expected = {{0, 0}, {0, 1}, {3, 3}, {3, 4}, {4, 3}, {4, 4}};
+        for (int i = 0; i < expected.length; ++i) {
+            assertEquals(expected[i][0], selectedCells.get(i).getRow());
+            assertEquals(expected[i][1], selectedCells.get(i).getColumn());
+        }
+    }
     /**
      * Test of isRowFixable method, of class SpreadsheetView.
      */
@@ -398,4 +529,123 @@ public class SpreadsheetViewTest {
         assertEquals(type, spv.getSpanType(grid.getRowCount(), grid.getColumnCount()));
         
     }
+
+    /**
+     * Test of hideRows and showColumns methods, of class SpreadsheetView.
+     */
+    @Test public void testHideRowsAndColumns() {
+        spv.setGrid(buildGrid());
+        BitSet rows = new BitSet();
+        rows.set(2, 5);
+        spv.hideRows(rows);
+        spv.hideRow(10);
+
+        assertEquals(4, spv.getHiddenRows().cardinality());
+        assertEquals(1, spv.getFilteredRow(1));
+        assertEquals(2, spv.getFilteredRow(5));
+        assertEquals(6, spv.getFilteredRow(11));
+        assertEquals(5, spv.getModelRow(2));
+        assertEquals(11, spv.getModelRow(6));
+
+        spv.showRows(rows);
+        assertEquals(1, spv.getHiddenRows().cardinality());
+        assertEquals(5, spv.getFilteredRow(5));
+
+        BitSet columns = new BitSet();
+        columns.set(0);
+        columns.set(3);
+        spv.hideColumns(columns);
+        assertEquals(0, spv.getViewColumn(1));
+        assertEquals(2, spv.getViewColumn(4));
+        spv.showColumns(columns);
+        assertTrue(spv.getHiddenColumns().isEmpty());
+        assertEquals(4, spv.getViewColumn(4));
+    }
+
+    /**
+     * Test of getRowSpan and getReverseRowSpan methods with hidden rows, of
+     * class SpreadsheetView.
+     */
+    @Test public void testRowSpanWithHiddenRows() {
+        GridBase grid = buildGrid();
+        grid.spanRow(4, 2, 1);
+        grid.spanColumn(3, 2, 1);
+        spv.setGrid(grid);
+        SpreadsheetCell cell = grid.getRows().get(2).get(1);
+
+        assertEquals(4, spv.getRowSpanFilter(cell));
+        assertEquals(4, spv.getRowSpan(cell, 2));
+        assertEquals(2, spv.getRowSpan(cell, 4));
+        assertEquals(3, spv.getReverseRowSpan(cell, 4));
+
+        BitSet rows = new BitSet();
+        rows.set(0);
+        rows.set(3);
+        spv.hideRows(rows);
+        spv.hideColumn(spv.getColumns().get(2));
+
+        assertEquals(3, spv.getRowSpanFilter(cell));
+        assertEquals(2, spv.getColumnSpan(cell));
+        assertEquals(3, spv.getRowSpan(cell, 1));
+        assertEquals(1, spv.getRowSpan(cell, 3));
+        assertEquals(2, spv.getReverseRowSpan(cell, 2));
+        assertEquals(1, spv.getRowSpan(grid.getRows().get(7).get(1), 5));
+    }
+
+    /**
+     * Pumps the pulses until the condition is met, or fails after ten
+     * seconds.
+     */
+    private static void waitUntil(BooleanSupplier condition) {
+        final Object key = new Object();
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                if (condition.getAsBoolean() || System.nanoTime() > deadline) {
+                    stop();
+                    Toolkit.getToolkit().exitNestedEventLoop(key, null);
+                }
+            }
+        }.start();
+        Toolkit.getToolkit().enterNestedEventLoop(key);
+        assertTrue(condition.getAsBoolean());
+    }
+
+    /**
+     * Test of resizeRowsToFitContentProgressively method, of class
+     * SpreadsheetView. Every row is fitted during the pulses, and fitting
+     * again only gives a new height to the modified cells.
+     */
+    @Test public void testResizeRowsToFitContentProgressively() {
+        GridBase grid = buildGrid();
+        grid.setCellValue(3, 2, "a\nb\nc");
+        spv.setGrid(grid);
+        Stage stage = new Stage();
+        stage.setScene(new Scene(spv, 400, 300));
+        stage.show();
+        try {
+            final Set<Integer> fittedRows = new HashSet<>();
+            spv.addEventHandler(SpreadsheetView.RowHeightEvent.ROW_HEIGHT_CHANGE,
+                    (SpreadsheetView.RowHeightEvent event) -> fittedRows.add(event.getRow()));
+
+            spv.resizeRowsToFitContentProgressively();
+            waitUntil(() -> fittedRows.size() == grid.getRowCount());
+            final double oneLine = spv.getRowHeight(4);
+            final double threeLines = spv.getRowHeight(3);
+            assertTrue(threeLines > oneLine);
+
+            //The cached height of the first line must not be used anymore.
+            grid.setCellValue(4, 2, "a\nb\nc");
+            grid.setCellValue(3, 2, "a");
+            fittedRows.clear();
+            spv.resizeRowsToFitContentProgressively();
+            waitUntil(() -> fittedRows.size() == grid.getRowCount());
+            assertEquals(threeLines, spv.getRowHeight(4), 0.01);
+            assertEquals(oneLine, spv.getRowHeight(3), 0.01);
+            assertEquals(oneLine, spv.getRowHeight(5), 0.01);
+        } finally {
+            stage.hide();
+        }
+    }
 }
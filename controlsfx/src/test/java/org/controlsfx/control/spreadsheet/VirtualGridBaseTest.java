@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.control.spreadsheet;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class VirtualGridBaseTest {
+    @Rule public JavaFXThreadingRule javafxRule = new JavaFXThreadingRule();
+
+    private static final int ROW_COUNT = 2_000_000;
+    private static final int COLUMN_COUNT = 40;
+    private static final int CACHE_SIZE = 10;
+
+    private VirtualGridBase grid;
+    private int createdCells;
+
+    @Before
+    public void setUp() {
+        createdCells = 0;
+        grid = new VirtualGridBase(ROW_COUNT, COLUMN_COUNT, (row, column) -> {
+            ++createdCells;
+            return SpreadsheetCellType.STRING.createCell(row, column, 1, 1, row + ":" + column);
+        }, CACHE_SIZE);
+    }
+
+    @Test public void testCounts() {
+        assertEquals(ROW_COUNT, grid.getRowCount());
+        assertEquals(COLUMN_COUNT, grid.getColumnCount());
+        assertEquals(ROW_COUNT, grid.getRows().size());
+        assertEquals(COLUMN_COUNT, grid.getRows().get(ROW_COUNT - 1).size());
+        assertEquals(0, createdCells);
+    }
+
+    @Test public void testCellsCreatedOnDemand() {
+        SpreadsheetCell cell = grid.getRows().get(1234).get(5);
+        assertEquals("1234:5", cell.getItem());
+        assertEquals(COLUMN_COUNT, createdCells);
+        assertTrue(grid.isRowMaterialized(1234));
+        assertFalse(grid.isRowMaterialized(1235));
+        assertSame(cell, grid.getRows().get(1234).get(5));
+    }
+
+    @Test public void testEviction() {
+        for (int row = 0; row <= CACHE_SIZE; ++row) {
+            grid.getCell(row, 0);
+        }
+        assertFalse(grid.isRowMaterialized(0));
+        assertTrue(grid.isRowMaterialized(CACHE_SIZE));
+    }
+
+    @Test public void testSetCellValueSurvivesEviction() {
+        grid.setCellValue(3, 3, "edited");
+        assertEquals("edited", grid.getCell(3, 3).getItem());
+        for (int row = 10; row < 10 + CACHE_SIZE; ++row) {
+            grid.getCell(row, 0);
+        }
+        assertFalse(grid.isRowMaterialized(3));
+        assertEquals("edited", grid.getCell(3, 3).getItem());
+    }
+
+    @Test public void testSpanSurvivesEviction() {
+        grid.spanRow(3, 100, 2);
+        grid.spanColumn(2, 100, 2);
+        SpreadsheetCell cell = grid.getCell(100, 2);
+        for (int row = 10; row < 10 + CACHE_SIZE; ++row) {
+            grid.getCell(row, 0);
+        }
+        assertSame(cell, grid.getCell(101, 2));
+        assertSame(cell, grid.getCell(102, 3));
+        assertEquals(3, cell.getRowSpan());
+        assertEquals(2, cell.getColumnSpan());
+        assertEquals(1, grid.getSpannedCells().size());
+    }
+
+    @Test public void testSetRowCount() {
+        grid.setRowCount(ROW_COUNT + 10);
+        assertEquals(ROW_COUNT + 10, grid.getRows().size());
+        assertEquals((ROW_COUNT + 5) + ":0", grid.getCell(ROW_COUNT + 5, 0).getItem());
+        grid.setRowCount(5);
+        assertEquals(5, grid.getRows().size());
+    }
+
+    @Test public void testSetRowCountPrunes() {
+        grid.setCellValue(3, 3, "kept");
+        grid.setCellValue(8, 3, "removed");
+        grid.spanRow(4, 2, 0);
+        grid.spanRow(2, 7, 1);
+        ObservableList<SpreadsheetCell> row = grid.getRows().get(8);
+        grid.setRowCount(5);
+        assertFalse(grid.isRowMaterialized(8));
+        assertEquals(1, grid.getSpannedCells().size());
+        assertEquals(3, grid.getCell(2, 0).getRowSpan());
+        assertEquals("kept", grid.getCell(3, 3).getItem());
+
+        grid.setRowCount(10);
+        assertEquals("8:3", grid.getCell(8, 3).getItem());
+        assertEquals(1, grid.getCell(7, 1).getRowSpan());
+        assertEquals(row, grid.getRows().get(8));
+    }
+
+    @Test public void testRowViewsEvicted() {
+        ObservableList<SpreadsheetCell> row = grid.getRows().get(0);
+        for (int index = 1; index <= CACHE_SIZE; ++index) {
+            grid.getRows().get(index);
+        }
+        assertEquals(row, grid.getRows().get(0));
+        assertEquals(row.hashCode(), grid.getRows().get(0).hashCode());
+        assertNotEquals(row, grid.getRows().get(1));
+    }
+
+    @Test public void testRowsRemovedChange() {
+        grid.getRows().addListener((ListChangeListener.Change<? extends ObservableList<SpreadsheetCell>> change) -> {
+            assertTrue(change.next());
+            assertEquals(5, change.getFrom());
+            assertEquals(ROW_COUNT - 5, change.getRemovedSize());
+            assertEquals(grid.getRows().get(4), change.getList().get(4));
+        });
+        grid.setRowCount(5);
+    }
+}
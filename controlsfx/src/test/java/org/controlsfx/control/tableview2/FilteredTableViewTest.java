@@ -0,0 +1,276 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.control.tableview2;
+
+import com.sun.javafx.tk.Toolkit;
+import impl.org.controlsfx.i18n.Localization;
+import impl.org.controlsfx.tableview2.filter.parser.string.StringParser;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import javafx.animation.AnimationTimer;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.event.Event;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TablePosition;
+import org.controlsfx.control.spreadsheet.JavaFXThreadingRule;
+import org.controlsfx.control.tableview2.event.FilterEvent;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * The asynchronous filtering of FilteredTableView: the events fired, the
+ * cancellation, and the changes of the items while the columns are evaluated.
+ */
+public class FilteredTableViewTest {
+
+    @Rule public JavaFXThreadingRule javafxRule = new JavaFXThreadingRule();
+
+    private static final String STARTED = "FILTER_STARTED";
+    private static final String FILTER = "FILTER_EVENT";
+    private static final String COMPLETED = "FILTER_COMPLETED";
+    private static final String CANCELLED = "FILTER_CANCELLED";
+
+    private ObservableList<String> items;
+    private FilteredTableView<String> tableView;
+    private FilteredTableColumn<String, String> column;
+    private List<String> events;
+
+    @BeforeClass
+    public static void setUpClass() {
+        Localization.setLocale(Locale.ENGLISH);
+    }
+
+    @Before
+    public void setUp() {
+        items = FXCollections.observableArrayList();
+        for (int i = 0; i < 200; ++i) {
+            items.add((i % 2 == 0 ? "a" : "b") + i);
+        }
+        tableView = new FilteredTableView<>();
+        FilteredTableView.configureForFiltering(tableView, items);
+        column = new FilteredTableColumn<>("Name");
+        column.setCellValueFactory(p -> new SimpleStringProperty(p.getValue()));
+        tableView.getColumns().add(column);
+        tableView.setAsyncFiltering(true);
+        events = new ArrayList<>();
+        tableView.addEventHandler(FilterEvent.ANY, e -> events.add(e.getEventType().getName()));
+    }
+
+    /**
+     * Runs the events of the JavaFX Application Thread until the condition
+     * is met, or a few seconds have passed.
+     */
+    private static void waitUntil(BooleanSupplier condition) {
+        final Object key = new Object();
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                if (condition.getAsBoolean() || System.nanoTime() > deadline) {
+                    stop();
+                    Toolkit.getToolkit().exitNestedEventLoop(key, null);
+                }
+            }
+        }.start();
+        Toolkit.getToolkit().enterNestedEventLoop(key);
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private static boolean await(CountDownLatch gate) {
+        try {
+            return gate.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private List<String> filtered(String prefix) {
+        return items.stream().filter(s -> s.startsWith(prefix)).collect(Collectors.toList());
+    }
+
+    /**
+     * Test of the events fired by an asynchronous filtering, of class
+     * FilteredTableView.
+     */
+    @Test public void testEventSequence() {
+        column.setPredicate(s -> s.startsWith("a"));
+        assertEquals(Arrays.asList(STARTED), events);
+        assertEquals(items, tableView.getItems());
+
+        waitUntil(() -> events.contains(COMPLETED));
+        assertEquals(Arrays.asList(STARTED, FILTER, COMPLETED), events);
+        assertEquals(filtered("a"), tableView.getItems());
+    }
+
+    /**
+     * Test of the cancellation of an asynchronous filtering when the
+     * predicate changes again, of class FilteredTableView.
+     */
+    @Test public void testCancel() {
+        CountDownLatch gate = new CountDownLatch(1);
+        column.setPredicate(s -> await(gate) && s.startsWith("a"));
+        column.setPredicate(s -> s.startsWith("b"));
+        assertEquals(Arrays.asList(STARTED, CANCELLED, STARTED), events);
+        gate.countDown();
+
+        waitUntil(() -> events.contains(COMPLETED));
+        assertEquals(Arrays.asList(STARTED, CANCELLED, STARTED, FILTER, COMPLETED), events);
+        assertEquals(filtered("b"), tableView.getItems());
+    }
+
+    /**
+     * Test that the result of an asynchronous filtering is not used when the
+     * items have changed meanwhile, of class FilteredTableView.
+     */
+    @Test public void testItemsChanged() {
+        CountDownLatch gate = new CountDownLatch(1);
+        column.setPredicate(s -> await(gate) && s.startsWith("a"));
+        items.add(0, "a-1");
+        items.remove(1);
+        gate.countDown();
+
+        waitUntil(() -> events.contains(COMPLETED));
+        assertEquals(Arrays.asList(STARTED, CANCELLED, STARTED, FILTER, COMPLETED), events);
+        assertEquals(filtered("a"), tableView.getItems());
+    }
+
+    /**
+     * Test that an asynchronous filtering is only started again a few times
+     * when the items keep changing, of class FilteredTableView.
+     */
+    @Test public void testRestartsBounded() {
+        tableView.addEventHandler(FilterEvent.filterStartedEvent(), e -> items.add("a" + items.size()));
+        column.setPredicate(s -> s.startsWith("a"));
+
+        waitUntil(() -> events.contains(FILTER));
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i <= FilteredTableView.MAX_FILTER_RESTARTS; ++i) {
+            expected.add(STARTED);
+            expected.add(CANCELLED);
+        }
+        expected.add(FILTER);
+        assertEquals(expected, events);
+        assertEquals(filtered("a"), tableView.getItems());
+    }
+
+    /**
+     * Test that the values of the cells read by an asynchronous filtering
+     * are reused by the next one, until the items change, of class
+     * FilteredTableView.
+     */
+    @Test public void testCellValuesReused() {
+        AtomicInteger reads = new AtomicInteger();
+        column.setCellValueFactory(p -> {
+            reads.incrementAndGet();
+            return new SimpleStringProperty(p.getValue());
+        });
+        column.setPredicate(s -> s.startsWith("a"));
+        waitUntil(() -> events.contains(COMPLETED));
+        final int read = reads.get();
+        assertTrue(read >= items.size());
+
+        events.clear();
+        column.setPredicate(s -> s.startsWith("b"));
+        waitUntil(() -> events.contains(COMPLETED));
+        assertEquals(read, reads.get());
+        assertEquals(filtered("b"), tableView.getItems());
+
+        items.add("a200");
+        events.clear();
+        column.setPredicate(s -> s.startsWith("a"));
+        waitUntil(() -> events.contains(COMPLETED));
+        assertTrue(reads.get() >= read + items.size());
+        assertEquals(filtered("a"), tableView.getItems());
+    }
+
+    /**
+     * Test that the onFilter event is fired when the result of an 
+     * asynchronous filtering is applied, and can reject it, of class 
+     * FilteredTableView.
+     */
+    @Test public void testOnFilterConsumed() {
+        column.setPredicate(s -> s.startsWith("b"));
+        waitUntil(() -> events.contains(COMPLETED));
+        Predicate<String> predicate = tableView.getPredicate();
+        events.clear();
+
+        tableView.setOnFilter(Event::consume);
+        column.setPredicate(s -> s.startsWith("a"));
+        assertEquals(Collections.singletonList(STARTED), events);
+
+        waitUntil(() -> events.contains(CANCELLED));
+        assertEquals(Arrays.asList(STARTED, FILTER, CANCELLED), events);
+        assertSame(predicate, tableView.getPredicate());
+    }
+
+    /**
+     * Test that the edit of a cell, whose value is not observed, is seen by
+     * the text index of the column, of class FilteredTableView.
+     */
+    @Test public void testTextIndexedEdit() {
+        ObservableList<String[]> rows = FXCollections.observableArrayList();
+        for (int i = 0; i < 200; ++i) {
+            rows.add(new String[]{(i % 2 == 0 ? "apple " : "banana ") + i});
+        }
+        FilteredTableView<String[]> table = new FilteredTableView<>();
+        FilteredTableView.configureForFiltering(table, rows);
+        FilteredTableColumn<String[], String> nameColumn = new FilteredTableColumn<>("Name");
+        nameColumn.setCellValueFactory(p -> new SimpleStringProperty(p.getValue()[0]));
+        nameColumn.setOnEditCommit(e -> e.getRowValue()[0] = e.getNewValue());
+        nameColumn.setTextIndexed(true);
+        table.getColumns().add(nameColumn);
+
+        StringParser<String> parser = new StringParser<>(false);
+        nameColumn.setPredicate(parser.parse("contains \"an\""));
+        waitUntil(() -> nameColumn.getTextIndexMemoryUsage() > 0);
+        String[] banana = table.getItems().get(0);
+        assertEquals("banana 1", banana[0]);
+
+        Event.fireEvent(nameColumn, new TableColumn.CellEditEvent<>(table,
+                new TablePosition<>(table, 0, nameColumn), TableColumn.editCommitEvent(), "apple 1"));
+        assertEquals("apple 1", banana[0]);
+        nameColumn.setPredicate(parser.parse("contains \"apple\""));
+        assertTrue(table.getItems().contains(banana));
+        assertEquals(rows.stream().filter(row -> row[0].contains("apple")).collect(Collectors.toList()), 
+                table.getItems());
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) 2013, 2018 ControlsFX
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of ControlsFX, any associated website, nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL CONTROLSFX BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.controlsfx.tools;
+
+import com.sun.javafx.tk.Toolkit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.controlsfx.control.spreadsheet.JavaFXThreadingRule;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class RenderingMetricsTest {
+    @Rule public JavaFXThreadingRule javafxRule = new JavaFXThreadingRule();
+
+    private static void work() {
+        final long end = System.nanoTime() + 100_000;
+        while (System.nanoTime() < end) {
+            //Spend some time in the measure.
+        }
+    }
+
+    /**
+     * Test that the nested measures are counted, but only the outermost ones
+     * in the time of the pulse, of class RenderingMetrics.
+     */
+    @Test public void testNestedMeasures() {
+        RenderingMetrics metrics = new RenderingMetrics();
+        long rowStart = metrics.begin();
+        work();
+        long itemStart = metrics.begin();
+        work();
+        metrics.endUpdateItem(itemStart);
+        long spanStart = metrics.begin();
+        work();
+        metrics.endSpan(spanStart);
+        metrics.cellCreated();
+        metrics.endRowLayout(rowStart);
+        long cssStart = metrics.begin();
+        work();
+        metrics.endCss(cssStart);
+
+        RenderingMetrics.Snapshot snapshot = metrics.getSnapshot();
+        assertEquals(1, snapshot.getRowLayoutCount());
+        assertEquals(1, snapshot.getUpdateItemCount());
+        assertEquals(1, snapshot.getSpanCount());
+        assertEquals(1, snapshot.getCssPassCount());
+        assertEquals(1, snapshot.getCellCreatedCount());
+        assertEquals(0, snapshot.getCellReusedCount());
+        assertTrue(snapshot.getRowLayoutTime() > snapshot.getUpdateItemTime() + snapshot.getSpanTime());
+        assertEquals(0, snapshot.getPulseCount());
+        assertEquals(0, snapshot.getPulseTime());
+
+        Toolkit.getToolkit().firePulse();
+        snapshot = metrics.getSnapshot();
+        assertEquals(1, snapshot.getPulseCount());
+        assertEquals(snapshot.getRowLayoutTime() + snapshot.getCssTime(), snapshot.getPulseTime());
+        assertEquals(snapshot.getPulseTime(), snapshot.getLastPulseTime());
+        assertEquals(snapshot.getPulseTime(), snapshot.getMaxPulseTime());
+    }
+
+    /**
+     * Test of the pulses, of class RenderingMetrics.
+     */
+    @Test public void testPulses() {
+        RenderingMetrics metrics = new RenderingMetrics();
+        List<RenderingMetrics.Snapshot> snapshots = new ArrayList<>();
+        Consumer<RenderingMetrics.Snapshot> listener = snapshots::add;
+        metrics.addListener(listener);
+
+        metrics.endFlowLayout(metrics.begin());
+        Toolkit.getToolkit().firePulse();
+        assertEquals(1, snapshots.size());
+        long firstPulseTime = snapshots.get(0).getLastPulseTime();
+        assertEquals(snapshots.get(0).getFlowLayoutTime(), firstPulseTime);
+
+        //A pulse during which nothing is measured is not counted, and the
+        //pulses are listened again by the next measure.
+        Toolkit.getToolkit().firePulse();
+        assertEquals(1, snapshots.size());
+        assertEquals(1, metrics.getSnapshot().getPulseCount());
+        Toolkit.getToolkit().firePulse();
+        assertEquals(1, snapshots.size());
+
+        long start = metrics.begin();
+        work();
+        metrics.endFlowLayout(start);
+        Toolkit.getToolkit().firePulse();
+        assertEquals(2, snapshots.size());
+        RenderingMetrics.Snapshot snapshot = snapshots.get(1);
+        assertEquals(2, snapshot.getPulseCount());
+        assertEquals(2, snapshot.getFlowLayoutCount());
+        assertEquals(snapshot.getFlowLayoutTime(), snapshot.getPulseTime());
+        assertEquals(snapshot.getPulseTime() - firstPulseTime, snapshot.getLastPulseTime());
+        assertEquals(Math.max(firstPulseTime, snapshot.getLastPulseTime()), snapshot.getMaxPulseTime());
+
+        metrics.reset();
+        snapshot = metrics.getSnapshot();
+        assertEquals(0, snapshot.getPulseCount());
+        assertEquals(0, snapshot.getFlowLayoutCount());
+        assertEquals(0, snapshot.getPulseTime());
+
+        metrics.removeListener(listener);
+        metrics.endCss(metrics.begin());
+        Toolkit.getToolkit().firePulse();
+        assertEquals(1, metrics.getSnapshot().getPulseCount());
+        assertEquals(2, snapshots.size());
+    }
+}